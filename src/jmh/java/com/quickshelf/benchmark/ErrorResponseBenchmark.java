@@ -0,0 +1,65 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.controller.ProductController;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.exception.ErrorResponse;
+import com.quickshelf.exception.GlobalExceptionHandler;
+import com.quickshelf.exception.ResourceNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link GlobalExceptionHandler} takes to turn an exception into an error response:
+ * a plain {@link ErrorResponse} for a missing product, and a validation error body with one entry per
+ * rejected field for an invalid request body. The exceptions are created once, so their stack traces
+ * are not part of the measurement.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private GlobalExceptionHandler exceptionHandler;
+    // Neither handler reads the request
+    private final WebRequest request = null;
+    private ResourceNotFoundException notFound;
+    private MethodArgumentNotValidException invalidBody;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        exceptionHandler = new GlobalExceptionHandler();
+        notFound = new ResourceNotFoundException("Product", "id", "0f8fad5b-d9cb-469f-a165-70867728950e");
+
+        ProductDto productDto = new ProductDto(null, "", null, -1.0f, "", -5);
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(productDto, "productDto");
+        bindingResult.addError(new FieldError("productDto", "name", "Product name is required"));
+        bindingResult.addError(new FieldError("productDto", "price", "Price must be non-negative"));
+        bindingResult.addError(new FieldError("productDto", "category", "Category is required"));
+        bindingResult.addError(new FieldError("productDto", "stockQuantity", "Stock quantity must be non-negative"));
+        MethodParameter parameter = new MethodParameter(
+                ProductController.class.getMethod("createProduct", ProductDto.class), 0);
+        invalidBody = new MethodArgumentNotValidException(parameter, bindingResult);
+    }
+
+    @Benchmark
+    public ResponseEntity<ErrorResponse> notFound() {
+        return exceptionHandler.handleResourceNotFoundException(notFound, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<Object> validationError() throws Exception {
+        return exceptionHandler.handleException(invalidBody, request);
+    }
+}
@@ -0,0 +1,73 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.QuickShelfApplication;
+import com.quickshelf.model.Product;
+import com.quickshelf.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ProductService#getProductById(String)} latency with and without the product cache.
+ * Each trial boots the application without a web server against a fresh in-memory database,
+ * seeds it with {@code products} rows and then looks up random existing IDs.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductCacheBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    @Param({"10000"})
+    public int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(QuickShelfApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--quickshelf.cache.enabled=" + cacheEnabled,
+                        "--quickshelf.cache.maximum-size=" + products,
+                        "--spring.datasource.url=jdbc:h2:mem:cache-benchmark-" + cacheEnabled,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.quickshelf=WARN");
+        productService = context.getBean(ProductService.class);
+
+        List<Product> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            batch.add(new Product("Product " + i, "Benchmark product " + i, 9.99f, "Category " + (i % 20), i));
+        }
+        ids = productService.createProducts(batch).stream()
+                .map(result -> result.getProduct().getId())
+                .toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Optional<Product> getProductById() {
+        return productService.getProductById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+}
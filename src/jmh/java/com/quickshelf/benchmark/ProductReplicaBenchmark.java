@@ -0,0 +1,87 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.QuickShelfApplication;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two in-process read paths of {@link ProductService}: the on-heap product cache, sized to
+ * hold the whole catalog, and the off-heap replica. Each trial boots the application without a web server
+ * against a fresh in-memory database and seeds it with {@code products} rows. The listing is not cached, so
+ * with the cache it reaches the database. Read {@code gc.alloc.rate.norm} for the garbage each read leaves.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=ProductReplicaBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductReplicaBenchmark {
+
+    @Param({"cache", "replica"})
+    public String readPath;
+
+    @Param({"100000"})
+    public int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private String[] ids;
+    private ProductFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean replica = readPath.equals("replica");
+        context = new SpringApplicationBuilder(QuickShelfApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--quickshelf.replica.enabled=" + replica,
+                        "--quickshelf.cache.enabled=" + !replica,
+                        "--quickshelf.cache.maximum-size=" + products,
+                        "--spring.datasource.url=jdbc:h2:mem:replica-benchmark-" + readPath,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.quickshelf=WARN");
+        productService = context.getBean(ProductService.class);
+
+        List<Product> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            batch.add(new Product("Product " + i, "Benchmark product " + i, (float) (i % 100),
+                    "Category " + (i % 20), i % 7));
+        }
+        ids = productService.createProducts(batch).stream()
+                .map(result -> result.getProduct().getId())
+                .toArray(String[]::new);
+        for (String id : ids) {
+            productService.getProductById(id);
+        }
+        filter = new ProductFilter("Category 3", 10.0, 50.0, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Product> getProductById() {
+        return productService.getProductById(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Product> getFilteredPage() {
+        return productService.getProductsPage(filter, ids[ThreadLocalRandom.current().nextInt(ids.length)], 20);
+    }
+}
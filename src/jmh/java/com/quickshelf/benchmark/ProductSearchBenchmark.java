@@ -0,0 +1,63 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.service.ProductChangedEvent;
+import com.quickshelf.service.ProductSearchIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ProductSearchIndex#search(String, int)} latency on a synthetic catalog.
+ * Product texts are drawn from a vocabulary with a skewed (roughly Zipfian) distribution, so the
+ * queries cover a rare term, a mid-frequency term and a two-term query mixing a common term.
+ * The index is filled through change events; it is never rebuilt from a database here.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final int VOCABULARY = 50_000;
+
+    @Param({"1000000"})
+    public int products;
+
+    @Param({"term4000", "term300", "term300 term2", "term2"})
+    public String query;
+
+    private ProductSearchIndex searchIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        searchIndex = new ProductSearchIndex(null);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product(text(random, 4), text(random, 20), 9.99f, "Category", 1);
+            product.setId("product-" + i);
+            searchIndex.onProductChanged(ProductChangedEvent.created(product));
+        }
+    }
+
+    @Benchmark
+    public List<ProductSearchIndex.Hit> search() {
+        return searchIndex.search(query, 20);
+    }
+
+    private static String text(SplittableRandom random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            // Cubing a uniform draw skews it towards small term numbers, which become the common terms
+            double u = random.nextDouble();
+            text.append("term").append((int) (u * u * u * VOCABULARY)).append(' ');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package com.quickshelf.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.quickshelf.dto.ProductDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Jackson serialization of {@link ProductDto} lists of the sizes a listing page returns, and
+ * deserialization of the same documents as a batch create request body. The mapper is built the way
+ * Spring Boot builds the application's one, and the writer and reader are resolved once, as the
+ * message converters cache them.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({"1", "20", "100", "1000"})
+    public int size;
+
+    private List<ProductDto> products;
+    private byte[] json;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        TypeReference<List<ProductDto>> listType = new TypeReference<>() {
+        };
+        writer = objectMapper.writerFor(listType);
+        reader = objectMapper.readerFor(listType);
+
+        products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            products.add(new ProductDto(UUID.randomUUID().toString(), "Product " + i,
+                    "Serialization benchmark product " + i, 9.99f + i, "Category " + (i % 20), i));
+        }
+        json = writer.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(products);
+    }
+
+    @Benchmark
+    public List<ProductDto> deserialize() throws IOException {
+        return reader.readValue(json);
+    }
+}
@@ -0,0 +1,120 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.QuickShelfApplication;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link ProductService} paths behind the product endpoints: single and multi-get, the
+ * first page of a filtered listing, create and update. Each runs against both storage engines, an
+ * embedded H2 database through JPA ({@code jpa}) and the memory-mapped product log ({@code log}). The
+ * application is booted without a web server and with the product cache disabled, so every read
+ * reaches the storage.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000"})
+    public int products;
+
+    @Param({"jpa", "log"})
+    public String engine;
+
+    private Path logDirectory;
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private String[] ids;
+    private ProductFilter filter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        logDirectory = Files.createTempDirectory("service-benchmark");
+        context = new SpringApplicationBuilder(QuickShelfApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--quickshelf.cache.enabled=false",
+                        "--quickshelf.storage.engine=" + engine,
+                        "--quickshelf.storage.log.directory=" + logDirectory,
+                        "--spring.datasource.url=jdbc:h2:mem:service-benchmark",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.quickshelf=WARN");
+        productService = context.getBean(ProductService.class);
+
+        List<Product> batch = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            batch.add(newProduct(i));
+        }
+        ids = productService.createProducts(batch).stream()
+                .map(result -> result.getProduct().getId())
+                .toArray(String[]::new);
+        filter = new ProductFilter("Category 7", 5.0, null, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(logDirectory);
+    }
+
+    @Benchmark
+    public Optional<Product> getProductById() {
+        return productService.getProductById(randomId());
+    }
+
+    @Benchmark
+    public Map<String, Product> getProductsByIds() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(ids.length - PAGE_SIZE);
+        return productService.getProductsByIds(Arrays.asList(ids).subList(from, from + PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<Product> getFilteredPage() {
+        return productService.getProductsPage(filter, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Product createProduct() {
+        return productService.createProduct(newProduct(ThreadLocalRandom.current().nextInt(products)));
+    }
+
+    @Benchmark
+    public Product updateProduct() {
+        return productService.updateProduct(randomId(), newProduct(ThreadLocalRandom.current().nextInt(products)));
+    }
+
+    private String randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    private static Product newProduct(int i) {
+        return new Product("Product " + i, "Service benchmark product " + i, 9.99f + i % 50, "Category " + (i % 20),
+                i % 7);
+    }
+}
@@ -0,0 +1,74 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.service.ProductChangedEvent;
+import com.quickshelf.service.ProductColumns;
+import com.quickshelf.service.ProductStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ProductColumns#stats()} on a synthetic catalog against the same aggregates computed
+ * from a list of {@link Product} objects, which is what a caller of {@code getAllProducts()} has to do.
+ * The columns are filled through change events; they are never rebuilt from a database here.
+ *
+ * <p>Run with {@code ./gradlew jmh -PjmhIncludes=ProductStatsBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductStatsBenchmark {
+
+    @Param({"1000000"})
+    public int products;
+
+    private ProductColumns columns;
+    private List<Product> catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        columns = new ProductColumns(null);
+        catalog = new ArrayList<>(products);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product("Product " + i, "Benchmark product", random.nextInt(10_000) / 100f,
+                    "Category " + random.nextInt(50), random.nextInt(1000));
+            product.setId("product-" + i);
+            catalog.add(product);
+            columns.onProductChanged(ProductChangedEvent.created(product));
+        }
+    }
+
+    @Benchmark
+    public ProductStats columnar() {
+        return columns.stats();
+    }
+
+    @Benchmark
+    public Map<String, double[]> objects() {
+        // count, total stock, inventory value, price sum, min price, max price per category
+        Map<String, double[]> groups = new HashMap<>();
+        for (Product product : catalog) {
+            double[] group = groups.computeIfAbsent(product.getCategory(),
+                    category -> new double[]{0, 0, 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY});
+            float price = product.getPrice();
+            int stockQuantity = product.getStockQuantity();
+            group[0]++;
+            group[1] += stockQuantity;
+            group[2] += (double) price * stockQuantity;
+            group[3] += price;
+            group[4] = Math.min(group[4], price);
+            group[5] = Math.max(group[5], price);
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,58 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.service.ProductChangedEvent;
+import com.quickshelf.service.ProductSuggestIndex;
+import com.quickshelf.service.ProductSuggestion;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ProductSuggestIndex#suggest(String, int)} latency on a synthetic catalog of
+ * three-word product names, for a one-letter prefix (huge subtree) and a longer, selective one.
+ * The trie is filled through change events; it is never rebuilt from a database here.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSuggestBenchmark {
+
+    private static final String[] WORDS = {
+            "wireless", "mouse", "keyboard", "laptop", "stand", "desk", "lamp", "cable", "charger", "monitor",
+            "speaker", "headphones", "camera", "tripod", "router", "adapter", "battery", "case", "cover", "dock"
+    };
+
+    @Param({"1000000"})
+    public int products;
+
+    @Param({"w", "wireless mo", "lamp c"})
+    public String prefix;
+
+    private ProductSuggestIndex suggestIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        suggestIndex = new ProductSuggestIndex(null);
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < products; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+            Product product = new Product(name, "Benchmark product", 9.99f, "Category", random.nextInt(1000));
+            product.setId("product-" + i);
+            suggestIndex.onProductChanged(ProductChangedEvent.created(product));
+        }
+    }
+
+    @Benchmark
+    public List<ProductSuggestion> suggest() {
+        return suggestIndex.suggest(prefix, 10);
+    }
+}
@@ -0,0 +1,55 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.dto.ProductDto;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures Bean Validation of a {@link ProductDto}, as done for every create and update request body.
+ * A valid product costs only the constraint checks; an invalid one, with every constrained field
+ * wrong, also pays for interpolating the violation messages.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private ProductDto valid;
+    private ProductDto invalid;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        valid = new ProductDto(null, "Benchmark Product", "A valid product", 19.99f, "Benchmarks", 42);
+        invalid = new ProductDto(null, "", null, -1.0f, " ", -5);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductDto>> validProduct() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductDto>> invalidProduct() {
+        return validator.validate(invalid);
+    }
+}
@@ -0,0 +1,296 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.QuickShelfApplication;
+import com.quickshelf.model.Product;
+import com.quickshelf.service.ProductService;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Compares request handling on Tomcat's bounded platform-thread pool with handling on virtual threads
+ * and on the reactive stack (WebFlux on Netty with R2DBC), against a slow database. For each stack the
+ * application is started on a random port with every database statement delayed by a fixed latency, as
+ * if the database were remote, and the product cache disabled, so every {@code GET /api/products/{id}}
+ * waits on the database. For each concurrency level, that many clients then each keep one connection
+ * busy (closed loop: a client sends its next request as soon as the previous response arrives) and the
+ * throughput and latency percentiles of the requests completed in the measurement window are reported.
+ *
+ * <p>Run with {@code ./gradlew loadBenchmark}; options are passed with
+ * {@code -PloadArgs="--stacks=virtual,reactive --connections=1000,10000 --duration=30 --db-latency-ms=20
+ * --pool-size=1000"}. The pool size applies to the JDBC pool of the servlet stacks and the R2DBC pool of
+ * the reactive one. Client and server share one JVM, which needs two file descriptors per connection,
+ * so raise {@code ulimit -n} above twice the highest connection count.</p>
+ */
+public final class RequestThreadLoadBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+
+    private RequestThreadLoadBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints one result line per stack and concurrency level.
+     *
+     * @param args options of the form {@code --name=value}
+     * @throws Exception if the application cannot be started or a client fails unexpectedly
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int[] connections = Arrays.stream(options.getOrDefault("connections", "1000,2500,5000,10000").split(","))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "20")));
+        long dbLatencyMillis = Long.parseLong(options.getOrDefault("db-latency-ms", "20"));
+        int poolSize = Integer.parseInt(options.getOrDefault("pool-size", "1000"));
+        int maxConnections = Arrays.stream(connections).max().orElse(0) + 1000;
+        String[] stacks = options.getOrDefault("stacks", "platform,virtual,reactive").split(",");
+
+        System.out.printf("Database latency %d ms, connection pool %d, %d s per run%n",
+                dbLatencyMillis, poolSize, duration.toSeconds());
+        System.out.printf("%-9s %11s %12s %9s %9s %9s %8s%n",
+                "stack", "connections", "requests/s", "p50 ms", "p99 ms", "max ms", "errors");
+        for (String stack : stacks) {
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(QuickShelfApplication.class)
+                    .initializers(applicationContext -> applicationContext.getBeanFactory()
+                            .addBeanPostProcessor(new SlowDatabase(dbLatencyMillis)))
+                    .run("--server.port=0",
+                            "--spring.main.web-application-type=" + ("reactive".equals(stack) ? "reactive" : "servlet"),
+                            "--spring.threads.virtual.enabled=" + "virtual".equals(stack),
+                            "--server.tomcat.max-connections=" + maxConnections,
+                            "--server.tomcat.accept-count=" + maxConnections,
+                            "--server.tomcat.max-keep-alive-requests=-1",
+                            "--spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                            "--spring.datasource.url=jdbc:h2:mem:load-benchmark-" + stack,
+                            "--quickshelf.r2dbc.url=r2dbc:h2:mem:///load-benchmark-" + stack,
+                            "--quickshelf.r2dbc.pool.max-size=" + poolSize,
+                            "--quickshelf.cache.enabled=false",
+                            "--spring.jpa.show-sql=false",
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.quickshelf=WARN");
+            try {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                String[] ids = seed(context.getBean(ProductService.class));
+                for (int clients : connections) {
+                    Result result = run(port, ids, clients, warmup, duration);
+                    System.out.printf("%-9s %11d %12.0f %9.1f %9.1f %9.1f %8d%n",
+                            stack, clients, result.throughput(),
+                            result.percentile(50), result.percentile(99), result.percentile(100), result.errors());
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Runs one closed-loop load level.
+     */
+    private static Result run(int port, String[] ids, int clients, Duration warmup, Duration duration)
+            throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        String baseUrl = "http://localhost:" + port + "/api/products/";
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+
+        List<Future<long[]>> latencies = new ArrayList<>(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                latencies.add(executor.submit(() -> {
+                    long[] recorded = new long[1024];
+                    int count = 0;
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (long now = System.nanoTime(); now < measureUntil; now = System.nanoTime()) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + ids[random.nextInt(ids.length)]))
+                                .timeout(Duration.ofSeconds(60))
+                                .build();
+                        boolean ok;
+                        try {
+                            ok = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+                        } catch (Exception ex) {
+                            ok = false;
+                        }
+                        long end = System.nanoTime();
+                        if (now >= measureFrom && end <= measureUntil) {
+                            if (!ok) {
+                                errors.incrementAndGet();
+                            } else {
+                                if (count == recorded.length) {
+                                    recorded = Arrays.copyOf(recorded, count * 2);
+                                }
+                                recorded[count++] = end - now;
+                            }
+                        }
+                    }
+                    return Arrays.copyOf(recorded, count);
+                }));
+            }
+        }
+
+        long[][] perClient = new long[clients][];
+        int total = 0;
+        for (int i = 0; i < clients; i++) {
+            perClient[i] = latencies.get(i).get();
+            total += perClient[i].length;
+        }
+        long[] all = new long[total];
+        int offset = 0;
+        for (long[] recorded : perClient) {
+            System.arraycopy(recorded, 0, all, offset, recorded.length);
+            offset += recorded.length;
+        }
+        Arrays.sort(all);
+        return new Result(all, errors.get(), duration);
+    }
+
+    private static String[] seed(ProductService productService) {
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(new Product("Product " + i, "Load test product " + i, 9.99f, "Category " + (i % 20), i));
+        }
+        return productService.createProducts(products).stream()
+                .map(result -> result.getProduct().getId())
+                .toArray(String[]::new);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Latencies of one load level, sorted, in nanoseconds.
+     */
+    private record Result(long[] latencies, long errors, Duration duration) {
+
+        double throughput() {
+            return latencies.length / (duration.toNanos() / 1e9);
+        }
+
+        double percentile(double percentile) {
+            if (latencies.length == 0) {
+                return Double.NaN;
+            }
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+    }
+
+    /**
+     * Wraps the data source so every statement is prepared only after a fixed delay, which holds the
+     * pooled connection and the request thread as a round trip to a remote database would. The delay
+     * is a plain sleep outside any monitor, so it never pins a virtual thread. The R2DBC client of the
+     * reactive stack gets the same delay as a timer before each statement executes, which holds the
+     * pooled connection but no thread.
+     */
+    private record SlowDatabase(long latencyMillis) implements BeanPostProcessor {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DatabaseClient databaseClient) {
+                return DatabaseClient.create(delayed(databaseClient.getConnectionFactory()));
+            }
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    return delayed(super.getConnection());
+                }
+            };
+        }
+
+        private Connection delayed(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, (proxy, method, methodArgs) -> {
+                        if (method.getName().startsWith("prepare")) {
+                            Thread.sleep(latencyMillis);
+                        }
+                        return invoke(connection, method, methodArgs);
+                    });
+        }
+
+        private ConnectionFactory delayed(ConnectionFactory connectionFactory) {
+            return proxy(ConnectionFactory.class, connectionFactory, (method, result) ->
+                    "create".equals(method.getName())
+                            ? Mono.from((Publisher<?>) result).map(connection ->
+                                    proxy(io.r2dbc.spi.Connection.class, (io.r2dbc.spi.Connection) connection,
+                                            (connectionMethod, statement) -> "createStatement".equals(connectionMethod.getName())
+                                                    ? delayed((Statement) statement)
+                                                    : statement))
+                            : result);
+        }
+
+        private Statement delayed(Statement statement) {
+            Duration latency = Duration.ofMillis(latencyMillis);
+            return proxy(Statement.class, statement, (method, result) -> "execute".equals(method.getName())
+                    ? Mono.delay(latency).thenMany((Publisher<?>) result)
+                    : result);
+        }
+
+        /**
+         * Proxies {@code target} as {@code type}, passing each call's result through {@code decorator}.
+         * Calls that return the target itself, like the fluent binds of a {@link Statement}, return the
+         * proxy instead, so the chain stays decorated.
+         */
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, BiFunction<Method, Object, Object> decorator) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                    (proxy, method, methodArgs) -> {
+                        Object result = invoke(target, method, methodArgs);
+                        return result == target ? proxy : decorator.apply(method, result);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] methodArgs) throws Throwable {
+            try {
+                return method.invoke(target, methodArgs);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.QuickShelfApplication;
+import com.quickshelf.model.Product;
+import com.quickshelf.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ProductService#reserveStock(String, int)} throughput at 64 threads, against the
+ * database (one conditional UPDATE per reservation) and against the in-memory stock ledger (journaled
+ * and forced to disk with group commit, flushed every 200 ms). All threads reserve from a small set of
+ * hot products, as in a flash sale, whose stock is large enough never to run out during a trial.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class StockReservationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean ledgerEnabled;
+
+    @Param({"1", "16"})
+    public int hotProducts;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private Path journalDirectory;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        journalDirectory = Files.createTempDirectory("stock-journal");
+        String database = "stock-benchmark-" + ledgerEnabled + "-" + hotProducts;
+        context = new SpringApplicationBuilder(QuickShelfApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--quickshelf.stock.ledger.enabled=" + ledgerEnabled,
+                        "--quickshelf.stock.ledger.journal-dir=" + journalDirectory,
+                        "--spring.datasource.url=jdbc:h2:mem:" + database,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.quickshelf=WARN");
+        productService = context.getBean(ProductService.class);
+
+        List<Product> products = new ArrayList<>(hotProducts);
+        for (int i = 0; i < hotProducts; i++) {
+            products.add(new Product("Hot product " + i, "Flash sale", 9.99f, "Sale", 2_000_000_000));
+        }
+        ids = productService.createProducts(products).stream()
+                .map(result -> result.getProduct().getId())
+                .toArray(String[]::new);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (var files = Files.list(journalDirectory)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(journalDirectory);
+    }
+
+    @Benchmark
+    public Product reserveStock() {
+        return productService.reserveStock(ids[ThreadLocalRandom.current().nextInt(ids.length)], 1);
+    }
+}
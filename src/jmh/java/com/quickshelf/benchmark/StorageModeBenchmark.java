@@ -0,0 +1,173 @@
+package com.quickshelf.benchmark;
+
+import com.quickshelf.QuickShelfApplication;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import com.quickshelf.service.ProductService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Compares the in-memory database with the file-backed {@code persistent} profile at a large catalog
+ * size. For each mode the application is started without a web server and with the product cache
+ * disabled, and the benchmark measures:
+ * <ul>
+ *   <li>the start time with an empty database;</li>
+ *   <li>write throughput, inserting the catalog through {@link ProductService#createProducts(List)} in
+ *       batches;</li>
+ *   <li>read latency of {@link ProductService#getProductById(String)} for random IDs, after a warmup;</li>
+ *   <li>the time until the full catalog can be served again after a restart. The file-backed database
+ *       only has to be reopened; the in-memory one has to be started and filled again.</li>
+ * </ul>
+ *
+ * <p>Run with {@code ./gradlew storageBenchmark}; options are passed with
+ * {@code -PstorageArgs="--rows=1000000 --reads=200000 --batch=10000"}.</p>
+ */
+public final class StorageModeBenchmark {
+
+    private StorageModeBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints one result line per storage mode.
+     *
+     * @param args options of the form {@code --name=value}
+     * @throws IOException if the database directory cannot be created or removed
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parse(args);
+        int rows = Integer.parseInt(options.getOrDefault("rows", "1000000"));
+        int reads = Integer.parseInt(options.getOrDefault("reads", "200000"));
+        int batch = Integer.parseInt(options.getOrDefault("batch", "10000"));
+
+        System.out.printf("%d rows, %d reads, batches of %d%n", rows, reads, batch);
+        System.out.printf("%-8s %14s %14s %12s %12s %12s %18s%n",
+                "mode", "empty start ms", "writes rows/s", "read p50 us", "read p99 us", "read p999 us",
+                "restart serving ms");
+        for (String mode : new String[] {"memory", "file"}) {
+            Path directory = Files.createTempDirectory("quickshelf-storage");
+            try {
+                long startedAt = System.nanoTime();
+                ConfigurableApplicationContext context = start(mode, directory);
+                double emptyStartMillis = (System.nanoTime() - startedAt) / 1e6;
+                String[] ids;
+                double writesPerSecond;
+                long[] latencies;
+                try {
+                    ProductService productService = context.getBean(ProductService.class);
+                    long writeStart = System.nanoTime();
+                    ids = insert(productService, rows, batch);
+                    writesPerSecond = rows / ((System.nanoTime() - writeStart) / 1e9);
+                    latencies = read(productService, ids, reads);
+                } finally {
+                    context.close();
+                }
+
+                long restartedAt = System.nanoTime();
+                context = start(mode, directory);
+                try {
+                    if ("memory".equals(mode)) {
+                        insert(context.getBean(ProductService.class), rows, batch);
+                    }
+                    long count = context.getBean(ProductRepository.class).count();
+                    if (count != rows) {
+                        throw new IllegalStateException("Expected " + rows + " rows after restarting the " + mode
+                                + " database, found " + count);
+                    }
+                } finally {
+                    context.close();
+                }
+                double restartMillis = (System.nanoTime() - restartedAt) / 1e6;
+
+                System.out.printf("%-8s %14.0f %14.0f %12.1f %12.1f %12.1f %18.0f%n", mode, emptyStartMillis,
+                        writesPerSecond, percentile(latencies, 50), percentile(latencies, 99),
+                        percentile(latencies, 99.9), restartMillis);
+            } finally {
+                FileSystemUtils.deleteRecursively(directory);
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String mode, Path directory) {
+        List<String> args = new ArrayList<>(List.of(
+                "--quickshelf.cache.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.quickshelf=WARN"));
+        if ("file".equals(mode)) {
+            args.add("--spring.profiles.active=persistent");
+            args.add("--quickshelf.storage.path=" + directory.resolve("quickshelfdb"));
+        } else {
+            args.add("--spring.datasource.url=jdbc:h2:mem:storage-benchmark");
+            args.add("--spring.sql.init.data-locations=");
+        }
+        return new SpringApplicationBuilder(QuickShelfApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+    }
+
+    private static String[] insert(ProductService productService, int rows, int batch) {
+        String[] ids = new String[rows];
+        for (int offset = 0; offset < rows; offset += batch) {
+            List<Product> products = new ArrayList<>(batch);
+            for (int i = offset; i < Math.min(rows, offset + batch); i++) {
+                products.add(new Product("Product " + i, "Storage benchmark product " + i, 9.99f + i % 100,
+                        "Category " + (i % 50), i % 500));
+            }
+            List<String> created = productService.createProducts(products).stream()
+                    .map(result -> result.getProduct().getId())
+                    .toList();
+            for (int i = 0; i < created.size(); i++) {
+                ids[offset + i] = created.get(i);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Looks up random products, first as a warmup and then measured, and returns the sorted latencies.
+     */
+    private static long[] read(ProductService productService, String[] ids, int reads) {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < reads / 4; i++) {
+            productService.getProductById(ids[random.nextInt(ids.length)]);
+        }
+        long[] latencies = new long[reads];
+        for (int i = 0; i < reads; i++) {
+            String id = ids[random.nextInt(ids.length)];
+            long start = System.nanoTime();
+            productService.getProductById(id);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e3;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,156 @@
+package com.quickshelf.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and response statuses of a load test, per endpoint. Latencies are recorded in
+ * microseconds, from the time a request was scheduled to be sent until its response arrived, so
+ * time a request spent waiting to be sent behind a stalled server counts against it.
+ */
+final class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = Duration.ofMinutes(10).toNanos() / 1000;
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+    private final Endpoint total = new Endpoint();
+
+    /**
+     * Records one completed request.
+     *
+     * @param endpoint      the request's endpoint name
+     * @param latencyMicros time from the scheduled send to the response
+     * @param serviceMicros time from the actual send to the response
+     * @param status        the response status, or {@code 0} if no response arrived
+     */
+    void record(String endpoint, long latencyMicros, long serviceMicros, int status) {
+        for (Endpoint recorder : List.of(endpoints.computeIfAbsent(endpoint, name -> new Endpoint()), total)) {
+            recorder.latency.recordValue(Math.min(latencyMicros, HIGHEST_TRACKABLE_MICROS));
+            recorder.service.recordValue(Math.min(serviceMicros, HIGHEST_TRACKABLE_MICROS));
+            recorder.statuses.computeIfAbsent(status, code -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Summarizes the recorded requests.
+     *
+     * @param options  the options the load test ran with, echoed in the summary
+     * @param duration length of the measurement window
+     * @param dropped  requests scheduled in the window that were never sent because too many were in flight
+     * @return a JSON-friendly summary, one entry per endpoint plus the total
+     */
+    Map<String, Object> summarize(Map<String, String> options, Duration duration, long dropped) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("timestamp", Instant.now().toString());
+        summary.put("options", new TreeMap<>(options));
+        summary.put("durationSeconds", duration.toSeconds());
+        summary.put("dropped", dropped);
+        summary.put("total", total.summarize(duration));
+        Map<String, Object> perEndpoint = new LinkedHashMap<>();
+        endpoints.forEach((name, endpoint) -> perEndpoint.put(name, endpoint.summarize(duration)));
+        summary.put("endpoints", perEndpoint);
+        return summary;
+    }
+
+    /**
+     * Prints one line per endpoint and writes {@code report.json} and {@code report.html} to the
+     * given directory.
+     */
+    @SuppressWarnings("unchecked")
+    void write(Map<String, Object> summary, Path directory, ObjectMapper objectMapper) throws IOException {
+        Map<String, Map<String, Object>> rows = new LinkedHashMap<>();
+        ((Map<String, Map<String, Object>>) summary.get("endpoints")).forEach(rows::put);
+        rows.put("Total", (Map<String, Object>) summary.get("total"));
+
+        System.out.printf("%-36s %9s %10s %9s %9s %9s %9s  %s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "statuses");
+        rows.forEach((name, row) -> System.out.printf("%-36s %9d %10.1f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                name, row.get("requests"), row.get("throughput"), row.get("p50Ms"), row.get("p99Ms"),
+                row.get("p999Ms"), row.get("maxMs"), row.get("statuses")));
+        if ((long) summary.get("dropped") > 0) {
+            System.out.printf("%d requests were never sent because too many were in flight%n", summary.get("dropped"));
+        }
+
+        Files.createDirectories(directory);
+        objectMapper.copy().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), summary);
+        Files.writeString(directory.resolve("report.html"), html(summary, rows));
+        System.out.println("Report written to " + directory.toAbsolutePath());
+    }
+
+    private static String html(Map<String, Object> summary, Map<String, Map<String, Object>> rows) {
+        StringBuilder html = new StringBuilder("""
+                <!DOCTYPE html>
+                <html><head><meta charset="utf-8"><title>QuickShelf load test</title>
+                <style>body{font-family:sans-serif}table{border-collapse:collapse}
+                td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}td:first-child{text-align:left}</style>
+                </head><body><h1>QuickShelf load test</h1>
+                """);
+        html.append("<p>").append(escape(String.valueOf(summary.get("timestamp")))).append(", ")
+                .append(summary.get("durationSeconds")).append(" s measured, options ")
+                .append(escape(String.valueOf(summary.get("options")))).append("</p>\n");
+        html.append("<p>Latency is measured from the scheduled send time, so it includes any time a request "
+                + "waited to be sent. Service time starts at the actual send.</p>\n");
+        html.append("<table><tr><th>Endpoint</th><th>Requests</th><th>Requests/s</th><th>p50 ms</th>"
+                + "<th>p99 ms</th><th>p99.9 ms</th><th>Max ms</th><th>Service p99 ms</th><th>Statuses</th></tr>\n");
+        rows.forEach((name, row) -> html.append("<tr><td>").append(escape(name)).append("</td><td>")
+                .append(row.get("requests")).append("</td><td>")
+                .append(String.format("%.1f", (double) row.get("throughput"))).append("</td><td>")
+                .append(String.format("%.2f", (double) row.get("p50Ms"))).append("</td><td>")
+                .append(String.format("%.2f", (double) row.get("p99Ms"))).append("</td><td>")
+                .append(String.format("%.2f", (double) row.get("p999Ms"))).append("</td><td>")
+                .append(String.format("%.2f", (double) row.get("maxMs"))).append("</td><td>")
+                .append(String.format("%.2f", (double) row.get("serviceP99Ms"))).append("</td><td>")
+                .append(escape(String.valueOf(row.get("statuses")))).append("</td></tr>\n"));
+        return html.append("</table></body></html>\n").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * Recorders of one endpoint.
+     */
+    private static final class Endpoint {
+
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Histogram service = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+        Map<String, Object> summarize(Duration duration) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", latency.getTotalCount());
+            row.put("throughput", latency.getTotalCount() / (duration.toNanos() / 1e9));
+            row.put("p50Ms", millis(latency, 50));
+            row.put("p99Ms", millis(latency, 99));
+            row.put("p999Ms", millis(latency, 99.9));
+            row.put("maxMs", latency.getMaxValue() / 1000.0);
+            row.put("serviceP50Ms", millis(service, 50));
+            row.put("serviceP99Ms", millis(service, 99));
+            Map<String, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status == 0 ? "failed" : status.toString(), count.sum()));
+            row.put("statuses", counts);
+            return row;
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.quickshelf.benchmark.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickshelf.QuickShelfApplication;
+import com.quickshelf.dto.BatchCreateResponseDto;
+import com.quickshelf.dto.BatchItemResultDto;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load generator. Requests are sent at a fixed average arrival rate, whether or not
+ * earlier responses have arrived, as independent users would send them; a slow server therefore
+ * builds up a queue instead of slowing the load down. Each request's latency is measured from the
+ * time it was scheduled to be sent, not the time it actually was, so neither a stalled server nor a
+ * lagging dispatcher can hide latency (no coordinated omission). Latencies go into an HdrHistogram
+ * per endpoint, and throughput and p50/p99/p99.9 are reported on the console and as JSON and HTML.
+ *
+ * <p>The workload is a synthetic mix ({@code --workload=mix:read=90,update=9,create=1}, the default),
+ * the Postman collection ({@code --workload=postman:postman/QuickShelf.postman_collection.json}) or a
+ * JSONL traffic log ({@code --workload=jsonl:traffic.jsonl}); see {@link Workload#parse}. Before the
+ * run, {@code --products} products are created through the batch endpoint, and requests that address
+ * a product pick one of them at random.</p>
+ *
+ * <p>Run with {@code ./gradlew loadTest}; options are passed with
+ * {@code -PloadTestArgs="--rate=2000 --duration=60 --arrival=poisson"}. Without {@code --target}, the
+ * application is started in this JVM on a random port; with {@code --target=http://host:8080}, an
+ * already running server is loaded instead.</p>
+ */
+public final class LoadGenerator {
+
+    private static final int SEED_CHUNK_SIZE = 1000;
+
+    private LoadGenerator() {
+    }
+
+    /**
+     * Runs the load test and writes its report.
+     *
+     * @param args options of the form {@code --name=value}
+     * @throws Exception if the server cannot be started or seeded, or the report cannot be written
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        ObjectMapper objectMapper = new ObjectMapper();
+        Workload workload = Workload.parse(options.getOrDefault("workload", "mix:read=90,update=9,create=1"),
+                objectMapper);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "500"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration timeout = Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "30")));
+        int products = Integer.parseInt(options.getOrDefault("products", "1000"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "10000"));
+        boolean poisson = switch (options.getOrDefault("arrival", "constant")) {
+            case "constant" -> false;
+            case "poisson" -> true;
+            default -> throw new IllegalArgumentException("Expected --arrival=constant or --arrival=poisson");
+        };
+        SplittableRandom random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "42")));
+        Path reportDirectory = Path.of(options.getOrDefault("report", "build/reports/load"));
+
+        ConfigurableApplicationContext context = null;
+        String target = options.get("target");
+        if (target == null) {
+            context = new SpringApplicationBuilder(QuickShelfApplication.class)
+                    .run("--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:load-test",
+                            "--spring.jpa.show-sql=false",
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.quickshelf=WARN");
+            target = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(timeout)
+                    .executor(executor)
+                    .build();
+            String[] ids = seed(httpClient, target, products, random, objectMapper);
+            System.out.printf("Target %s, %.0f requests/s (%s arrivals), %d s warmup, %d s measured, %d products%n",
+                    target, rate, poisson ? "poisson" : "constant", warmup.toSeconds(), duration.toSeconds(),
+                    ids.length);
+
+            LatencyReport report = new LatencyReport();
+            long dropped = run(httpClient, URI.create(target), workload, ids, report, random, rate, poisson,
+                    warmup, duration, timeout, maxInFlight);
+            report.write(report.summarize(options, duration, dropped), reportDirectory, objectMapper);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Sends the load, recording requests scheduled after the warmup, and waits for the last responses.
+     *
+     * @return the number of measured requests dropped because {@code maxInFlight} were outstanding
+     */
+    private static long run(HttpClient httpClient, URI target, Workload workload, String[] ids,
+            LatencyReport report, SplittableRandom random, double rate, boolean poisson, Duration warmup,
+            Duration duration, Duration timeout, int maxInFlight) throws InterruptedException {
+        double meanIntervalNanos = 1e9 / rate;
+        AtomicInteger inFlight = new AtomicInteger();
+        long dropped = 0;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long measureUntil = measureFrom + duration.toNanos();
+        double offset = 0;
+
+        for (long next = start; next < measureUntil; next = start + (long) offset) {
+            long intended = next;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            LoadRequest template = workload.next(random);
+            boolean measured = intended >= measureFrom;
+            if (inFlight.get() >= maxInFlight) {
+                dropped += measured ? 1 : 0;
+            } else {
+                inFlight.incrementAndGet();
+                HttpRequest request = toHttpRequest(target, template, ids[random.nextInt(ids.length)], timeout);
+                long sent = System.nanoTime();
+                httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, failure) -> {
+                            long now = System.nanoTime();
+                            if (measured) {
+                                report.record(template.endpoint(), (now - intended) / 1000, (now - sent) / 1000,
+                                        response == null ? 0 : response.statusCode());
+                            }
+                            inFlight.decrementAndGet();
+                        });
+            }
+            // Exponential gaps between arrivals make a Poisson process with the same mean rate
+            offset += poisson ? -Math.log(1 - random.nextDouble()) * meanIntervalNanos : meanIntervalNanos;
+        }
+
+        long giveUpAt = System.nanoTime() + timeout.toNanos() + Duration.ofSeconds(5).toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < giveUpAt) {
+            Thread.sleep(10);
+        }
+        return dropped;
+    }
+
+    private static HttpRequest toHttpRequest(URI target, LoadRequest template, String id, Duration timeout) {
+        URI uri = target.resolve(template.path().replace(LoadRequest.PRODUCT_ID, id));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .method(template.method(), template.body() == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(template.body().replace(LoadRequest.PRODUCT_ID, id)));
+        template.headers().forEach(builder::header);
+        return builder.build();
+    }
+
+    /**
+     * Creates the products the workload's requests address, through the batch endpoint.
+     */
+    private static String[] seed(HttpClient httpClient, String target, int products, SplittableRandom random,
+            ObjectMapper objectMapper) throws Exception {
+        List<String> ids = new ArrayList<>(products);
+        for (int offset = 0; offset < products; offset += SEED_CHUNK_SIZE) {
+            List<String> chunk = new ArrayList<>();
+            for (int i = offset; i < Math.min(products, offset + SEED_CHUNK_SIZE); i++) {
+                chunk.add(Workload.SyntheticMix.productJson(random));
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(target + "/api/products/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("[" + String.join(",", chunk) + "]"))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Seeding failed with status " + response.statusCode() + ": "
+                        + response.body());
+            }
+            objectMapper.readValue(response.body(), BatchCreateResponseDto.class).getResults().stream()
+                    .map(BatchItemResultDto::getId)
+                    .forEach(ids::add);
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("Expected --products of at least 1");
+        }
+        return ids.toArray(String[]::new);
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,21 @@
+package com.quickshelf.benchmark.load;
+
+import java.util.Map;
+
+/**
+ * One request of a workload, before its product ID placeholder is filled in.
+ *
+ * @param endpoint name the request's latencies are reported under, such as {@code GET /api/products/{id}}
+ * @param method   HTTP method
+ * @param path     path and query, relative to the target server; {@value #PRODUCT_ID} stands for the ID
+ *                 of a random existing product
+ * @param headers  request headers
+ * @param body     request body, or {@code null} for none; may contain {@value #PRODUCT_ID} too
+ */
+record LoadRequest(String endpoint, String method, String path, Map<String, String> headers, String body) {
+
+    /**
+     * Placeholder replaced, in the path and body, by the ID of a random seeded product.
+     */
+    static final String PRODUCT_ID = "{id}";
+}
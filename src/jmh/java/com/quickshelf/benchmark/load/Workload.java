@@ -0,0 +1,254 @@
+package com.quickshelf.benchmark.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Source of the requests a load test sends. Requests are drawn one at a time, by the single dispatcher
+ * thread, so implementations need not be thread-safe.
+ */
+interface Workload {
+
+    /**
+     * Draws the next request to send.
+     *
+     * @param random the load test's random source
+     * @return the request
+     */
+    LoadRequest next(SplittableRandom random);
+
+    /**
+     * Creates the workload described by a {@code --workload} option:
+     * <ul>
+     *   <li>{@code mix:read=90,update=9,create=1}: a synthetic mix of the operations {@code read},
+     *       {@code list}, {@code search}, {@code update} and {@code create}, weighted as given;</li>
+     *   <li>{@code postman:<file>}: the requests of a Postman v2.1 collection, replayed in order,
+     *       round after round;</li>
+     *   <li>{@code jsonl:<file>}: a traffic log with one JSON request per line, replayed the same way.</li>
+     * </ul>
+     *
+     * @param spec         the option value
+     * @param objectMapper mapper used to read recorded traffic
+     * @return the workload
+     */
+    static Workload parse(String spec, ObjectMapper objectMapper) {
+        int colon = spec.indexOf(':');
+        String kind = colon < 0 ? spec : spec.substring(0, colon);
+        String argument = colon < 0 ? "" : spec.substring(colon + 1);
+        return switch (kind) {
+            case "mix" -> SyntheticMix.parse(argument);
+            case "postman" -> new Replay(Replay.fromPostman(read(argument, objectMapper)));
+            case "jsonl" -> new Replay(Replay.fromTrafficLog(Path.of(argument), objectMapper));
+            default -> throw new IllegalArgumentException("Unknown workload " + spec
+                    + "; expected mix:..., postman:<file> or jsonl:<file>");
+        };
+    }
+
+    private static JsonNode read(String file, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.readTree(Path.of(file).toFile());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read " + file, ex);
+        }
+    }
+
+    /**
+     * Synthetic mix of product operations, each drawn with a probability proportional to its weight.
+     */
+    final class SyntheticMix implements Workload {
+
+        private static final Map<String, String> JSON = Map.of("Content-Type", "application/json");
+        private static final String[] SEARCH_TERMS = {"product", "load", "category", "test"};
+
+        private final List<String> operations = new ArrayList<>();
+        private final int[] cumulativeWeights;
+
+        private SyntheticMix(Map<String, Integer> weights) {
+            cumulativeWeights = new int[weights.size()];
+            int total = 0;
+            for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+                total += weight.getValue();
+                cumulativeWeights[operations.size()] = total;
+                operations.add(weight.getKey());
+            }
+            if (total <= 0) {
+                throw new IllegalArgumentException("The mix needs at least one positive weight");
+            }
+        }
+
+        static SyntheticMix parse(String argument) {
+            Map<String, Integer> weights = new LinkedHashMap<>();
+            for (String entry : (argument.isEmpty() ? "read=90,update=9,create=1" : argument).split(",")) {
+                String[] parts = entry.split("=", 2);
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Expected operation=weight, got " + entry);
+                }
+                weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+            }
+            return new SyntheticMix(weights);
+        }
+
+        @Override
+        public LoadRequest next(SplittableRandom random) {
+            int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            int index = 0;
+            while (draw >= cumulativeWeights[index]) {
+                index++;
+            }
+            return switch (operations.get(index)) {
+                case "read" -> new LoadRequest("GET /api/products/{id}", "GET", "/api/products/{id}", Map.of(), null);
+                case "list" -> new LoadRequest("GET /api/products", "GET", "/api/products?limit=20", Map.of(), null);
+                case "search" -> new LoadRequest("GET /api/products/search", "GET",
+                        "/api/products/search?q=" + SEARCH_TERMS[random.nextInt(SEARCH_TERMS.length)], Map.of(), null);
+                case "update" -> new LoadRequest("PUT /api/products/{id}", "PUT", "/api/products/{id}", JSON,
+                        productJson(random));
+                case "create" -> new LoadRequest("POST /api/products", "POST", "/api/products", JSON,
+                        productJson(random));
+                default -> throw new IllegalArgumentException("Unknown operation " + operations.get(index)
+                        + "; expected read, list, search, update or create");
+            };
+        }
+
+        static String productJson(SplittableRandom random) {
+            int i = random.nextInt(1_000_000);
+            return "{\"name\":\"Load product " + i + "\",\"description\":\"Created by the load test\","
+                    + "\"price\":" + (1 + i % 100) + ".99,\"category\":\"Category " + (i % 20) + "\","
+                    + "\"stockQuantity\":" + (i % 50) + "}";
+        }
+    }
+
+    /**
+     * Recorded requests, sent in their recorded order and started over when exhausted.
+     */
+    final class Replay implements Workload {
+
+        private static final Pattern VARIABLE = Pattern.compile("\\{\\{([^}]+)}}");
+
+        private final List<LoadRequest> requests;
+        private int next;
+
+        Replay(List<LoadRequest> requests) {
+            if (requests.isEmpty()) {
+                throw new IllegalArgumentException("The recorded traffic has no requests");
+            }
+            this.requests = requests;
+        }
+
+        @Override
+        public LoadRequest next(SplittableRandom random) {
+            LoadRequest request = requests.get(next);
+            next = (next + 1) % requests.size();
+            return request;
+        }
+
+        /**
+         * Reads the requests of a Postman v2.1 collection, descending into folders. Only the path of
+         * each URL is kept, so the collection's host does not matter. The {@code {{product_id}}}
+         * variable becomes a random seeded product; other variables take the collection's values.
+         */
+        static List<LoadRequest> fromPostman(JsonNode collection) {
+            Map<String, String> variables = new LinkedHashMap<>();
+            collection.path("variable").forEach(variable ->
+                    variables.put(variable.path("key").asText(), variable.path("value").asText()));
+            variables.put("product_id", LoadRequest.PRODUCT_ID);
+            List<LoadRequest> requests = new ArrayList<>();
+            collectPostman(collection.path("item"), variables, requests);
+            return requests;
+        }
+
+        private static void collectPostman(JsonNode items, Map<String, String> variables, List<LoadRequest> requests) {
+            for (JsonNode item : items) {
+                if (item.has("item")) {
+                    collectPostman(item.path("item"), variables, requests);
+                    continue;
+                }
+                JsonNode request = item.path("request");
+                JsonNode url = request.path("url");
+                String path;
+                if (url.isTextual()) {
+                    path = url.asText().replaceFirst("^[a-z]+://[^/]+", "");
+                } else {
+                    List<String> segments = new ArrayList<>();
+                    url.path("path").forEach(segment -> segments.add(segment.asText()));
+                    path = "/" + String.join("/", segments);
+                    if (url.path("query").size() > 0) {
+                        List<String> query = new ArrayList<>();
+                        url.path("query").forEach(parameter ->
+                                query.add(parameter.path("key").asText() + "=" + parameter.path("value").asText()));
+                        path += "?" + String.join("&", query);
+                    }
+                }
+                Map<String, String> headers = new LinkedHashMap<>();
+                request.path("header").forEach(header -> {
+                    if (!header.path("disabled").asBoolean()) {
+                        headers.put(header.path("key").asText(), substitute(header.path("value").asText(), variables));
+                    }
+                });
+                String body = request.path("body").path("raw").asText(null);
+                requests.add(new LoadRequest(item.path("name").asText(), request.path("method").asText("GET"),
+                        substitute(path, variables), headers, body == null ? null : substitute(body, variables)));
+            }
+        }
+
+        private static String substitute(String text, Map<String, String> variables) {
+            Matcher matcher = VARIABLE.matcher(text);
+            StringBuilder result = new StringBuilder();
+            while (matcher.find()) {
+                String value = variables.get(matcher.group(1));
+                if (value == null) {
+                    throw new IllegalArgumentException("Undefined variable {{" + matcher.group(1) + "}}");
+                }
+                matcher.appendReplacement(result, Matcher.quoteReplacement(value));
+            }
+            return matcher.appendTail(result).toString();
+        }
+
+        /**
+         * Reads a traffic log of one JSON object per line, with the fields {@code method}, {@code path},
+         * optional {@code headers} and {@code body} (text or JSON), and an optional {@code endpoint}
+         * name that defaults to the method and path.
+         */
+        static List<LoadRequest> fromTrafficLog(Path file, ObjectMapper objectMapper) {
+            List<LoadRequest> requests = new ArrayList<>();
+            try {
+                for (String line : Files.readAllLines(file)) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode entry = objectMapper.readTree(line);
+                    String method = entry.path("method").asText("GET");
+                    String path = entry.path("path").asText();
+                    if (path.isEmpty()) {
+                        throw new IllegalArgumentException("Traffic log entry without a path: " + line);
+                    }
+                    Map<String, String> headers = new LinkedHashMap<>();
+                    entry.path("headers").fields().forEachRemaining(header ->
+                            headers.put(header.getKey(), header.getValue().asText()));
+                    JsonNode body = entry.get("body");
+                    String bodyText = body == null || body.isNull() ? null
+                            : body.isTextual() ? body.asText() : objectMapper.writeValueAsString(body);
+                    if (bodyText != null) {
+                        headers.putIfAbsent("Content-Type", "application/json");
+                    }
+                    requests.add(new LoadRequest(entry.path("endpoint").asText(method + " " + path.split("\\?")[0]),
+                            method, path, headers, bodyText));
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Cannot read " + file, ex);
+            }
+            return requests;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.quickshelf.controller;
+
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversions every product request and response goes through,
+ * {@link ProductRequests#toDto(Product)} and {@link ProductRequests#toEntity(ProductDto)}.
+ * The helpers are package-private, so this benchmark lives in the controller package.
+ *
+ * <p>Run with {@code ./gradlew jmh}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    private Product product;
+    private ProductDto productDto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        product = new Product("Benchmark Product", "A product used to measure mapping", 19.99f, "Benchmarks", 42);
+        product.setId("0f8fad5b-d9cb-469f-a165-70867728950e");
+        productDto = ProductRequests.toDto(product);
+    }
+
+    @Benchmark
+    public ProductDto toDto() {
+        return ProductRequests.toDto(product);
+    }
+
+    @Benchmark
+    public Product toEntity() {
+        return ProductRequests.toEntity(productDto);
+    }
+}
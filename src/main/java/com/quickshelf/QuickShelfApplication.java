@@ -2,6 +2,8 @@ package com.quickshelf;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
 /**
  * Main application class for the QuickShelf API.
@@ -10,8 +12,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * <p>QuickShelf is a RESTful API server that allows users to perform CRUD operations
  * on product entries. Each product has attributes such as ID, name, description,
  * price, category, and stock quantity.</p>
+ *
+ * <p>The API is served by Spring MVC unless {@code spring.main.web-application-type=reactive} selects
+ * the WebFlux stack. Spring Boot's R2DBC auto-configuration is excluded because its connection factory
+ * would replace the JDBC data source; the reactive stack configures its own R2DBC pool instead.</p>
  */
-@SpringBootApplication
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class QuickShelfApplication {
 
     /**
@@ -0,0 +1,27 @@
+package com.quickshelf.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Enables {@code @Timed} on Spring beans, such as the product services, so their calls are recorded
+ * alongside the metrics Spring Boot collects for HTTP requests, repository invocations, the JDBC
+ * connection pool and, with {@code quickshelf.metrics.hibernate-statistics=true}, Hibernate. All of
+ * them are scraped in Prometheus format from {@code /api/actuator/prometheus}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    /**
+     * Creates the aspect that times {@code @Timed} methods.
+     *
+     * @param meterRegistry the registry the timers are created in
+     * @return the aspect
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,87 @@
+package com.quickshelf.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.r2dbc.ConnectionPoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * Server and database access of the reactive web stack, enabled with
+ * {@code spring.main.web-application-type=reactive}.
+ *
+ * <p>WebFlux runs on Netty rather than on Tomcat, which Spring Boot would pick while the servlet stack
+ * is on the classpath: Netty serves every connection from a small, fixed set of event-loop threads.</p>
+ *
+ * <p>The connection pool is deliberately not exposed as a {@code ConnectionFactory} bean: Spring Boot
+ * backs off its JDBC {@code DataSource} when one exists, and the rest of the application (schema
+ * initialization, the search indexes, bulk import) keeps using JDBC. The pool is only reachable
+ * through the {@link DatabaseClient} bean.</p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveStackConfig {
+
+    private ConnectionPool pool;
+
+    /**
+     * Selects Netty as the reactive web server.
+     *
+     * @return the server factory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Creates the client for non-blocking product queries over a pool of R2DBC connections. The pool's
+     * gauges ({@code r2dbc.pool.*}, named {@code product}) are registered when metrics are collected, since
+     * Spring Boot only instruments pools it finds as beans.
+     *
+     * @param url           the R2DBC URL of the product database
+     * @param username      the database user, shared with the JDBC data source
+     * @param password      the database password, shared with the JDBC data source
+     * @param maxSize       the maximum number of pooled connections
+     * @param meterRegistry the registry for the pool's gauges, if any
+     * @return the database client
+     */
+    @Bean
+    public DatabaseClient productDatabaseClient(
+            @Value("${quickshelf.r2dbc.url}") String url,
+            @Value("${spring.datasource.username:sa}") String username,
+            @Value("${spring.datasource.password:}") String password,
+            @Value("${quickshelf.r2dbc.pool.max-size:20}") int maxSize,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(Math.min(maxSize, 10))
+                .maxSize(maxSize)
+                .build());
+        meterRegistry.ifAvailable(registry -> new ConnectionPoolMetrics(pool, "product", Tags.empty()).bindTo(registry));
+        return DatabaseClient.create(pool);
+    }
+
+    /**
+     * Closes the pooled connections.
+     */
+    @PreDestroy
+    public void close() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.quickshelf.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Phase timings of the request being handled on the current thread. Phases nest, and each is
+ * charged only the time spent in it outside any phase it contains, so SQL time is not counted again
+ * as service time and the phases add up to the total. Time outside every phase is charged to
+ * {@value #OTHER}.
+ *
+ * <p>A trace is only touched by the thread handling its request.</p>
+ */
+final class RequestTrace {
+
+    static final String READ = "read";
+    static final String VALIDATION = "validation";
+    static final String CONTROLLER = "controller";
+    static final String SERVICE = "service";
+    static final String SQL = "sql";
+    static final String WRITE = "write";
+    static final String OTHER = "other";
+
+    /**
+     * Phases in the order they are reported.
+     */
+    private static final List<String> PHASES = List.of(READ, VALIDATION, CONTROLLER, SERVICE, SQL, WRITE, OTHER);
+    private static final Map<String, String> DESCRIPTIONS = Map.of(
+            READ, "request body parsing",
+            VALIDATION, "bean validation",
+            CONTROLLER, "controller and DTO mapping",
+            SERVICE, "service",
+            WRITE, "response writing",
+            OTHER, "filters and dispatch");
+
+    /**
+     * Number of statements whose SQL is kept for the slow-request log; later ones are only counted.
+     */
+    static final int MAX_STATEMENTS = 50;
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private final Deque<String> phases = new ArrayDeque<>();
+    private final Map<String, Long> durations = new LinkedHashMap<>();
+    private final List<String> statements = new ArrayList<>();
+    private long mark = start;
+    private long total;
+    private int statementCount;
+
+    private RequestTrace() {
+        phases.push(OTHER);
+    }
+
+    /**
+     * Starts tracing the request handled on the current thread.
+     *
+     * @return the new trace
+     */
+    static RequestTrace start() {
+        RequestTrace trace = new RequestTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Returns the trace of the request handled on the current thread.
+     *
+     * @return the trace, or {@code null} if the current thread is not handling a traced request
+     */
+    static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Enters a phase; time from now on is charged to it until it is exited or another phase is entered.
+     *
+     * @param phase the phase
+     */
+    void enter(String phase) {
+        charge(System.nanoTime());
+        phases.push(phase);
+    }
+
+    /**
+     * Exits a phase; time from now on is charged to the phase it was entered from. Exiting a phase that
+     * is not the innermost one has no effect.
+     *
+     * @param phase the phase
+     */
+    void exit(String phase) {
+        if (phases.size() > 1 && phase.equals(phases.peek())) {
+            charge(System.nanoTime());
+            phases.pop();
+        }
+    }
+
+    /**
+     * Records an executed statement for the slow-request log.
+     *
+     * @param sql   the statement's SQL
+     * @param nanos how long the statement took to execute
+     */
+    void recordStatement(String sql, long nanos) {
+        statementCount++;
+        if (statements.size() < MAX_STATEMENTS) {
+            statements.add(String.format(Locale.ROOT, "[%.2f ms] %s", nanos / 1e6, sql));
+        }
+    }
+
+    /**
+     * Ends the trace, charging the remaining time to the innermost open phase, and detaches it from the
+     * current thread.
+     */
+    void finish() {
+        long now = System.nanoTime();
+        charge(now);
+        total = now - start;
+        CURRENT.remove();
+    }
+
+    /**
+     * Returns the total time of the finished request.
+     *
+     * @return the total in nanoseconds
+     */
+    long total() {
+        return total;
+    }
+
+    /**
+     * Formats the phase timings as a {@code Server-Timing} header value, in milliseconds.
+     *
+     * @return the header value
+     */
+    String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        for (String phase : PHASES) {
+            Long nanos = durations.get(phase);
+            if (nanos == null) {
+                continue;
+            }
+            String description = SQL.equals(phase)
+                    ? statementCount + (statementCount == 1 ? " statement" : " statements")
+                    : DESCRIPTIONS.get(phase);
+            header.append(phase).append(";desc=\"").append(description).append("\";dur=")
+                    .append(String.format(Locale.ROOT, "%.2f", nanos / 1e6)).append(", ");
+        }
+        return header.append(String.format(Locale.ROOT, "total;dur=%.2f", total / 1e6)).toString();
+    }
+
+    /**
+     * Describes the phase timings and executed statements, for the slow-request log.
+     *
+     * @return the description
+     */
+    String describe() {
+        StringBuilder description = new StringBuilder();
+        for (String phase : PHASES) {
+            Long nanos = durations.get(phase);
+            if (nanos != null) {
+                description.append(String.format(Locale.ROOT, "%s=%.2f ms, ", phase, nanos / 1e6));
+            }
+        }
+        description.append(statementCount).append(statementCount == 1 ? " SQL statement" : " SQL statements");
+        for (String statement : statements) {
+            description.append("\n  ").append(statement);
+        }
+        if (statementCount > statements.size()) {
+            description.append("\n  ... and ").append(statementCount - statements.size()).append(" more");
+        }
+        return description.toString();
+    }
+
+    private void charge(long now) {
+        durations.merge(phases.peek(), now - mark, Long::sum);
+        mark = now;
+    }
+}
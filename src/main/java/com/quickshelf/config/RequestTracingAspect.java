@@ -0,0 +1,36 @@
+package com.quickshelf.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Charges the time spent in REST controllers and product services to the {@value RequestTrace#CONTROLLER}
+ * and {@value RequestTrace#SERVICE} phases of the current request's trace.
+ */
+@Aspect
+class RequestTracingAspect {
+
+    @Around("@within(org.springframework.web.bind.annotation.RestController) && within(com.quickshelf.controller..*)")
+    public Object traceController(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, RequestTrace.CONTROLLER);
+    }
+
+    @Around("execution(* com.quickshelf.service.ProductService+.*(..))")
+    public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return trace(joinPoint, RequestTrace.SERVICE);
+    }
+
+    private static Object trace(ProceedingJoinPoint joinPoint, String phase) throws Throwable {
+        RequestTrace trace = RequestTrace.current();
+        if (trace == null) {
+            return joinPoint.proceed();
+        }
+        trace.enter(phase);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            trace.exit(phase);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.quickshelf.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Per-request phase timings, enabled with {@code quickshelf.tracing.enabled=true} on the servlet stack.
+ * Each request's time is split into request body parsing, validation, controller (including DTO
+ * mapping), service, SQL, response writing and the rest, returned in a {@code Server-Timing} header,
+ * and written with the executed SQL to a sampled slow-request log.
+ *
+ * <p>When disabled none of the tracing beans exist: no filter, aspect, advice or data source wrapper
+ * is in the request path.</p>
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "quickshelf.tracing.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RequestTracingConfig implements WebMvcConfigurer {
+
+    private final ObjectProvider<LocalValidatorFactoryBean> validator;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param validator the Bean Validation validator whose calls on request bodies are timed
+     */
+    public RequestTracingConfig(ObjectProvider<LocalValidatorFactoryBean> validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Registers the filter that traces each request, ahead of every other filter.
+     *
+     * @param slowRequestThreshold how long a request must take to be logged as slow
+     * @param sampleRate           the fraction of slow requests that are logged
+     * @return the filter registration
+     */
+    @Bean
+    public FilterRegistrationBean<RequestTracingFilter> requestTracingFilter(
+            @Value("${quickshelf.tracing.slow-request-threshold:500ms}") Duration slowRequestThreshold,
+            @Value("${quickshelf.tracing.slow-request-sample-rate:0.1}") double sampleRate) {
+        FilterRegistrationBean<RequestTracingFilter> registration =
+                new FilterRegistrationBean<>(new RequestTracingFilter(slowRequestThreshold, sampleRate));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * Creates the aspect that times controller and service calls.
+     *
+     * @return the aspect
+     */
+    @Bean
+    public RequestTracingAspect requestTracingAspect() {
+        return new RequestTracingAspect();
+    }
+
+    /**
+     * Wraps the data source so executed statements are timed and recorded.
+     *
+     * @return the post-processor that wraps {@link DataSource} beans
+     */
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? new TracingDataSource(dataSource) : bean;
+            }
+        };
+    }
+
+    /**
+     * Times the validation of {@code @Valid} request bodies.
+     *
+     * @return the validator used by Spring MVC
+     */
+    @Override
+    public Validator getValidator() {
+        return new TracingValidator(validator.getObject());
+    }
+
+    /**
+     * Charges validation to the {@value RequestTrace#VALIDATION} phase of the current request's trace.
+     */
+    private record TracingValidator(SmartValidator delegate) implements SmartValidator {
+
+        @Override
+        public boolean supports(Class<?> clazz) {
+            return delegate.supports(clazz);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors) {
+            validate(target, errors, new Object[0]);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors, Object... validationHints) {
+            RequestTrace trace = RequestTrace.current();
+            if (trace != null) {
+                trace.enter(RequestTrace.VALIDATION);
+            }
+            try {
+                delegate.validate(target, errors, validationHints);
+            } finally {
+                if (trace != null) {
+                    trace.exit(RequestTrace.VALIDATION);
+                }
+            }
+        }
+
+        @Override
+        public void validateValue(Class<?> targetType, String fieldName, Object value, Errors errors,
+                                  Object... validationHints) {
+            delegate.validateValue(targetType, fieldName, value, errors, validationHints);
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            return delegate.unwrap(type);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.quickshelf.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Traces each request and reports its phase timings in a {@code Server-Timing} response header.
+ * The response body is buffered until the request completes, so the header can include the time
+ * spent writing the body. Endpoints that stream their body from an async task (the product export and
+ * the import upload, which sends its job before reading the upload) are therefore not traced.
+ *
+ * <p>Any other asynchronously processed request writes its body during the async dispatch, after
+ * this filter has returned on the request thread, so the buffered body is only copied to the response
+ * once that dispatch completes, as {@link org.springframework.web.filter.ShallowEtagHeaderFilter} does.</p>
+ *
+ * <p>Requests that take at least the slow-request threshold are logged, with their phase timings and
+ * the SQL statements they ran, at the configured sample rate.</p>
+ */
+class RequestTracingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestTracingFilter.class);
+
+    private final long slowRequestNanos;
+    private final double sampleRate;
+
+    /**
+     * Creates the filter.
+     *
+     * @param slowRequestThreshold how long a request must take to be logged
+     * @param sampleRate           the fraction of slow requests that are logged
+     */
+    RequestTracingFilter(Duration slowRequestThreshold, double sampleRate) {
+        this.slowRequestNanos = slowRequestThreshold.toNanos();
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return uri.endsWith("/products/export") || ("POST".equals(request.getMethod()) && uri.endsWith("/imports"));
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                copyBodyOnceComplete(request, response);
+            }
+            return;
+        }
+        RequestTrace trace = RequestTrace.start();
+        ContentCachingResponseWrapper bufferedResponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, bufferedResponse);
+        } finally {
+            trace.finish();
+            bufferedResponse.setHeader("Server-Timing", trace.serverTiming());
+            if (trace.total() >= slowRequestNanos && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                String query = request.getQueryString();
+                logger.warn("Slow request {} {}{} -> {} took {} ms: {}", request.getMethod(), request.getRequestURI(),
+                        query == null ? "" : "?" + query, bufferedResponse.getStatus(),
+                        String.format(Locale.ROOT, "%.1f", trace.total() / 1e6), trace.describe());
+            }
+            copyBodyOnceComplete(request, bufferedResponse);
+        }
+    }
+
+    /**
+     * Writes the buffered body to the response, unless the request continues asynchronously and the
+     * body is still to be written by its async dispatch.
+     */
+    private void copyBodyOnceComplete(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (isAsyncStarted(request)) {
+            return;
+        }
+        ContentCachingResponseWrapper bufferedResponse =
+                WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (bufferedResponse != null) {
+            bufferedResponse.copyBodyToResponse();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.quickshelf.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} methods, such as the periodic flush of the stock ledger.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
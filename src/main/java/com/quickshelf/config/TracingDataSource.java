@@ -0,0 +1,85 @@
+package com.quickshelf.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Data source whose statements charge their execution to the {@value RequestTrace#SQL} phase of the
+ * current request's trace and record their SQL for the slow-request log. Statements executed outside
+ * a traced request run untouched.
+ */
+class TracingDataSource extends DelegatingDataSource {
+
+    /**
+     * Creates a tracing data source.
+     *
+     * @param targetDataSource the data source that provides the connections
+     */
+    TracingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return tracing(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return tracing(super.getConnection(username, password));
+    }
+
+    private static Connection tracing(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return switch (method.getName()) {
+                        case "prepareStatement" -> tracing(PreparedStatement.class, (Statement) result, (String) args[0]);
+                        case "prepareCall" -> tracing(CallableStatement.class, (Statement) result, (String) args[0]);
+                        case "createStatement" -> tracing(Statement.class, (Statement) result, null);
+                        default -> result;
+                    };
+                });
+    }
+
+    /**
+     * Wraps a statement; {@code sql} is the prepared SQL, or {@code null} for a plain statement, whose SQL
+     * is passed to each {@code execute} call instead.
+     */
+    private static Statement tracing(Class<? extends Statement> type, Statement statement, String sql) {
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    RequestTrace trace = RequestTrace.current();
+                    if (trace == null || !method.getName().startsWith("execute")) {
+                        return invoke(statement, method, args);
+                    }
+                    String executed = sql != null ? sql
+                            : args != null && args.length > 0 && args[0] instanceof String text ? text : "(batch)";
+                    trace.enter(RequestTrace.SQL);
+                    long start = System.nanoTime();
+                    try {
+                        return invoke(statement, method, args);
+                    } finally {
+                        trace.recordStatement(executed, System.nanoTime() - start);
+                        trace.exit(RequestTrace.SQL);
+                    }
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
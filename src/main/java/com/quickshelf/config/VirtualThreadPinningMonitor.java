@@ -0,0 +1,114 @@
+package com.quickshelf.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread.
+ *
+ * <p>A virtual thread that blocks inside a {@code synchronized} block or a native frame cannot unmount,
+ * so it holds on to one of the few carrier threads for the whole wait; enough of them at once and
+ * request handling stalls while the CPUs sit idle. This monitor streams the JDK Flight Recorder event
+ * {@code jdk.VirtualThreadPinned}, which the JDK emits for every such wait longer than the threshold,
+ * and logs each one with the stack that was pinned, so the offending monitor can be found and replaced
+ * with a {@link java.util.concurrent.locks.ReentrantLock}.</p>
+ *
+ * <p>Enabled with {@code quickshelf.threads.pinning-monitor.enabled=true}. Only virtual threads are
+ * ever pinned, so it is meant to run together with {@code spring.threads.virtual.enabled=true}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "quickshelf.threads.pinning-monitor.enabled", havingValue = "true")
+public class VirtualThreadPinningMonitor {
+
+    /**
+     * The JFR event emitted when a pinned virtual thread blocks.
+     */
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int LOGGED_FRAMES = 12;
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private final Duration threshold;
+    private final AtomicLong pinnedEvents = new AtomicLong();
+    private RecordingStream stream;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param thresholdMillis the shortest pinned wait that is reported, in milliseconds
+     */
+    public VirtualThreadPinningMonitor(
+            @Value("${quickshelf.threads.pinning-monitor.threshold-ms:20}") long thresholdMillis) {
+        this.threshold = Duration.ofMillis(thresholdMillis);
+    }
+
+    /**
+     * Starts streaming pinning events in the background.
+     */
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::report);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for {} ms or more", threshold.toMillis());
+    }
+
+    /**
+     * Stops streaming.
+     */
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    /**
+     * @return the number of pinned waits reported since startup
+     */
+    public long getPinnedEvents() {
+        return pinnedEvents.get();
+    }
+
+    private void report(RecordedEvent event) {
+        pinnedEvents.incrementAndGet();
+        if (log.isWarnEnabled()) {
+            String thread = event.getThread() != null ? event.getThread().getJavaName() : "unknown";
+            log.warn("Virtual thread {} blocked for {} ms while pinned to its carrier thread:{}",
+                    thread, event.getDuration().toMillis(), format(event.getStackTrace()));
+        }
+    }
+
+    private static String format(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return " (no stack trace)";
+        }
+        StringBuilder frames = new StringBuilder();
+        List<RecordedFrame> recorded = stackTrace.getFrames();
+        for (int i = 0; i < recorded.size() && i < LOGGED_FRAMES; i++) {
+            RecordedFrame frame = recorded.get(i);
+            frames.append("\n\tat ").append(frame.getMethod().getType().getName())
+                    .append('.').append(frame.getMethod().getName())
+                    .append(" (line ").append(frame.getLineNumber()).append(')');
+        }
+        if (recorded.size() > LOGGED_FRAMES || stackTrace.isTruncated()) {
+            frames.append("\n\t...");
+        }
+        return frames.toString();
+    }
+}
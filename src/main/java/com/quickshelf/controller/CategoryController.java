@@ -0,0 +1,57 @@
+package com.quickshelf.controller;
+
+import com.quickshelf.dto.CategorySummaryDto;
+import com.quickshelf.service.CategoryCounters;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for per-category totals, read from the running {@link CategoryCounters}.
+ * Enabled with {@code quickshelf.category-summary.enabled=true}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "quickshelf.category-summary.enabled", havingValue = "true")
+@RequestMapping("/categories")
+@Tag(name = "Category", description = "Product category APIs")
+public class CategoryController {
+
+    private final CategoryCounters categoryCounters;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param categoryCounters the running totals per category
+     */
+    @Autowired
+    public CategoryController(CategoryCounters categoryCounters) {
+        this.categoryCounters = categoryCounters;
+    }
+
+    /**
+     * Retrieves the product count, units in stock and inventory value of every category with products.
+     * The totals are read from counters kept current by every write; nothing is counted per request.
+     *
+     * @return the totals by category name with HTTP status 200 (OK)
+     */
+    @GetMapping("/summary")
+    @Operation(summary = "Get the running totals of every category")
+    @ApiResponse(responseCode = "200", description = "Totals by category name")
+    public ResponseEntity<List<CategorySummaryDto>> getSummary() {
+        List<CategorySummaryDto> summary = categoryCounters.getAll().stream()
+                .map(totals -> new CategorySummaryDto(totals.getCategory(), totals.getProductCount(),
+                        totals.getUnitsInStock(), totals.getInventoryValue()))
+                .toList();
+        return ResponseEntity.ok(summary);
+    }
+}
@@ -0,0 +1,118 @@
+package com.quickshelf.controller;
+
+import com.quickshelf.model.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Builds and compares the HTTP entity tags of products and product pages.
+ * A product's tag is its version, which changes with every write; a page's tag is a digest of the
+ * IDs and versions of its products, so it changes when any of them is updated, added or removed.
+ */
+final class EntityTags {
+
+    private static final Pattern TAG = Pattern.compile("\\*|(W/)?\"[^\"]*\"");
+
+    private EntityTags() {
+    }
+
+    /**
+     * Returns the strong entity tag of a product.
+     *
+     * @param product the product
+     * @return the quoted entity tag
+     */
+    static String of(Product product) {
+        return "\"" + product.getVersion() + "\"";
+    }
+
+    /**
+     * Returns the strong entity tag of a page of the product listing.
+     *
+     * @param products the products on the page
+     * @param hasMore  whether another page follows
+     * @return the quoted entity tag
+     */
+    static String ofPage(List<Product> products, boolean hasMore) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        for (Product product : products) {
+            digest.update(product.getId().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(String.valueOf(product.getVersion()).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ';');
+        }
+        digest.update((byte) (hasMore ? 1 : 0));
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * Evaluates an {@code If-None-Match} header with the weak comparison: a tag matches the current one
+     * whether or not it is marked weak, and {@code *} matches any current representation.
+     *
+     * @param ifNoneMatch the header value, or null if absent
+     * @param etag        the current entity tag
+     * @return true if the client's copy is current and a 304 response should be sent
+     */
+    static boolean notModified(String ifNoneMatch, String etag) {
+        for (String tag : parse(ifNoneMatch)) {
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the product versions named by the strong tags of an {@code If-Match} header.
+     * Weak tags and tags that are not a version can never match, so they are left out.
+     *
+     * @param ifMatch the header value
+     * @return the versions; empty if no tag can match
+     */
+    static List<Long> versions(String ifMatch) {
+        List<Long> versions = new ArrayList<>();
+        for (String tag : parse(ifMatch)) {
+            if (tag.startsWith("\"")) {
+                try {
+                    versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+                } catch (NumberFormatException ex) {
+                    // Not one of our tags: it matches no version
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Returns whether an {@code If-Match} header is {@code *}, which matches any existing product.
+     *
+     * @param ifMatch the header value
+     * @return true for a wildcard
+     */
+    static boolean isWildcard(String ifMatch) {
+        return parse(ifMatch).contains("*");
+    }
+
+    private static List<String> parse(String header) {
+        List<String> tags = new ArrayList<>();
+        if (header != null) {
+            Matcher matcher = TAG.matcher(header);
+            while (matcher.find()) {
+                tags.add(matcher.group());
+            }
+        }
+        return tags;
+    }
+}
@@ -0,0 +1,149 @@
+package com.quickshelf.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickshelf.dto.ImportJobDto;
+import com.quickshelf.exception.ResourceNotFoundException;
+import com.quickshelf.service.ImportFormat;
+import com.quickshelf.service.ImportJob;
+import com.quickshelf.service.ImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.io.InputStream;
+
+/**
+ * REST controller for bulk product imports.
+ * The job is created and its 202 response with the Location of the job resource is sent before the
+ * upload is read; the upload is then streamed into the import pipeline on an async request thread
+ * as it arrives, so progress and row errors can be followed while a large file is still uploading.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/imports")
+@Tag(name = "Import", description = "Bulk product import APIs")
+public class ImportController {
+
+    private final ImportService importService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param importService the service for bulk imports
+     * @param objectMapper  the application object mapper, used to write the job before the upload is read
+     */
+    @Autowired
+    public ImportController(ImportService importService, ObjectMapper objectMapper) {
+        this.importService = importService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Imports products from a CSV upload with a header row.
+     * Recognised columns are {@code id}, {@code name}, {@code description}, {@code price},
+     * {@code category} and {@code stockQuantity}.
+     *
+     * @param body the request body, read incrementally
+     * @return the import job with HTTP status 202 (Accepted), sent before the body is read
+     */
+    @PostMapping(consumes = "text/csv")
+    @Operation(summary = "Import products from CSV")
+    @ApiResponse(responseCode = "202", description = "Import started; rows are read and committed in the background",
+            content = @Content(schema = @Schema(implementation = ImportJobDto.class)))
+    public ResponseEntity<StreamingResponseBody> importCsv(InputStream body) {
+        return accepted(body, ImportFormat.CSV);
+    }
+
+    /**
+     * Imports products from a newline-delimited JSON upload, one product object per line.
+     *
+     * @param body the request body, read incrementally
+     * @return the import job with HTTP status 202 (Accepted), sent before the body is read
+     */
+    @PostMapping(consumes = "application/x-ndjson")
+    @Operation(summary = "Import products from newline-delimited JSON")
+    @ApiResponse(responseCode = "202", description = "Import started; rows are read and committed in the background",
+            content = @Content(schema = @Schema(implementation = ImportJobDto.class)))
+    public ResponseEntity<StreamingResponseBody> importNdjson(InputStream body) {
+        return accepted(body, ImportFormat.NDJSON);
+    }
+
+    /**
+     * Retrieves the progress of an import.
+     *
+     * @param jobId the import job ID
+     * @return the import job with HTTP status 200 (OK)
+     * @throws ResourceNotFoundException if the job is not found
+     */
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get the progress of an import")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Import job found",
+                    content = @Content(schema = @Schema(implementation = ImportJobDto.class))),
+            @ApiResponse(responseCode = "404", description = "Import job not found")
+    })
+    public ResponseEntity<ImportJobDto> getImport(
+            @Parameter(description = "Import job ID", required = true)
+            @PathVariable String jobId) {
+        return importService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(convertToDto(job)))
+                .orElseThrow(() -> new ResourceNotFoundException("Import", "id", jobId));
+    }
+
+    /**
+     * Creates the job and answers with it right away. Status and headers are committed when the
+     * handler returns; the streaming body then writes and flushes the job, and reads the upload on
+     * the async request thread, which keeps the exchange open until the last row has been parsed.
+     */
+    private ResponseEntity<StreamingResponseBody> accepted(InputStream body, ImportFormat format) {
+        ImportJob job = importService.createJob(format);
+        StreamingResponseBody response = outputStream -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(convertToDto(job)));
+                outputStream.flush();
+            } finally {
+                importService.readUpload(job, body);
+            }
+        };
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(ServletUriComponentsBuilder.fromCurrentRequest()
+                        .path("/{jobId}")
+                        .buildAndExpand(job.getId())
+                        .toUri())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
+    }
+
+    /**
+     * Converts an ImportJob to an ImportJobDto.
+     *
+     * @param job the import job
+     * @return the import job data transfer object
+     */
+    private ImportJobDto convertToDto(ImportJob job) {
+        return new ImportJobDto(
+                job.getId(),
+                job.getStatus().name(),
+                job.getRowsRead(),
+                job.getRowsImported(),
+                job.getRowsFailed(),
+                job.getErrors(),
+                job.getFailureMessage(),
+                job.getStartedAt(),
+                job.getCompletedAt()
+        );
+    }
+}
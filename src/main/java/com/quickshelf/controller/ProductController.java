@@ -1,8 +1,26 @@
 package com.quickshelf.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.quickshelf.dto.BatchCreateResponseDto;
+import com.quickshelf.dto.LookupResponseDto;
 import com.quickshelf.dto.ProductDto;
+import com.quickshelf.dto.SearchResultDto;
+import com.quickshelf.dto.StockChangeDto;
+import com.quickshelf.dto.SuggestionDto;
+import com.quickshelf.exception.BadRequestException;
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.exception.PreconditionFailedException;
+import com.quickshelf.exception.RequestValidationException;
 import com.quickshelf.exception.ResourceNotFoundException;
 import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import com.quickshelf.repository.ProductRepository;
+import com.quickshelf.service.ProductBatchResult;
 import com.quickshelf.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,40 +30,76 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * REST controller for managing products.
  * Provides endpoints for CRUD operations on products.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/products")
 @Tag(name = "Product", description = "Product management APIs")
 public class ProductController {
 
+    /**
+     * Response header carrying the cursor of the next page, absent on the last page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 10_000;
+    static final int MAX_LOOKUP_SIZE = 5_000;
+    static final int DEFAULT_SEARCH_SIZE = 20;
+    static final int MAX_SEARCH_SIZE = 100;
+    static final int DEFAULT_SUGGEST_SIZE = 10;
+    static final int MAX_SUGGEST_SIZE = 50;
+
+    static final String NDJSON_VALUE = "application/x-ndjson";
+    static final String MERGE_PATCH_VALUE = "application/merge-patch+json";
+
     private final ProductService productService;
+    private final ObjectWriter ndjsonWriter;
+    private final Validator validator;
 
     /**
      * Constructor for dependency injection.
      *
      * @param productService the service for product operations
+     * @param objectMapper   the application object mapper, used to write streamed exports
+     * @param validator      the bean validator, used to validate bulk requests element by element
      */
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ObjectMapper objectMapper, Validator validator) {
         this.productService = productService;
+        this.validator = validator;
+        // Flushing is driven by the export loop so rows are sent in fetch-sized chunks
+        this.ndjsonWriter = objectMapper.writerFor(ProductDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
     }
 
     /**
      * Creates a new product.
      *
      * @param productDto the product data transfer object
-     * @return the created product with HTTP status 201 (Created)
+     * @return the created product with HTTP status 201 (Created) and its entity tag
      */
     @PostMapping
     @Operation(summary = "Create a new product")
@@ -55,32 +109,229 @@ public class ProductController {
             @ApiResponse(responseCode = "400", description = "Invalid input")
     })
     public ResponseEntity<ProductDto> createProduct(@Valid @RequestBody ProductDto productDto) {
-        Product product = convertToEntity(productDto);
+        Product product = ProductRequests.toEntity(productDto);
         Product createdProduct = productService.createProduct(product);
-        return new ResponseEntity<>(convertToDto(createdProduct), HttpStatus.CREATED);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .eTag(EntityTags.of(createdProduct))
+                .body(ProductRequests.toDto(createdProduct));
+    }
+
+    /**
+     * Creates many products in one request.
+     * Every element is validated before anything is written; if any element is invalid nothing is
+     * inserted and the errors are returned keyed by {@code [index].field}. Valid requests are inserted
+     * in chunked JDBC batches, one transaction per chunk, and the outcome of each element is reported.
+     *
+     * @param productDtos the products to create (1 to {@value #MAX_BATCH_SIZE})
+     * @return the per-element results with HTTP status 201 (Created) if all products were created,
+     *         or 207 (Multi-Status) if some of them failed
+     * @throws BadRequestException if the request is empty or too large
+     * @throws RequestValidationException if any element is invalid
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Create many products in one request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "All products created successfully",
+                    content = @Content(schema = @Schema(implementation = BatchCreateResponseDto.class))),
+            @ApiResponse(responseCode = "207", description = "Some products could not be created",
+                    content = @Content(schema = @Schema(implementation = BatchCreateResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input")
+    })
+    public ResponseEntity<BatchCreateResponseDto> createProducts(@RequestBody List<ProductDto> productDtos) {
+        List<Product> products = ProductRequests.toProducts(productDtos, validator);
+        return ProductRequests.toBatchResponse(productService.createProducts(products));
+    }
+
+    /**
+     * Retrieves many products by ID in one request.
+     * Cached products are served from the cache and the rest are read with a few {@code IN} queries,
+     * instead of one request and one query per product.
+     *
+     * @param ids the product IDs (1 to {@value #MAX_LOOKUP_SIZE}); an ID may be repeated
+     * @return one result per requested ID, in request order, with HTTP status 200 (OK); IDs without a
+     *         product are reported as {@code NOT_FOUND}
+     * @throws BadRequestException if the request is empty, too large or contains a blank ID
+     */
+    @PostMapping("/lookup")
+    @Operation(summary = "Get many products by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products looked up",
+                    content = @Content(schema = @Schema(implementation = LookupResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input")
+    })
+    public ResponseEntity<LookupResponseDto> lookupProducts(@RequestBody List<String> ids) {
+        ProductRequests.checkLookup(ids);
+        Map<String, Product> products = productService.getProductsByIds(ids);
+        return ResponseEntity.ok(ProductRequests.toLookupResponse(ids, products));
     }
 
     /**
-     * Retrieves all products.
+     * Retrieves one page of products using keyset pagination, optionally filtered.
+     * Products are returned in ID order. When more products follow, the cursor for the next page is
+     * returned in the {@code X-Next-Cursor} header and as a {@code rel="next"} link; the link keeps
+     * the filter parameters, which must be sent unchanged with every page of a listing.
      *
-     * @return list of all products with HTTP status 200 (OK)
+     * @param limit    the maximum number of products to return (1 to {@value #MAX_PAGE_SIZE})
+     * @param cursor   the cursor returned with the previous page, or absent for the first page
+     * @param category the exact category to match, or absent for any category
+     * @param minPrice the inclusive lower price bound, or absent
+     * @param maxPrice the inclusive upper price bound, or absent
+     * @param inStock  true for products with stock, false for sold-out products, or absent for both
+     * @param ifNoneMatch the entity tag of a copy of this page the client already has, or absent
+     * @return list of products with HTTP status 200 (OK) and the page's entity tag, or 304 (Not Modified)
+     *         without a body if no product on the page changed
+     * @throws BadRequestException if the limit is out of range, the cursor is malformed or the
+     *                             filter is inconsistent
      */
     @GetMapping
-    @Operation(summary = "Get all products")
-    @ApiResponse(responseCode = "200", description = "List of products retrieved successfully")
-    public ResponseEntity<List<ProductDto>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        List<ProductDto> productDtos = products.stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(productDtos);
+    @Operation(summary = "Get products, one page at a time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of products retrieved successfully"),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the given entity tag"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit, cursor or filter")
+    })
+    public ResponseEntity<List<ProductDto>> getAllProducts(
+            @Parameter(description = "Maximum number of products to return")
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @Parameter(description = "Opaque cursor returned with the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Only return products in this category")
+            @RequestParam(required = false) String category,
+            @Parameter(description = "Only return products priced at or above this value")
+            @RequestParam(required = false) Double minPrice,
+            @Parameter(description = "Only return products priced at or below this value")
+            @RequestParam(required = false) Double maxPrice,
+            @Parameter(description = "Only return products that are (true) or are not (false) in stock")
+            @RequestParam(required = false) Boolean inStock,
+            @Parameter(description = "Entity tag of a previously retrieved copy of this page")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ProductRequests.checkLimit(limit, MAX_PAGE_SIZE);
+        ProductFilter filter = ProductRequests.toFilter(category, minPrice, maxPrice, inStock);
+        String afterId = cursor != null ? ProductCursor.decode(cursor) : null;
+
+        // Fetch one extra row to learn whether another page follows without a count query
+        List<Product> products = productService.getProductsPage(filter, afterId, limit + 1);
+        boolean hasMore = products.size() > limit;
+        List<Product> page = hasMore ? products.subList(0, limit) : products;
+        String etag = EntityTags.ofPage(page, hasMore);
+        if (EntityTags.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        List<ProductDto> productDtos = new ArrayList<>(page.size());
+        for (Product product : page) {
+            productDtos.add(ProductRequests.toDto(product));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+        if (hasMore) {
+            String next = ProductCursor.encode(products.get(limit - 1).getId());
+            String nextLink = ProductRequests.nextLink(ServletUriComponentsBuilder.fromCurrentRequestUri(),
+                    filter, limit, next);
+            response.header(NEXT_CURSOR_HEADER, next)
+                    .header(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+        }
+        return response.body(productDtos);
+    }
+
+    /**
+     * Searches products by name and description.
+     * Results are ranked by relevance, best first; a term found in the name weighs more than the same
+     * term in the description, and rare terms weigh more than common ones.
+     *
+     * @param q     the free-text query
+     * @param limit the maximum number of results to return (1 to {@value #MAX_SEARCH_SIZE})
+     * @return the ranked results with HTTP status 200 (OK)
+     * @throws BadRequestException if the query is blank or the limit is out of range
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search products by name and description")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ranked search results"),
+            @ApiResponse(responseCode = "400", description = "Invalid query or limit")
+    })
+    public ResponseEntity<List<SearchResultDto>> searchProducts(
+            @Parameter(description = "Free-text query", required = true)
+            @RequestParam String q,
+            @Parameter(description = "Maximum number of results to return")
+            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_SIZE) int limit) {
+        ProductRequests.checkNotBlank("q", q);
+        ProductRequests.checkLimit(limit, MAX_SEARCH_SIZE);
+        List<SearchResultDto> results = productService.searchProducts(q, limit).stream()
+                .map(result -> new SearchResultDto(ProductRequests.toDto(result.getProduct()), result.getScore()))
+                .toList();
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Suggests product names completing a prefix, for search-as-you-type.
+     * A product matches when its name, or any word of it, starts with the prefix (ignoring case);
+     * products with the most stock come first. Served from memory without a database query.
+     *
+     * @param prefix the typed prefix
+     * @param limit  the maximum number of suggestions to return (1 to {@value #MAX_SUGGEST_SIZE})
+     * @return the suggestions with HTTP status 200 (OK)
+     * @throws BadRequestException if the prefix is blank or the limit is out of range
+     */
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest product names completing a prefix")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Suggestions, highest stock first"),
+            @ApiResponse(responseCode = "400", description = "Invalid prefix or limit")
+    })
+    public ResponseEntity<List<SuggestionDto>> suggestProducts(
+            @Parameter(description = "Typed prefix", required = true)
+            @RequestParam String prefix,
+            @Parameter(description = "Maximum number of suggestions to return")
+            @RequestParam(defaultValue = "" + DEFAULT_SUGGEST_SIZE) int limit) {
+        ProductRequests.checkNotBlank("prefix", prefix);
+        ProductRequests.checkLimit(limit, MAX_SUGGEST_SIZE);
+        List<SuggestionDto> suggestions = productService.suggestProducts(prefix, limit).stream()
+                .map(suggestion -> new SuggestionDto(suggestion.getId(), suggestion.getName(),
+                        suggestion.getStockQuantity()))
+                .toList();
+        return ResponseEntity.ok(suggestions);
+    }
+
+    /**
+     * Exports the whole catalog as newline-delimited JSON (one product per line).
+     * Products are written to the response as they are read from the database cursor, so memory use
+     * stays flat regardless of catalog size and the first bytes leave as soon as the first row is read.
+     *
+     * @return the streaming NDJSON body with HTTP status 200 (OK)
+     */
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    @Operation(summary = "Export all products as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Catalog streamed successfully")
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = outputStream -> {
+            int[] written = {0};
+            try (JsonGenerator generator = ndjsonWriter.createGenerator(outputStream)) {
+                productService.exportProducts(product -> {
+                    try {
+                        ndjsonWriter.writeValue(generator, ProductRequests.toDto(product));
+                        generator.writeRaw('\n');
+                        // Flush the first row immediately, then once per fetch batch
+                        if (written[0]++ % ProductRepository.STREAM_FETCH_SIZE == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
     }
 
     /**
      * Retrieves a product by its ID.
      *
-     * @param id the product ID
-     * @return the product if found with HTTP status 200 (OK)
+     * @param id          the product ID
+     * @param ifNoneMatch the entity tag of a copy of the product the client already has, or absent
+     * @return the product if found with HTTP status 200 (OK) and its entity tag, or 304 (Not Modified)
+     *         without a body if the product has not changed
      * @throws ResourceNotFoundException if the product is not found
      */
     @GetMapping("/{id}")
@@ -88,14 +339,21 @@ public class ProductController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product found",
                     content = @Content(schema = @Schema(implementation = ProductDto.class))),
+            @ApiResponse(responseCode = "304", description = "Product unchanged since the given entity tag"),
             @ApiResponse(responseCode = "404", description = "Product not found")
     })
     public ResponseEntity<ProductDto> getProductById(
             @Parameter(description = "Product ID", required = true)
-            @PathVariable String id) {
-        return productService.getProductById(id)
-                .map(product -> ResponseEntity.ok(convertToDto(product)))
+            @PathVariable String id,
+            @Parameter(description = "Entity tag of a previously retrieved copy of the product")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Product product = productService.getProductById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        String etag = EntityTags.of(product);
+        if (EntityTags.notModified(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(ProductRequests.toDto(product));
     }
 
     /**
@@ -103,42 +361,153 @@ public class ProductController {
      *
      * @param id the product ID
      * @param productDto the updated product data
-     * @return the updated product with HTTP status 200 (OK)
+     * @param ifMatch the entity tag the product must still have for the update to apply, or absent
+     * @return the updated product with HTTP status 200 (OK) and its new entity tag
      * @throws ResourceNotFoundException if the product is not found
+     * @throws PreconditionFailedException if the product no longer matches {@code ifMatch}
      */
     @PutMapping("/{id}")
     @Operation(summary = "Update a product")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product updated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input"),
-            @ApiResponse(responseCode = "404", description = "Product not found")
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Product modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "Product no longer matches If-Match")
     })
     public ResponseEntity<ProductDto> updateProduct(
             @Parameter(description = "Product ID", required = true)
             @PathVariable String id,
-            @Valid @RequestBody ProductDto productDto) {
-        Product product = convertToEntity(productDto);
-        Product updatedProduct = productService.updateProduct(id, product);
-        return ResponseEntity.ok(convertToDto(updatedProduct));
+            @Valid @RequestBody ProductDto productDto,
+            @Parameter(description = "Entity tag the product must still have")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Product product = ProductRequests.toEntity(productDto);
+        Long expectedVersion = expectedVersion(id, ifMatch);
+        Product updatedProduct = expectedVersion == null
+                ? productService.updateProduct(id, product)
+                : productService.updateProduct(id, product, expectedVersion);
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(updatedProduct))
+                .body(ProductRequests.toDto(updatedProduct));
+    }
+
+    /**
+     * Changes some fields of an existing product with a JSON Merge Patch (RFC 7396).
+     * Only the members present in the patch are validated and written, in one UPDATE of just those
+     * columns; a {@code null} member removes the description, the only optional field.
+     *
+     * @param id      the product ID
+     * @param patch   the merge patch, a JSON object with a subset of the product fields
+     * @param ifMatch the entity tag the product must still have for the update to apply, or absent
+     * @return the updated product with HTTP status 200 (OK) and its new entity tag
+     * @throws RequestValidationException if a member is unknown or its value is invalid
+     * @throws ResourceNotFoundException if the product is not found
+     * @throws PreconditionFailedException if the product no longer matches {@code ifMatch}
+     */
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Change some fields of a product")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Product updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "412", description = "Product no longer matches If-Match")
+    })
+    public ResponseEntity<ProductDto> patchProduct(
+            @Parameter(description = "Product ID", required = true)
+            @PathVariable String id,
+            @RequestBody JsonNode patch,
+            @Parameter(description = "Entity tag the product must still have")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ProductPatch productPatch = ProductRequests.toPatch(id, patch, validator);
+        Long expectedVersion = expectedVersion(id, ifMatch);
+        Product updatedProduct = expectedVersion == null
+                ? productService.patchProduct(id, productPatch)
+                : productService.patchProduct(id, productPatch, expectedVersion);
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(updatedProduct))
+                .body(ProductRequests.toDto(updatedProduct));
+    }
+
+    /**
+     * Reserves units of a product, taking them out of stock.
+     * The check and the decrement happen in one atomic database statement, so concurrent reservations
+     * of the same product are serialized and can never oversell.
+     *
+     * @param id          the product ID
+     * @param stockChange the number of units to reserve
+     * @return the product with its updated stock and HTTP status 200 (OK)
+     * @throws ResourceNotFoundException if the product is not found
+     * @throws InsufficientStockException if fewer units are in stock than requested
+     */
+    @PostMapping("/{id}/stock/reserve")
+    @Operation(summary = "Reserve units of a product")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock reserved",
+                    content = @Content(schema = @Schema(implementation = ProductDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid quantity"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Insufficient stock")
+    })
+    public ResponseEntity<ProductDto> reserveStock(
+            @Parameter(description = "Product ID", required = true)
+            @PathVariable String id,
+            @Valid @RequestBody StockChangeDto stockChange) {
+        Product product = productService.reserveStock(id, stockChange.getQuantity());
+        return ResponseEntity.ok(ProductRequests.toDto(product));
+    }
+
+    /**
+     * Releases previously reserved units of a product, putting them back into stock.
+     *
+     * @param id          the product ID
+     * @param stockChange the number of units to release
+     * @return the product with its updated stock and HTTP status 200 (OK)
+     * @throws ResourceNotFoundException if the product is not found
+     * @throws InsufficientStockException if the stock would exceed its maximum
+     */
+    @PostMapping("/{id}/stock/release")
+    @Operation(summary = "Release reserved units of a product")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stock released",
+                    content = @Content(schema = @Schema(implementation = ProductDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid quantity"),
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Stock would exceed its maximum")
+    })
+    public ResponseEntity<ProductDto> releaseStock(
+            @Parameter(description = "Product ID", required = true)
+            @PathVariable String id,
+            @Valid @RequestBody StockChangeDto stockChange) {
+        Product product = productService.releaseStock(id, stockChange.getQuantity());
+        return ResponseEntity.ok(ProductRequests.toDto(product));
     }
 
     /**
      * Deletes a product by its ID.
      *
-     * @param id the product ID
+     * @param id      the product ID
+     * @param ifMatch the entity tag the product must still have for the delete to apply, or absent
      * @return HTTP status 204 (No Content) if deleted successfully
      * @throws ResourceNotFoundException if the product is not found
+     * @throws PreconditionFailedException if the product no longer matches {@code ifMatch}
      */
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete a product")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Product deleted successfully"),
-            @ApiResponse(responseCode = "404", description = "Product not found")
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "409", description = "Product modified concurrently"),
+            @ApiResponse(responseCode = "412", description = "Product no longer matches If-Match")
     })
     public ResponseEntity<Void> deleteProduct(
             @Parameter(description = "Product ID", required = true)
-            @PathVariable String id) {
-        boolean deleted = productService.deleteProduct(id);
+            @PathVariable String id,
+            @Parameter(description = "Entity tag the product must still have")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(id, ifMatch);
+        boolean deleted = expectedVersion == null
+                ? productService.deleteProduct(id)
+                : productService.deleteProduct(id, expectedVersion);
         if (deleted) {
             return ResponseEntity.noContent().build();
         } else {
@@ -147,39 +516,26 @@ public class ProductController {
     }
 
     /**
-     * Converts a Product entity to a ProductDto.
+     * Resolves an {@code If-Match} header to the version a conditional write must find.
+     * A single tag names the version directly; with several tags, the product's current version is
+     * used if it is among them, and the service then makes sure it is still current when writing.
      *
-     * @param product the product entity
-     * @return the product data transfer object
-     */
-    private ProductDto convertToDto(Product product) {
-        return new ProductDto(
-                product.getId(),
-                product.getName(),
-                product.getDescription(),
-                product.getPrice(),
-                product.getCategory(),
-                product.getStockQuantity()
-        );
-    }
-
-    /**
-     * Converts a ProductDto to a Product entity.
-     *
-     * @param productDto the product data transfer object
-     * @return the product entity
-     */
-    private Product convertToEntity(ProductDto productDto) {
-        Product product = new Product(
-                productDto.getName(),
-                productDto.getDescription(),
-                productDto.getPrice(),
-                productDto.getCategory(),
-                productDto.getStockQuantity()
-        );
-        if (productDto.getId() != null) {
-            product.setId(productDto.getId());
+     * @param id      the product ID
+     * @param ifMatch the header value, or null if absent
+     * @return the expected version, or null if the write is unconditional ({@code If-Match} absent or {@code *})
+     * @throws PreconditionFailedException if no tag can match the product
+     * @throws ResourceNotFoundException if several tags are given and the product does not exist
+     */
+    private Long expectedVersion(String id, String ifMatch) {
+        List<Long> versions = ProductRequests.acceptedVersions(id, ifMatch);
+        if (versions == null) {
+            return null;
         }
-        return product;
+        if (versions.size() == 1) {
+            return versions.get(0);
+        }
+        Product current = productService.getProductById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        return ProductRequests.matchingVersion(current, versions, ifMatch);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.quickshelf.controller;
+
+import com.quickshelf.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque cursors handed out by the paginated product listing.
+ * A cursor wraps the ID of the last product on a page; clients must treat it as an opaque token.
+ */
+final class ProductCursor {
+
+    private static final String VERSION_PREFIX = "v1:";
+
+    private ProductCursor() {
+    }
+
+    /**
+     * Encodes the position after the given product ID as a URL-safe cursor.
+     *
+     * @param lastId the ID of the last product on the current page
+     * @return the opaque cursor
+     */
+    static String encode(String lastId) {
+        byte[] raw = (VERSION_PREFIX + lastId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Decodes a cursor previously produced by {@link #encode(String)}.
+     *
+     * @param cursor the opaque cursor
+     * @return the product ID the next page starts after
+     * @throws BadRequestException if the cursor is malformed
+     */
+    static String decode(String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Invalid cursor: '" + cursor + "'");
+        }
+        if (!decoded.startsWith(VERSION_PREFIX) || decoded.length() == VERSION_PREFIX.length()) {
+            throw new BadRequestException("Invalid cursor: '" + cursor + "'");
+        }
+        return decoded.substring(VERSION_PREFIX.length());
+    }
+}
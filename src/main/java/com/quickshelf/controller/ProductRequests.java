@@ -0,0 +1,363 @@
+package com.quickshelf.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.quickshelf.dto.BatchCreateResponseDto;
+import com.quickshelf.dto.BatchItemResultDto;
+import com.quickshelf.dto.LookupItemResultDto;
+import com.quickshelf.dto.LookupResponseDto;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.exception.BadRequestException;
+import com.quickshelf.exception.PreconditionFailedException;
+import com.quickshelf.exception.RequestValidationException;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import com.quickshelf.service.ProductBatchResult;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.quickshelf.controller.ProductController.MAX_BATCH_SIZE;
+import static com.quickshelf.controller.ProductController.MAX_LOOKUP_SIZE;
+
+/**
+ * Request parsing, validation and response mapping shared by the servlet {@link ProductController} and
+ * the reactive {@link ReactiveProductController}, so both stacks serve exactly the same contract.
+ */
+final class ProductRequests {
+
+    private ProductRequests() {
+    }
+
+    /**
+     * Rejects a limit outside {@code 1..max}.
+     *
+     * @param limit the requested limit
+     * @param max   the largest allowed limit
+     * @throws BadRequestException if the limit is out of range
+     */
+    static void checkLimit(int limit, int max) {
+        if (limit < 1 || limit > max) {
+            throw new BadRequestException("limit must be between 1 and " + max);
+        }
+    }
+
+    /**
+     * Rejects a blank request parameter.
+     *
+     * @param name  the parameter name
+     * @param value the parameter value
+     * @throws BadRequestException if the value is blank
+     */
+    static void checkNotBlank(String name, String value) {
+        if (value.isBlank()) {
+            throw new BadRequestException(name + " must not be blank");
+        }
+    }
+
+    /**
+     * Validates a batch of products element by element and converts it to entities.
+     *
+     * @param productDtos the products to create
+     * @param validator   the bean validator
+     * @return the products, in request order
+     * @throws BadRequestException if the batch is empty or too large
+     * @throws RequestValidationException if any element is invalid, keyed by {@code [index].field}
+     */
+    static List<Product> toProducts(List<ProductDto> productDtos, Validator validator) {
+        if (productDtos.isEmpty() || productDtos.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("A batch must contain between 1 and " + MAX_BATCH_SIZE + " products");
+        }
+        Map<String, String> errors = new LinkedHashMap<>();
+        List<Product> products = new ArrayList<>(productDtos.size());
+        for (int i = 0; i < productDtos.size(); i++) {
+            ProductDto productDto = productDtos.get(i);
+            if (productDto == null) {
+                errors.put("[" + i + "]", "Product is required");
+                continue;
+            }
+            for (ConstraintViolation<ProductDto> violation : validator.validate(productDto)) {
+                errors.put("[" + i + "]." + violation.getPropertyPath(), violation.getMessage());
+            }
+            products.add(toEntity(productDto));
+        }
+        if (!errors.isEmpty()) {
+            throw new RequestValidationException(errors);
+        }
+        return products;
+    }
+
+    /**
+     * Reports the outcome of a batch insert.
+     *
+     * @param results the per-product results, in request order
+     * @return the response with HTTP status 201 (Created) if all products were created, or 207
+     *         (Multi-Status) if some of them failed
+     */
+    static ResponseEntity<BatchCreateResponseDto> toBatchResponse(List<ProductBatchResult> results) {
+        List<BatchItemResultDto> itemResults = new ArrayList<>(results.size());
+        int created = 0;
+        for (int i = 0; i < results.size(); i++) {
+            ProductBatchResult result = results.get(i);
+            if (result.isCreated()) {
+                created++;
+                itemResults.add(new BatchItemResultDto(i, "CREATED", result.getProduct().getId(), null));
+            } else {
+                itemResults.add(new BatchItemResultDto(i, "FAILED", null, result.getError()));
+            }
+        }
+        int failed = results.size() - created;
+        HttpStatus status = failed == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(new BatchCreateResponseDto(created, failed, itemResults), status);
+    }
+
+    /**
+     * Rejects a multi-get request that is empty, too large or contains a blank ID.
+     *
+     * @param ids the requested IDs
+     * @throws BadRequestException if the request is invalid
+     */
+    static void checkLookup(List<String> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_LOOKUP_SIZE) {
+            throw new BadRequestException("A lookup must contain between 1 and " + MAX_LOOKUP_SIZE + " IDs");
+        }
+        for (String id : ids) {
+            if (id == null || id.isBlank()) {
+                throw new BadRequestException("Product IDs must not be blank");
+            }
+        }
+    }
+
+    /**
+     * Reports the outcome of a multi-get.
+     *
+     * @param ids      the requested IDs
+     * @param products the products found, by ID
+     * @return one result per requested ID, in request order
+     */
+    static LookupResponseDto toLookupResponse(List<String> ids, Map<String, Product> products) {
+        List<LookupItemResultDto> results = new ArrayList<>(ids.size());
+        int found = 0;
+        for (String id : ids) {
+            Product product = products.get(id);
+            if (product != null) {
+                found++;
+                results.add(new LookupItemResultDto(id, "FOUND", toDto(product)));
+            } else {
+                results.add(new LookupItemResultDto(id, "NOT_FOUND", null));
+            }
+        }
+        return new LookupResponseDto(found, ids.size() - found, results);
+    }
+
+    /**
+     * Builds the listing filter from the request parameters.
+     *
+     * @param category the category parameter
+     * @param minPrice the minimum price parameter
+     * @param maxPrice the maximum price parameter
+     * @param inStock  the stock parameter
+     * @return the filter
+     * @throws BadRequestException if the category is blank or the price range is invalid
+     */
+    static ProductFilter toFilter(String category, Double minPrice, Double maxPrice, Boolean inStock) {
+        if (category != null && category.isBlank()) {
+            throw new BadRequestException("category must not be blank");
+        }
+        if ((minPrice != null && minPrice < 0) || (maxPrice != null && maxPrice < 0)) {
+            throw new BadRequestException("minPrice and maxPrice must be non-negative");
+        }
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new BadRequestException("minPrice must not be greater than maxPrice");
+        }
+        return new ProductFilter(category, minPrice, maxPrice, inStock);
+    }
+
+    /**
+     * Builds the {@code rel="next"} link of a listing page, keeping the filter parameters.
+     *
+     * @param requestUri a builder of the current request URI, without its query
+     * @param filter     the filter of the listing
+     * @param limit      the page size
+     * @param next       the cursor of the next page
+     * @return the encoded link target
+     */
+    static String nextLink(UriComponentsBuilder requestUri, ProductFilter filter, int limit, String next) {
+        return requestUri
+                .queryParamIfPresent("category", Optional.ofNullable(filter.getCategory()))
+                .queryParamIfPresent("minPrice", Optional.ofNullable(filter.getMinPrice()))
+                .queryParamIfPresent("maxPrice", Optional.ofNullable(filter.getMaxPrice()))
+                .queryParamIfPresent("inStock", Optional.ofNullable(filter.getInStock()))
+                .queryParam("limit", limit)
+                .queryParam("cursor", next)
+                .encode()
+                .toUriString();
+    }
+
+    /**
+     * Returns the product versions an {@code If-Match} header accepts.
+     *
+     * @param id      the product ID
+     * @param ifMatch the header value, or null if absent
+     * @return the versions, or null if the write is unconditional ({@code If-Match} absent or {@code *})
+     * @throws PreconditionFailedException if no tag can match the product
+     */
+    static List<Long> acceptedVersions(String id, String ifMatch) {
+        if (ifMatch == null || EntityTags.isWildcard(ifMatch)) {
+            return null;
+        }
+        List<Long> versions = EntityTags.versions(ifMatch);
+        if (versions.isEmpty()) {
+            throw notMatching(id, ifMatch);
+        }
+        return versions;
+    }
+
+    /**
+     * Checks that an {@code If-Match} header with several tags accepts the product's current version.
+     *
+     * @param current  the product as read
+     * @param versions the versions the header accepts
+     * @param ifMatch  the header value
+     * @return the current version, which the write must still find
+     * @throws PreconditionFailedException if the current version is not accepted
+     */
+    static long matchingVersion(Product current, List<Long> versions, String ifMatch) {
+        if (!versions.contains(current.getVersion())) {
+            throw notMatching(current.getId(), ifMatch);
+        }
+        return current.getVersion();
+    }
+
+    private static PreconditionFailedException notMatching(String id, String ifMatch) {
+        return new PreconditionFailedException("Product '" + id + "' does not match If-Match " + ifMatch);
+    }
+
+    /**
+     * Converts a merge patch into a {@link ProductPatch}, validating each member present against the
+     * constraints of the same {@link ProductDto} property. Members that are absent are not validated.
+     *
+     * @param id        the product ID, which an {@code id} member may repeat but not change
+     * @param patch     the merge patch
+     * @param validator the bean validator
+     * @return the patch
+     * @throws BadRequestException if the patch is not a JSON object
+     * @throws RequestValidationException if a member is unknown, has the wrong type or is invalid
+     */
+    static ProductPatch toPatch(String id, JsonNode patch, Validator validator) {
+        if (!patch.isObject()) {
+            throw new BadRequestException("A merge patch must be a JSON object");
+        }
+        ProductPatch productPatch = new ProductPatch();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (Map.Entry<String, JsonNode> member : patch.properties()) {
+            String field = member.getKey();
+            JsonNode node = member.getValue();
+            if (field.equals("id")) {
+                if (!id.equals(node.textValue())) {
+                    errors.put(field, "Product ID cannot be changed");
+                }
+                continue;
+            }
+            Object value;
+            try {
+                value = patchValue(field, node);
+            } catch (IllegalArgumentException ex) {
+                errors.put(field, ex.getMessage());
+                continue;
+            }
+            for (ConstraintViolation<ProductDto> violation : validator.validateValue(ProductDto.class, field, value)) {
+                errors.put(field, violation.getMessage());
+            }
+            if (errors.containsKey(field)) {
+                continue;
+            }
+            switch (field) {
+                case "name" -> productPatch.setName((String) value);
+                case "description" -> productPatch.setDescription((String) value);
+                case "price" -> productPatch.setPrice((Float) value);
+                case "category" -> productPatch.setCategory((String) value);
+                default -> productPatch.setStockQuantity((Integer) value);
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new RequestValidationException(errors);
+        }
+        return productPatch;
+    }
+
+    /**
+     * Reads the value of a merge patch member as the type of the {@link ProductDto} property it sets.
+     *
+     * @param field the property name
+     * @param node  the member value
+     * @return the value, or null for a JSON {@code null}
+     * @throws IllegalArgumentException if there is no such property or the value has the wrong type
+     */
+    private static Object patchValue(String field, JsonNode node) {
+        Class<?> type = switch (field) {
+            case "name", "description", "category" -> String.class;
+            case "price" -> Float.class;
+            case "stockQuantity" -> Integer.class;
+            default -> throw new IllegalArgumentException("Unknown field");
+        };
+        if (node.isNull()) {
+            return null;
+        }
+        if (type == String.class && node.isTextual()) {
+            return node.textValue();
+        }
+        if (type == Float.class && node.isNumber()) {
+            return node.floatValue();
+        }
+        if (type == Integer.class && node.isIntegralNumber() && node.canConvertToInt()) {
+            return node.intValue();
+        }
+        throw new IllegalArgumentException("Invalid value");
+    }
+
+    /**
+     * Converts a Product entity to a ProductDto.
+     *
+     * @param product the product entity
+     * @return the product data transfer object
+     */
+    static ProductDto toDto(Product product) {
+        return new ProductDto(
+                product.getId(),
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getCategory(),
+                product.getStockQuantity()
+        );
+    }
+
+    /**
+     * Converts a ProductDto to a Product entity.
+     *
+     * @param productDto the product data transfer object
+     * @return the product entity
+     */
+    static Product toEntity(ProductDto productDto) {
+        Product product = new Product(
+                productDto.getName(),
+                productDto.getDescription(),
+                productDto.getPrice(),
+                productDto.getCategory(),
+                productDto.getStockQuantity()
+        );
+        if (productDto.getId() != null) {
+            product.setId(productDto.getId());
+        }
+        return product;
+    }
+}
@@ -0,0 +1,78 @@
+package com.quickshelf.controller;
+
+import com.quickshelf.dto.CategoryStatsDto;
+import com.quickshelf.dto.ProductStatsDto;
+import com.quickshelf.service.ProductColumns;
+import com.quickshelf.service.ProductStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for catalog aggregates, answered from the {@link ProductColumns} without reading products.
+ * Enabled with {@code quickshelf.analytics.enabled=true}.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "quickshelf.analytics.enabled", havingValue = "true")
+@RequestMapping("/products")
+@Tag(name = "Product", description = "Product management APIs")
+public class ProductStatsController {
+
+    private final ProductColumns productColumns;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param productColumns the column store the aggregates are computed from
+     */
+    @Autowired
+    public ProductStatsController(ProductColumns productColumns) {
+        this.productColumns = productColumns;
+    }
+
+    /**
+     * Retrieves the product count, total stock, inventory value and minimum, maximum and average price,
+     * over the whole catalog and per category.
+     *
+     * @return the aggregates with HTTP status 200 (OK)
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "Get catalog aggregates, in total and per category")
+    @ApiResponse(responseCode = "200", description = "Aggregates computed",
+            content = @Content(schema = @Schema(implementation = ProductStatsDto.class)))
+    public ResponseEntity<ProductStatsDto> getStats() {
+        ProductStats stats = productColumns.stats();
+        ProductStats.Group total = stats.getTotal();
+        ProductStatsDto dto = new ProductStatsDto();
+        dto.setCount(total.getCount());
+        dto.setTotalStock(total.getTotalStock());
+        dto.setInventoryValue(total.getInventoryValue());
+        dto.setMinPrice(total.getMinPrice());
+        dto.setMaxPrice(total.getMaxPrice());
+        dto.setAveragePrice(total.getAveragePrice());
+        dto.setCategories(stats.getCategories().stream().map(ProductStatsController::toDto).toList());
+        return ResponseEntity.ok(dto);
+    }
+
+    private static CategoryStatsDto toDto(ProductStats.Group group) {
+        CategoryStatsDto dto = new CategoryStatsDto();
+        dto.setCategory(group.getCategory());
+        dto.setCount(group.getCount());
+        dto.setTotalStock(group.getTotalStock());
+        dto.setInventoryValue(group.getInventoryValue());
+        dto.setMinPrice(group.getMinPrice());
+        dto.setMaxPrice(group.getMaxPrice());
+        dto.setAveragePrice(group.getAveragePrice());
+        return dto;
+    }
+}
@@ -0,0 +1,376 @@
+package com.quickshelf.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.quickshelf.dto.BatchCreateResponseDto;
+import com.quickshelf.dto.LookupResponseDto;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.dto.SearchResultDto;
+import com.quickshelf.dto.StockChangeDto;
+import com.quickshelf.dto.SuggestionDto;
+import com.quickshelf.exception.BadRequestException;
+import com.quickshelf.exception.PreconditionFailedException;
+import com.quickshelf.exception.RequestValidationException;
+import com.quickshelf.exception.ResourceNotFoundException;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import com.quickshelf.service.ReactiveProductService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.quickshelf.controller.ProductController.DEFAULT_PAGE_SIZE;
+import static com.quickshelf.controller.ProductController.DEFAULT_SEARCH_SIZE;
+import static com.quickshelf.controller.ProductController.DEFAULT_SUGGEST_SIZE;
+import static com.quickshelf.controller.ProductController.MAX_PAGE_SIZE;
+import static com.quickshelf.controller.ProductController.MAX_SEARCH_SIZE;
+import static com.quickshelf.controller.ProductController.MAX_SUGGEST_SIZE;
+import static com.quickshelf.controller.ProductController.MERGE_PATCH_VALUE;
+import static com.quickshelf.controller.ProductController.NDJSON_VALUE;
+import static com.quickshelf.controller.ProductController.NEXT_CURSOR_HEADER;
+
+/**
+ * Reactive REST controller for managing products, serving the same {@code /products} contract as
+ * {@link ProductController} on WebFlux. Active instead of it when the application runs with
+ * {@code spring.main.web-application-type=reactive}.
+ *
+ * <p>No handler blocks an event-loop thread: every database access goes through
+ * {@link ReactiveProductService} and the response is written when its publisher completes, so a few
+ * event-loop threads serve any number of open connections. The service moves the work that may block,
+ * change listeners and the stock ledger, to Reactor's bounded elastic scheduler. Requests are parsed and validated exactly as in {@link ProductController}, see
+ * that class for the behavior of each endpoint.</p>
+ */
+@RestController
+@RequestMapping("/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Tag(name = "Product", description = "Product management APIs")
+public class ReactiveProductController {
+
+    private final ReactiveProductService productService;
+    private final Validator validator;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param productService the service for product operations
+     * @param validator      the bean validator, used to validate bulk requests element by element
+     */
+    @Autowired
+    public ReactiveProductController(ReactiveProductService productService, Validator validator) {
+        this.productService = productService;
+        this.validator = validator;
+    }
+
+    /**
+     * Creates a new product.
+     *
+     * @param productDto the product data transfer object
+     * @return the created product with HTTP status 201 (Created) and its entity tag
+     */
+    @PostMapping
+    @Operation(summary = "Create a new product")
+    public Mono<ResponseEntity<ProductDto>> createProduct(@Valid @RequestBody ProductDto productDto) {
+        return productService.createProduct(ProductRequests.toEntity(productDto))
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED)
+                        .eTag(EntityTags.of(created))
+                        .body(ProductRequests.toDto(created)));
+    }
+
+    /**
+     * Creates many products in one request.
+     *
+     * @param productDtos the products to create
+     * @return the per-element results with HTTP status 201 (Created) if all products were created,
+     *         or 207 (Multi-Status) if some of them failed
+     * @throws BadRequestException if the request is empty or too large
+     * @throws RequestValidationException if any element is invalid
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Create many products in one request")
+    public Mono<ResponseEntity<BatchCreateResponseDto>> createProducts(@RequestBody List<ProductDto> productDtos) {
+        List<Product> products = ProductRequests.toProducts(productDtos, validator);
+        return productService.createProducts(products).map(ProductRequests::toBatchResponse);
+    }
+
+    /**
+     * Retrieves many products by ID in one request.
+     *
+     * @param ids the product IDs; an ID may be repeated
+     * @return one result per requested ID, in request order, with HTTP status 200 (OK)
+     * @throws BadRequestException if the request is empty, too large or contains a blank ID
+     */
+    @PostMapping("/lookup")
+    @Operation(summary = "Get many products by ID")
+    public Mono<ResponseEntity<LookupResponseDto>> lookupProducts(@RequestBody List<String> ids) {
+        ProductRequests.checkLookup(ids);
+        return productService.getProductsByIds(ids)
+                .map(products -> ResponseEntity.ok(ProductRequests.toLookupResponse(ids, products)));
+    }
+
+    /**
+     * Retrieves one page of products using keyset pagination, optionally filtered.
+     *
+     * @param limit       the maximum number of products to return
+     * @param cursor      the cursor returned with the previous page, or absent for the first page
+     * @param category    the exact category to match, or absent for any category
+     * @param minPrice    the inclusive lower price bound, or absent
+     * @param maxPrice    the inclusive upper price bound, or absent
+     * @param inStock     true for products with stock, false for sold-out products, or absent for both
+     * @param ifNoneMatch the entity tag of a copy of this page the client already has, or absent
+     * @param request     the current request, used to build the link to the next page
+     * @return list of products with HTTP status 200 (OK) and the page's entity tag, or 304 (Not Modified)
+     * @throws BadRequestException if the limit is out of range, the cursor is malformed or the
+     *                             filter is inconsistent
+     */
+    @GetMapping
+    @Operation(summary = "Get products, one page at a time")
+    public Mono<ResponseEntity<List<ProductDto>>> getAllProducts(
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            ServerHttpRequest request) {
+        ProductRequests.checkLimit(limit, MAX_PAGE_SIZE);
+        ProductFilter filter = ProductRequests.toFilter(category, minPrice, maxPrice, inStock);
+        String afterId = cursor != null ? ProductCursor.decode(cursor) : null;
+
+        // Fetch one extra row to learn whether another page follows without a count query
+        return productService.getProductsPage(filter, afterId, limit + 1).collectList().map(products -> {
+            boolean hasMore = products.size() > limit;
+            List<Product> page = hasMore ? products.subList(0, limit) : products;
+            String etag = EntityTags.ofPage(page, hasMore);
+            if (EntityTags.notModified(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(etag);
+            if (hasMore) {
+                String next = ProductCursor.encode(products.get(limit - 1).getId());
+                String nextLink = ProductRequests.nextLink(
+                        UriComponentsBuilder.fromUri(request.getURI()).replaceQuery(null), filter, limit, next);
+                response.header(NEXT_CURSOR_HEADER, next)
+                        .header(HttpHeaders.LINK, "<" + nextLink + ">; rel=\"next\"");
+            }
+            return response.body(page.stream().map(ProductRequests::toDto).toList());
+        });
+    }
+
+    /**
+     * Searches products by name and description.
+     *
+     * @param q     the free-text query
+     * @param limit the maximum number of results to return
+     * @return the ranked results with HTTP status 200 (OK)
+     * @throws BadRequestException if the query is blank or the limit is out of range
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search products by name and description")
+    public Mono<List<SearchResultDto>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "" + DEFAULT_SEARCH_SIZE) int limit) {
+        ProductRequests.checkNotBlank("q", q);
+        ProductRequests.checkLimit(limit, MAX_SEARCH_SIZE);
+        return productService.searchProducts(q, limit).map(results -> results.stream()
+                .map(result -> new SearchResultDto(ProductRequests.toDto(result.getProduct()), result.getScore()))
+                .toList());
+    }
+
+    /**
+     * Suggests product names completing a prefix, for search-as-you-type.
+     *
+     * @param prefix the typed prefix
+     * @param limit  the maximum number of suggestions to return
+     * @return the suggestions with HTTP status 200 (OK)
+     * @throws BadRequestException if the prefix is blank or the limit is out of range
+     */
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest product names completing a prefix")
+    public Mono<List<SuggestionDto>> suggestProducts(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "" + DEFAULT_SUGGEST_SIZE) int limit) {
+        ProductRequests.checkNotBlank("prefix", prefix);
+        ProductRequests.checkLimit(limit, MAX_SUGGEST_SIZE);
+        return productService.suggestProducts(prefix, limit).map(suggestions -> suggestions.stream()
+                .map(suggestion -> new SuggestionDto(suggestion.getId(), suggestion.getName(),
+                        suggestion.getStockQuantity()))
+                .toList());
+    }
+
+    /**
+     * Exports the whole catalog as newline-delimited JSON (one product per line). Rows are read from
+     * the database only as fast as the client consumes them.
+     *
+     * @return the streamed products with HTTP status 200 (OK)
+     */
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    @Operation(summary = "Export all products as newline-delimited JSON")
+    public Flux<ProductDto> exportProducts() {
+        return productService.exportProducts().map(ProductRequests::toDto);
+    }
+
+    /**
+     * Retrieves a product by its ID.
+     *
+     * @param id          the product ID
+     * @param ifNoneMatch the entity tag of a copy of the product the client already has, or absent
+     * @return the product if found with HTTP status 200 (OK) and its entity tag, or 304 (Not Modified)
+     * @throws ResourceNotFoundException if the product is not found
+     */
+    @GetMapping("/{id}")
+    @Operation(summary = "Get a product by ID")
+    public Mono<ResponseEntity<ProductDto>> getProductById(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productService.getProductById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product", "id", id)))
+                .map(product -> {
+                    String etag = EntityTags.of(product);
+                    if (EntityTags.notModified(ifNoneMatch, etag)) {
+                        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                    }
+                    return ResponseEntity.ok().eTag(etag).body(ProductRequests.toDto(product));
+                });
+    }
+
+    /**
+     * Updates an existing product.
+     *
+     * @param id         the product ID
+     * @param productDto the updated product data
+     * @param ifMatch    the entity tag the product must still have for the update to apply, or absent
+     * @return the updated product with HTTP status 200 (OK) and its new entity tag
+     * @throws ResourceNotFoundException if the product is not found
+     * @throws PreconditionFailedException if the product no longer matches {@code ifMatch}
+     */
+    @PutMapping("/{id}")
+    @Operation(summary = "Update a product")
+    public Mono<ResponseEntity<ProductDto>> updateProduct(
+            @PathVariable String id,
+            @Valid @RequestBody ProductDto productDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Product product = ProductRequests.toEntity(productDto);
+        return conditionally(id, ifMatch,
+                () -> productService.updateProduct(id, product),
+                expectedVersion -> productService.updateProduct(id, product, expectedVersion))
+                .map(this::withEntityTag);
+    }
+
+    /**
+     * Changes some fields of an existing product with a JSON Merge Patch (RFC 7396).
+     *
+     * @param id      the product ID
+     * @param patch   the merge patch, a JSON object with a subset of the product fields
+     * @param ifMatch the entity tag the product must still have for the update to apply, or absent
+     * @return the updated product with HTTP status 200 (OK) and its new entity tag
+     * @throws RequestValidationException if a member is unknown or its value is invalid
+     * @throws ResourceNotFoundException if the product is not found
+     * @throws PreconditionFailedException if the product no longer matches {@code ifMatch}
+     */
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @Operation(summary = "Change some fields of a product")
+    public Mono<ResponseEntity<ProductDto>> patchProduct(
+            @PathVariable String id,
+            @RequestBody JsonNode patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        ProductPatch productPatch = ProductRequests.toPatch(id, patch, validator);
+        return conditionally(id, ifMatch,
+                () -> productService.patchProduct(id, productPatch),
+                expectedVersion -> productService.patchProduct(id, productPatch, expectedVersion))
+                .map(this::withEntityTag);
+    }
+
+    /**
+     * Reserves units of a product, taking them out of stock.
+     *
+     * @param id          the product ID
+     * @param stockChange the number of units to reserve
+     * @return the product with its updated stock and HTTP status 200 (OK)
+     */
+    @PostMapping("/{id}/stock/reserve")
+    @Operation(summary = "Reserve units of a product")
+    public Mono<ProductDto> reserveStock(@PathVariable String id, @Valid @RequestBody StockChangeDto stockChange) {
+        return productService.reserveStock(id, stockChange.getQuantity()).map(ProductRequests::toDto);
+    }
+
+    /**
+     * Releases previously reserved units of a product, putting them back into stock.
+     *
+     * @param id          the product ID
+     * @param stockChange the number of units to release
+     * @return the product with its updated stock and HTTP status 200 (OK)
+     */
+    @PostMapping("/{id}/stock/release")
+    @Operation(summary = "Release reserved units of a product")
+    public Mono<ProductDto> releaseStock(@PathVariable String id, @Valid @RequestBody StockChangeDto stockChange) {
+        return productService.releaseStock(id, stockChange.getQuantity()).map(ProductRequests::toDto);
+    }
+
+    /**
+     * Deletes a product by its ID.
+     *
+     * @param id      the product ID
+     * @param ifMatch the entity tag the product must still have for the delete to apply, or absent
+     * @return HTTP status 204 (No Content) if deleted successfully
+     * @throws ResourceNotFoundException if the product is not found
+     * @throws PreconditionFailedException if the product no longer matches {@code ifMatch}
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete a product")
+    public Mono<ResponseEntity<Void>> deleteProduct(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return conditionally(id, ifMatch,
+                () -> productService.deleteProduct(id),
+                expectedVersion -> productService.deleteProduct(id, expectedVersion))
+                .flatMap(deleted -> deleted
+                        ? Mono.just(ResponseEntity.noContent().<Void>build())
+                        : Mono.error(new ResourceNotFoundException("Product", "id", id)));
+    }
+
+    /**
+     * Runs a write unconditionally or against the version an {@code If-Match} header expects, resolving
+     * the header as {@link ProductController} does.
+     *
+     * @param id            the product ID
+     * @param ifMatch       the header value, or null if absent
+     * @param unconditional the write to run without {@code If-Match}
+     * @param conditional   the write to run with the expected version
+     * @param <T>           the result type
+     * @return the result of the write
+     */
+    private <T> Mono<T> conditionally(String id, String ifMatch, Supplier<Mono<T>> unconditional,
+                                      Function<Long, Mono<T>> conditional) {
+        List<Long> versions = ProductRequests.acceptedVersions(id, ifMatch);
+        if (versions == null) {
+            return unconditional.get();
+        }
+        if (versions.size() == 1) {
+            return conditional.apply(versions.get(0));
+        }
+        return productService.getProductById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product", "id", id)))
+                .flatMap(current -> conditional.apply(ProductRequests.matchingVersion(current, versions, ifMatch)));
+    }
+
+    private ResponseEntity<ProductDto> withEntityTag(Product product) {
+        return ResponseEntity.ok().eTag(EntityTags.of(product)).body(ProductRequests.toDto(product));
+    }
+}
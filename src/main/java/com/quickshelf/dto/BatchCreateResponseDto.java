@@ -0,0 +1,98 @@
+package com.quickshelf.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) summarising a bulk create request.
+ * Contains the number of created and failed products and one result per request element.
+ */
+public class BatchCreateResponseDto {
+
+    /**
+     * Number of products that were created.
+     */
+    private int created;
+
+    /**
+     * Number of products that could not be created.
+     */
+    private int failed;
+
+    /**
+     * Per-element results, in request order.
+     */
+    private List<BatchItemResultDto> results;
+
+    /**
+     * Default constructor.
+     */
+    public BatchCreateResponseDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param created the number of created products
+     * @param failed  the number of failed products
+     * @param results the per-element results
+     */
+    public BatchCreateResponseDto(int created, int failed, List<BatchItemResultDto> results) {
+        this.created = created;
+        this.failed = failed;
+        this.results = results;
+    }
+
+    /**
+     * Gets the number of created products.
+     *
+     * @return the created count
+     */
+    public int getCreated() {
+        return created;
+    }
+
+    /**
+     * Sets the number of created products.
+     *
+     * @param created the created count to set
+     */
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    /**
+     * Gets the number of failed products.
+     *
+     * @return the failed count
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Sets the number of failed products.
+     *
+     * @param failed the failed count to set
+     */
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Gets the per-element results.
+     *
+     * @return the results in request order
+     */
+    public List<BatchItemResultDto> getResults() {
+        return results;
+    }
+
+    /**
+     * Sets the per-element results.
+     *
+     * @param results the results to set
+     */
+    public void setResults(List<BatchItemResultDto> results) {
+        this.results = results;
+    }
+}
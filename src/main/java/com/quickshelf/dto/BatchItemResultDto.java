@@ -0,0 +1,120 @@
+package com.quickshelf.dto;
+
+/**
+ * Data Transfer Object (DTO) describing the outcome of one element of a bulk request.
+ */
+public class BatchItemResultDto {
+
+    /**
+     * Position of the element in the request array.
+     */
+    private int index;
+
+    /**
+     * Outcome of the element, either {@code CREATED} or {@code FAILED}.
+     */
+    private String status;
+
+    /**
+     * ID of the created product. Null if the element failed.
+     */
+    private String id;
+
+    /**
+     * Reason the element failed. Null if it succeeded.
+     */
+    private String error;
+
+    /**
+     * Default constructor.
+     */
+    public BatchItemResultDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param index  the position of the element in the request
+     * @param status the outcome of the element
+     * @param id     the ID of the created product
+     * @param error  the reason the element failed
+     */
+    public BatchItemResultDto(int index, String status, String id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    /**
+     * Gets the position of the element in the request.
+     *
+     * @return the element index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Sets the position of the element in the request.
+     *
+     * @param index the element index to set
+     */
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * Gets the outcome of the element.
+     *
+     * @return the element status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the outcome of the element.
+     *
+     * @param status the element status to set
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the ID of the created product.
+     *
+     * @return the product ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the created product.
+     *
+     * @param id the product ID to set
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the reason the element failed.
+     *
+     * @return the error message
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Sets the reason the element failed.
+     *
+     * @param error the error message to set
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+}
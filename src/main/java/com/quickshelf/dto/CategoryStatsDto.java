@@ -0,0 +1,174 @@
+package com.quickshelf.dto;
+
+/**
+ * Data Transfer Object (DTO) for the aggregates of one product category.
+ */
+public class CategoryStatsDto {
+
+    /**
+     * Name of the category.
+     */
+    private String category;
+
+    /**
+     * Number of products.
+     */
+    private long count;
+
+    /**
+     * Sum of the stock quantities.
+     */
+    private long totalStock;
+
+    /**
+     * Sum of price times stock quantity.
+     */
+    private double inventoryValue;
+
+    /**
+     * Lowest price, null when there are no products.
+     */
+    private Float minPrice;
+
+    /**
+     * Highest price, null when there are no products.
+     */
+    private Float maxPrice;
+
+    /**
+     * Mean price, null when there are no products.
+     */
+    private Double averagePrice;
+
+    /**
+     * Default constructor.
+     */
+    public CategoryStatsDto() {
+    }
+
+    /**
+     * Gets the category.
+     *
+     * @return the category
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Sets the category.
+     *
+     * @param category the category
+     */
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    /**
+     * Gets the product count.
+     *
+     * @return the product count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Sets the product count.
+     *
+     * @param count the product count
+     */
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    /**
+     * Gets the total stock.
+     *
+     * @return the total stock
+     */
+    public long getTotalStock() {
+        return totalStock;
+    }
+
+    /**
+     * Sets the total stock.
+     *
+     * @param totalStock the total stock
+     */
+    public void setTotalStock(long totalStock) {
+        this.totalStock = totalStock;
+    }
+
+    /**
+     * Gets the inventory value.
+     *
+     * @return the inventory value
+     */
+    public double getInventoryValue() {
+        return inventoryValue;
+    }
+
+    /**
+     * Sets the inventory value.
+     *
+     * @param inventoryValue the inventory value
+     */
+    public void setInventoryValue(double inventoryValue) {
+        this.inventoryValue = inventoryValue;
+    }
+
+    /**
+     * Gets the lowest price.
+     *
+     * @return the lowest price
+     */
+    public Float getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * Sets the lowest price.
+     *
+     * @param minPrice the lowest price
+     */
+    public void setMinPrice(Float minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    /**
+     * Gets the highest price.
+     *
+     * @return the highest price
+     */
+    public Float getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Sets the highest price.
+     *
+     * @param maxPrice the highest price
+     */
+    public void setMaxPrice(Float maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    /**
+     * Gets the average price.
+     *
+     * @return the average price
+     */
+    public Double getAveragePrice() {
+        return averagePrice;
+    }
+
+    /**
+     * Sets the average price.
+     *
+     * @param averagePrice the average price
+     */
+    public void setAveragePrice(Double averagePrice) {
+        this.averagePrice = averagePrice;
+    }
+}
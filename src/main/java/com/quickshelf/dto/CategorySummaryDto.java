@@ -0,0 +1,120 @@
+package com.quickshelf.dto;
+
+/**
+ * Data Transfer Object (DTO) for the running totals of one product category.
+ */
+public class CategorySummaryDto {
+
+    /**
+     * Name of the category.
+     */
+    private String category;
+
+    /**
+     * Number of products in the category.
+     */
+    private long productCount;
+
+    /**
+     * Sum of the stock quantities.
+     */
+    private long unitsInStock;
+
+    /**
+     * Sum of price times stock quantity.
+     */
+    private double inventoryValue;
+
+    /**
+     * Default constructor.
+     */
+    public CategorySummaryDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param category       the category
+     * @param productCount   the product count
+     * @param unitsInStock   the units in stock
+     * @param inventoryValue the inventory value
+     */
+    public CategorySummaryDto(String category, long productCount, long unitsInStock, double inventoryValue) {
+        this.category = category;
+        this.productCount = productCount;
+        this.unitsInStock = unitsInStock;
+        this.inventoryValue = inventoryValue;
+    }
+
+    /**
+     * Gets the category.
+     *
+     * @return the category
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Sets the category.
+     *
+     * @param category the category
+     */
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    /**
+     * Gets the product count.
+     *
+     * @return the product count
+     */
+    public long getProductCount() {
+        return productCount;
+    }
+
+    /**
+     * Sets the product count.
+     *
+     * @param productCount the product count
+     */
+    public void setProductCount(long productCount) {
+        this.productCount = productCount;
+    }
+
+    /**
+     * Gets the units in stock.
+     *
+     * @return the units in stock
+     */
+    public long getUnitsInStock() {
+        return unitsInStock;
+    }
+
+    /**
+     * Sets the units in stock.
+     *
+     * @param unitsInStock the units in stock
+     */
+    public void setUnitsInStock(long unitsInStock) {
+        this.unitsInStock = unitsInStock;
+    }
+
+    /**
+     * Gets the inventory value.
+     *
+     * @return the inventory value
+     */
+    public double getInventoryValue() {
+        return inventoryValue;
+    }
+
+    /**
+     * Sets the inventory value.
+     *
+     * @param inventoryValue the inventory value
+     */
+    public void setInventoryValue(double inventoryValue) {
+        this.inventoryValue = inventoryValue;
+    }
+}
@@ -0,0 +1,250 @@
+package com.quickshelf.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) reporting the progress of a bulk import.
+ */
+public class ImportJobDto {
+
+    /**
+     * Unique identifier of the import job.
+     */
+    private String id;
+
+    /**
+     * Current status: {@code RUNNING}, {@code COMPLETED} or {@code FAILED}.
+     */
+    private String status;
+
+    /**
+     * Number of rows parsed from the upload so far.
+     */
+    private long rowsRead;
+
+    /**
+     * Number of rows committed to the catalog.
+     */
+    private long rowsImported;
+
+    /**
+     * Number of rows rejected by parsing, validation or insertion.
+     */
+    private long rowsFailed;
+
+    /**
+     * Row errors keyed by {@code [row]} or {@code [row].field}, rows numbered from 1.
+     */
+    private Map<String, String> errors;
+
+    /**
+     * Reason the upload could not be read to the end, if the import failed.
+     */
+    private String failureMessage;
+
+    /**
+     * Time the import started.
+     */
+    private LocalDateTime startedAt;
+
+    /**
+     * Time the last chunk finished. Null while the import is running.
+     */
+    private LocalDateTime completedAt;
+
+    /**
+     * Default constructor.
+     */
+    public ImportJobDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param id             the job ID
+     * @param status         the job status
+     * @param rowsRead       the number of rows read
+     * @param rowsImported   the number of rows imported
+     * @param rowsFailed     the number of rows failed
+     * @param errors         the row errors
+     * @param failureMessage the reason the upload could not be read
+     * @param startedAt      the start time
+     * @param completedAt    the completion time
+     */
+    public ImportJobDto(String id, String status, long rowsRead, long rowsImported, long rowsFailed,
+                        Map<String, String> errors, String failureMessage,
+                        LocalDateTime startedAt, LocalDateTime completedAt) {
+        this.id = id;
+        this.status = status;
+        this.rowsRead = rowsRead;
+        this.rowsImported = rowsImported;
+        this.rowsFailed = rowsFailed;
+        this.errors = errors;
+        this.failureMessage = failureMessage;
+        this.startedAt = startedAt;
+        this.completedAt = completedAt;
+    }
+
+    /**
+     * Gets the job ID.
+     *
+     * @return the job ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the job ID.
+     *
+     * @param id the job ID to set
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the job status.
+     *
+     * @return the job status
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the job status.
+     *
+     * @param status the job status to set
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the number of rows read.
+     *
+     * @return the rows read
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Sets the number of rows read.
+     *
+     * @param rowsRead the rows read to set
+     */
+    public void setRowsRead(long rowsRead) {
+        this.rowsRead = rowsRead;
+    }
+
+    /**
+     * Gets the number of rows imported.
+     *
+     * @return the rows imported
+     */
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    /**
+     * Sets the number of rows imported.
+     *
+     * @param rowsImported the rows imported to set
+     */
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    /**
+     * Gets the number of rows failed.
+     *
+     * @return the rows failed
+     */
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    /**
+     * Sets the number of rows failed.
+     *
+     * @param rowsFailed the rows failed to set
+     */
+    public void setRowsFailed(long rowsFailed) {
+        this.rowsFailed = rowsFailed;
+    }
+
+    /**
+     * Gets the row errors.
+     *
+     * @return the row errors
+     */
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Sets the row errors.
+     *
+     * @param errors the row errors to set
+     */
+    public void setErrors(Map<String, String> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Gets the reason the upload could not be read.
+     *
+     * @return the failure message
+     */
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    /**
+     * Sets the reason the upload could not be read.
+     *
+     * @param failureMessage the failure message to set
+     */
+    public void setFailureMessage(String failureMessage) {
+        this.failureMessage = failureMessage;
+    }
+
+    /**
+     * Gets the start time.
+     *
+     * @return the start time
+     */
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Sets the start time.
+     *
+     * @param startedAt the start time to set
+     */
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Gets the completion time.
+     *
+     * @return the completion time
+     */
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    /**
+     * Sets the completion time.
+     *
+     * @param completedAt the completion time to set
+     */
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -0,0 +1,95 @@
+package com.quickshelf.dto;
+
+/**
+ * Data Transfer Object (DTO) describing the outcome of one ID of a multi-get request.
+ */
+public class LookupItemResultDto {
+
+    /**
+     * The requested product ID.
+     */
+    private String id;
+
+    /**
+     * Outcome of the lookup, either {@code FOUND} or {@code NOT_FOUND}.
+     */
+    private String status;
+
+    /**
+     * The product. Null if it was not found.
+     */
+    private ProductDto product;
+
+    /**
+     * Default constructor.
+     */
+    public LookupItemResultDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param id      the requested product ID
+     * @param status  the outcome of the lookup
+     * @param product the product, or null if it was not found
+     */
+    public LookupItemResultDto(String id, String status, ProductDto product) {
+        this.id = id;
+        this.status = status;
+        this.product = product;
+    }
+
+    /**
+     * Gets the requested product ID.
+     *
+     * @return the product ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the requested product ID.
+     *
+     * @param id the product ID to set
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the outcome of the lookup.
+     *
+     * @return {@code FOUND} or {@code NOT_FOUND}
+     */
+    public String getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the outcome of the lookup.
+     *
+     * @param status the outcome to set
+     */
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the product.
+     *
+     * @return the product, or null if it was not found
+     */
+    public ProductDto getProduct() {
+        return product;
+    }
+
+    /**
+     * Sets the product.
+     *
+     * @param product the product to set
+     */
+    public void setProduct(ProductDto product) {
+        this.product = product;
+    }
+}
@@ -0,0 +1,98 @@
+package com.quickshelf.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) answering a multi-get request.
+ * Contains the number of products found and missing and one result per requested ID.
+ */
+public class LookupResponseDto {
+
+    /**
+     * Number of requested IDs for which a product was found.
+     */
+    private int found;
+
+    /**
+     * Number of requested IDs for which no product exists.
+     */
+    private int missing;
+
+    /**
+     * Per-ID results, in request order.
+     */
+    private List<LookupItemResultDto> results;
+
+    /**
+     * Default constructor.
+     */
+    public LookupResponseDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param found   the number of products found
+     * @param missing the number of IDs without a product
+     * @param results the per-ID results
+     */
+    public LookupResponseDto(int found, int missing, List<LookupItemResultDto> results) {
+        this.found = found;
+        this.missing = missing;
+        this.results = results;
+    }
+
+    /**
+     * Gets the number of products found.
+     *
+     * @return the found count
+     */
+    public int getFound() {
+        return found;
+    }
+
+    /**
+     * Sets the number of products found.
+     *
+     * @param found the found count to set
+     */
+    public void setFound(int found) {
+        this.found = found;
+    }
+
+    /**
+     * Gets the number of IDs without a product.
+     *
+     * @return the missing count
+     */
+    public int getMissing() {
+        return missing;
+    }
+
+    /**
+     * Sets the number of IDs without a product.
+     *
+     * @param missing the missing count to set
+     */
+    public void setMissing(int missing) {
+        this.missing = missing;
+    }
+
+    /**
+     * Gets the per-ID results, in request order.
+     *
+     * @return the results
+     */
+    public List<LookupItemResultDto> getResults() {
+        return results;
+    }
+
+    /**
+     * Sets the per-ID results.
+     *
+     * @param results the results to set
+     */
+    public void setResults(List<LookupItemResultDto> results) {
+        this.results = results;
+    }
+}
@@ -0,0 +1,70 @@
+package com.quickshelf.dto;
+
+/**
+ * Data Transfer Object (DTO) for one full-text search result.
+ */
+public class SearchResultDto {
+
+    /**
+     * The matching product.
+     */
+    private ProductDto product;
+
+    /**
+     * BM25 relevance score. Higher is better; only meaningful relative to other results of the same query.
+     */
+    private float score;
+
+    /**
+     * Default constructor.
+     */
+    public SearchResultDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param product the matching product
+     * @param score   the relevance score
+     */
+    public SearchResultDto(ProductDto product, float score) {
+        this.product = product;
+        this.score = score;
+    }
+
+    /**
+     * Gets the matching product.
+     *
+     * @return the product
+     */
+    public ProductDto getProduct() {
+        return product;
+    }
+
+    /**
+     * Sets the matching product.
+     *
+     * @param product the product
+     */
+    public void setProduct(ProductDto product) {
+        this.product = product;
+    }
+
+    /**
+     * Gets the relevance score.
+     *
+     * @return the score
+     */
+    public float getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the relevance score.
+     *
+     * @param score the score
+     */
+    public void setScore(float score) {
+        this.score = score;
+    }
+}
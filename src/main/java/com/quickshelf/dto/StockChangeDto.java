@@ -0,0 +1,50 @@
+package com.quickshelf.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Data Transfer Object (DTO) for a stock reservation or release.
+ */
+public class StockChangeDto {
+
+    /**
+     * Number of units to reserve or release. Must be at least 1.
+     */
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    /**
+     * Default constructor.
+     */
+    public StockChangeDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param quantity the number of units
+     */
+    public StockChangeDto(Integer quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * Gets the number of units.
+     *
+     * @return the number of units
+     */
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Sets the number of units.
+     *
+     * @param quantity the number of units
+     */
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
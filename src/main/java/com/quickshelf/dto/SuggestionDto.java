@@ -0,0 +1,95 @@
+package com.quickshelf.dto;
+
+/**
+ * Data Transfer Object (DTO) for one autocomplete suggestion.
+ */
+public class SuggestionDto {
+
+    /**
+     * ID of the suggested product.
+     */
+    private String id;
+
+    /**
+     * Name of the suggested product.
+     */
+    private String name;
+
+    /**
+     * Stock quantity of the product; suggestions are ranked by it.
+     */
+    private int stockQuantity;
+
+    /**
+     * Default constructor.
+     */
+    public SuggestionDto() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param id            the product ID
+     * @param name          the product name
+     * @param stockQuantity the stock quantity
+     */
+    public SuggestionDto(String id, String name, int stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.stockQuantity = stockQuantity;
+    }
+
+    /**
+     * Gets the product ID.
+     *
+     * @return the product ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the product ID.
+     *
+     * @param id the product ID
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the product name.
+     *
+     * @return the product name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the product name.
+     *
+     * @param name the product name
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the stock quantity.
+     *
+     * @return the stock quantity
+     */
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+
+    /**
+     * Sets the stock quantity.
+     *
+     * @param stockQuantity the stock quantity
+     */
+    public void setStockQuantity(int stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+}
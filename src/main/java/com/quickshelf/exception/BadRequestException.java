@@ -0,0 +1,22 @@
+package com.quickshelf.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a request is syntactically valid but carries parameters the API cannot honour,
+ * such as an out-of-range page size or a malformed pagination cursor.
+ * This exception is mapped to HTTP status 400 (Bad Request).
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+
+    /**
+     * Constructs a new bad request exception with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
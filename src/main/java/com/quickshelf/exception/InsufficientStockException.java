@@ -0,0 +1,22 @@
+package com.quickshelf.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a stock change cannot be applied because it would take the stock of a product
+ * below zero, or above the largest quantity that can be stored.
+ * This exception is mapped to HTTP status 409 (Conflict).
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class InsufficientStockException extends RuntimeException {
+
+    /**
+     * Constructs a new insufficient stock exception with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,22 @@
+package com.quickshelf.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a conditional write is rejected because the product no longer has the
+ * version the client expected, typically because its {@code If-Match} entity tag is outdated.
+ * This exception is mapped to HTTP status 412 (Precondition Failed).
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class PreconditionFailedException extends RuntimeException {
+
+    /**
+     * Constructs a new precondition failed exception with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
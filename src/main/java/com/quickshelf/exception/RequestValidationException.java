@@ -0,0 +1,36 @@
+package com.quickshelf.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.Map;
+
+/**
+ * Exception thrown when a request body fails validation outside of Spring's argument binding,
+ * for example when every element of a bulk request is validated up front.
+ * This exception is mapped to HTTP status 400 (Bad Request).
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class RequestValidationException extends RuntimeException {
+
+    private final Map<String, String> errors;
+
+    /**
+     * Constructs a new request validation exception.
+     *
+     * @param errors the validation messages keyed by field path
+     */
+    public RequestValidationException(Map<String, String> errors) {
+        super("Validation error");
+        this.errors = errors;
+    }
+
+    /**
+     * Gets the validation messages keyed by field path.
+     *
+     * @return the validation errors
+     */
+    public Map<String, String> getErrors() {
+        return errors;
+    }
+}
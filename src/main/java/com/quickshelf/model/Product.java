@@ -2,25 +2,39 @@ package com.quickshelf.model;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Column;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PositiveOrZero;
+import org.springframework.data.domain.Persistable;
+
+import java.util.UUID;
 
 /**
  * Entity class representing a product in the QuickShelf inventory system.
  * Each product has a unique identifier, name, description, price, category, and stock quantity.
+ *
+ * <p>IDs are generated in the application rather than by a Hibernate generator. Together with
+ * {@link Persistable#isNew()}, this lets products that arrive with an ID take the plain
+ * {@code persist} path instead of a {@code merge} that would first SELECT the row, which keeps
+ * inserts eligible for JDBC batching.</p>
+ *
+ * <p>Every write increments the {@code version} column, and Hibernate only updates or deletes the
+ * row if it still has the version that was read, so concurrent edits are detected instead of
+ * overwriting each other. The version also serves as the product's HTTP entity tag.</p>
  */
 @Entity
-public class Product {
+public class Product implements Persistable<String> {
 
     /**
-     * Unique identifier for the product, automatically generated as a UUID.
+     * Unique identifier for the product, assigned as a random UUID on first persist if not already set.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
     /**
@@ -59,6 +73,19 @@ public class Product {
     @Column(nullable = false)
     private Integer stockQuantity;
 
+    /**
+     * Optimistic locking version, starting at 0 and incremented by every update.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    /**
+     * Whether this instance has not been written to or read from the database yet.
+     */
+    @Transient
+    private boolean isNew = true;
+
     /**
      * Default constructor required by JPA.
      */
@@ -189,4 +216,52 @@ public class Product {
     public void setStockQuantity(Integer stockQuantity) {
         this.stockQuantity = stockQuantity;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the product version.
+     *
+     * @return the version, or null if the product has not been persisted yet
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the product version.
+     *
+     * @param version the version to set
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Returns whether this product has not been persisted yet.
+     * Spring Data uses this to choose between {@code persist} and {@code merge}.
+     *
+     * @return true until the product has been persisted or loaded
+     */
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    /**
+     * Assigns a random UUID before the first insert when no ID was provided.
+     */
+    @PrePersist
+    void assignId() {
+        if (id == null) {
+            id = UUID.randomUUID().toString();
+        }
+    }
+
+    /**
+     * Marks the product as stored once it has been persisted or loaded.
+     */
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
@@ -0,0 +1,125 @@
+package com.quickshelf.repository;
+
+import java.util.Objects;
+
+/**
+ * Optional criteria narrowing a product listing.
+ * Every criterion is nullable; a null criterion does not constrain the result. All criteria are
+ * evaluated by the database, where each one is served by an index declared in {@code schema.sql}.
+ */
+public final class ProductFilter {
+
+    private static final ProductFilter NONE = new ProductFilter(null, null, null, null);
+
+    private final String category;
+    private final Double minPrice;
+    private final Double maxPrice;
+    private final Boolean inStock;
+
+    /**
+     * Creates a filter.
+     *
+     * @param category the exact category to match, or null for any category
+     * @param minPrice the inclusive lower price bound, or null for no lower bound
+     * @param maxPrice the inclusive upper price bound, or null for no upper bound
+     * @param inStock  true for products with stock, false for sold-out products, or null for both
+     */
+    public ProductFilter(String category, Double minPrice, Double maxPrice, Boolean inStock) {
+        this.category = category;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+        this.inStock = inStock;
+    }
+
+    /**
+     * Returns the filter that matches every product.
+     *
+     * @return the empty filter
+     */
+    public static ProductFilter none() {
+        return NONE;
+    }
+
+    /**
+     * Tells whether this filter has no criteria at all.
+     *
+     * @return true if every product matches
+     */
+    public boolean isEmpty() {
+        return category == null && minPrice == null && maxPrice == null && inStock == null;
+    }
+
+    /**
+     * @return the category to match, or null
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * @return the inclusive lower price bound, or null
+     */
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    /**
+     * @return the inclusive upper price bound, or null
+     */
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    /**
+     * Returns the lowest stored price that satisfies the lower bound. Prices are written from
+     * {@code float}s, so a product priced 19.99 may be stored as 19.989999771118164; the bound is
+     * lowered to the {@code float} nearest to it, so such a product still matches {@code minPrice=19.99}.
+     *
+     * @return the inclusive lower bound to compare stored prices against, or null
+     */
+    public Double getLowestMatchingPrice() {
+        return minPrice == null ? null : Math.min(minPrice, (double) minPrice.floatValue());
+    }
+
+    /**
+     * Returns the highest stored price that satisfies the upper bound, raised to the {@code float}
+     * nearest to it for the same reason as {@link #getLowestMatchingPrice()}.
+     *
+     * @return the inclusive upper bound to compare stored prices against, or null
+     */
+    public Double getHighestMatchingPrice() {
+        return maxPrice == null ? null : Math.max(maxPrice, (double) maxPrice.floatValue());
+    }
+
+    /**
+     * @return the stock criterion, or null
+     */
+    public Boolean getInStock() {
+        return inStock;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductFilter that)) {
+            return false;
+        }
+        return Objects.equals(category, that.category)
+                && Objects.equals(minPrice, that.minPrice)
+                && Objects.equals(maxPrice, that.maxPrice)
+                && Objects.equals(inStock, that.inStock);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(category, minPrice, maxPrice, inStock);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductFilter{category=" + category + ", minPrice=" + minPrice
+                + ", maxPrice=" + maxPrice + ", inStock=" + inStock + "}";
+    }
+}
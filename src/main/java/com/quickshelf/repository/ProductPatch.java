@@ -0,0 +1,146 @@
+package com.quickshelf.repository;
+
+import com.quickshelf.model.Product;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A partial update of a product: the new values of the fields to change, and nothing else.
+ * Fields that are not set keep their current value; they are neither sent to the database nor
+ * compared, so a patch can be applied as one {@code UPDATE} of just the changed columns.
+ */
+public final class ProductPatch {
+
+    /**
+     * A patchable product field.
+     */
+    public enum Field {
+        NAME("name"),
+        DESCRIPTION("description"),
+        PRICE("price"),
+        CATEGORY("category"),
+        STOCK_QUANTITY("stock_quantity");
+
+        private final String column;
+
+        Field(String column) {
+            this.column = column;
+        }
+
+        /**
+         * @return the name of the column the field is stored in
+         */
+        public String getColumn() {
+            return column;
+        }
+    }
+
+    private final Map<Field, Object> values = new EnumMap<>(Field.class);
+
+    /**
+     * Sets the product name.
+     *
+     * @param name the new name
+     * @return this patch
+     */
+    public ProductPatch setName(String name) {
+        values.put(Field.NAME, name);
+        return this;
+    }
+
+    /**
+     * Sets the product description.
+     *
+     * @param description the new description, or null to remove it
+     * @return this patch
+     */
+    public ProductPatch setDescription(String description) {
+        values.put(Field.DESCRIPTION, description);
+        return this;
+    }
+
+    /**
+     * Sets the product price.
+     *
+     * @param price the new price
+     * @return this patch
+     */
+    public ProductPatch setPrice(float price) {
+        values.put(Field.PRICE, price);
+        return this;
+    }
+
+    /**
+     * Sets the product category.
+     *
+     * @param category the new category
+     * @return this patch
+     */
+    public ProductPatch setCategory(String category) {
+        values.put(Field.CATEGORY, category);
+        return this;
+    }
+
+    /**
+     * Sets the stock quantity.
+     *
+     * @param stockQuantity the new stock quantity
+     * @return this patch
+     */
+    public ProductPatch setStockQuantity(int stockQuantity) {
+        values.put(Field.STOCK_QUANTITY, stockQuantity);
+        return this;
+    }
+
+    /**
+     * Tells whether this patch changes nothing.
+     *
+     * @return true if no field is set
+     */
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Returns the fields this patch sets with their new values, in declaration order.
+     *
+     * @return an unmodifiable view of the set fields; a value may be null
+     */
+    public Map<Field, Object> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Applies this patch to a product in memory.
+     *
+     * @param product the product to change
+     */
+    public void applyTo(Product product) {
+        for (Map.Entry<Field, Object> entry : values.entrySet()) {
+            switch (entry.getKey()) {
+                case NAME -> product.setName((String) entry.getValue());
+                case DESCRIPTION -> product.setDescription((String) entry.getValue());
+                case PRICE -> product.setPrice((Float) entry.getValue());
+                case CATEGORY -> product.setCategory((String) entry.getValue());
+                case STOCK_QUANTITY -> product.setStockQuantity((Integer) entry.getValue());
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof ProductPatch that && values.equals(that.values));
+    }
+
+    @Override
+    public int hashCode() {
+        return values.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductPatch" + values;
+    }
+}
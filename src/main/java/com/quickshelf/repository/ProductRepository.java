@@ -1,16 +1,67 @@
 package com.quickshelf.repository;
 
 import com.quickshelf.model.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
 /**
  * Repository interface for Product entity.
  * Extends JpaRepository to inherit basic CRUD operations and pagination support.
  * The generic types specify the entity type (Product) and the type of its primary key (String).
+ * Filtered listings are expressed as specifications built by {@link ProductSpecifications}, and writes
+ * that return the changed row are implemented in {@link ProductRepositoryCustomImpl}.
  */
 @Repository
-public interface ProductRepository extends JpaRepository<Product, String> {
-    // Spring Data JPA provides basic CRUD operations by default
-    // Additional custom query methods can be added here if needed
-}
\ No newline at end of file
+public interface ProductRepository extends JpaRepository<Product, String>, JpaSpecificationExecutor<Product>,
+        ProductRepositoryCustom {
+
+    /**
+     * Number of rows fetched per driver round trip when streaming the catalog.
+     */
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Retrieves the first products in ascending ID order.
+     * Used to serve the first page of a keyset-paginated listing.
+     *
+     * @param limit the maximum number of products to return
+     * @return products ordered by ID
+     */
+    List<Product> findAllByOrderByIdAsc(Limit limit);
+
+    /**
+     * Retrieves the products whose ID sorts strictly after the given one, in ascending ID order.
+     * The seek predicate is resolved against the primary key index, so the cost of a page does
+     * not depend on how deep into the catalog it starts.
+     *
+     * @param id    the last ID of the previous page
+     * @param limit the maximum number of products to return
+     * @return products ordered by ID
+     */
+    List<Product> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    /**
+     * Streams every product in ascending ID order over a forward-only JDBC cursor.
+     * Rows are fetched from the driver {@value #STREAM_FETCH_SIZE} at a time and loaded read-only,
+     * so Hibernate keeps no snapshots for dirty checking. Must be called inside a transaction and
+     * the returned stream must be closed.
+     *
+     * @return a lazily populated stream of products
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select p from Product p order by p.id")
+    Stream<Product> streamAllByOrderByIdAsc();
+}
@@ -0,0 +1,72 @@
+package com.quickshelf.repository;
+
+import com.quickshelf.model.Product;
+
+import java.util.Optional;
+
+/**
+ * Product repository operations whose SQL depends on the arguments, or that must keep the persistence
+ * context consistent with rows they change in SQL, implemented by {@link ProductRepositoryCustomImpl} and
+ * exposed through {@link ProductRepository}.
+ *
+ * <p>Each operation returns the changed row from the same statement (H2 data change delta table). The
+ * returned products are detached: they are the row images the statement produced, not an instance the
+ * caller's persistence context already held, and that context no longer holds a stale copy of the row.</p>
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Applies a partial update in one {@code UPDATE} statement that writes only the columns the patch
+     * sets and increments the version. The row as it was before the update is returned by the same
+     * statement (H2 data change delta table), so the change costs a single round trip and the caller
+     * can derive the updated product by applying the patch to it.
+     *
+     * @param id              the product ID
+     * @param patch           the fields to change, not empty
+     * @param expectedVersion the version the row must have for the update to apply, or null for any version
+     * @return the product before the update, or empty if no row with that ID (and version) exists
+     */
+    Optional<Product> patch(String id, ProductPatch patch, Long expectedVersion);
+
+    /**
+     * Takes {@code quantity} units out of stock in one conditional statement, returning the updated row.
+     * The row lock taken by the update serializes concurrent reservations of the same product, and the
+     * {@code stock_quantity >= quantity} guard is evaluated under that lock, so stock can never go
+     * negative and no reservation is lost. The row is returned by the same statement (H2 data change
+     * delta table), so a successful reservation costs a single round trip.
+     *
+     * @param id       the product ID
+     * @param quantity the number of units to take, positive
+     * @return the updated product, or empty if the product does not exist or has too little stock
+     */
+    Optional<Product> reserveStock(String id, int quantity);
+
+    /**
+     * Puts {@code quantity} units back into stock in one conditional statement, returning the updated row.
+     * The guard keeps the result within the range of the {@code INT} column.
+     *
+     * @param id       the product ID
+     * @param quantity the number of units to return, positive
+     * @return the updated product, or empty if the product does not exist or the stock would overflow
+     */
+    Optional<Product> releaseStock(String id, int quantity);
+
+    /**
+     * Deletes a product in one statement, returning the deleted row (H2 data change delta table).
+     * Unlike {@link ProductRepository#delete(Object)}, nothing is read first, so a delete costs a single
+     * round trip.
+     *
+     * @param id the product ID
+     * @return the deleted product, or empty if it did not exist
+     */
+    Optional<Product> deleteAndReturn(String id);
+
+    /**
+     * Deletes a product in one statement if it still has the given version, returning the deleted row.
+     *
+     * @param id      the product ID
+     * @param version the version the product must have
+     * @return the deleted product, or empty if it does not exist or has another version
+     */
+    Optional<Product> deleteAndReturn(String id, long version);
+}
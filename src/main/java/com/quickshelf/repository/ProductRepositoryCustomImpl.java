@@ -0,0 +1,110 @@
+package com.quickshelf.repository;
+
+import com.quickshelf.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Implementation of {@link ProductRepositoryCustom}, picked up by Spring Data as a fragment of
+ * {@link ProductRepository}.
+ */
+class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param entityManager the shared entity manager
+     */
+    ProductRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Column names come from {@link ProductPatch.Field}, never from the request, and every value is
+     * bound as a parameter. A null value is written as a {@code NULL} literal, which needs no type.
+     */
+    @Override
+    @Transactional
+    public Optional<Product> patch(String id, ProductPatch patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            throw new IllegalArgumentException("A patch must set at least one field");
+        }
+        StringBuilder sql = new StringBuilder("SELECT * FROM OLD TABLE (UPDATE product SET ");
+        List<Object> parameters = new ArrayList<>();
+        for (Map.Entry<ProductPatch.Field, Object> entry : patch.getValues().entrySet()) {
+            sql.append(entry.getKey().getColumn());
+            if (entry.getValue() == null) {
+                sql.append(" = NULL, ");
+            } else {
+                parameters.add(entry.getValue());
+                sql.append(" = ?").append(parameters.size()).append(", ");
+            }
+        }
+        parameters.add(id);
+        sql.append("version = version + 1 WHERE id = ?").append(parameters.size());
+        if (expectedVersion != null) {
+            parameters.add(expectedVersion);
+            sql.append(" AND version = ?").append(parameters.size());
+        }
+        sql.append(')');
+        return changeReturning(id, sql.toString(), parameters.toArray());
+    }
+
+    @Override
+    @Transactional
+    public Optional<Product> reserveStock(String id, int quantity) {
+        return changeReturning(id, "SELECT * FROM FINAL TABLE (UPDATE product SET stock_quantity = stock_quantity - ?1,"
+                + " version = version + 1 WHERE id = ?2 AND stock_quantity >= ?1)", quantity, id);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Product> releaseStock(String id, int quantity) {
+        return changeReturning(id, "SELECT * FROM FINAL TABLE (UPDATE product SET stock_quantity = stock_quantity + ?1,"
+                + " version = version + 1 WHERE id = ?2 AND stock_quantity <= 2147483647 - ?1)", quantity, id);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Product> deleteAndReturn(String id) {
+        return changeReturning(id, "SELECT * FROM OLD TABLE (DELETE FROM product WHERE id = ?1)", id);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Product> deleteAndReturn(String id, long version) {
+        return changeReturning(id, "SELECT * FROM OLD TABLE (DELETE FROM product WHERE id = ?1 AND version = ?2)",
+                id, version);
+    }
+
+    /**
+     * Runs a data change delta table query on one product and returns the row it produced, detached.
+     * Hibernate resolves a row whose ID the persistence context already manages to that managed instance,
+     * keeping its state, so without the eviction the caller would get the instance as it was loaded rather
+     * than the row image; the row image is detached in turn because it does not track the table either
+     * (the before-image of an update, or a deleted row). Pending changes are flushed first so the eviction
+     * does not discard them.
+     */
+    @SuppressWarnings("unchecked")
+    private Optional<Product> changeReturning(String id, String sql, Object... parameters) {
+        entityManager.flush();
+        entityManager.detach(entityManager.getReference(Product.class, id));
+
+        Query query = entityManager.createNativeQuery(sql, Product.class);
+        for (int i = 0; i < parameters.length; i++) {
+            query.setParameter(i + 1, parameters[i]);
+        }
+        List<Product> rows = query.getResultList();
+        rows.forEach(entityManager::detach);
+        return rows.stream().findFirst();
+    }
+}
@@ -0,0 +1,87 @@
+package com.quickshelf.repository;
+
+import com.quickshelf.model.Product;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Factory for the JPA specifications used to query products.
+ * Only the criteria that are actually set become predicates, so the generated SQL contains plain
+ * sargable comparisons the planner can match against the product indexes.
+ */
+public final class ProductSpecifications {
+
+    private ProductSpecifications() {
+    }
+
+    /**
+     * Builds the predicate for one keyset page of a filtered listing.
+     *
+     * <p>Price bounds are bound as {@code double}s. Compared directly with the {@code Float} price
+     * attribute, Hibernate would coerce them to {@code float} and turn 19.99 into 19.989999771118164,
+     * excluding products stored at exactly 19.99. Being in stock is written as
+     * {@code stock_quantity <> 0} rather than {@code > 0}: most products are in stock, and a condition
+     * the stock index cannot serve lets the planner read the primary key in page order instead of
+     * sorting every in-stock product.</p>
+     *
+     * @param filter  the criteria to apply
+     * @param afterId the last ID of the previous page, or null for the first page
+     * @return a specification matching the filtered products that sort after {@code afterId}
+     */
+    public static Specification<Product> matching(ProductFilter filter, String afterId) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(5);
+            if (filter.getCategory() != null) {
+                predicates.add(cb.equal(root.get("category"), filter.getCategory()));
+            }
+            Expression<Double> price = root.get("price");
+            if (filter.getMinPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(price, bound(cb, filter.getLowestMatchingPrice())));
+            }
+            if (filter.getMaxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(price, bound(cb, filter.getHighestMatchingPrice())));
+            }
+            if (filter.getInStock() != null) {
+                predicates.add(filter.getInStock()
+                        ? cb.notEqual(root.get("stockQuantity"), 0)
+                        : cb.equal(root.get("stockQuantity"), 0));
+            }
+            if (afterId != null) {
+                predicates.add(cb.greaterThan(root.get("id"), afterId));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * Returns the sort of a filtered listing. Pages are always in ID order; when the filter pins a
+     * column to a single value, that column is sorted on first, which gives the same order but lets the
+     * planner read the index on that column and {@code id} in order and stop once the page is full.
+     *
+     * @param filter the criteria of the listing
+     * @return the sort to apply to {@link #matching(ProductFilter, String)}
+     */
+    public static Sort order(ProductFilter filter) {
+        if (filter.getCategory() != null) {
+            return Sort.by("category", "id");
+        }
+        if (Boolean.FALSE.equals(filter.getInStock())) {
+            return Sort.by("stockQuantity", "id");
+        }
+        return Sort.by("id");
+    }
+
+    /**
+     * Binds a price bound as a parameter typed by the value itself rather than by the price attribute.
+     */
+    private static Expression<Double> bound(CriteriaBuilder cb, double value) {
+        return ((HibernateCriteriaBuilder) cb).value(value);
+    }
+}
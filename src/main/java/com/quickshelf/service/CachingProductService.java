@@ -0,0 +1,307 @@
+package com.quickshelf.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-through cache in front of the product service of the active storage engine,
+ * {@link ProductServiceImpl} or {@link LogStructuredProductService}.
+ * Single-product lookups are served from a bounded in-process cache with size- and TTL-based eviction;
+ * every write path invalidates the affected entries once the delegate has committed, and so does every
+ * {@link ProductChangedEvent}.
+ *
+ * <p>Invalidation cannot be overtaken by a concurrent load of the same product: a load runs
+ * atomically per key, so an invalidation issued while it is in flight waits for it and then
+ * removes the value it produced.</p>
+ *
+ * <p>Enabled with {@code quickshelf.cache.enabled=true}, unless the {@link OffHeapProductReplica} is
+ * enabled and serves these reads instead. When enabled this bean is the primary {@link ProductService},
+ * so every caller goes through the cache.</p>
+ *
+ * <p>Calls are timed as {@code quickshelf.service} like those of the delegate; the {@code class} tag
+ * tells cache hits apart from calls that reach the database.</p>
+ */
+@Service
+@Primary
+@Timed(value = "quickshelf.service", histogram = true)
+@ConditionalOnExpression("${quickshelf.cache.enabled:false} and !${quickshelf.replica.enabled:false}")
+public class CachingProductService implements ProductService {
+
+    private final ProductService delegate;
+    private final Cache<String, Product> cache;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param delegate    the service that reads from and writes to the storage
+     * @param maximumSize the maximum number of cached products
+     * @param ttl         how long a cached product is served after it was loaded
+     */
+    @Autowired
+    public CachingProductService(ProductService delegate,
+                                 @Value("${quickshelf.cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${quickshelf.cache.ttl:5m}") Duration ttl) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product's entry in case a product with a client-supplied ID was cached before.
+     */
+    @Override
+    public Product createProduct(Product product) {
+        Product created = delegate.createProduct(product);
+        cache.invalidate(created.getId());
+        return created;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the entries of every created product.
+     */
+    @Override
+    public List<ProductBatchResult> createProducts(List<Product> products) {
+        List<ProductBatchResult> results = delegate.createProducts(products);
+        for (ProductBatchResult result : results) {
+            if (result.isCreated()) {
+                cache.invalidate(result.getProduct().getId());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Not cached; delegates to the database.
+     */
+    @Override
+    public List<Product> getAllProducts() {
+        return delegate.getAllProducts();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Not cached; delegates to the search index.
+     */
+    @Override
+    public List<ProductSearchResult> searchProducts(String query, int limit) {
+        return delegate.searchProducts(query, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Not cached; delegates to the suggest index.
+     */
+    @Override
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        return delegate.suggestProducts(prefix, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Not cached; delegates to the database.
+     */
+    @Override
+    public List<Product> getProductsPage(ProductFilter filter, String afterId, int limit) {
+        return delegate.getProductsPage(filter, afterId, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Not cached; delegates to the database.
+     */
+    @Override
+    public void exportProducts(Consumer<Product> consumer) {
+        delegate.exportProducts(consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Served from the cache, loading from the database on a miss. Missing products are not cached.
+     */
+    @Override
+    public Optional<Product> getProductById(String id) {
+        return Optional.ofNullable(cache.get(id, key -> delegate.getProductById(key).orElse(null)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Cached products are served from the cache and only the misses are loaded, in one call to the
+     * delegate. Loaded products are returned but not cached: unlike a single load, a bulk load is not
+     * atomic per key, and caching its result could overwrite an invalidation issued while it ran.
+     */
+    @Override
+    public Map<String, Product> getProductsByIds(Collection<String> ids) {
+        Map<String, Product> products = new HashMap<>(cache.getAllPresent(ids));
+        if (products.size() < ids.size()) {
+            List<String> misses = ids.stream().filter(id -> !products.containsKey(id)).distinct().toList();
+            if (!misses.isEmpty()) {
+                products.putAll(delegate.getProductsByIds(misses));
+            }
+        }
+        return products;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product's entry after the update.
+     */
+    @Override
+    public Product updateProduct(String id, Product productDetails) {
+        try {
+            return delegate.updateProduct(id, productDetails);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product's entry after the update, whether or not it applied.
+     */
+    @Override
+    public Product updateProduct(String id, Product productDetails, long expectedVersion) {
+        try {
+            return delegate.updateProduct(id, productDetails, expectedVersion);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product's entry after the update, whether or not it applied.
+     */
+    @Override
+    public Product patchProduct(String id, ProductPatch patch) {
+        try {
+            return delegate.patchProduct(id, patch);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product's entry after the update, whether or not it applied.
+     */
+    @Override
+    public Product patchProduct(String id, ProductPatch patch, long expectedVersion) {
+        try {
+            return delegate.patchProduct(id, patch, expectedVersion);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product afterwards, whether or not the reservation succeeded.
+     */
+    @Override
+    public Product reserveStock(String id, int quantity) {
+        try {
+            return delegate.reserveStock(id, quantity);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product afterwards, whether or not the release succeeded.
+     */
+    @Override
+    public Product releaseStock(String id, int quantity) {
+        try {
+            return delegate.releaseStock(id, quantity);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product's entry after the delete.
+     */
+    @Override
+    public boolean deleteProduct(String id) {
+        try {
+            return delegate.deleteProduct(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Invalidates the product's entry after the delete, whether or not it applied.
+     */
+    @Override
+    public boolean deleteProduct(String id, long expectedVersion) {
+        try {
+            return delegate.deleteProduct(id, expectedVersion);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Invalidates a product changed outside the calls above, such as by a flush of the stock ledger.
+     *
+     * @param event the committed change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        cache.invalidate(event.getProductId());
+    }
+
+    /**
+     * Returns a snapshot of the cache's hit, miss and eviction counters.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Performs pending eviction and expiration work immediately instead of on the next access.
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * Returns the approximate number of cached products.
+     *
+     * @return the estimated cache size
+     */
+    public long getCacheSize() {
+        return cache.estimatedSize();
+    }
+}
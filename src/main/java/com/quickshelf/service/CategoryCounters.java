@@ -0,0 +1,295 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Running totals per category: the number of products, the units in stock and the inventory value
+ * (price times stock). Every committed {@link ProductChangedEvent} adds its difference to the counters of
+ * the categories it touches. The counters are {@link LongAdder}s and {@link DoubleAdder}s, which spread
+ * concurrent additions over striped cells instead of contending on one value; events only share a read
+ * lock, which waits while a reconciliation opens or closes.
+ *
+ * <p>The counters are built from the {@link ProductCatalog} when the application is ready and recounted
+ * from it every {@code quickshelf.category-summary.reconcile-interval-ms}. A recount can repair drift, such
+ * as from an event with a stale before-image or from rounding in the inventory value, but it is not exact
+ * under concurrent writes. Products changed while the scan runs are counted from their last event rather
+ * than from the row the scan read. The scan runs in ID order, so an event for a product it has already
+ * passed is taken to follow the row it read; if that event was delivered late for a change committed
+ * before the scan got there, the change is counted twice until the next recount.</p>
+ *
+ * <p>Enabled with {@code quickshelf.category-summary.enabled=true}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "quickshelf.category-summary.enabled", havingValue = "true")
+public class CategoryCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(CategoryCounters.class);
+
+    private final ProductCatalog catalog;
+    private final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<>();
+    // Serializes reconciliations. A lock rather than a monitor, since a scan blocks on storage reads and
+    // blocking inside a monitor would pin a virtual thread to its carrier thread
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    // Held shared by every event and exclusively while a reconciliation starts or stops recording, so an
+    // event is either recorded and counted before the counters are read, or neither
+    private final StampedLock recordingLock = new StampedLock();
+
+    // Guarded by recordingLock: the reconciliation whose scan is running, or null
+    private Reconciliation recording;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param catalog the catalog of the active storage engine, which the counters are reconciled with
+     */
+    @Autowired
+    public CategoryCounters(ProductCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Builds the counters once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reconcile();
+    }
+
+    /**
+     * Adds a committed product change to the counters.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        long stamp = recordingLock.readLock();
+        try {
+            if (recording != null) {
+                recording.record(event);
+            }
+            if (event.getBefore() != null) {
+                add(event.getBefore(), -1);
+            }
+            if (event.getAfter() != null) {
+                add(event.getAfter(), 1);
+            }
+        } finally {
+            recordingLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the totals of one category.
+     *
+     * @param category the category
+     * @return the totals, zero if the category has no products
+     */
+    public CategoryTotals get(String category) {
+        Counters categoryCounters = counters.get(category);
+        return categoryCounters == null ? new CategoryTotals(category, 0, 0, 0) : categoryCounters.read(category);
+    }
+
+    /**
+     * Returns the totals of every category that has products.
+     *
+     * @return the totals, by category name
+     */
+    public List<CategoryTotals> getAll() {
+        List<CategoryTotals> totals = new ArrayList<>();
+        new TreeMap<>(counters).forEach((category, categoryCounters) -> {
+            CategoryTotals read = categoryCounters.read(category);
+            if (read.getProductCount() != 0) {
+                totals.add(read);
+            }
+        });
+        return totals;
+    }
+
+    /**
+     * Recounts every category from the catalog, with the products changed during the scan counted from
+     * their last event, and corrects the counters by the difference.
+     */
+    @Scheduled(initialDelayString = "${quickshelf.category-summary.reconcile-interval-ms:300000}",
+            fixedDelayString = "${quickshelf.category-summary.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            long start = System.nanoTime();
+            Reconciliation reconciliation = new Reconciliation();
+            long stamp = recordingLock.writeLock();
+            recording = reconciliation;
+            recordingLock.unlockWrite(stamp);
+
+            Map<String, CategoryTotals> counted = new HashMap<>();
+            try {
+                catalog.scan(reconciliation::scanned);
+            } finally {
+                stamp = recordingLock.writeLock();
+                recording = null;
+                counters.forEach((category, categoryCounters) -> counted.put(category, categoryCounters.read(category)));
+                recordingLock.unlockWrite(stamp);
+            }
+
+            Map<String, Tally> expected = reconciliation.expected();
+            Set<String> categories = new HashSet<>(counted.keySet());
+            categories.addAll(expected.keySet());
+            int corrected = 0;
+            for (String category : categories) {
+                CategoryTotals before = counted.getOrDefault(category, new CategoryTotals(category, 0, 0, 0));
+                Tally actual = expected.getOrDefault(category, new Tally());
+                long productDrift = actual.productCount - before.getProductCount();
+                long unitDrift = actual.unitsInStock - before.getUnitsInStock();
+                double valueDrift = actual.inventoryValue - before.getInventoryValue();
+                if (productDrift != 0 || unitDrift != 0 || valueDrift != 0) {
+                    Counters categoryCounters = counters.computeIfAbsent(category, key -> new Counters());
+                    categoryCounters.productCount.add(productDrift);
+                    categoryCounters.unitsInStock.add(unitDrift);
+                    categoryCounters.inventoryValue.add(valueDrift);
+                    if (productDrift != 0 || unitDrift != 0) {
+                        corrected++;
+                    }
+                }
+            }
+            log.info("Category counters reconciled over {} categories in {} ms, {} corrected", categories.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), corrected);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private void add(Product product, int sign) {
+        Counters categoryCounters = counters.computeIfAbsent(product.getCategory(), category -> new Counters());
+        categoryCounters.productCount.add(sign);
+        categoryCounters.unitsInStock.add(sign * (long) product.getStockQuantity());
+        categoryCounters.inventoryValue.add(sign * (double) product.getPrice() * product.getStockQuantity());
+    }
+
+    /**
+     * The striped counters of one category.
+     */
+    private static final class Counters {
+
+        final LongAdder productCount = new LongAdder();
+        final LongAdder unitsInStock = new LongAdder();
+        final DoubleAdder inventoryValue = new DoubleAdder();
+
+        CategoryTotals read(String category) {
+            return new CategoryTotals(category, productCount.sum(), unitsInStock.sum(), inventoryValue.sum());
+        }
+    }
+
+    /**
+     * Totals of one category counted during a scan.
+     */
+    private static final class Tally {
+
+        long productCount;
+        long unitsInStock;
+        double inventoryValue;
+
+        void add(Product product, int sign) {
+            productCount += sign;
+            unitsInStock += sign * (long) product.getStockQuantity();
+            inventoryValue += sign * (double) product.getPrice() * product.getStockQuantity();
+        }
+    }
+
+    /**
+     * The state of one product changed while a scan was running.
+     */
+    private static final class Change {
+
+        // The product as the scan counted it, null if the scan did not count it
+        Product counted;
+        boolean countedKnown;
+        // The product after its last event, null once deleted
+        Product last;
+    }
+
+    /**
+     * A running scan: its totals, and the products changed while it runs.
+     */
+    private static final class Reconciliation {
+
+        // Written by the scanning thread only
+        private final Map<String, Tally> scanned = new HashMap<>();
+        private final ConcurrentHashMap<String, Change> changes = new ConcurrentHashMap<>();
+        // The ID of the product scanned last, null before the first one
+        private volatile String position;
+
+        void scanned(Product product) {
+            position = product.getId();
+            scanned.computeIfAbsent(product.getCategory(), category -> new Tally()).add(product, 1);
+            Change change = changes.get(product.getId());
+            if (change != null) {
+                synchronized (change) {
+                    change.counted = ProductChangedEvent.snapshot(product);
+                    change.countedKnown = true;
+                }
+            }
+        }
+
+        void record(ProductChangedEvent event) {
+            String id = event.getAfter() != null ? event.getAfter().getId() : event.getBefore().getId();
+            boolean[] first = {false};
+            Change change = changes.computeIfAbsent(id, key -> {
+                first[0] = true;
+                return new Change();
+            });
+            String scannedUpTo = position;
+            synchronized (change) {
+                if (first[0] && !change.countedKnown && scannedUpTo != null && scannedUpTo.compareTo(id) >= 0) {
+                    // The scan passed the product before its first change was recorded, so it read the row
+                    // as it was before the change. A product changed earlier is counted as the scan found it.
+                    change.counted = event.getBefore();
+                    change.countedKnown = true;
+                }
+                change.last = event.getAfter();
+            }
+        }
+
+        /**
+         * Returns the scanned totals with every changed product counted as of its last event. Called once
+         * recording has stopped.
+         */
+        Map<String, Tally> expected() {
+            Map<String, Tally> expected = new HashMap<>(scanned);
+            changes.values().forEach(change -> {
+                synchronized (change) {
+                    if (change.counted != null) {
+                        expected.computeIfAbsent(change.counted.getCategory(), category -> new Tally())
+                                .add(change.counted, -1);
+                    }
+                    if (change.last != null) {
+                        expected.computeIfAbsent(change.last.getCategory(), category -> new Tally())
+                                .add(change.last, 1);
+                    }
+                }
+            });
+            return expected;
+        }
+    }
+}
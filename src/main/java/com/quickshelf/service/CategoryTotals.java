@@ -0,0 +1,63 @@
+package com.quickshelf.service;
+
+/**
+ * The running totals of one category, as read from the {@link CategoryCounters}.
+ */
+public class CategoryTotals {
+
+    private final String category;
+    private final long productCount;
+    private final long unitsInStock;
+    private final double inventoryValue;
+
+    /**
+     * Creates the totals of a category.
+     *
+     * @param category       the category
+     * @param productCount   the number of products
+     * @param unitsInStock   the sum of their stock quantities
+     * @param inventoryValue the sum of price times stock quantity
+     */
+    public CategoryTotals(String category, long productCount, long unitsInStock, double inventoryValue) {
+        this.category = category;
+        this.productCount = productCount;
+        this.unitsInStock = unitsInStock;
+        this.inventoryValue = inventoryValue;
+    }
+
+    /**
+     * Gets the category.
+     *
+     * @return the category
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Gets the number of products.
+     *
+     * @return the product count
+     */
+    public long getProductCount() {
+        return productCount;
+    }
+
+    /**
+     * Gets the sum of the stock quantities.
+     *
+     * @return the units in stock
+     */
+    public long getUnitsInStock() {
+        return unitsInStock;
+    }
+
+    /**
+     * Gets the sum of price times stock quantity.
+     *
+     * @return the inventory value
+     */
+    public double getInventoryValue() {
+        return inventoryValue;
+    }
+}
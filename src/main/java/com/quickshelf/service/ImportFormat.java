@@ -0,0 +1,32 @@
+package com.quickshelf.service;
+
+/**
+ * Input formats accepted by the bulk import pipeline.
+ */
+public enum ImportFormat {
+
+    /**
+     * Comma-separated values with a header row naming the product fields.
+     */
+    CSV("text/csv"),
+
+    /**
+     * Newline-delimited JSON, one product object per line.
+     */
+    NDJSON("application/x-ndjson");
+
+    private final String mediaType;
+
+    ImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Gets the media type clients use to upload this format.
+     *
+     * @return the media type
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+}
@@ -0,0 +1,217 @@
+package com.quickshelf.service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of a single bulk import.
+ * Updated concurrently by the reader that parses the upload and by the workers that commit chunks;
+ * all accessors are safe to call from any thread while the import is running.
+ *
+ * <p>Rows are numbered from 1 in the order they appear in the upload, excluding the CSV header.</p>
+ */
+public class ImportJob {
+
+    /**
+     * Lifecycle of an import.
+     */
+    public enum Status {
+        /** The upload is still being read or chunks are still being committed. */
+        RUNNING,
+        /** Every row has been either imported or reported as failed. */
+        COMPLETED,
+        /** The upload could not be read to the end; rows committed so far remain imported. */
+        FAILED
+    }
+
+    /**
+     * Maximum number of row errors kept for reporting. Further errors are only counted.
+     */
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final String id = UUID.randomUUID().toString();
+    private final ImportFormat format;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final Map<String, String> errors = new LinkedHashMap<>();
+
+    /**
+     * Outstanding work items: one for the reader plus one per submitted chunk.
+     * The job completes when the count drops to zero.
+     */
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    private volatile Status status = Status.RUNNING;
+    private volatile String failureMessage;
+    private volatile LocalDateTime completedAt;
+
+    /**
+     * Creates a running import job.
+     *
+     * @param format the format of the upload
+     */
+    public ImportJob(ImportFormat format) {
+        this.format = format;
+    }
+
+    void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    void rowsImported(int count) {
+        rowsImported.addAndGet(count);
+    }
+
+    void rowFailed(long row, String message) {
+        rowsFailed.incrementAndGet();
+        reportError("[" + row + "]", message);
+    }
+
+    void rowFailed(long row, Map<String, String> fieldErrors) {
+        rowsFailed.incrementAndGet();
+        fieldErrors.forEach((field, message) -> reportError("[" + row + "]." + field, message));
+    }
+
+    private void reportError(String key, String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.putIfAbsent(key, message);
+            }
+        }
+    }
+
+    void chunkSubmitted() {
+        pending.incrementAndGet();
+    }
+
+    void chunkFinished() {
+        finishWorkItem();
+    }
+
+    void readerFinished() {
+        finishWorkItem();
+    }
+
+    void readerFailed(String message) {
+        this.failureMessage = message;
+        this.status = Status.FAILED;
+        finishWorkItem();
+    }
+
+    private void finishWorkItem() {
+        if (pending.decrementAndGet() == 0) {
+            completedAt = LocalDateTime.now();
+            if (status == Status.RUNNING) {
+                status = Status.COMPLETED;
+            }
+        }
+    }
+
+    /**
+     * Gets the job ID.
+     *
+     * @return the job ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the format of the upload.
+     *
+     * @return the import format
+     */
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Gets the current status.
+     *
+     * @return the job status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns whether every chunk has been committed or reported.
+     *
+     * @return true once the job is no longer running work
+     */
+    public boolean isDone() {
+        return pending.get() == 0;
+    }
+
+    /**
+     * Gets the reason the upload could not be read, if it failed.
+     *
+     * @return the failure message, or null
+     */
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    /**
+     * Gets the number of rows parsed so far.
+     *
+     * @return the rows read
+     */
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    /**
+     * Gets the number of rows committed to the database.
+     *
+     * @return the rows imported
+     */
+    public long getRowsImported() {
+        return rowsImported.get();
+    }
+
+    /**
+     * Gets the number of rows rejected by parsing, validation or insertion.
+     *
+     * @return the rows failed
+     */
+    public long getRowsFailed() {
+        return rowsFailed.get();
+    }
+
+    /**
+     * Gets a snapshot of the reported row errors, keyed by {@code [row]} or {@code [row].field}.
+     * At most {@value #MAX_REPORTED_ERRORS} errors are reported.
+     *
+     * @return the row errors
+     */
+    public Map<String, String> getErrors() {
+        synchronized (errors) {
+            return new LinkedHashMap<>(errors);
+        }
+    }
+
+    /**
+     * Gets the time the import started.
+     *
+     * @return the start time
+     */
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Gets the time the last chunk finished.
+     *
+     * @return the completion time, or null while running
+     */
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+}
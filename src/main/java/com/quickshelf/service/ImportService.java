@@ -0,0 +1,39 @@
+package com.quickshelf.service;
+
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Service interface for bulk importing products from uploaded files.
+ * Uploads are parsed incrementally and committed in bounded chunks, so files of any size can be
+ * imported with constant memory.
+ */
+public interface ImportService {
+
+    /**
+     * Register a new import whose rows are supplied afterwards by {@link #readUpload(ImportJob, InputStream)}.
+     * The job can be followed through {@link #getJob(String)} before its upload has been read.
+     * 
+     * @param format The format of the upload
+     * @return The running import job
+     */
+    ImportJob createJob(ImportFormat format);
+
+    /**
+     * Read the upload of an import created by {@link #createJob(ImportFormat)}.
+     * Returns once the upload has been read to the end; chunks may still be committing, which can be
+     * followed through {@link #getJob(String)}. A read error fails the job instead of being thrown.
+     * 
+     * @param job The import job to read the rows for
+     * @param input The upload to read
+     */
+    void readUpload(ImportJob job, InputStream input);
+
+    /**
+     * Get an import job by its ID.
+     * 
+     * @param id The job ID
+     * @return Optional containing the job if found, empty otherwise
+     */
+    Optional<ImportJob> getJob(String id);
+}
@@ -0,0 +1,388 @@
+package com.quickshelf.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.model.Product;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Implementation of the ImportService interface.
+ *
+ * <p>The thread reading the upload parses it row by row and groups valid rows into chunks. Chunks are
+ * committed by a fixed pool of writer threads through {@link ProductService#createProducts(List)}.
+ * Each import may have only a bounded number of chunks in flight; when the writers fall behind the
+ * reader blocks, which in turn stops reading from the socket and throttles the client.</p>
+ *
+ * <p>A chunk is inserted all or nothing, so one bad row, such as a duplicate ID, rolls back its whole
+ * chunk. The rows of a rolled-back chunk are retried by halves down to single inserts, which imports the
+ * other rows and reports each offending row with its own error.</p>
+ */
+@Service
+public class ImportServiceImpl implements ImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportServiceImpl.class);
+
+    /**
+     * How long finished jobs remain available for status queries.
+     */
+    static final long JOB_RETENTION_HOURS = 24;
+
+    private final ProductService productService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader csvReader;
+    private final Validator validator;
+    private final ExecutorService writers;
+    private final int chunkSize;
+    private final int maxInFlightChunks;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param productService    the service used to commit chunks
+     * @param objectMapper      the application object mapper, used to parse NDJSON rows
+     * @param validator         the bean validator, applying the same constraints as the REST API
+     * @param workers           the number of writer threads
+     * @param chunkSize         the number of rows committed per chunk
+     * @param maxInFlightChunks the number of chunks an import may have queued or committing at once
+     * @param virtualThreads    whether writers run on virtual threads; their number stays bounded by
+     *                          {@code workers}, which limits the connections an import holds
+     */
+    @Autowired
+    public ImportServiceImpl(ProductService productService, ObjectMapper objectMapper, Validator validator,
+                             @Value("${quickshelf.import.workers:4}") int workers,
+                             @Value("${quickshelf.import.chunk-size:1000}") int chunkSize,
+                             @Value("${quickshelf.import.max-in-flight-chunks:8}") int maxInFlightChunks,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+        this.maxInFlightChunks = maxInFlightChunks;
+        this.csvReader = new CsvMapper()
+                .enable(CsvParser.Feature.WRAP_AS_ARRAY)
+                .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .readerFor(String[].class);
+        ThreadFactory threadFactory = virtualThreads
+                ? Thread.ofVirtual().name("import-writer-", 1).factory()
+                : Thread.ofPlatform().name("import-writer-", 1).factory();
+        this.writers = Executors.newFixedThreadPool(workers, threadFactory);
+    }
+
+    /**
+     * Stops the writer pool, letting chunks already submitted finish.
+     */
+    @PreDestroy
+    void shutdown() {
+        writers.shutdown();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ImportJob createJob(ImportFormat format) {
+        evictExpiredJobs();
+        ImportJob job = new ImportJob(format);
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Parsing, validation and chunking happen on the calling thread; inserts run on the writer pool.
+     * A read error fails the job, but chunks already submitted are still committed.
+     */
+    @Override
+    public void readUpload(ImportJob job, InputStream input) {
+        ChunkSubmitter submitter = new ChunkSubmitter(job);
+        try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+            if (job.getFormat() == ImportFormat.CSV) {
+                readCsv(reader, job, submitter);
+            } else {
+                readNdjson(reader, job, submitter);
+            }
+            submitter.flush();
+            job.readerFinished();
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Import {} stopped after {} rows", job.getId(), job.getRowsRead(), ex);
+            job.readerFailed("Upload could not be read after row " + job.getRowsRead() + ": " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            job.readerFailed("Import interrupted after row " + job.getRowsRead());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<ImportJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void readNdjson(Reader reader, ImportJob job, ChunkSubmitter submitter)
+            throws IOException, InterruptedException {
+        BufferedReader lines = new BufferedReader(reader);
+        long row = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            row++;
+            job.rowRead();
+            ProductDto productDto;
+            try {
+                productDto = objectMapper.readValue(line, ProductDto.class);
+            } catch (JsonProcessingException ex) {
+                job.rowFailed(row, "Malformed JSON: " + ex.getOriginalMessage());
+                continue;
+            }
+            accept(row, productDto, job, submitter);
+        }
+    }
+
+    private void readCsv(Reader reader, ImportJob job, ChunkSubmitter submitter)
+            throws IOException, InterruptedException {
+        try (MappingIterator<String[]> rows = csvReader.readValues(reader)) {
+            if (!rows.hasNextValue()) {
+                return;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            String[] header = rows.nextValue();
+            for (int i = 0; i < header.length; i++) {
+                columns.put(header[i], i);
+            }
+            long row = 0;
+            while (rows.hasNextValue()) {
+                String[] values = rows.nextValue();
+                row++;
+                job.rowRead();
+                ProductDto productDto;
+                try {
+                    productDto = new ProductDto(
+                            column(values, columns, "id"),
+                            column(values, columns, "name"),
+                            column(values, columns, "description"),
+                            parseNumber(column(values, columns, "price"), Float::valueOf),
+                            column(values, columns, "category"),
+                            parseNumber(column(values, columns, "stockQuantity"), Integer::valueOf));
+                } catch (NumberFormatException ex) {
+                    job.rowFailed(row, "Malformed number: " + ex.getMessage());
+                    continue;
+                }
+                accept(row, productDto, job, submitter);
+            }
+        }
+    }
+
+    private void accept(long row, ProductDto productDto, ImportJob job, ChunkSubmitter submitter)
+            throws InterruptedException {
+        Set<ConstraintViolation<ProductDto>> violations = validator.validate(productDto);
+        if (!violations.isEmpty()) {
+            Map<String, String> fieldErrors = new LinkedHashMap<>();
+            for (ConstraintViolation<ProductDto> violation : violations) {
+                fieldErrors.putIfAbsent(violation.getPropertyPath().toString(), violation.getMessage());
+            }
+            job.rowFailed(row, fieldErrors);
+            return;
+        }
+        Product product = new Product(
+                productDto.getName(),
+                productDto.getDescription(),
+                productDto.getPrice(),
+                productDto.getCategory(),
+                productDto.getStockQuantity());
+        product.setId(productDto.getId());
+        submitter.add(row, product);
+    }
+
+    private static String column(String[] values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.length || values[index].isEmpty()) {
+            return null;
+        }
+        return values[index];
+    }
+
+    private static <T> T parseNumber(String value, Function<String, T> parser) {
+        return value == null ? null : parser.apply(value);
+    }
+
+    private void evictExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(JOB_RETENTION_HOURS);
+        jobs.values().removeIf(job -> job.getCompletedAt() != null && job.getCompletedAt().isBefore(cutoff));
+    }
+
+    /**
+     * Accumulates valid rows of one import and hands full chunks to the writer pool,
+     * blocking while the import already has {@code maxInFlightChunks} chunks outstanding.
+     */
+    private final class ChunkSubmitter {
+
+        private final ImportJob job;
+        private final Semaphore inFlight = new Semaphore(maxInFlightChunks);
+        private List<Product> products = new ArrayList<>(chunkSize);
+        private List<Long> rows = new ArrayList<>(chunkSize);
+
+        ChunkSubmitter(ImportJob job) {
+            this.job = job;
+        }
+
+        void add(long row, Product product) throws InterruptedException {
+            products.add(product);
+            rows.add(row);
+            if (products.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        void flush() throws InterruptedException {
+            if (products.isEmpty()) {
+                return;
+            }
+            List<Product> chunk = products;
+            List<Long> chunkRows = rows;
+            products = new ArrayList<>(chunkSize);
+            rows = new ArrayList<>(chunkSize);
+
+            inFlight.acquire();
+            job.chunkSubmitted();
+            try {
+                writers.execute(() -> {
+                    try {
+                        commit(chunk, chunkRows);
+                    } finally {
+                        inFlight.release();
+                        job.chunkFinished();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                inFlight.release();
+                job.chunkFinished();
+                throw ex;
+            }
+        }
+
+        private void commit(List<Product> chunk, List<Long> chunkRows) {
+            List<ProductBatchResult> results;
+            try {
+                results = productService.createProducts(chunk);
+            } catch (RuntimeException ex) {
+                log.warn("Import {} failed to commit a chunk of {} rows", job.getId(), chunk.size(), ex);
+                results = null;
+            }
+            int imported = 0;
+            List<Product> failed = new ArrayList<>();
+            List<Long> failedRows = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                if (results != null && results.get(i).isCreated()) {
+                    imported++;
+                } else {
+                    failed.add(chunk.get(i));
+                    failedRows.add(chunkRows.get(i));
+                }
+            }
+            job.rowsImported(imported);
+            if (!failed.isEmpty()) {
+                retry(failed, failedRows);
+            }
+        }
+
+        /**
+         * Retries rows of a rolled-back insert by halves, so the rows that do not fail are still imported
+         * and each offending row is found with a few inserts and reported with its own error.
+         */
+        private void retry(List<Product> products, List<Long> productRows) {
+            if (products.size() == 1) {
+                try {
+                    productService.createProduct(copy(products.get(0)));
+                    job.rowsImported(1);
+                } catch (RuntimeException ex) {
+                    job.rowFailed(productRows.get(0), errorMessage(ex));
+                }
+                return;
+            }
+            int half = products.size() / 2;
+            retryHalf(products.subList(0, half), productRows.subList(0, half));
+            retryHalf(products.subList(half, products.size()), productRows.subList(half, products.size()));
+        }
+
+        private void retryHalf(List<Product> products, List<Long> productRows) {
+            if (products.size() == 1) {
+                retry(products, productRows);
+            } else {
+                commit(copies(products), productRows);
+            }
+        }
+    }
+
+    /**
+     * Copies products for a retry, since a rolled-back insert may have left them marked as stored.
+     */
+    private static List<Product> copies(List<Product> products) {
+        return products.stream().map(ImportServiceImpl::copy).toList();
+    }
+
+    private static Product copy(Product product) {
+        Product copy = new Product(
+                product.getName(),
+                product.getDescription(),
+                product.getPrice(),
+                product.getCategory(),
+                product.getStockQuantity());
+        copy.setId(product.getId());
+        return copy;
+    }
+
+    /**
+     * Describes why a single row could not be inserted: the first line of the root cause's message,
+     * such as the constraint a duplicate ID violated.
+     */
+    static String errorMessage(RuntimeException ex) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(ex);
+        String message = cause.getMessage();
+        if (message == null || message.isBlank()) {
+            return "Insert failed: " + cause.getClass().getSimpleName();
+        }
+        int lineBreak = message.indexOf('\n');
+        return "Insert failed: " + (lineBreak < 0 ? message : message.substring(0, lineBreak)).trim();
+    }
+}
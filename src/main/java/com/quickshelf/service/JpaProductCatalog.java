@@ -0,0 +1,57 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * The catalog as stored in the database. Products are read over a cursor inside a read-only
+ * transaction and detached once the consumer is done with them, so the persistence context never
+ * grows beyond a single entity.
+ *
+ * <p>Active with the default {@code quickshelf.storage.engine=jpa}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "quickshelf.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaProductCatalog implements ProductCatalog {
+
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param productRepository  the repository the catalog is read from
+     * @param entityManager      the shared entity manager, used to release products once consumed
+     * @param transactionManager the transaction manager, used to read the catalog over a cursor
+     */
+    @Autowired
+    public JpaProductCatalog(ProductRepository productRepository, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public void scan(Consumer<Product> consumer) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+                products.forEach(product -> {
+                    consumer.accept(product);
+                    entityManager.detach(product);
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,312 @@
+package com.quickshelf.service;
+
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.exception.ResourceNotFoundException;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of the ProductService interface over the {@link ProductLogStore} instead of the database.
+ * Reads are answered from the store's memory-mapped segments without SQL or Hibernate; every write is a
+ * single append. Conditional writes and stock changes check and apply their condition under the store's
+ * write lock, so they are atomic like the conditional statements of {@link ProductServiceImpl}.
+ *
+ * <p>Enabled with {@code quickshelf.storage.engine=log}. The stock ledger and the reactive stack keep
+ * using the database.</p>
+ *
+ * <p>Every call is timed as {@code quickshelf.service}, tagged with the class and method.</p>
+ */
+@Service
+@Timed(value = "quickshelf.service", histogram = true)
+@ConditionalOnProperty(name = "quickshelf.storage.engine", havingValue = "log")
+public class LogStructuredProductService implements ProductService {
+
+    private static final Logger log = LoggerFactory.getLogger(LogStructuredProductService.class);
+
+    private final ProductLogStore store;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param store          the log-structured store holding the products
+     * @param eventPublisher the publisher of {@link ProductChangedEvent}s
+     * @param searchIndex    the full-text index over product names and descriptions
+     * @param suggestIndex   the prefix index over product names
+     */
+    @Autowired
+    public LogStructuredProductService(ProductLogStore store, ApplicationEventPublisher eventPublisher,
+                                       ProductSearchIndex searchIndex, ProductSuggestIndex suggestIndex) {
+        this.store = store;
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Appends the product to the log.
+     */
+    @Override
+    public Product createProduct(Product product) {
+        store.insert(List.of(product));
+        eventPublisher.publishEvent(ProductChangedEvent.created(product));
+        return product;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each chunk of {@value ProductServiceImpl#BATCH_CHUNK_SIZE} products is checked as a whole and then
+     * appended. If a chunk is rejected, every product in it is reported as failed and the next chunk proceeds.
+     */
+    @Override
+    public List<ProductBatchResult> createProducts(List<Product> products) {
+        List<ProductBatchResult> results = new ArrayList<>(products.size());
+        for (int from = 0; from < products.size(); from += ProductServiceImpl.BATCH_CHUNK_SIZE) {
+            List<Product> chunk = products.subList(from,
+                    Math.min(from + ProductServiceImpl.BATCH_CHUNK_SIZE, products.size()));
+            try {
+                store.insert(chunk);
+                chunk.forEach(product -> {
+                    results.add(ProductBatchResult.created(product));
+                    eventPublisher.publishEvent(ProductChangedEvent.created(product));
+                });
+            } catch (RuntimeException ex) {
+                log.warn("Bulk insert of products {} to {} rejected", from, from + chunk.size() - 1, ex);
+                chunk.forEach(product -> results.add(
+                        ProductBatchResult.failed("Insert failed; the chunk containing this product was rejected")));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Decodes every product in the log.
+     */
+    @Override
+    public List<Product> getAllProducts() {
+        List<Product> products = new ArrayList<>(store.size());
+        store.scan(products::add);
+        return products;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Seeks past {@code afterId} in the store's ordered index. Filters have no index of their own, so
+     * products are decoded and tested in ID order until the page is full.
+     */
+    @Override
+    public List<Product> getProductsPage(ProductFilter filter, String afterId, int limit) {
+        return store.page(afterId, product -> matches(filter, product), limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Decodes one product at a time from the log, in ID order.
+     */
+    @Override
+    public void exportProducts(Consumer<Product> consumer) {
+        store.scan(consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Ranks products with the in-memory {@link ProductSearchIndex}, then reads the hits from the log.
+     * Hits deleted in the meantime are left out.
+     */
+    @Override
+    public List<ProductSearchResult> searchProducts(String query, int limit) {
+        List<ProductSearchResult> results = new ArrayList<>();
+        for (ProductSearchIndex.Hit hit : searchIndex.search(query, limit)) {
+            store.get(hit.getProductId()).ifPresent(product -> results.add(new ProductSearchResult(product,
+                    hit.getScore())));
+        }
+        return results;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Answered entirely from the in-memory {@link ProductSuggestIndex}.
+     */
+    @Override
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * One index lookup and a decode from the mapped segment.
+     */
+    @Override
+    public Optional<Product> getProductById(String id) {
+        return store.get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each distinct ID is one index lookup.
+     */
+    @Override
+    public Map<String, Product> getProductsByIds(Collection<String> ids) {
+        Map<String, Product> products = new HashMap<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            store.get(id).ifPresent(product -> products.put(id, product));
+        }
+        return products;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Appends the product with the new details and the next version.
+     */
+    @Override
+    public Product updateProduct(String id, Product productDetails) {
+        return update(id, productDetails, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The version is compared under the store's write lock, so no write can come in between.
+     */
+    @Override
+    public Product updateProduct(String id, Product productDetails, long expectedVersion) {
+        return update(id, productDetails, expectedVersion);
+    }
+
+    private Product update(String id, Product productDetails, Long expectedVersion) {
+        return write(id, product -> {
+            ProductServiceImpl.checkVersion(product, expectedVersion);
+            product.setName(productDetails.getName());
+            product.setDescription(productDetails.getDescription());
+            product.setPrice(productDetails.getPrice());
+            product.setCategory(productDetails.getCategory());
+            product.setStockQuantity(productDetails.getStockQuantity());
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Appends the product with the patch applied; the log always holds whole products.
+     */
+    @Override
+    public Product patchProduct(String id, ProductPatch patch) {
+        return patch(id, patch, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The version is compared under the store's write lock, so no write can come in between.
+     */
+    @Override
+    public Product patchProduct(String id, ProductPatch patch, long expectedVersion) {
+        return patch(id, patch, expectedVersion);
+    }
+
+    private Product patch(String id, ProductPatch patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            Product current = store.get(id).orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+            ProductServiceImpl.checkVersion(current, expectedVersion);
+            return current;
+        }
+        return write(id, product -> {
+            ProductServiceImpl.checkVersion(product, expectedVersion);
+            patch.applyTo(product);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The stock is checked and reduced under the store's write lock, so concurrent reservations of the
+     * same product never lose updates.
+     */
+    @Override
+    public Product reserveStock(String id, int quantity) {
+        return write(id, product -> {
+            if (product.getStockQuantity() < quantity) {
+                throw new InsufficientStockException(String.format(
+                        "Insufficient stock for product '%s': requested %d, available %d",
+                        id, quantity, product.getStockQuantity()));
+            }
+            product.setStockQuantity(product.getStockQuantity() - quantity);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The stock is checked and increased under the store's write lock.
+     */
+    @Override
+    public Product releaseStock(String id, int quantity) {
+        return write(id, product -> {
+            if (product.getStockQuantity() > Integer.MAX_VALUE - quantity) {
+                throw new InsufficientStockException(String.format(
+                        "Releasing %d units would exceed the maximum stock of product '%s'", quantity, id));
+            }
+            product.setStockQuantity(product.getStockQuantity() + quantity);
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Appends a delete record for the product.
+     */
+    @Override
+    public boolean deleteProduct(String id) {
+        return delete(id, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The version is compared under the store's write lock, so no write can come in between.
+     */
+    @Override
+    public boolean deleteProduct(String id, long expectedVersion) {
+        return delete(id, expectedVersion);
+    }
+
+    private boolean delete(String id, Long expectedVersion) {
+        Optional<Product> deleted = store.delete(id,
+                product -> ProductServiceImpl.checkVersion(product, expectedVersion));
+        deleted.ifPresent(product -> eventPublisher.publishEvent(ProductChangedEvent.deleted(product)));
+        return deleted.isPresent();
+    }
+
+    /**
+     * Applies a change to a product in the store and publishes it.
+     *
+     * @throws ResourceNotFoundException if the product does not exist
+     */
+    private Product write(String id, Consumer<Product> change) {
+        ProductLogStore.Change written = store.update(id, change)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        eventPublisher.publishEvent(ProductChangedEvent.updated(written.before(), written.after()));
+        return written.after();
+    }
+
+    private static boolean matches(ProductFilter filter, Product product) {
+        return (filter.getCategory() == null || filter.getCategory().equals(product.getCategory()))
+                && (filter.getMinPrice() == null || product.getPrice() >= filter.getLowestMatchingPrice())
+                && (filter.getMaxPrice() == null || product.getPrice() <= filter.getHighestMatchingPrice())
+                && (filter.getInStock() == null || filter.getInStock() == (product.getStockQuantity() > 0));
+    }
+}
@@ -0,0 +1,822 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.Closeable;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+import static java.lang.foreign.ValueLayout.JAVA_CHAR;
+import static java.lang.foreign.ValueLayout.JAVA_FLOAT;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+
+/**
+ * Read-only copy of the whole catalog held outside the Java heap, in memory segments allocated through the
+ * Foreign Function and Memory API. However large the catalog, the heap holds a handful of objects for it and
+ * the garbage collector never traces or copies the products.
+ *
+ * <p>Every product is one fixed-size row ({@link #ROW}) holding its numbers, its state and the positions of
+ * its strings, which are kept as UTF-16 code units in a separate text segment. An open-addressing hash table
+ * of row numbers finds a product by ID, and an array of row numbers sorted by ID, plus a small sorted tail of
+ * recent inserts merged into it when full, serves keyset pages. IDs, categories and prices are compared in
+ * place, so a read allocates only the products it returns and a filtered page decodes only its matches.</p>
+ *
+ * <p>Updates overwrite a product's row and reuse its strings when they did not change; strings that did
+ * are appended and the text segment is compacted when it fills up. Deleted rows stay in the sorted array
+ * until the next merge and are then reused.</p>
+ *
+ * <p>The replica is rebuilt from the {@link ProductCatalog} when the application is ready and kept current
+ * from {@link ProductChangedEvent}s once their transaction commits. A change older than the row it would
+ * replace, by version, is ignored. Enabled with {@code quickshelf.replica.enabled=true}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "quickshelf.replica.enabled", havingValue = "true")
+public class OffHeapProductReplica implements Closeable {
+
+    /**
+     * Layout of a product row. Strings are referenced by their byte offset in the text segment and their
+     * length in chars; the name, the category and the description are stored one after another.
+     */
+    static final StructLayout ROW = MemoryLayout.structLayout(
+            JAVA_LONG.withName("version"),
+            JAVA_LONG.withName("idOffset"),
+            JAVA_LONG.withName("textOffset"),
+            JAVA_FLOAT.withName("price"),
+            JAVA_INT.withName("stockQuantity"),
+            JAVA_INT.withName("idLength"),
+            JAVA_INT.withName("nameLength"),
+            JAVA_INT.withName("categoryLength"),
+            JAVA_INT.withName("descriptionLength"),
+            JAVA_INT.withName("state"),
+            MemoryLayout.paddingLayout(4));
+
+    /**
+     * Number of recent inserts kept in the sorted tail before it is merged into the sorted array.
+     */
+    static final int TAIL_CAPACITY = 4096;
+
+    private static final long VERSION = offset("version");
+    private static final long ID_OFFSET = offset("idOffset");
+    private static final long TEXT_OFFSET = offset("textOffset");
+    private static final long PRICE = offset("price");
+    private static final long STOCK_QUANTITY = offset("stockQuantity");
+    private static final long ID_LENGTH = offset("idLength");
+    private static final long NAME_LENGTH = offset("nameLength");
+    private static final long CATEGORY_LENGTH = offset("categoryLength");
+    private static final long DESCRIPTION_LENGTH = offset("descriptionLength");
+    private static final long STATE = offset("state");
+
+    // Row states. A free row is on the free list, which is linked through the version field
+    private static final int FREE = 0;
+    private static final int LIVE = 1;
+    private static final int DELETED = 2;
+
+    // Hash table slots hold the row number plus one
+    private static final int EMPTY = 0;
+    private static final int TOMBSTONE = -1;
+
+    private static final int INITIAL_ROWS = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapProductReplica.class);
+
+    private final ProductCatalog catalog;
+
+    // Serializes rebuilds. A lock rather than a monitor, since a rebuild blocks on storage reads and
+    // blocking inside a monitor would pin a virtual thread to its carrier thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Reads share the lock, changes take it exclusively. Unlike ReentrantReadWriteLock, taking a read
+    // stamp allocates nothing
+    private final StampedLock lock = new StampedLock();
+    // Guarded by lock; null until the first rebuild has completed and after close
+    private Table table;
+    // Guarded by lock; non-null while a rebuild is running, replayed onto the rebuilt table
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param catalog the catalog of the active storage engine, which the replica is rebuilt from
+     */
+    @Autowired
+    public OffHeapProductReplica(ProductCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Builds the replica once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the replica from the catalog and swaps it in.
+     * Reads keep using the current replica meanwhile; changes committed during the rebuild are
+     * applied to both and replayed onto the new replica before it is published.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            long stamp = lock.writeLock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+
+            Table rebuilt = null;
+            Table replaced = null;
+            int products = 0;
+            long byteSize = 0;
+            Table loading = new Table();
+            try {
+                catalog.scan(loading::load);
+                rebuilt = loading;
+            } finally {
+                stamp = lock.writeLock();
+                try {
+                    if (rebuilt != null) {
+                        for (ProductChangedEvent change : changesDuringRebuild) {
+                            apply(rebuilt, change);
+                        }
+                        replaced = table;
+                        table = rebuilt;
+                        products = rebuilt.size;
+                        byteSize = rebuilt.byteSize();
+                    } else {
+                        loading.close();
+                    }
+                    changesDuringRebuild = null;
+                    // Closing a shared arena waits for every thread to leave it, so it happens while
+                    // no read holds the lock
+                    if (replaced != null) {
+                        replaced.close();
+                    }
+                } finally {
+                    lock.unlockWrite(stamp);
+                }
+            }
+            log.info("Off-heap replica rebuilt with {} products in {} ms, {} KB off heap", products,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), byteSize / 1024);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a committed product change to the replica.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        long stamp = lock.writeLock();
+        try {
+            if (table != null) {
+                apply(table, event);
+            }
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Tells whether the replica has been built and can answer reads.
+     *
+     * @return true once the first rebuild has completed
+     */
+    public boolean isReady() {
+        long stamp = lock.readLock();
+        try {
+            return table != null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of products in the replica.
+     *
+     * @return the product count, 0 before the first rebuild
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return table == null ? 0 : table.size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads a product from the replica.
+     *
+     * @param id the product ID
+     * @return the product, or empty if it does not exist or the replica is not built yet
+     */
+    public Optional<Product> get(String id) {
+        long stamp = lock.readLock();
+        try {
+            int row = table == null ? -1 : table.find(id);
+            return row < 0 ? Optional.empty() : Optional.of(table.read(row));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads several products from the replica.
+     *
+     * @param ids the product IDs; duplicates are looked up once
+     * @return the products found, keyed by ID
+     */
+    public Map<String, Product> getAll(Collection<String> ids) {
+        Map<String, Product> products = new HashMap<>();
+        long stamp = lock.readLock();
+        try {
+            for (String id : ids) {
+                int row = table == null || products.containsKey(id) ? -1 : table.find(id);
+                if (row >= 0) {
+                    products.put(id, table.read(row));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return products;
+    }
+
+    /**
+     * Returns up to {@code limit} products matching the filter with an ID after {@code afterId}, in ID order.
+     * The filter is tested on the rows in place; only matching products are decoded.
+     *
+     * @param filter  the criteria a product must match
+     * @param afterId the ID the page starts after, or null for the first page
+     * @param limit   the maximum number of products
+     * @return the page
+     */
+    public List<Product> page(ProductFilter filter, String afterId, int limit) {
+        List<Product> page = new ArrayList<>(Math.min(limit, 256));
+        long stamp = lock.readLock();
+        try {
+            if (table != null) {
+                table.page(filter, afterId, limit, page);
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return page;
+    }
+
+    /**
+     * Releases the off-heap memory. Reads afterwards find nothing.
+     */
+    @Override
+    @PreDestroy
+    public void close() {
+        long stamp = lock.writeLock();
+        try {
+            if (table != null) {
+                table.close();
+                table = null;
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private static void apply(Table table, ProductChangedEvent change) {
+        if (change.getType() == ProductChangedEvent.Type.DELETED) {
+            table.remove(change.getBefore());
+        } else {
+            table.put(change.getAfter());
+        }
+    }
+
+    private static long offset(String field) {
+        return ROW.byteOffset(MemoryLayout.PathElement.groupElement(field));
+    }
+
+    private static long version(Product product) {
+        return product.getVersion() == null ? 0 : product.getVersion();
+    }
+
+    /**
+     * A block of off-heap memory with its own arena, so it can be freed on its own when it is replaced.
+     */
+    private record Block(Arena arena, MemorySegment segment) {
+
+        static Block allocate(long byteSize) {
+            Arena arena = Arena.ofShared();
+            return new Block(arena, arena.allocate(Math.max(byteSize, Long.BYTES), Long.BYTES));
+        }
+
+        long byteSize() {
+            return segment.byteSize();
+        }
+
+        void close() {
+            arena.close();
+        }
+    }
+
+    /**
+     * The rows, their strings, the hash table and the sorted order of one replica. Not thread-safe;
+     * the enclosing replica guards it.
+     */
+    private static final class Table implements AutoCloseable {
+
+        private Block rows = Block.allocate(INITIAL_ROWS * ROW.byteSize());
+        // Rows ever used; rows below it are live, deleted or on the free list
+        private int rowCount;
+        private int freeRow = -1;
+
+        private Block text = Block.allocate(INITIAL_ROWS * 128L);
+        private long textUsed;
+        // Bytes of text still referenced by a row; the rest is reclaimed when the segment is compacted
+        private long textLive;
+
+        private Block index = Block.allocate(INITIAL_ROWS * 2L * Integer.BYTES);
+        private int indexCapacity = INITIAL_ROWS * 2;
+        // Occupied slots, tombstones included
+        private int indexUsed;
+        private int size;
+
+        // Row numbers in ID order, then recent inserts in ID order
+        private Block order = Block.allocate(INITIAL_ROWS * (long) Integer.BYTES);
+        private int orderLength;
+        private final Block tail = Block.allocate(TAIL_CAPACITY * (long) Integer.BYTES);
+        private int tailLength;
+
+        /**
+         * Adds a product read from the catalog. The catalog is scanned in ID order, so the product
+         * is appended to the sorted array unless it arrived out of order.
+         */
+        void load(Product product) {
+            if (orderLength > 0 && compare(orderAt(orderLength - 1), product.getId()) >= 0) {
+                put(product);
+                return;
+            }
+            int row = insert(product);
+            if ((long) (orderLength + 1) * Integer.BYTES > order.byteSize()) {
+                Block grown = Block.allocate(order.byteSize() * 2);
+                MemorySegment.copy(order.segment(), 0, grown.segment(), 0, (long) orderLength * Integer.BYTES);
+                order.close();
+                order = grown;
+            }
+            order.segment().setAtIndex(JAVA_INT, orderLength++, row);
+        }
+
+        void put(Product product) {
+            int row = find(product.getId());
+            if (row < 0) {
+                addToTail(insert(product));
+                return;
+            }
+            if (version(product) < rows().get(JAVA_LONG, base(row) + VERSION)) {
+                return;
+            }
+            if (!textEquals(row, product)) {
+                long bytes = textBytes(product);
+                ensureText(bytes);
+                textLive += bytes - textBytes(row);
+                writeText(row, product);
+            }
+            writeNumbers(row, product);
+        }
+
+        void remove(Product product) {
+            int slot = slot(product.getId());
+            int row = slot < 0 ? -1 : index.segment().getAtIndex(JAVA_INT, slot) - 1;
+            if (row < 0 || version(product) < rows().get(JAVA_LONG, base(row) + VERSION)) {
+                return;
+            }
+            index.segment().setAtIndex(JAVA_INT, slot, TOMBSTONE);
+            rows().set(JAVA_INT, base(row) + STATE, DELETED);
+            textLive -= textBytes(row);
+            size--;
+        }
+
+        int find(String id) {
+            int slot = slot(id);
+            return slot < 0 ? -1 : index.segment().getAtIndex(JAVA_INT, slot) - 1;
+        }
+
+        Product read(int row) {
+            MemorySegment rows = rows();
+            long base = base(row);
+            long textOffset = rows.get(JAVA_LONG, base + TEXT_OFFSET);
+            int nameLength = rows.get(JAVA_INT, base + NAME_LENGTH);
+            int categoryLength = rows.get(JAVA_INT, base + CATEGORY_LENGTH);
+            int descriptionLength = rows.get(JAVA_INT, base + DESCRIPTION_LENGTH);
+
+            Product product = new Product();
+            product.setId(string(rows.get(JAVA_LONG, base + ID_OFFSET), rows.get(JAVA_INT, base + ID_LENGTH)));
+            product.setVersion(rows.get(JAVA_LONG, base + VERSION));
+            product.setPrice(rows.get(JAVA_FLOAT, base + PRICE));
+            product.setStockQuantity(rows.get(JAVA_INT, base + STOCK_QUANTITY));
+            product.setName(string(textOffset, nameLength));
+            product.setCategory(string(textOffset + 2L * nameLength, categoryLength));
+            product.setDescription(descriptionLength < 0 ? null
+                    : string(textOffset + 2L * (nameLength + categoryLength), descriptionLength));
+            return product;
+        }
+
+        void page(ProductFilter filter, String afterId, int limit, List<Product> page) {
+            int i = afterId == null ? 0 : upperBound(order.segment(), orderLength, afterId);
+            int j = afterId == null ? 0 : upperBound(tail.segment(), tailLength, afterId);
+            while (page.size() < limit && (i < orderLength || j < tailLength)) {
+                int row;
+                if (j == tailLength || (i < orderLength && compareRows(orderAt(i), tailAt(j)) <= 0)) {
+                    row = orderAt(i++);
+                } else {
+                    row = tailAt(j++);
+                }
+                if (rows().get(JAVA_INT, base(row) + STATE) == LIVE && matches(row, filter)) {
+                    page.add(read(row));
+                }
+            }
+        }
+
+        long byteSize() {
+            return rows.byteSize() + text.byteSize() + index.byteSize() + order.byteSize() + tail.byteSize();
+        }
+
+        @Override
+        public void close() {
+            rows.close();
+            text.close();
+            index.close();
+            order.close();
+            tail.close();
+        }
+
+        private MemorySegment rows() {
+            return rows.segment();
+        }
+
+        private static long base(int row) {
+            return row * ROW.byteSize();
+        }
+
+        private int orderAt(int position) {
+            return order.segment().getAtIndex(JAVA_INT, position);
+        }
+
+        private int tailAt(int position) {
+            return tail.segment().getAtIndex(JAVA_INT, position);
+        }
+
+        /**
+         * Stores a product in a new row and indexes it by ID; the caller places the row in the sorted order.
+         */
+        private int insert(Product product) {
+            String id = product.getId();
+            long bytes = 2L * id.length() + textBytes(product);
+            ensureText(bytes);
+            int row = allocateRow();
+            long base = base(row);
+            rows().set(JAVA_LONG, base + ID_OFFSET, textUsed);
+            rows().set(JAVA_INT, base + ID_LENGTH, id.length());
+            writeChars(id);
+            writeText(row, product);
+            writeNumbers(row, product);
+            rows().set(JAVA_INT, base + STATE, LIVE);
+            textLive += bytes;
+            size++;
+
+            if (2L * (indexUsed + 1) > indexCapacity) {
+                rehash(4L * size > indexCapacity ? indexCapacity * 2 : indexCapacity);
+            }
+            int mask = indexCapacity - 1;
+            int slot = hash(id) & mask;
+            while (index.segment().getAtIndex(JAVA_INT, slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            index.segment().setAtIndex(JAVA_INT, slot, row + 1);
+            indexUsed++;
+            return row;
+        }
+
+        private int allocateRow() {
+            if (freeRow >= 0) {
+                int row = freeRow;
+                freeRow = (int) rows().get(JAVA_LONG, base(row) + VERSION);
+                return row;
+            }
+            if (base(rowCount + 1) > rows.byteSize()) {
+                Block grown = Block.allocate(rows.byteSize() * 2);
+                MemorySegment.copy(rows(), 0, grown.segment(), 0, base(rowCount));
+                rows.close();
+                rows = grown;
+            }
+            return rowCount++;
+        }
+
+        private void writeNumbers(int row, Product product) {
+            long base = base(row);
+            rows().set(JAVA_LONG, base + VERSION, version(product));
+            rows().set(JAVA_FLOAT, base + PRICE, product.getPrice());
+            rows().set(JAVA_INT, base + STOCK_QUANTITY, product.getStockQuantity());
+        }
+
+        /**
+         * Appends the name, category and description; the caller has made room for them.
+         */
+        private void writeText(int row, Product product) {
+            long base = base(row);
+            rows().set(JAVA_LONG, base + TEXT_OFFSET, textUsed);
+            rows().set(JAVA_INT, base + NAME_LENGTH, product.getName().length());
+            rows().set(JAVA_INT, base + CATEGORY_LENGTH, product.getCategory().length());
+            rows().set(JAVA_INT, base + DESCRIPTION_LENGTH,
+                    product.getDescription() == null ? -1 : product.getDescription().length());
+            writeChars(product.getName());
+            writeChars(product.getCategory());
+            if (product.getDescription() != null) {
+                writeChars(product.getDescription());
+            }
+        }
+
+        private void writeChars(String value) {
+            MemorySegment segment = text.segment();
+            for (int i = 0; i < value.length(); i++) {
+                segment.setAtIndex(JAVA_CHAR, textUsed / 2 + i, value.charAt(i));
+            }
+            textUsed += 2L * value.length();
+        }
+
+        private String string(long offset, int length) {
+            char[] chars = new char[length];
+            MemorySegment.copy(text.segment(), JAVA_CHAR, offset, chars, 0, length);
+            return new String(chars);
+        }
+
+        private static long textBytes(Product product) {
+            String description = product.getDescription();
+            return 2L * (product.getName().length() + product.getCategory().length()
+                    + (description == null ? 0 : description.length()));
+        }
+
+        private long textBytes(int row) {
+            long base = base(row);
+            return 2L * (rows().get(JAVA_INT, base + NAME_LENGTH) + rows().get(JAVA_INT, base + CATEGORY_LENGTH)
+                    + Math.max(rows().get(JAVA_INT, base + DESCRIPTION_LENGTH), 0));
+        }
+
+        private boolean textEquals(int row, Product product) {
+            long base = base(row);
+            long offset = rows().get(JAVA_LONG, base + TEXT_OFFSET);
+            int nameLength = rows().get(JAVA_INT, base + NAME_LENGTH);
+            int categoryLength = rows().get(JAVA_INT, base + CATEGORY_LENGTH);
+            int descriptionLength = rows().get(JAVA_INT, base + DESCRIPTION_LENGTH);
+            String description = product.getDescription();
+            return compare(offset, nameLength, product.getName()) == 0
+                    && compare(offset + 2L * nameLength, categoryLength, product.getCategory()) == 0
+                    && (description == null ? descriptionLength < 0 : descriptionLength >= 0
+                    && compare(offset + 2L * (nameLength + categoryLength), descriptionLength, description) == 0);
+        }
+
+        /**
+         * Makes room for {@code bytes} more bytes of text. A full segment is replaced by one twice the size of
+         * the live text it holds, into which only the live strings are copied.
+         */
+        private void ensureText(long bytes) {
+            if (textUsed + bytes <= text.byteSize()) {
+                return;
+            }
+            Block compacted = Block.allocate(2 * (textLive + bytes));
+            long used = 0;
+            for (int row = 0; row < rowCount; row++) {
+                long base = base(row);
+                int state = rows().get(JAVA_INT, base + STATE);
+                if (state == FREE) {
+                    continue;
+                }
+                // Deleted rows keep their ID until they leave the sorted order
+                long idBytes = 2L * rows().get(JAVA_INT, base + ID_LENGTH);
+                MemorySegment.copy(text.segment(), rows().get(JAVA_LONG, base + ID_OFFSET),
+                        compacted.segment(), used, idBytes);
+                rows().set(JAVA_LONG, base + ID_OFFSET, used);
+                used += idBytes;
+                if (state == LIVE) {
+                    long textBytes = textBytes(row);
+                    MemorySegment.copy(text.segment(), rows().get(JAVA_LONG, base + TEXT_OFFSET),
+                            compacted.segment(), used, textBytes);
+                    rows().set(JAVA_LONG, base + TEXT_OFFSET, used);
+                    used += textBytes;
+                }
+            }
+            text.close();
+            text = compacted;
+            textUsed = used;
+        }
+
+        /**
+         * Returns the hash table slot holding the given ID, or -1.
+         */
+        private int slot(String id) {
+            int mask = indexCapacity - 1;
+            for (int slot = hash(id) & mask; ; slot = (slot + 1) & mask) {
+                int entry = index.segment().getAtIndex(JAVA_INT, slot);
+                if (entry == EMPTY) {
+                    return -1;
+                }
+                if (entry != TOMBSTONE && compare(entry - 1, id) == 0) {
+                    return slot;
+                }
+            }
+        }
+
+        private void rehash(int capacity) {
+            Block rehashed = Block.allocate((long) capacity * Integer.BYTES);
+            int mask = capacity - 1;
+            for (int row = 0; row < rowCount; row++) {
+                if (rows().get(JAVA_INT, base(row) + STATE) != LIVE) {
+                    continue;
+                }
+                int slot = hash(row) & mask;
+                while (rehashed.segment().getAtIndex(JAVA_INT, slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                rehashed.segment().setAtIndex(JAVA_INT, slot, row + 1);
+            }
+            index.close();
+            index = rehashed;
+            indexCapacity = capacity;
+            indexUsed = size;
+        }
+
+        private static int hash(String id) {
+            return spread(id.hashCode());
+        }
+
+        /**
+         * Hashes a row's ID like {@link String#hashCode()}, so it lands where a lookup by the string looks.
+         */
+        private int hash(int row) {
+            long offset = rows().get(JAVA_LONG, base(row) + ID_OFFSET);
+            int length = rows().get(JAVA_INT, base(row) + ID_LENGTH);
+            int h = 0;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + text.segment().get(JAVA_CHAR, offset + 2L * i);
+            }
+            return spread(h);
+        }
+
+        private static int spread(int h) {
+            h ^= h >>> 16;
+            h *= 0x85EBCA6B;
+            return h ^ (h >>> 13);
+        }
+
+        /**
+         * Inserts a row into the sorted tail and merges the tail into the sorted array once it is full.
+         */
+        private void addToTail(int row) {
+            MemorySegment segment = tail.segment();
+            int low = 0;
+            int high = tailLength;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compareRows(segment.getAtIndex(JAVA_INT, mid), row) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            MemorySegment.copy(segment, (long) low * Integer.BYTES, segment, (long) (low + 1) * Integer.BYTES,
+                    (long) (tailLength - low) * Integer.BYTES);
+            segment.setAtIndex(JAVA_INT, low, row);
+            if (++tailLength == TAIL_CAPACITY) {
+                merge();
+            }
+        }
+
+        /**
+         * Merges the tail into the sorted array, dropping deleted rows and returning them to the free list.
+         */
+        private void merge() {
+            Block merged = Block.allocate((long) (orderLength + tailLength) * Integer.BYTES);
+            int i = 0;
+            int j = 0;
+            int length = 0;
+            while (i < orderLength || j < tailLength) {
+                int row;
+                if (j == tailLength || (i < orderLength && compareRows(orderAt(i), tailAt(j)) <= 0)) {
+                    row = orderAt(i++);
+                } else {
+                    row = tailAt(j++);
+                }
+                long base = base(row);
+                if (rows().get(JAVA_INT, base + STATE) == LIVE) {
+                    merged.segment().setAtIndex(JAVA_INT, length++, row);
+                } else {
+                    textLive -= 2L * rows().get(JAVA_INT, base + ID_LENGTH);
+                    rows().set(JAVA_INT, base + STATE, FREE);
+                    rows().set(JAVA_LONG, base + VERSION, freeRow);
+                    freeRow = row;
+                }
+            }
+            order.close();
+            order = merged;
+            orderLength = length;
+            tailLength = 0;
+        }
+
+        /**
+         * Returns the position of the first row in a sorted run whose ID is greater than {@code id}.
+         */
+        private int upperBound(MemorySegment run, int length, String id) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(run.getAtIndex(JAVA_INT, mid), id) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private boolean matches(int row, ProductFilter filter) {
+            long base = base(row);
+            float price = rows().get(JAVA_FLOAT, base + PRICE);
+            int stockQuantity = rows().get(JAVA_INT, base + STOCK_QUANTITY);
+            return (filter.getMinPrice() == null || price >= filter.getLowestMatchingPrice())
+                    && (filter.getMaxPrice() == null || price <= filter.getHighestMatchingPrice())
+                    && (filter.getInStock() == null || filter.getInStock() == (stockQuantity > 0))
+                    && (filter.getCategory() == null || categoryEquals(base, filter.getCategory()));
+        }
+
+        private boolean categoryEquals(long base, String category) {
+            long offset = rows().get(JAVA_LONG, base + TEXT_OFFSET) + 2L * rows().get(JAVA_INT, base + NAME_LENGTH);
+            return compare(offset, rows().get(JAVA_INT, base + CATEGORY_LENGTH), category) == 0;
+        }
+
+        /**
+         * Compares a row's ID with a string, in the order of {@link String#compareTo(String)}.
+         */
+        private int compare(int row, String id) {
+            long base = base(row);
+            return compare(rows().get(JAVA_LONG, base + ID_OFFSET), rows().get(JAVA_INT, base + ID_LENGTH), id);
+        }
+
+        private int compare(long offset, int length, String value) {
+            MemorySegment segment = text.segment();
+            int common = Math.min(length, value.length());
+            for (int i = 0; i < common; i++) {
+                char c = segment.get(JAVA_CHAR, offset + 2L * i);
+                if (c != value.charAt(i)) {
+                    return c - value.charAt(i);
+                }
+            }
+            return length - value.length();
+        }
+
+        private int compareRows(int left, int right) {
+            MemorySegment segment = text.segment();
+            long leftOffset = rows().get(JAVA_LONG, base(left) + ID_OFFSET);
+            long rightOffset = rows().get(JAVA_LONG, base(right) + ID_OFFSET);
+            int leftLength = rows().get(JAVA_INT, base(left) + ID_LENGTH);
+            int rightLength = rows().get(JAVA_INT, base(right) + ID_LENGTH);
+            int common = Math.min(leftLength, rightLength);
+            for (int i = 0; i < common; i++) {
+                char l = segment.get(JAVA_CHAR, leftOffset + 2L * i);
+                char r = segment.get(JAVA_CHAR, rightOffset + 2L * i);
+                if (l != r) {
+                    return l - r;
+                }
+            }
+            return leftLength - rightLength;
+        }
+    }
+}
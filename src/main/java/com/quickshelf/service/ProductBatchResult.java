@@ -0,0 +1,65 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+
+/**
+ * Outcome of inserting a single product as part of a bulk create.
+ * Either carries the created product or the reason it could not be inserted.
+ */
+public class ProductBatchResult {
+
+    private final Product product;
+    private final String error;
+
+    private ProductBatchResult(Product product, String error) {
+        this.product = product;
+        this.error = error;
+    }
+
+    /**
+     * Creates a result for a product that was inserted.
+     *
+     * @param product the created product
+     * @return the successful result
+     */
+    public static ProductBatchResult created(Product product) {
+        return new ProductBatchResult(product, null);
+    }
+
+    /**
+     * Creates a result for a product that could not be inserted.
+     *
+     * @param error the reason the insert failed
+     * @return the failed result
+     */
+    public static ProductBatchResult failed(String error) {
+        return new ProductBatchResult(null, error);
+    }
+
+    /**
+     * Returns whether the product was inserted.
+     *
+     * @return true if the product was created
+     */
+    public boolean isCreated() {
+        return product != null;
+    }
+
+    /**
+     * Gets the created product.
+     *
+     * @return the created product, or null if the insert failed
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Gets the reason the insert failed.
+     *
+     * @return the error message, or null if the product was created
+     */
+    public String getError() {
+        return error;
+    }
+}
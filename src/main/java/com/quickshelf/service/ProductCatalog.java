@@ -0,0 +1,21 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+
+import java.util.function.Consumer;
+
+/**
+ * Read access to every stored product, as needed to rebuild the in-memory indexes.
+ * Implemented by each storage engine: {@link JpaProductCatalog} for the database and
+ * {@link ProductLogStore} for the log-structured store.
+ */
+public interface ProductCatalog {
+
+    /**
+     * Hands every stored product to the consumer, in ID order, without materializing the catalog.
+     * The consumer must not keep the products it receives.
+     *
+     * @param consumer the callback receiving each product
+     */
+    void scan(Consumer<Product> consumer);
+}
@@ -0,0 +1,105 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+
+/**
+ * Application event published by the product service after a product has been written.
+ * Carries detached snapshots of the product before and after the change, so listeners that keep
+ * derived in-memory state (search index, aggregates) can update it without reading the database.
+ * Listeners should use {@code @TransactionalEventListener(fallbackExecution = true)} so they only
+ * see changes that were committed.
+ */
+public final class ProductChangedEvent {
+
+    /**
+     * The kind of change.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    private final Type type;
+    private final Product before;
+    private final Product after;
+
+    private ProductChangedEvent(Type type, Product before, Product after) {
+        this.type = type;
+        this.before = before;
+        this.after = after;
+    }
+
+    /**
+     * Creates the event for a newly created product.
+     *
+     * @param product the created product
+     * @return the event
+     */
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Type.CREATED, null, snapshot(product));
+    }
+
+    /**
+     * Creates the event for an updated product.
+     *
+     * @param before a snapshot of the product before the update
+     * @param after  the updated product
+     * @return the event
+     */
+    public static ProductChangedEvent updated(Product before, Product after) {
+        return new ProductChangedEvent(Type.UPDATED, before, snapshot(after));
+    }
+
+    /**
+     * Creates the event for a deleted product.
+     *
+     * @param product the deleted product
+     * @return the event
+     */
+    public static ProductChangedEvent deleted(Product product) {
+        return new ProductChangedEvent(Type.DELETED, snapshot(product), null);
+    }
+
+    /**
+     * Copies the state of a product into a new, unmanaged instance.
+     *
+     * @param product the product to copy
+     * @return the copy
+     */
+    public static Product snapshot(Product product) {
+        Product copy = new Product(product.getName(), product.getDescription(), product.getPrice(),
+                product.getCategory(), product.getStockQuantity());
+        copy.setId(product.getId());
+        copy.setVersion(product.getVersion());
+        return copy;
+    }
+
+    /**
+     * @return the kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the ID of the changed product
+     */
+    public String getProductId() {
+        return after != null ? after.getId() : before.getId();
+    }
+
+    /**
+     * @return the product before the change, or null if it was created
+     */
+    public Product getBefore() {
+        return before;
+    }
+
+    /**
+     * @return the product after the change, or null if it was deleted
+     */
+    public Product getAfter() {
+        return after;
+    }
+}
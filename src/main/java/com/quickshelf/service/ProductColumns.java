@@ -0,0 +1,309 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column store of the numbers the catalog aggregates are computed from: one {@code float[]} of prices,
+ * one {@code int[]} of stock quantities and one {@code int[]} of category numbers, indexes into a
+ * dictionary of category names. Row {@code i} of every column belongs to the same product; a deleted
+ * product's row is filled with the last row, so the columns stay dense.
+ *
+ * <p>{@link #stats()} splits the rows into segments of {@value #SEGMENT_SIZE}, aggregates each in one pass
+ * over the three arrays on its own thread, and adds the partial results up. No product object is read.</p>
+ *
+ * <p>The columns are rebuilt from the {@link ProductCatalog} when the application is ready and kept current
+ * from {@link ProductChangedEvent}s once their transaction commits. Enabled with
+ * {@code quickshelf.analytics.enabled=true}.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "quickshelf.analytics.enabled", havingValue = "true")
+public class ProductColumns {
+
+    /**
+     * Number of rows aggregated by one task.
+     */
+    static final int SEGMENT_SIZE = 1 << 16;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(ProductColumns.class);
+
+    private final ProductCatalog catalog;
+
+    // Serializes rebuilds. A lock rather than a monitor, since a rebuild blocks on storage reads and
+    // blocking inside a monitor would pin a virtual thread to its carrier thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Columns columns = new Columns();
+    // Guarded by lock; non-null while a rebuild is running, replayed onto the rebuilt columns
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param catalog the catalog of the active storage engine, which the columns are rebuilt from
+     */
+    @Autowired
+    public ProductColumns(ProductCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Builds the columns once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the columns from the catalog and swaps them in.
+     * Aggregates keep using the current columns meanwhile; changes committed during the rebuild are
+     * applied to both and replayed onto the new columns before they are published.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Columns rebuilt = null;
+            try {
+                Columns loading = new Columns();
+                catalog.scan(loading::put);
+                rebuilt = loading;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (rebuilt != null) {
+                        for (ProductChangedEvent change : changesDuringRebuild) {
+                            apply(rebuilt, change);
+                        }
+                        columns = rebuilt;
+                    }
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            log.info("Product columns rebuilt with {} products in {} ms", rebuilt.size,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a committed product change to the columns.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(columns, event);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Computes the product count, total stock, inventory value and minimum, maximum and average price,
+     * over the whole catalog and per category.
+     *
+     * @return the aggregates
+     */
+    public ProductStats stats() {
+        lock.readLock().lock();
+        try {
+            Columns current = columns;
+            List<CompletableFuture<Partial>> segments = new ArrayList<>();
+            for (int from = SEGMENT_SIZE; from < current.size; from += SEGMENT_SIZE) {
+                int segmentFrom = from;
+                segments.add(CompletableFuture.supplyAsync(() -> current.aggregate(segmentFrom,
+                        Math.min(segmentFrom + SEGMENT_SIZE, current.size))));
+            }
+            // The first segment runs on the calling thread, which holds the read lock for all of them
+            Partial result = current.aggregate(0, Math.min(SEGMENT_SIZE, current.size));
+            for (CompletableFuture<Partial> segment : segments) {
+                result.add(segment.join());
+            }
+            return result.toStats(current.categoryNames);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void apply(Columns columns, ProductChangedEvent change) {
+        if (change.getType() == ProductChangedEvent.Type.DELETED) {
+            columns.remove(change.getProductId());
+        } else {
+            columns.put(change.getAfter());
+        }
+    }
+
+    /**
+     * The columns themselves. Not thread-safe; the enclosing store guards them.
+     */
+    private static final class Columns {
+
+        private float[] prices = new float[INITIAL_CAPACITY];
+        private int[] stockQuantities = new int[INITIAL_CAPACITY];
+        private int[] categories = new int[INITIAL_CAPACITY];
+        private String[] ids = new String[INITIAL_CAPACITY];
+        private int size;
+        private final Map<String, Integer> rows = new HashMap<>();
+        private final Map<String, Integer> categoryNumbers = new HashMap<>();
+        private final List<String> categoryNames = new ArrayList<>();
+
+        void put(Product product) {
+            Integer row = rows.get(product.getId());
+            if (row == null) {
+                if (size == prices.length) {
+                    int capacity = size * 2;
+                    prices = Arrays.copyOf(prices, capacity);
+                    stockQuantities = Arrays.copyOf(stockQuantities, capacity);
+                    categories = Arrays.copyOf(categories, capacity);
+                    ids = Arrays.copyOf(ids, capacity);
+                }
+                row = size++;
+                rows.put(product.getId(), row);
+                ids[row] = product.getId();
+            }
+            prices[row] = product.getPrice();
+            stockQuantities[row] = product.getStockQuantity();
+            categories[row] = categoryNumbers.computeIfAbsent(product.getCategory(), category -> {
+                categoryNames.add(category);
+                return categoryNames.size() - 1;
+            });
+        }
+
+        void remove(String id) {
+            Integer row = rows.remove(id);
+            if (row == null) {
+                return;
+            }
+            int last = --size;
+            if (row != last) {
+                prices[row] = prices[last];
+                stockQuantities[row] = stockQuantities[last];
+                categories[row] = categories[last];
+                ids[row] = ids[last];
+                rows.put(ids[row], row);
+            }
+            ids[last] = null;
+        }
+
+        /**
+         * Aggregates rows {@code from} (inclusive) to {@code to} (exclusive) by category.
+         */
+        Partial aggregate(int from, int to) {
+            Partial partial = new Partial(categoryNames.size());
+            float[] prices = this.prices;
+            int[] stockQuantities = this.stockQuantities;
+            int[] categories = this.categories;
+            for (int i = from; i < to; i++) {
+                int category = categories[i];
+                float price = prices[i];
+                int stockQuantity = stockQuantities[i];
+                partial.counts[category]++;
+                partial.totalStocks[category] += stockQuantity;
+                partial.inventoryValues[category] += (double) price * stockQuantity;
+                partial.priceSums[category] += price;
+                partial.minPrices[category] = Math.min(partial.minPrices[category], price);
+                partial.maxPrices[category] = Math.max(partial.maxPrices[category], price);
+            }
+            return partial;
+        }
+    }
+
+    /**
+     * Per-category sums of one segment, indexed by category number.
+     */
+    private static final class Partial {
+
+        final long[] counts;
+        final long[] totalStocks;
+        final double[] inventoryValues;
+        final double[] priceSums;
+        final float[] minPrices;
+        final float[] maxPrices;
+
+        Partial(int categories) {
+            counts = new long[categories];
+            totalStocks = new long[categories];
+            inventoryValues = new double[categories];
+            priceSums = new double[categories];
+            minPrices = new float[categories];
+            maxPrices = new float[categories];
+            Arrays.fill(minPrices, Float.POSITIVE_INFINITY);
+            Arrays.fill(maxPrices, Float.NEGATIVE_INFINITY);
+        }
+
+        void add(Partial other) {
+            for (int c = 0; c < counts.length; c++) {
+                counts[c] += other.counts[c];
+                totalStocks[c] += other.totalStocks[c];
+                inventoryValues[c] += other.inventoryValues[c];
+                priceSums[c] += other.priceSums[c];
+                minPrices[c] = Math.min(minPrices[c], other.minPrices[c]);
+                maxPrices[c] = Math.max(maxPrices[c], other.maxPrices[c]);
+            }
+        }
+
+        ProductStats toStats(List<String> categoryNames) {
+            List<ProductStats.Group> groups = new ArrayList<>();
+            long count = 0;
+            long totalStock = 0;
+            double inventoryValue = 0;
+            double priceSum = 0;
+            float minPrice = Float.POSITIVE_INFINITY;
+            float maxPrice = Float.NEGATIVE_INFINITY;
+            for (int c = 0; c < counts.length; c++) {
+                if (counts[c] == 0) {
+                    continue;
+                }
+                groups.add(new ProductStats.Group(categoryNames.get(c), counts[c], totalStocks[c],
+                        inventoryValues[c], priceSums[c], minPrices[c], maxPrices[c]));
+                count += counts[c];
+                totalStock += totalStocks[c];
+                inventoryValue += inventoryValues[c];
+                priceSum += priceSums[c];
+                minPrice = Math.min(minPrice, minPrices[c]);
+                maxPrice = Math.max(maxPrice, maxPrices[c]);
+            }
+            groups.sort(Comparator.comparing(ProductStats.Group::getCategory));
+            return new ProductStats(new ProductStats.Group(null, count, totalStock, inventoryValue, priceSum,
+                    minPrice, maxPrice), groups);
+        }
+    }
+}
@@ -0,0 +1,688 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Log-structured product storage: an alternative to the database for the
+ * {@link LogStructuredProductService}.
+ *
+ * <p>Every write appends a record to the current segment, a file of fixed size ({@link #SEGMENT_SIZE}
+ * bytes by default) that is memory-mapped as a whole. A record holds either the full product (a put) or
+ * only its ID (a delete), followed by a CRC32C checksum of its body. An in-memory index, ordered by ID,
+ * maps each product to its latest put, so a read is one index lookup and a decode straight from the
+ * mapped file, with no SQL and no persistence context.</p>
+ *
+ * <p>On startup the segments are replayed in order to rebuild the index. Replay of a segment stops at
+ * the first record that is incomplete or fails its checksum, which is where a crash interrupted the
+ * last write; in the current segment, anything after that point is cleared before new records are
+ * appended. Without {@code fsync}, a write survives a crash of the process as soon as it returns, since
+ * the mapped pages belong to the operating system, but not a crash of the machine.</p>
+ *
+ * <p>A scheduled compaction rewrites closed segments in which less than the compaction threshold of
+ * the bytes still belong to live records: live puts are copied to the current segment and the old file
+ * is deleted. A delete record is copied as long as an older segment might still hold a put it
+ * overrides, and dropped once its segment is the oldest.</p>
+ *
+ * <p>Writes are serialized; reads never block. This class is thread-safe.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "quickshelf.storage.engine", havingValue = "log")
+public class ProductLogStore implements ProductCatalog, Closeable {
+
+    /**
+     * Default size of a segment file.
+     */
+    static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * Smallest accepted segment size; it bounds the size of a record.
+     */
+    static final long MIN_SEGMENT_SIZE = 64L * 1024;
+
+    private static final int MAGIC = 0x51535031;
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final String PREFIX = "products-";
+    private static final String SUFFIX = ".log";
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int MIN_BODY_SIZE = Byte.BYTES + Long.BYTES + Short.BYTES;
+    private static final int MAX_FIELD_LENGTH = 0xFFFF;
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    private static final Logger log = LoggerFactory.getLogger(ProductLogStore.class);
+
+    /**
+     * The product before and after an update.
+     *
+     * @param before the product as it was
+     * @param after  the product as written, with its new version
+     */
+    record Change(Product before, Product after) {
+    }
+
+    /**
+     * Where a record lives: its segment, its offset in the segment and its size including the framing.
+     */
+    private record Location(Segment segment, int offset, int size) {
+    }
+
+    /**
+     * A memory-mapped segment file. Records are immutable once written, so they are read without locking.
+     */
+    private static final class Segment {
+
+        private final long number;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // Guarded by writeLock: the end of the last record, and the bytes of records still in use
+        private int limit = HEADER_SIZE;
+        private long liveBytes;
+
+        private Segment(long number, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean force;
+    private final double compactionThreshold;
+    private final ConcurrentSkipListMap<String, Location> index = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    // Locks rather than monitors: both are held across file writes, and blocking inside a monitor
+    // would pin a virtual thread to its carrier thread
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    // Guarded by writeLock
+    private Segment head;
+    private ByteBuffer scratch = ByteBuffer.allocate(8 * 1024);
+    private boolean closed;
+
+    /**
+     * Creates a store over a directory. Nothing is read or written until {@link #open()} is called.
+     *
+     * @param directory           the directory holding the segment files, created if missing
+     * @param segmentSize         the size of a segment file
+     * @param force               whether every write is forced to the storage device before it returns
+     * @param compactionThreshold the fraction of live bytes below which a closed segment is compacted
+     */
+    @Autowired
+    public ProductLogStore(@Value("${quickshelf.storage.log.directory:data/product-log}") Path directory,
+                           @Value("${quickshelf.storage.log.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${quickshelf.storage.log.fsync:false}") boolean force,
+                           @Value("${quickshelf.storage.log.compaction-threshold:0.5}") double compactionThreshold) {
+        if (segmentSize.toBytes() < MIN_SEGMENT_SIZE || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The product log segment size must be between 64KB and 2GB, not "
+                    + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.force = force;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Maps the segments found in the directory and replays them into the index, or starts an empty log.
+     *
+     * @throws UncheckedIOException if a segment cannot be read or created
+     * @throws IllegalStateException if a file in the directory is not a segment of a product log
+     */
+    @PostConstruct
+    public void open() {
+        writeLock.lock();
+        try {
+            long start = System.nanoTime();
+            Files.createDirectories(directory);
+            List<Path> paths = segmentPaths();
+            for (int i = 0; i < paths.size(); i++) {
+                boolean current = i == paths.size() - 1;
+                Segment segment = mapSegment(paths.get(i), current ? segmentSize : 0);
+                segments.put(segment.number, segment);
+                replay(segment);
+                if (current) {
+                    clearTail(segment);
+                }
+            }
+            head = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+            log.info("Product log opened with {} products in {} segments in {} ms", index.size(), segments.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a product.
+     *
+     * @param id the product ID
+     * @return the product, or empty if there is none with this ID
+     */
+    public Optional<Product> get(String id) {
+        Location location = index.get(id);
+        return location == null ? Optional.empty() : Optional.of(read(location));
+    }
+
+    /**
+     * @return the number of stored products
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Iterates the index, so products written during the scan may or may not be seen.
+     */
+    @Override
+    public void scan(Consumer<Product> consumer) {
+        for (Location location : index.values()) {
+            consumer.accept(read(location));
+        }
+    }
+
+    /**
+     * Returns the first products that sort after an ID and match a filter, in ID order. Every product
+     * after {@code afterId} is decoded until the page is full, so a selective filter reads far.
+     *
+     * @param afterId the last ID of the previous page, or null for the first page
+     * @param filter  the condition products must meet
+     * @param limit   the maximum number of products to return
+     * @return the matching products
+     */
+    public List<Product> page(String afterId, Predicate<Product> filter, int limit) {
+        Map<String, Location> candidates = afterId == null ? index : index.tailMap(afterId, false);
+        List<Product> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Location location : candidates.values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            Product product = read(location);
+            if (filter.test(product)) {
+                page.add(product);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Adds new products, all or none. Products without an ID are given a random one, and every product
+     * gets version 0.
+     *
+     * @param products the products to add
+     * @throws DuplicateKeyException if a product has the ID of a stored product or of another one in the list
+     * @throws IllegalArgumentException if a product is too large for a segment
+     * @throws UncheckedIOException if the records cannot be written
+     */
+    public void insert(List<Product> products) {
+        writeLock.lock();
+        try {
+            Set<String> ids = new HashSet<>();
+            for (Product product : products) {
+                if (product.getId() == null) {
+                    product.setId(UUID.randomUUID().toString());
+                }
+                if (index.containsKey(product.getId()) || !ids.add(product.getId())) {
+                    throw new DuplicateKeyException("Product '" + product.getId() + "' already exists");
+                }
+                product.setVersion(0L);
+                // Encoding rejects a product that cannot be stored before anything is written
+                encode(PUT, product.getId(), product);
+            }
+            for (Product product : products) {
+                index.put(product.getId(), append(encode(PUT, product.getId(), product)));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Changes a product. The change is applied to a copy of the stored product, which is then written
+     * with the next version. No other write to the store can happen in between.
+     *
+     * @param id     the product ID
+     * @param change applies the change; it may throw to reject it, in which case nothing is written
+     * @return the product before and after the change, or empty if there is none with this ID
+     * @throws UncheckedIOException if the record cannot be written
+     */
+    public Optional<Change> update(String id, Consumer<Product> change) {
+        writeLock.lock();
+        try {
+            Location location = index.get(id);
+            if (location == null) {
+                return Optional.empty();
+            }
+            Product before = read(location);
+            Product after = read(location);
+            change.accept(after);
+            after.setId(id);
+            after.setVersion(before.getVersion() + 1);
+            index.put(id, append(encode(PUT, id, after)));
+            location.segment.liveBytes -= location.size;
+            return Optional.of(new Change(before, after));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes a product.
+     *
+     * @param id           the product ID
+     * @param precondition checks the stored product; it may throw to reject the delete
+     * @return the deleted product, or empty if there is none with this ID
+     * @throws UncheckedIOException if the record cannot be written
+     */
+    public Optional<Product> delete(String id, Consumer<Product> precondition) {
+        writeLock.lock();
+        try {
+            Location location = index.get(id);
+            if (location == null) {
+                return Optional.empty();
+            }
+            Product current = read(location);
+            precondition.accept(current);
+            append(encode(DELETE, id, null));
+            index.remove(id);
+            location.segment.liveBytes -= location.size;
+            return Optional.of(current);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Compacts the closed segments in which less than the compaction threshold of the bytes belong to
+     * live records, oldest first. Reads and writes proceed meanwhile; each record is copied under the
+     * write lock, only if it is still current.
+     *
+     * @throws UncheckedIOException if a record cannot be copied or a segment file deleted
+     */
+    @Scheduled(fixedDelayString = "${quickshelf.storage.log.compaction-interval-ms:10000}")
+    public void compact() {
+        compactionLock.lock();
+        try {
+            List<Segment> candidates = new ArrayList<>();
+            writeLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                for (Segment segment : segments.values()) {
+                    if (segment != head && segment.liveBytes < compactionThreshold * (segment.limit - HEADER_SIZE)) {
+                        candidates.add(segment);
+                    }
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            for (Segment segment : candidates) {
+                rewrite(segment);
+            }
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of segment files
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Forces the current segment to the storage device and closes the segment files. Products read
+     * before remain valid; the store accepts no more writes.
+     *
+     * @throws IOException if a segment cannot be forced or closed
+     */
+    @Override
+    @PreDestroy
+    public void close() throws IOException {
+        compactionLock.lock();
+        writeLock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (head != null) {
+                head.buffer.force();
+            }
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+        } finally {
+            writeLock.unlock();
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Copies the records of a closed segment that are still needed to the current segment, then deletes it.
+     */
+    private void rewrite(Segment segment) {
+        boolean oldest = segments.firstKey() == segment.number;
+        int copied = 0;
+        int offset = HEADER_SIZE;
+        // A closed segment's limit no longer changes, and its records are immutable
+        int limit;
+        writeLock.lock();
+        try {
+            limit = segment.limit;
+        } finally {
+            writeLock.unlock();
+        }
+        while (offset < limit) {
+            int size = recordSize(segment.buffer.getInt(offset));
+            ByteBuffer body = body(segment, offset, size);
+            byte type = body.get();
+            body.getLong();
+            String id = string(body, Short.toUnsignedInt(body.getShort()));
+            writeLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (type == PUT) {
+                    Location current = index.get(id);
+                    if (current != null && current.segment == segment && current.offset == offset) {
+                        index.put(id, append(segment.buffer.slice(offset, size)));
+                        segment.liveBytes -= size;
+                        copied++;
+                    }
+                } else if (!oldest && !index.containsKey(id)) {
+                    append(segment.buffer.slice(offset, size));
+                    copied++;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+            offset += size;
+        }
+
+        writeLock.lock();
+        try {
+            segments.remove(segment.number);
+        } finally {
+            writeLock.unlock();
+        }
+        try {
+            // Readers holding a location in this segment keep reading the mapping, which outlives the file
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        log.info("Compacted product log segment {}: {} records copied, {} KB reclaimed", segment.number, copied,
+                (limit - HEADER_SIZE) / 1024);
+    }
+
+    /**
+     * Appends an encoded record to the current segment, starting a new segment if it does not fit.
+     */
+    private Location append(ByteBuffer record) {
+        if (closed) {
+            throw new IllegalStateException("The product log is closed");
+        }
+        int size = record.remaining();
+        try {
+            if (head.limit + size > head.buffer.capacity()) {
+                if (force) {
+                    head.buffer.force();
+                }
+                head = createSegment(head.number + 1);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        head.buffer.put(head.limit, record, record.position(), size);
+        if (force) {
+            head.buffer.force(head.limit, size);
+        }
+        Location location = new Location(head, head.limit, size);
+        head.limit += size;
+        head.liveBytes += size;
+        return location;
+    }
+
+    /**
+     * Encodes a record into the scratch buffer: its body size, the body and the body's checksum. The body
+     * is the record type, the version and the ID, followed for a put by the product's fields.
+     */
+    private ByteBuffer encode(byte type, String id, Product product) {
+        byte[] idBytes = bytes("ID", id);
+        int bodySize = MIN_BODY_SIZE + idBytes.length;
+        byte[] name = null;
+        byte[] category = null;
+        byte[] description = null;
+        if (type == PUT) {
+            name = bytes("name", product.getName());
+            category = bytes("category", product.getCategory());
+            description = product.getDescription() == null ? null : bytes("description", product.getDescription());
+            bodySize += Float.BYTES + Integer.BYTES + Short.BYTES + name.length + Short.BYTES + category.length
+                    + Integer.BYTES + (description == null ? 0 : description.length);
+        }
+        int recordSize = recordSize(bodySize);
+        if (recordSize > segmentSize - HEADER_SIZE) {
+            throw new IllegalArgumentException("Product '" + id + "' is too large for a product log segment");
+        }
+        if (scratch.capacity() < recordSize) {
+            scratch = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, recordSize));
+        }
+        ByteBuffer record = scratch.clear();
+        record.putInt(bodySize)
+                .put(type)
+                .putLong(type == PUT ? product.getVersion() : 0L)
+                .putShort((short) idBytes.length)
+                .put(idBytes);
+        if (type == PUT) {
+            record.putFloat(product.getPrice())
+                    .putInt(product.getStockQuantity())
+                    .putShort((short) name.length)
+                    .put(name)
+                    .putShort((short) category.length)
+                    .put(category)
+                    .putInt(description == null ? -1 : description.length);
+            if (description != null) {
+                record.put(description);
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), Integer.BYTES, bodySize);
+        return record.putInt((int) crc.getValue()).flip();
+    }
+
+    /**
+     * Decodes the product a put record holds, reading it in place from the mapped segment.
+     */
+    private static Product read(Location location) {
+        ByteBuffer body = body(location.segment, location.offset, location.size);
+        body.get();
+        Product product = new Product();
+        product.setVersion(body.getLong());
+        product.setId(string(body, Short.toUnsignedInt(body.getShort())));
+        product.setPrice(body.getFloat());
+        product.setStockQuantity(body.getInt());
+        product.setName(string(body, Short.toUnsignedInt(body.getShort())));
+        product.setCategory(string(body, Short.toUnsignedInt(body.getShort())));
+        int descriptionLength = body.getInt();
+        product.setDescription(descriptionLength < 0 ? null : string(body, descriptionLength));
+        return product;
+    }
+
+    /**
+     * Replays the intact records of a segment into the index and sets the segment's limit after the last one.
+     */
+    private void replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        CRC32C crc = new CRC32C();
+        int offset = HEADER_SIZE;
+        while (offset + Integer.BYTES <= buffer.capacity()) {
+            int bodySize = buffer.getInt(offset);
+            if (bodySize == 0) {
+                break;
+            }
+            if (bodySize < MIN_BODY_SIZE || bodySize > buffer.capacity() - offset - 2 * Integer.BYTES) {
+                log.warn("Product log segment {} is damaged at offset {}; its remaining records are ignored",
+                        segment.path, offset);
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.slice(offset + Integer.BYTES, bodySize));
+            if (buffer.getInt(offset + Integer.BYTES + bodySize) != (int) crc.getValue()) {
+                log.warn("Product log segment {} is damaged at offset {}; its remaining records are ignored",
+                        segment.path, offset);
+                break;
+            }
+            Location location = new Location(segment, offset, recordSize(bodySize));
+            ByteBuffer body = body(segment, offset, location.size);
+            byte type = body.get();
+            body.getLong();
+            String id = string(body, Short.toUnsignedInt(body.getShort()));
+            Location previous = type == PUT ? index.put(id, location) : index.remove(id);
+            if (previous != null) {
+                previous.segment.liveBytes -= previous.size;
+            }
+            segment.liveBytes += location.size;
+            offset += location.size;
+        }
+        segment.limit = offset;
+    }
+
+    /**
+     * Zeroes the current segment after its last intact record, so remains of a torn write can never be
+     * mistaken for records appended later.
+     */
+    private static void clearTail(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int dirty = segment.limit;
+        while (dirty < buffer.capacity() && buffer.get(dirty) == 0) {
+            dirty++;
+        }
+        if (dirty == buffer.capacity()) {
+            return;
+        }
+        for (int offset = segment.limit; offset < buffer.capacity(); offset += ZEROS.length) {
+            buffer.put(offset, ZEROS, 0, Math.min(ZEROS.length, buffer.capacity() - offset));
+        }
+        buffer.force();
+    }
+
+    private Segment createSegment(long number) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, number, SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(0, MAGIC).putLong(Integer.BYTES, number);
+        if (force) {
+            buffer.force();
+        }
+        Segment segment = new Segment(number, path, channel, buffer);
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private static Segment mapSegment(Path path, int minimumSize) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = Math.max(channel.size(), minimumSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            long number = number(path);
+            if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getLong(Integer.BYTES) != number) {
+                throw new IllegalStateException(path + " is not a product log segment");
+            }
+            return new Segment(number, path, channel, buffer);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    private List<Path> segmentPaths() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long number(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Returns a view of a record's body, positioned at its start; the view has its own position, so
+     * concurrent readers do not interfere.
+     */
+    private static ByteBuffer body(Segment segment, int offset, int size) {
+        return segment.buffer.slice(offset + Integer.BYTES, size - 2 * Integer.BYTES);
+    }
+
+    private static int recordSize(int bodySize) {
+        return Integer.BYTES + bodySize + Integer.BYTES;
+    }
+
+    private static byte[] bytes(String field, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("The product " + field + " is too long for the product log");
+        }
+        return bytes;
+    }
+
+    private static String string(ByteBuffer body, int length) {
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
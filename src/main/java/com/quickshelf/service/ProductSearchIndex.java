@@ -0,0 +1,693 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over product names and descriptions, ranked with BM25.
+ *
+ * <p>Text is lower-cased and split on anything that is not a letter or digit. Name terms count
+ * {@value #NAME_WEIGHT} times, so a match in the name outranks the same match in the description.
+ * Each term maps to a postings list held as two parallel {@code int[]} arrays (document numbers in
+ * ascending order and term frequencies), so a list costs eight bytes per entry and is scanned without
+ * boxing. Queries merge the postings of their terms document-at-a-time, keep the best hits in a bounded
+ * heap and use MaxScore pruning: once the heap is full, lists that cannot lift a document into it on
+ * their own are no longer iterated but only probed, with a galloping search, for the candidates found
+ * in the other lists.</p>
+ *
+ * <p>The index is rebuilt from the {@link ProductCatalog} when the application is ready, tokenizing segments of
+ * {@value #REBUILD_SEGMENT_SIZE} products in parallel, and is kept current from
+ * {@link ProductChangedEvent}s once their transaction commits. An update or delete only marks the old
+ * document as deleted; the postings are compacted once deleted documents make up a quarter of the
+ * index.</p>
+ */
+@Component
+public class ProductSearchIndex {
+
+    /**
+     * BM25 term frequency saturation.
+     */
+    static final float K1 = 1.2f;
+
+    /**
+     * BM25 document length normalization.
+     */
+    static final float B = 0.75f;
+
+    /**
+     * Number of times a term in the product name is counted.
+     */
+    static final int NAME_WEIGHT = 2;
+
+    /**
+     * Maximum number of distinct terms considered per query; further terms are ignored.
+     */
+    static final int MAX_QUERY_TERMS = 16;
+
+    /**
+     * Tokens longer than this are ignored, which keeps pasted identifiers and URLs out of the dictionary.
+     */
+    static final int MAX_TOKEN_LENGTH = 64;
+
+    private static final int REBUILD_SEGMENT_SIZE = 10_000;
+    private static final int COMPACTION_MIN_DELETED = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private final ProductCatalog catalog;
+
+    // Serializes rebuilds. A lock rather than a monitor, since a rebuild blocks on storage reads and
+    // blocking inside a monitor would pin a virtual thread to its carrier thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Index index = new Index();
+    // Guarded by lock; non-null while a rebuild is running, replayed onto the rebuilt index
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param catalog the catalog of the active storage engine, which the index is rebuilt from
+     */
+    @Autowired
+    public ProductSearchIndex(ProductCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Builds the index once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the index from the catalog and swaps it in.
+     * Searches keep using the current index meanwhile; changes committed during the rebuild are
+     * applied to both and replayed onto the new index before it is published.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Index rebuilt = null;
+            try {
+                rebuilt = buildFromCatalog();
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (rebuilt != null) {
+                        for (ProductChangedEvent change : changesDuringRebuild) {
+                            apply(rebuilt, change);
+                        }
+                        index = rebuilt;
+                    }
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            log.info("Search index rebuilt with {} products in {} ms", rebuilt.liveDocs,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a committed product change to the index.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(index, event);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best matching products for a free-text query, highest score first.
+     * A product matches if it contains at least one query term.
+     *
+     * @param query the free-text query
+     * @param limit the maximum number of hits to return
+     * @return the hits, possibly empty
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = queryTerms(query);
+        if (terms.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return index.search(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of products currently searchable.
+     *
+     * @return the number of indexed products
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.liveDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Index buildFromCatalog() {
+        List<CompletableFuture<Segment>> segments = new ArrayList<>();
+        List<String[]> batch = new ArrayList<>(REBUILD_SEGMENT_SIZE);
+        catalog.scan(product -> {
+            batch.add(new String[]{product.getId(), product.getName(), product.getDescription()});
+            if (batch.size() == REBUILD_SEGMENT_SIZE) {
+                List<String[]> full = List.copyOf(batch);
+                batch.clear();
+                segments.add(CompletableFuture.supplyAsync(() -> Segment.build(full)));
+            }
+        });
+        if (!batch.isEmpty()) {
+            segments.add(CompletableFuture.supplyAsync(() -> Segment.build(batch)));
+        }
+
+        Index rebuilt = new Index();
+        for (CompletableFuture<Segment> segment : segments) {
+            rebuilt.append(segment.join());
+        }
+        return rebuilt;
+    }
+
+    private static void apply(Index index, ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.Type.UPDATED && !textChanged(event.getBefore(), event.getAfter())) {
+            // Stock and price changes are frequent and leave the indexed text as it was
+            return;
+        }
+        if (event.getAfter() != null) {
+            Product product = event.getAfter();
+            index.add(product.getId(), product.getName(), product.getDescription());
+        } else {
+            index.remove(event.getProductId());
+        }
+    }
+
+    private static boolean textChanged(Product before, Product after) {
+        return !Objects.equals(before.getName(), after.getName())
+                || !Objects.equals(before.getDescription(), after.getDescription());
+    }
+
+    /**
+     * Counts the weighted term frequencies of a product.
+     *
+     * @param name        the product name
+     * @param description the product description, may be null
+     * @return the frequency of each term
+     */
+    static Map<String, Integer> termFrequencies(String name, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokenize(name, token -> frequencies.merge(token, NAME_WEIGHT, Integer::sum));
+        tokenize(description, token -> frequencies.merge(token, 1, Integer::sum));
+        return frequencies;
+    }
+
+    /**
+     * Returns the distinct terms of a query, in order of appearance.
+     *
+     * @param query the query
+     * @return at most {@value #MAX_QUERY_TERMS} terms
+     */
+    static List<String> queryTerms(String query) {
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(query, terms::add);
+        return terms.stream().limit(MAX_QUERY_TERMS).toList();
+    }
+
+    private static void tokenize(String text, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                token.append(text.charAt(i));
+            } else if (!token.isEmpty()) {
+                if (token.length() <= MAX_TOKEN_LENGTH) {
+                    sink.accept(token.toString().toLowerCase(Locale.ROOT));
+                }
+                token.setLength(0);
+            }
+        }
+    }
+
+    private static int length(Map<String, Integer> frequencies) {
+        int length = 0;
+        for (int frequency : frequencies.values()) {
+            length += frequency;
+        }
+        return length;
+    }
+
+    /**
+     * A product matching a search, with its BM25 score.
+     */
+    public static final class Hit {
+
+        private final String productId;
+        private final float score;
+
+        Hit(String productId, float score) {
+            this.productId = productId;
+            this.score = score;
+        }
+
+        /**
+         * @return the matching product ID
+         */
+        public String getProductId() {
+            return productId;
+        }
+
+        /**
+         * @return the relevance score; higher is better
+         */
+        public float getScore() {
+            return score;
+        }
+    }
+
+    /**
+     * Postings list of one term: ascending document numbers and their frequencies.
+     */
+    static final class Postings {
+
+        private static final int[] EMPTY = new int[0];
+
+        int[] docs = EMPTY;
+        int[] frequencies = EMPTY;
+        int size;
+        // Entries whose document is still live; the document frequency used for IDF
+        int live;
+        // Bounds over every entry ever added, used for the MaxScore upper bound; removals leave them valid
+        int maxFrequency;
+        int minLength = Integer.MAX_VALUE;
+
+        void add(int doc, int frequency, int length) {
+            if (size == docs.length) {
+                int capacity = Math.max(4, size + (size >> 1));
+                docs = Arrays.copyOf(docs, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+            }
+            docs[size] = doc;
+            frequencies[size] = frequency;
+            size++;
+            live++;
+            maxFrequency = Math.max(maxFrequency, frequency);
+            minLength = Math.min(minLength, length);
+        }
+
+        void appendShifted(Postings other, int base) {
+            if (size + other.size > docs.length) {
+                docs = Arrays.copyOf(docs, size + other.size);
+                frequencies = Arrays.copyOf(frequencies, size + other.size);
+            }
+            for (int i = 0; i < other.size; i++) {
+                docs[size + i] = other.docs[i] + base;
+            }
+            System.arraycopy(other.frequencies, 0, frequencies, size, other.size);
+            size += other.size;
+            live += other.live;
+            maxFrequency = Math.max(maxFrequency, other.maxFrequency);
+            minLength = Math.min(minLength, other.minLength);
+        }
+
+        void compact(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[docs[i]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            docs = Arrays.copyOf(docs, kept);
+            frequencies = Arrays.copyOf(frequencies, kept);
+        }
+    }
+
+    /**
+     * Products tokenized independently of the index, numbered from zero, with a local dictionary.
+     */
+    static final class Segment {
+
+        final List<String> terms = new ArrayList<>();
+        final List<Postings> postings = new ArrayList<>();
+        final String[] productIds;
+        final int[] lengths;
+        final int[][] docTerms;
+
+        private Segment(int size) {
+            productIds = new String[size];
+            lengths = new int[size];
+            docTerms = new int[size][];
+        }
+
+        static Segment build(List<String[]> products) {
+            Segment segment = new Segment(products.size());
+            Map<String, Integer> termIds = new HashMap<>();
+            for (int doc = 0; doc < products.size(); doc++) {
+                String[] product = products.get(doc);
+                Map<String, Integer> frequencies = termFrequencies(product[1], product[2]);
+                int length = length(frequencies);
+                int[] docTerms = new int[frequencies.size()];
+                int i = 0;
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    int termId = termIds.computeIfAbsent(entry.getKey(), term -> {
+                        segment.terms.add(term);
+                        segment.postings.add(new Postings());
+                        return segment.terms.size() - 1;
+                    });
+                    segment.postings.get(termId).add(doc, entry.getValue(), length);
+                    docTerms[i++] = termId;
+                }
+                segment.productIds[doc] = product[0];
+                segment.lengths[doc] = length;
+                segment.docTerms[doc] = docTerms;
+            }
+            return segment;
+        }
+    }
+
+    /**
+     * The mutable index state. Not thread-safe; guarded by the enclosing lock.
+     */
+    static final class Index {
+
+        final Map<String, Integer> termIds = new HashMap<>();
+        final List<Postings> postings = new ArrayList<>();
+        final Map<String, Integer> docsByProduct = new HashMap<>();
+        // Per document; a null product ID marks a deleted document
+        String[] productIds = new String[16];
+        int[] lengths = new int[16];
+        int[][] docTerms = new int[16][];
+        int maxDoc;
+        int liveDocs;
+        int deletedDocs;
+        long totalLength;
+
+        void add(String productId, String name, String description) {
+            remove(productId);
+            Map<String, Integer> frequencies = termFrequencies(name, description);
+            int length = length(frequencies);
+            int doc = maxDoc;
+            ensureCapacity(doc + 1);
+            int[] terms = new int[frequencies.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                int termId = termId(entry.getKey());
+                postings.get(termId).add(doc, entry.getValue(), length);
+                terms[i++] = termId;
+            }
+            register(doc, productId, length, terms);
+            maxDoc++;
+        }
+
+        void append(Segment segment) {
+            int base = maxDoc;
+            int count = segment.productIds.length;
+            ensureCapacity(base + count);
+            int[] remap = new int[segment.terms.size()];
+            for (int local = 0; local < remap.length; local++) {
+                remap[local] = termId(segment.terms.get(local));
+                postings.get(remap[local]).appendShifted(segment.postings.get(local), base);
+            }
+            for (int doc = 0; doc < count; doc++) {
+                int[] terms = segment.docTerms[doc];
+                for (int i = 0; i < terms.length; i++) {
+                    terms[i] = remap[terms[i]];
+                }
+                register(base + doc, segment.productIds[doc], segment.lengths[doc], terms);
+            }
+            maxDoc += count;
+        }
+
+        void remove(String productId) {
+            Integer doc = docsByProduct.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            for (int termId : docTerms[doc]) {
+                postings.get(termId).live--;
+            }
+            totalLength -= lengths[doc];
+            productIds[doc] = null;
+            docTerms[doc] = null;
+            liveDocs--;
+            deletedDocs++;
+            if (deletedDocs >= COMPACTION_MIN_DELETED && deletedDocs * 4L >= maxDoc) {
+                compact();
+            }
+        }
+
+        List<Hit> search(List<String> terms, int limit) {
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            float averageLength = (float) totalLength / liveDocs;
+            List<QueryTerm> queryTerms = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Integer termId = termIds.get(term);
+                if (termId != null && postings.get(termId).live > 0) {
+                    queryTerms.add(new QueryTerm(postings.get(termId), liveDocs, averageLength));
+                }
+            }
+            if (queryTerms.isEmpty()) {
+                return List.of();
+            }
+            // MaxScore: with terms sorted by their best possible contribution, the lowest ones whose bounds
+            // add up to no more than the current threshold cannot promote a document on their own. Only the
+            // remaining "essential" lists are iterated; the others are just probed for the candidates.
+            queryTerms.sort(Comparator.comparingDouble(QueryTerm::upperBound));
+            int n = queryTerms.size();
+            QueryTerm[] lists = queryTerms.toArray(new QueryTerm[0]);
+            float[] boundPrefix = new float[n];
+            for (int i = 0; i < n; i++) {
+                boundPrefix[i] = (i == 0 ? 0 : boundPrefix[i - 1]) + lists[i].upperBound;
+            }
+            int firstEssential = 0;
+            float threshold = -1;
+
+            // Min-heap of the best hits so far, worst on top
+            PriorityQueue<ScoredDoc> best = new PriorityQueue<>(limit + 1, ScoredDoc.WORST_FIRST);
+            while (firstEssential < n) {
+                int doc = Integer.MAX_VALUE;
+                for (int i = firstEssential; i < n; i++) {
+                    doc = Math.min(doc, lists[i].currentDoc());
+                }
+                if (doc == Integer.MAX_VALUE) {
+                    break;
+                }
+                boolean live = productIds[doc] != null;
+                float lengthNorm = K1 * (1 - B + B * lengths[doc] / averageLength);
+                float score = 0;
+                for (int i = firstEssential; i < n; i++) {
+                    if (lists[i].currentDoc() == doc) {
+                        score += lists[i].score(lengthNorm);
+                        lists[i].cursor++;
+                    }
+                }
+                if (!live) {
+                    continue;
+                }
+                for (int i = firstEssential - 1; i >= 0 && score + boundPrefix[i] > threshold; i--) {
+                    if (lists[i].advance(doc) == doc) {
+                        score += lists[i].score(lengthNorm);
+                    }
+                }
+                if (best.size() < limit || score > threshold) {
+                    best.add(new ScoredDoc(doc, score));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                    if (best.size() == limit) {
+                        threshold = best.peek().score();
+                        while (firstEssential < n && boundPrefix[firstEssential] <= threshold) {
+                            firstEssential++;
+                        }
+                    }
+                }
+            }
+
+            List<ScoredDoc> ranked = new ArrayList<>(best);
+            ranked.sort(ScoredDoc.WORST_FIRST.reversed());
+            List<Hit> hits = new ArrayList<>(ranked.size());
+            for (ScoredDoc scored : ranked) {
+                hits.add(new Hit(productIds[scored.doc()], scored.score()));
+            }
+            return hits;
+        }
+
+        private int termId(String term) {
+            return termIds.computeIfAbsent(term, t -> {
+                postings.add(new Postings());
+                return postings.size() - 1;
+            });
+        }
+
+        private void register(int doc, String productId, int length, int[] terms) {
+            productIds[doc] = productId;
+            lengths[doc] = length;
+            docTerms[doc] = terms;
+            docsByProduct.put(productId, doc);
+            totalLength += length;
+            liveDocs++;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > productIds.length) {
+                int grown = Math.max(capacity, productIds.length + (productIds.length >> 1));
+                productIds = Arrays.copyOf(productIds, grown);
+                lengths = Arrays.copyOf(lengths, grown);
+                docTerms = Arrays.copyOf(docTerms, grown);
+            }
+        }
+
+        /**
+         * Renumbers the live documents densely and drops deleted ones from every postings list.
+         * Renumbering preserves document order, so the lists stay sorted.
+         */
+        private void compact() {
+            int[] remap = new int[maxDoc];
+            int next = 0;
+            for (int doc = 0; doc < maxDoc; doc++) {
+                if (productIds[doc] != null) {
+                    productIds[next] = productIds[doc];
+                    lengths[next] = lengths[doc];
+                    docTerms[next] = docTerms[doc];
+                    docsByProduct.put(productIds[next], next);
+                    remap[doc] = next++;
+                } else {
+                    remap[doc] = -1;
+                }
+            }
+            Arrays.fill(productIds, next, maxDoc, null);
+            Arrays.fill(docTerms, next, maxDoc, null);
+            for (Postings list : postings) {
+                list.compact(remap);
+            }
+            maxDoc = next;
+            deletedDocs = 0;
+        }
+    }
+
+    /**
+     * Iteration state of one query term over its postings list.
+     */
+    private static final class QueryTerm {
+
+        final Postings postings;
+        final float idf;
+        // Highest contribution any document can get from this term
+        final float upperBound;
+        int cursor;
+
+        QueryTerm(Postings postings, int liveDocs, float averageLength) {
+            this.postings = postings;
+            this.idf = (float) Math.log(1 + (liveDocs - postings.live + 0.5) / (postings.live + 0.5));
+            float shortestNorm = K1 * (1 - B + B * postings.minLength / averageLength);
+            this.upperBound = idf * postings.maxFrequency * (K1 + 1) / (postings.maxFrequency + shortestNorm);
+        }
+
+        float upperBound() {
+            return upperBound;
+        }
+
+        int currentDoc() {
+            return cursor < postings.size ? postings.docs[cursor] : Integer.MAX_VALUE;
+        }
+
+        float score(float lengthNorm) {
+            int frequency = postings.frequencies[cursor];
+            return idf * frequency * (K1 + 1) / (frequency + lengthNorm);
+        }
+
+        /**
+         * Moves to the first entry at or after {@code target} with a galloping search and returns its document.
+         */
+        int advance(int target) {
+            int[] docs = postings.docs;
+            int size = postings.size;
+            if (cursor >= size || docs[cursor] >= target) {
+                return currentDoc();
+            }
+            int low = cursor;
+            int step = 1;
+            while (low + step < size && docs[low + step] < target) {
+                low += step;
+                step <<= 1;
+            }
+            int high = Math.min(low + step, size);
+            // docs[low] < target; the answer lies in (low, high]
+            while (low + 1 < high) {
+                int mid = (low + high) >>> 1;
+                if (docs[mid] < target) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            cursor = high;
+            return currentDoc();
+        }
+    }
+
+    private record ScoredDoc(int doc, float score) {
+
+        static final Comparator<ScoredDoc> WORST_FIRST = Comparator.comparingDouble(ScoredDoc::score)
+                .thenComparing(Comparator.comparingInt(ScoredDoc::doc).reversed());
+    }
+}
@@ -0,0 +1,41 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+
+/**
+ * A product returned by a full-text search, with its relevance score.
+ */
+public class ProductSearchResult {
+
+    private final Product product;
+    private final float score;
+
+    /**
+     * Creates a search result.
+     *
+     * @param product the matching product
+     * @param score   the relevance score
+     */
+    public ProductSearchResult(Product product, float score) {
+        this.product = product;
+        this.score = score;
+    }
+
+    /**
+     * Gets the matching product.
+     *
+     * @return the product
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    /**
+     * Gets the relevance score; higher scores are better matches.
+     *
+     * @return the score
+     */
+    public float getScore() {
+        return score;
+    }
+}
@@ -1,9 +1,14 @@
 package com.quickshelf.service;
 
 import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing products in the QuickShelf inventory system.
@@ -19,6 +24,16 @@ public interface ProductService {
      */
     Product createProduct(Product product);
     
+    /**
+     * Create many products at once.
+     * Products are inserted in chunks, each chunk in its own transaction, so a failing chunk
+     * does not roll back the chunks committed before it.
+     * 
+     * @param products The products to create
+     * @return One result per product, in the same order as the input
+     */
+    List<ProductBatchResult> createProducts(List<Product> products);
+    
     /**
      * Get all products from the system.
      * 
@@ -26,6 +41,44 @@ public interface ProductService {
      */
     List<Product> getAllProducts();
     
+    /**
+     * Get one page of products matching a filter, using keyset pagination.
+     * Products are ordered by ID; each page starts strictly after the last ID of the previous one.
+     * The same filter must be passed for every page of a listing.
+     * 
+     * @param filter The criteria products must match
+     * @param afterId The last product ID of the previous page, or null for the first page
+     * @param limit The maximum number of products to return
+     * @return List of at most {@code limit} matching products ordered by ID
+     */
+    List<Product> getProductsPage(ProductFilter filter, String afterId, int limit);
+    
+    /**
+     * Stream every product to the given consumer, in ID order, without materializing the catalog.
+     * Each product is handed to the consumer and released before the next one is read.
+     * 
+     * @param consumer The callback receiving each product
+     */
+    void exportProducts(Consumer<Product> consumer);
+    
+    /**
+     * Search products by name and description, best matches first.
+     * 
+     * @param query The free-text query
+     * @param limit The maximum number of results to return
+     * @return List of at most {@code limit} matching products with their relevance scores
+     */
+    List<ProductSearchResult> searchProducts(String query, int limit);
+    
+    /**
+     * Suggest products whose name, or a word of it, starts with the given prefix, highest stock first.
+     * 
+     * @param prefix The typed prefix
+     * @param limit The maximum number of suggestions to return
+     * @return List of at most {@code limit} suggestions
+     */
+    List<ProductSuggestion> suggestProducts(String prefix, int limit);
+    
     /**
      * Get a product by its ID.
      * 
@@ -33,6 +86,14 @@ public interface ProductService {
      * @return Optional containing the product if found, empty otherwise
      */
     Optional<Product> getProductById(String id);
+
+    /**
+     * Retrieve many products by their IDs.
+     *
+     * @param ids The product IDs; an ID given more than once is looked up once
+     * @return The products found, keyed by ID; IDs without a product have no entry
+     */
+    Map<String, Product> getProductsByIds(Collection<String> ids);
     
     /**
      * Update an existing product.
@@ -41,8 +102,67 @@ public interface ProductService {
      * @param productDetails The updated product details
      * @return The updated product
      * @throws com.quickshelf.exception.ResourceNotFoundException if product not found
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the product is changed
+     *                                                                   concurrently before the update commits
      */
     Product updateProduct(String id, Product productDetails);
+
+    /**
+     * Update an existing product, provided it still has the expected version.
+     *
+     * @param id              The ID of the product to update
+     * @param productDetails  The updated product details
+     * @param expectedVersion The version the product must have for the update to apply
+     * @return The updated product, with its new version
+     * @throws com.quickshelf.exception.ResourceNotFoundException if product not found
+     * @throws com.quickshelf.exception.PreconditionFailedException if the product has another version,
+     *                                                              or gets one before the update commits
+     */
+    Product updateProduct(String id, Product productDetails, long expectedVersion);
+
+    /**
+     * Change only some fields of an existing product.
+     *
+     * @param id    The ID of the product to update
+     * @param patch The fields to change and their new values
+     * @return The updated product, with its new version
+     * @throws com.quickshelf.exception.ResourceNotFoundException if product not found
+     */
+    Product patchProduct(String id, ProductPatch patch);
+
+    /**
+     * Change only some fields of an existing product, provided it still has the expected version.
+     *
+     * @param id              The ID of the product to update
+     * @param patch           The fields to change and their new values
+     * @param expectedVersion The version the product must have for the update to apply
+     * @return The updated product, with its new version
+     * @throws com.quickshelf.exception.ResourceNotFoundException if product not found
+     * @throws com.quickshelf.exception.PreconditionFailedException if the product has another version
+     */
+    Product patchProduct(String id, ProductPatch patch, long expectedVersion);
+    
+    /**
+     * Atomically take units of a product out of stock.
+     * 
+     * @param id The product ID
+     * @param quantity The number of units to reserve, positive
+     * @return The product with its updated stock
+     * @throws com.quickshelf.exception.ResourceNotFoundException if product not found
+     * @throws com.quickshelf.exception.InsufficientStockException if fewer than {@code quantity} units are in stock
+     */
+    Product reserveStock(String id, int quantity);
+    
+    /**
+     * Atomically put units of a product back into stock.
+     * 
+     * @param id The product ID
+     * @param quantity The number of units to release, positive
+     * @return The product with its updated stock
+     * @throws com.quickshelf.exception.ResourceNotFoundException if product not found
+     * @throws com.quickshelf.exception.InsufficientStockException if the stock would exceed its maximum
+     */
+    Product releaseStock(String id, int quantity);
     
     /**
      * Delete a product by its ID.
@@ -51,4 +171,15 @@ public interface ProductService {
      * @return true if deleted, false if not found
      */
     boolean deleteProduct(String id);
+
+    /**
+     * Delete a product by its ID, provided it still has the expected version.
+     *
+     * @param id              The ID of the product to delete
+     * @param expectedVersion The version the product must have for the delete to apply
+     * @return true if deleted, false if not found
+     * @throws com.quickshelf.exception.PreconditionFailedException if the product has another version,
+     *                                                              or gets one before the delete commits
+     */
+    boolean deleteProduct(String id, long expectedVersion);
 }
\ No newline at end of file
@@ -1,31 +1,97 @@
 package com.quickshelf.service;
 
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.exception.PreconditionFailedException;
 import com.quickshelf.exception.ResourceNotFoundException;
 import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
 import com.quickshelf.repository.ProductRepository;
+import com.quickshelf.repository.ProductSpecifications;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the ProductService interface.
  * Provides business logic for product management operations.
+ * Every call is timed as {@code quickshelf.service}, tagged with the class and method.
+ * Active with the default {@code quickshelf.storage.engine=jpa}.
  */
 @Service
+@Timed(value = "quickshelf.service", histogram = true)
+@ConditionalOnProperty(name = "quickshelf.storage.engine", havingValue = "jpa", matchIfMissing = true)
 public class ProductServiceImpl implements ProductService {
 
+    /**
+     * Number of products inserted per transaction by {@link #createProducts(List)}.
+     * Each chunk is flushed as JDBC batches of {@code hibernate.jdbc.batch_size} statements.
+     */
+    static final int BATCH_CHUNK_SIZE = 1000;
+
+    /**
+     * Number of IDs per {@code IN} query of {@link #getProductsByIds(Collection)}. A power of two, so with
+     * IN-list padding every chunk but the last reuses the same statement.
+     */
+    static final int LOOKUP_CHUNK_SIZE = 512;
+
+    private static final Logger log = LoggerFactory.getLogger(ProductServiceImpl.class);
+
     private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
+    private final StockLedger stockLedger;
+    private final SingleFlight<String, Optional<Product>> lookups =
+            new SingleFlight<>(found -> found.map(ProductChangedEvent::snapshot));
 
     /**
      * Constructor for dependency injection.
      *
-     * @param productRepository the repository for product data access
+     * @param productRepository  the repository for product data access
+     * @param entityManager      the shared entity manager, used to release streamed and batched entities
+     * @param transactionManager the transaction manager, used to commit bulk inserts chunk by chunk
+     * @param eventPublisher     the publisher of {@link ProductChangedEvent}s
+     * @param searchIndex        the full-text index over product names and descriptions
+     * @param suggestIndex       the prefix index over product names
+     * @param stockLedger        the in-memory stock ledger, or null if stock changes go straight to the database
      */
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher, ProductSearchIndex searchIndex,
+                              ProductSuggestIndex suggestIndex, @Nullable StockLedger stockLedger) {
         this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
+        this.stockLedger = stockLedger;
     }
 
     /**
@@ -34,7 +100,40 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product created = productRepository.save(product);
+        eventPublisher.publishEvent(ProductChangedEvent.created(created));
+        return created;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each chunk is persisted, flushed as JDBC batches and committed in its own transaction,
+     * then cleared from the persistence context so memory use is bounded by the chunk size.
+     * If a chunk fails, every product in it is reported as failed and the next chunk proceeds.
+     */
+    @Override
+    public List<ProductBatchResult> createProducts(List<Product> products) {
+        List<ProductBatchResult> results = new ArrayList<>(products.size());
+        for (int from = 0; from < products.size(); from += BATCH_CHUNK_SIZE) {
+            List<Product> chunk = products.subList(from, Math.min(from + BATCH_CHUNK_SIZE, products.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    productRepository.saveAll(chunk);
+                    entityManager.flush();
+                });
+                chunk.forEach(product -> {
+                    results.add(ProductBatchResult.created(product));
+                    eventPublisher.publishEvent(ProductChangedEvent.created(product));
+                });
+            } catch (RuntimeException ex) {
+                log.warn("Bulk insert of products {} to {} rolled back", from, from + chunk.size() - 1, ex);
+                chunk.forEach(product -> results.add(
+                        ProductBatchResult.failed("Insert failed; the chunk containing this product was rolled back")));
+            } finally {
+                entityManager.clear();
+            }
+        }
+        return results;
     }
 
     /**
@@ -48,11 +147,113 @@ public class ProductServiceImpl implements ProductService {
 
     /**
      * {@inheritDoc}
-     * Retrieves a product by its ID.
+     * Seeks past {@code afterId} on the primary key index instead of using an offset,
+     * so every page costs the same regardless of its position in the catalog. Filter criteria
+     * are added to the same query and resolved against their indexes by the database.
+     */
+    @Override
+    public List<Product> getProductsPage(ProductFilter filter, String afterId, int limit) {
+        if (!filter.isEmpty()) {
+            return productRepository.findBy(ProductSpecifications.matching(filter, afterId),
+                    query -> query.sortBy(ProductSpecifications.order(filter)).limit(limit).all());
+        }
+        if (afterId == null) {
+            return productRepository.findAllByOrderByIdAsc(Limit.of(limit));
+        }
+        return productRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Reads the catalog over a database cursor inside a read-only transaction and detaches each
+     * product once the consumer is done with it, so the persistence context never grows beyond
+     * a single entity.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportProducts(Consumer<Product> consumer) {
+        try (Stream<Product> products = productRepository.streamAllByOrderByIdAsc()) {
+            products.forEach(product -> {
+                consumer.accept(product);
+                entityManager.detach(product);
+            });
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Ranks products with the in-memory {@link ProductSearchIndex}, then loads the hits with a single
+     * query. Hits deleted in the meantime are left out.
+     */
+    @Override
+    public List<ProductSearchResult> searchProducts(String query, int limit) {
+        List<ProductSearchIndex.Hit> hits = searchIndex.search(query, limit);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        List<String> ids = hits.stream().map(ProductSearchIndex.Hit::getProductId).toList();
+        Map<String, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getId(), product);
+        }
+        List<ProductSearchResult> results = new ArrayList<>(hits.size());
+        for (ProductSearchIndex.Hit hit : hits) {
+            Product product = products.get(hit.getProductId());
+            if (product != null) {
+                results.add(new ProductSearchResult(product, hit.getScore()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Answered entirely from the in-memory {@link ProductSuggestIndex}, without a database query.
+     */
+    @Override
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Retrieves a product by its ID. Concurrent lookups of the same ID share a single database query:
+     * callers arriving while a lookup is in flight receive a detached copy of its result instead of
+     * querying again. Once a change to the product commits, later callers no longer join a lookup that
+     * started before it (see {@link #onProductChanged(ProductChangedEvent)}).
      */
     @Override
     public Optional<Product> getProductById(String id) {
-        return productRepository.findById(id);
+        return lookups.load(id, productRepository::findById);
+    }
+
+    /**
+     * Detaches any in-flight lookup of the changed product once the change has committed, so a caller
+     * reading after its own write is never handed a result that was read before it.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lookups.forget(event.getProductId());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Distinct IDs are resolved with {@code IN} queries of up to {@value #LOOKUP_CHUNK_SIZE} IDs each, so
+     * the number of round trips grows with the number of chunks rather than with the number of IDs.
+     */
+    @Override
+    public Map<String, Product> getProductsByIds(Collection<String> ids) {
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        Map<String, Product> products = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> chunk = distinct.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinct.size()));
+            for (Product product : productRepository.findAllById(chunk)) {
+                products.put(product.getId(), product);
+            }
+        }
+        return products;
     }
 
     /**
@@ -62,8 +263,24 @@ public class ProductServiceImpl implements ProductService {
      */
     @Override
     public Product updateProduct(String id, Product productDetails) {
+        return update(id, productDetails, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The version is compared with the product as read, and the UPDATE statement only matches the row
+     * while it still has that version, so a write committed in between is detected as well.
+     */
+    @Override
+    public Product updateProduct(String id, Product productDetails, long expectedVersion) {
+        return update(id, productDetails, expectedVersion);
+    }
+
+    private Product update(String id, Product productDetails, Long expectedVersion) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+        checkVersion(product, expectedVersion);
+        Product before = ProductChangedEvent.snapshot(product);
 
         product.setName(productDetails.getName());
         product.setDescription(productDetails.getDescription());
@@ -71,21 +288,187 @@ public class ProductServiceImpl implements ProductService {
         product.setCategory(productDetails.getCategory());
         product.setStockQuantity(productDetails.getStockQuantity());
 
-        return productRepository.save(product);
+        Product updated;
+        try {
+            updated = productRepository.save(product);
+        } catch (OptimisticLockingFailureException ex) {
+            throw expectedVersion != null ? modifiedConcurrently(id) : ex;
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, updated));
+        if (stockLedger != null) {
+            stockLedger.forget(id);
+        }
+        return updated;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs as a single UPDATE of only the patched columns that also returns the previous row, so the
+     * product is not read first and unchanged fields, such as a long description, are never sent.
+     * The updated product is the previous row with the patch applied.
+     */
+    @Override
+    public Product patchProduct(String id, ProductPatch patch) {
+        return patch(id, patch, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The UPDATE statement only matches the row while it still has the expected version; only a
+     * rejected patch reads the product, to tell a missing product from a version mismatch.
+     */
+    @Override
+    public Product patchProduct(String id, ProductPatch patch, long expectedVersion) {
+        return patch(id, patch, expectedVersion);
+    }
+
+    private Product patch(String id, ProductPatch patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            Product current = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+            checkVersion(current, expectedVersion);
+            return current;
+        }
+        Optional<Product> previous = productRepository.patch(id, patch, expectedVersion);
+        if (previous.isEmpty()) {
+            if (expectedVersion != null) {
+                rejectConditionalWrite(id, expectedVersion);
+            }
+            throw new ResourceNotFoundException("Product", "id", id);
+        }
+        Product before = previous.get();
+        Product after = ProductChangedEvent.snapshot(before);
+        patch.applyTo(after);
+        after.setVersion(before.getVersion() + 1);
+
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, after));
+        if (stockLedger != null) {
+            stockLedger.forget(id);
+        }
+        return after;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs as a single conditional UPDATE that also returns the updated row, so there is no
+     * read-modify-write window and concurrent reservations of the same product never lose updates.
+     * Only a rejected reservation reads the product again, to tell a missing product from a lack of stock.
+     * When the {@link StockLedger} is enabled, the reservation is decided in memory instead.
+     */
+    @Override
+    public Product reserveStock(String id, int quantity) {
+        if (stockLedger != null) {
+            return stockLedger.reserve(id, quantity);
+        }
+        Product product = productRepository.reserveStock(id, quantity).orElseThrow(() -> {
+            Product current = productRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+            return new InsufficientStockException(String.format(
+                    "Insufficient stock for product '%s': requested %d, available %d",
+                    id, quantity, current.getStockQuantity()));
+        });
+        publishStockChange(product, quantity);
+        return product;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs as a single conditional UPDATE that also returns the updated row, or in memory when the
+     * {@link StockLedger} is enabled.
+     */
+    @Override
+    public Product releaseStock(String id, int quantity) {
+        if (stockLedger != null) {
+            return stockLedger.release(id, quantity);
+        }
+        Product product = productRepository.releaseStock(id, quantity).orElseThrow(() -> {
+            productRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+            return new InsufficientStockException(String.format(
+                    "Releasing %d units would exceed the maximum stock of product '%s'", quantity, id));
+        });
+        publishStockChange(product, -quantity);
+        return product;
     }
 
     /**
      * {@inheritDoc}
-     * Deletes a product by its ID.
-     * Returns true if the product was found and deleted, false otherwise.
+     * Runs as a single DELETE that also returns the deleted row, which the change event carries.
      */
     @Override
     public boolean deleteProduct(String id) {
-        return productRepository.findById(id)
-                .map(product -> {
-                    productRepository.delete(product);
-                    return true;
-                })
-                .orElse(false);
-    }
-}
\ No newline at end of file
+        return delete(id, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The DELETE statement only matches the row while it still has the expected version; only a
+     * rejected delete reads the product, to tell a missing product from a version mismatch.
+     */
+    @Override
+    public boolean deleteProduct(String id, long expectedVersion) {
+        return delete(id, expectedVersion);
+    }
+
+    private boolean delete(String id, Long expectedVersion) {
+        Optional<Product> deleted = expectedVersion == null
+                ? productRepository.deleteAndReturn(id)
+                : productRepository.deleteAndReturn(id, expectedVersion);
+        if (deleted.isEmpty()) {
+            if (expectedVersion != null) {
+                rejectConditionalWrite(id, expectedVersion);
+            }
+            return false;
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(deleted.get()));
+        if (stockLedger != null) {
+            stockLedger.forget(id);
+        }
+        return true;
+    }
+
+    /**
+     * Reads a product again after a conditional single-statement write matched no row, and rejects the
+     * write if the product still exists. Returns normally only if the product does not exist.
+     *
+     * @param id              the product ID
+     * @param expectedVersion the version the write required
+     * @throws PreconditionFailedException if the product exists with another version
+     */
+    private void rejectConditionalWrite(String id, long expectedVersion) {
+        productRepository.findById(id).ifPresent(current -> {
+            checkVersion(current, expectedVersion);
+            throw modifiedConcurrently(id);
+        });
+    }
+
+    /**
+     * Rejects a conditional write to a product that no longer has the expected version.
+     *
+     * @param product         the product as read
+     * @param expectedVersion the version the client expects, or null for an unconditional write
+     * @throws PreconditionFailedException if the versions differ
+     */
+    static void checkVersion(Product product, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new PreconditionFailedException(String.format(
+                    "Product '%s' is at version %d, not %d", product.getId(), product.getVersion(), expectedVersion));
+        }
+    }
+
+    static PreconditionFailedException modifiedConcurrently(String id) {
+        return new PreconditionFailedException(String.format(
+                "Product '%s' was modified concurrently and no longer has the expected version", id));
+    }
+
+    /**
+     * Publishes the change event for a stock update applied in the database.
+     *
+     * @param after    the product as updated
+     * @param quantity the number of units taken out of stock (negative if units were put back)
+     */
+    private void publishStockChange(Product after, int quantity) {
+        Product before = ProductChangedEvent.snapshot(after);
+        before.setStockQuantity(after.getStockQuantity() + quantity);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, after));
+    }
+}
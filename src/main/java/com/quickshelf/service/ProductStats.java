@@ -0,0 +1,140 @@
+package com.quickshelf.service;
+
+import java.util.List;
+
+/**
+ * Aggregates over the catalog: the figures for all products and the same figures per category.
+ */
+public class ProductStats {
+
+    private final Group total;
+    private final List<Group> categories;
+
+    /**
+     * Creates the aggregates.
+     *
+     * @param total      the figures for all products
+     * @param categories the figures per category, by category name
+     */
+    public ProductStats(Group total, List<Group> categories) {
+        this.total = total;
+        this.categories = categories;
+    }
+
+    /**
+     * Gets the figures for all products.
+     *
+     * @return the figures, with a null category
+     */
+    public Group getTotal() {
+        return total;
+    }
+
+    /**
+     * Gets the figures per category, ordered by category name. Categories without products are left out.
+     *
+     * @return the figures per category
+     */
+    public List<Group> getCategories() {
+        return categories;
+    }
+
+    /**
+     * The figures for a group of products.
+     */
+    public static class Group {
+
+        private final String category;
+        private final long count;
+        private final long totalStock;
+        private final double inventoryValue;
+        private final double priceSum;
+        private final float minPrice;
+        private final float maxPrice;
+
+        /**
+         * Creates the figures for a group.
+         *
+         * @param category       the category, or null for all products
+         * @param count          the number of products
+         * @param totalStock     the sum of their stock quantities
+         * @param inventoryValue the sum of price times stock quantity
+         * @param priceSum       the sum of their prices
+         * @param minPrice       the lowest price; ignored when the group is empty
+         * @param maxPrice       the highest price; ignored when the group is empty
+         */
+        public Group(String category, long count, long totalStock, double inventoryValue, double priceSum,
+                     float minPrice, float maxPrice) {
+            this.category = category;
+            this.count = count;
+            this.totalStock = totalStock;
+            this.inventoryValue = inventoryValue;
+            this.priceSum = priceSum;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+        }
+
+        /**
+         * Gets the category.
+         *
+         * @return the category, or null for all products
+         */
+        public String getCategory() {
+            return category;
+        }
+
+        /**
+         * Gets the number of products.
+         *
+         * @return the product count
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Gets the sum of the stock quantities.
+         *
+         * @return the total stock
+         */
+        public long getTotalStock() {
+            return totalStock;
+        }
+
+        /**
+         * Gets the sum of price times stock quantity.
+         *
+         * @return the inventory value
+         */
+        public double getInventoryValue() {
+            return inventoryValue;
+        }
+
+        /**
+         * Gets the lowest price.
+         *
+         * @return the lowest price, or null if the group is empty
+         */
+        public Float getMinPrice() {
+            return count == 0 ? null : minPrice;
+        }
+
+        /**
+         * Gets the highest price.
+         *
+         * @return the highest price, or null if the group is empty
+         */
+        public Float getMaxPrice() {
+            return count == 0 ? null : maxPrice;
+        }
+
+        /**
+         * Gets the average price.
+         *
+         * @return the mean price, or null if the group is empty
+         */
+        public Double getAveragePrice() {
+            return count == 0 ? null : priceSum / count;
+        }
+    }
+}
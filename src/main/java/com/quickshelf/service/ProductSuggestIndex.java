@@ -0,0 +1,455 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory radix trie answering prefix autocomplete over product names, ranked by stock quantity.
+ *
+ * <p>Names are normalized (lower case, single spaces) and inserted once in full and once from the
+ * start of every later word, so "mou" suggests "Wireless Mouse". Edges are labelled with whole
+ * character runs and single-child chains are merged, which keeps the node count close to the number
+ * of distinct keys. Every node records the highest rank found in its subtree, so the best
+ * {@code limit} completions are collected best-first without visiting the rest of the subtree.</p>
+ *
+ * <p>The trie is rebuilt from the {@link ProductCatalog} when the application is ready and kept current from
+ * {@link ProductChangedEvent}s once their transaction commits. Lookups never touch the storage.</p>
+ */
+@Component
+public class ProductSuggestIndex {
+
+    /**
+     * Maximum number of characters of a name that are indexed from each word start.
+     */
+    static final int MAX_KEY_LENGTH = 64;
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestIndex.class);
+
+    private final ProductCatalog catalog;
+
+    // Serializes rebuilds. A lock rather than a monitor, since a rebuild blocks on storage reads and
+    // blocking inside a monitor would pin a virtual thread to its carrier thread
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock
+    private Trie trie = new Trie();
+    // Guarded by lock; non-null while a rebuild is running, replayed onto the rebuilt trie
+    private List<ProductChangedEvent> changesDuringRebuild;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param catalog the catalog of the active storage engine, which the trie is rebuilt from
+     */
+    @Autowired
+    public ProductSuggestIndex(ProductCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Builds the trie once the application has started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the trie from the catalog and swaps it in.
+     * Lookups keep using the current trie meanwhile; changes committed during the rebuild are
+     * applied to both and replayed onto the new trie before it is published.
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Trie rebuilt = null;
+            try {
+                Trie loading = new Trie();
+                catalog.scan(product -> loading.add(product.getId(), product.getName(), product.getStockQuantity()));
+                rebuilt = loading;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (rebuilt != null) {
+                        for (ProductChangedEvent change : changesDuringRebuild) {
+                            apply(rebuilt, change);
+                        }
+                        trie = rebuilt;
+                    }
+                    changesDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            log.info("Suggest index rebuilt with {} products in {} ms", rebuilt.products.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a committed product change to the trie.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(trie, event);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products whose name, or a word of it, starts with the given prefix,
+     * highest stock first.
+     *
+     * @param prefix the typed prefix; case and repeated spaces are ignored
+     * @param limit  the maximum number of suggestions
+     * @return the suggestions, possibly empty
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return trie.suggest(key, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of products currently suggestible.
+     *
+     * @return the number of indexed products
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return trie.products.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void apply(Trie trie, ProductChangedEvent event) {
+        if (event.getAfter() != null) {
+            Product product = event.getAfter();
+            trie.add(product.getId(), product.getName(), product.getStockQuantity());
+        } else {
+            trie.remove(event.getProductId());
+        }
+    }
+
+    /**
+     * Lower-cases the text and collapses whitespace runs into single spaces.
+     * Leading whitespace is dropped; a trailing space is kept so that "red " only completes whole words.
+     *
+     * @param text the text
+     * @return the normalized text
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!normalized.isEmpty() && normalized.charAt(normalized.length() - 1) != ' ') {
+                    normalized.append(' ');
+                }
+            } else {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Returns the keys a name is indexed under: the name itself and its suffix at every later word.
+     */
+    static List<String> keys(String name) {
+        String normalized = normalize(name).stripTrailing();
+        List<String> keys = new ArrayList<>();
+        for (int start = 0; start < normalized.length(); start++) {
+            if (start == 0 || normalized.charAt(start - 1) == ' ') {
+                keys.add(normalized.substring(start, Math.min(normalized.length(), start + MAX_KEY_LENGTH)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * A product as stored in the trie.
+     */
+    private static final class Entry {
+
+        final String productId;
+        final String name;
+        final int rank;
+
+        Entry(String productId, String name, int rank) {
+            this.productId = productId;
+            this.name = name;
+            this.rank = rank;
+        }
+    }
+
+    /**
+     * A trie node. The label is the run of characters on the edge from the parent.
+     */
+    private static final class Node {
+
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        char[] label;
+        Node[] children = NO_CHILDREN;
+        // Products whose key ends exactly at this node; usually null or a single entry
+        Entry[] entries;
+        // Highest rank of any entry in this subtree, or -1 if the subtree is empty
+        int maxRank = -1;
+
+        Node(char[] label) {
+            this.label = label;
+        }
+
+        int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label[0];
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int insertionPoint, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, insertionPoint);
+            grown[insertionPoint] = child;
+            System.arraycopy(children, insertionPoint, grown, insertionPoint + 1, children.length - insertionPoint);
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        void recomputeMaxRank() {
+            int max = -1;
+            if (entries != null) {
+                for (Entry entry : entries) {
+                    max = Math.max(max, entry.rank);
+                }
+            }
+            for (Node child : children) {
+                max = Math.max(max, child.maxRank);
+            }
+            maxRank = max;
+        }
+    }
+
+    /**
+     * The mutable trie. Not thread-safe; guarded by the enclosing lock.
+     */
+    static final class Trie {
+
+        private final Node root = new Node(new char[0]);
+        // Indexed entry of each product, used to find its keys again on update and delete
+        final Map<String, Entry> products = new HashMap<>();
+
+        void add(String productId, String name, int rank) {
+            remove(productId);
+            Entry entry = new Entry(productId, name, Math.max(rank, 0));
+            products.put(productId, entry);
+            for (String key : keys(name)) {
+                insert(key, entry);
+            }
+        }
+
+        void remove(String productId) {
+            Entry entry = products.remove(productId);
+            if (entry != null) {
+                for (String key : keys(entry.name)) {
+                    delete(root, key, 0, entry);
+                }
+            }
+        }
+
+        List<ProductSuggestion> suggest(String prefix, int limit) {
+            Node node = root;
+            int depth = 0;
+            while (depth < prefix.length()) {
+                int index = node.childIndex(prefix.charAt(depth));
+                if (index < 0) {
+                    return List.of();
+                }
+                node = node.children[index];
+                int matched = 0;
+                while (matched < node.label.length && depth < prefix.length()) {
+                    if (node.label[matched] != prefix.charAt(depth)) {
+                        return List.of();
+                    }
+                    matched++;
+                    depth++;
+                }
+            }
+
+            // Best-first over nodes keyed by subtree maximum and entries keyed by their own rank
+            List<ProductSuggestion> suggestions = new ArrayList<>(limit);
+            Set<String> seen = new HashSet<>();
+            PriorityQueue<Candidate> frontier = new PriorityQueue<>(Candidate.BEST_FIRST);
+            frontier.add(new Candidate(node.maxRank, node, null));
+            while (!frontier.isEmpty() && suggestions.size() < limit) {
+                Candidate candidate = frontier.poll();
+                if (candidate.entry() != null) {
+                    Entry entry = candidate.entry();
+                    if (seen.add(entry.productId)) {
+                        suggestions.add(new ProductSuggestion(entry.productId, entry.name, entry.rank));
+                    }
+                    continue;
+                }
+                Node next = candidate.node();
+                if (next.entries != null) {
+                    for (Entry entry : next.entries) {
+                        frontier.add(new Candidate(entry.rank, null, entry));
+                    }
+                }
+                for (Node child : next.children) {
+                    frontier.add(new Candidate(child.maxRank, child, null));
+                }
+            }
+            return suggestions;
+        }
+
+        private void insert(String key, Entry entry) {
+            Node node = root;
+            node.maxRank = Math.max(node.maxRank, entry.rank);
+            int depth = 0;
+            while (depth < key.length()) {
+                int index = node.childIndex(key.charAt(depth));
+                if (index < 0) {
+                    Node leaf = new Node(key.substring(depth).toCharArray());
+                    leaf.entries = new Entry[]{entry};
+                    leaf.maxRank = entry.rank;
+                    node.insertChild(-(index + 1), leaf);
+                    return;
+                }
+                Node child = node.children[index];
+                int common = 0;
+                while (common < child.label.length && depth + common < key.length()
+                        && child.label[common] == key.charAt(depth + common)) {
+                    common++;
+                }
+                if (common < child.label.length) {
+                    // Split the edge: a new node takes over the shared part of the label
+                    Node split = new Node(Arrays.copyOf(child.label, common));
+                    child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                    split.children = new Node[]{child};
+                    split.maxRank = child.maxRank;
+                    node.children[index] = split;
+                    child = split;
+                }
+                child.maxRank = Math.max(child.maxRank, entry.rank);
+                node = child;
+                depth += common;
+            }
+            node.entries = node.entries == null ? new Entry[]{entry} : append(node.entries, entry);
+        }
+
+        /**
+         * Removes the entry under the key below {@code node}, pruning and merging nodes left without a
+         * purpose and recomputing subtree maxima on the way back up.
+         */
+        private void delete(Node node, String key, int depth, Entry entry) {
+            if (depth == key.length()) {
+                node.entries = without(node.entries, entry);
+            } else {
+                int index = node.childIndex(key.charAt(depth));
+                if (index < 0) {
+                    return;
+                }
+                Node child = node.children[index];
+                delete(child, key, depth + child.label.length, entry);
+                if (child.entries == null && child.children.length == 0) {
+                    node.removeChild(index);
+                } else if (child.entries == null && child.children.length == 1) {
+                    Node grandchild = child.children[0];
+                    char[] merged = Arrays.copyOf(child.label, child.label.length + grandchild.label.length);
+                    System.arraycopy(grandchild.label, 0, merged, child.label.length, grandchild.label.length);
+                    grandchild.label = merged;
+                    node.children[index] = grandchild;
+                }
+            }
+            node.recomputeMaxRank();
+        }
+
+        private static Entry[] append(Entry[] entries, Entry entry) {
+            Entry[] grown = Arrays.copyOf(entries, entries.length + 1);
+            grown[entries.length] = entry;
+            return grown;
+        }
+
+        private static Entry[] without(Entry[] entries, Entry entry) {
+            if (entries == null) {
+                return null;
+            }
+            Entry[] kept = Arrays.stream(entries).filter(e -> e != entry).toArray(Entry[]::new);
+            return kept.length == 0 ? null : kept;
+        }
+    }
+
+    /**
+     * A subtree or an entry waiting to be explored, keyed by the best rank it can yield.
+     */
+    private record Candidate(int rank, Node node, Entry entry) {
+
+        // Highest rank first; at equal rank, entries before subtrees so they are emitted without more expansion
+        static final Comparator<Candidate> BEST_FIRST = Comparator.comparingInt(Candidate::rank).reversed()
+                .thenComparing(candidate -> candidate.entry() == null);
+    }
+}
@@ -0,0 +1,51 @@
+package com.quickshelf.service;
+
+/**
+ * A product name completing an autocomplete prefix, as held by the suggest index.
+ */
+public class ProductSuggestion {
+
+    private final String id;
+    private final String name;
+    private final int stockQuantity;
+
+    /**
+     * Creates a suggestion.
+     *
+     * @param id            the product ID
+     * @param name          the product name
+     * @param stockQuantity the stock quantity the suggestion was ranked by
+     */
+    public ProductSuggestion(String id, String name, int stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.stockQuantity = stockQuantity;
+    }
+
+    /**
+     * Gets the product ID.
+     *
+     * @return the product ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the product name.
+     *
+     * @return the product name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the stock quantity the suggestion was ranked by.
+     *
+     * @return the stock quantity
+     */
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+}
@@ -0,0 +1,513 @@
+package com.quickshelf.service;
+
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.exception.ResourceNotFoundException;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.Nullable;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Implementation of {@link ReactiveProductService} on R2DBC, used by the reactive web stack.
+ *
+ * <p>Runs the same SQL as the JPA implementation: keyset pages seek on the primary key, stock changes,
+ * patches and deletes are single statements that return the affected row through an H2 data change
+ * delta table, and multi-gets are chunked {@code IN} queries. Change events are published after each
+ * write commits, so the search and suggestion indexes stay current whichever stack wrote the product.
+ * Publishing, whose listeners update indexes under locks, and calls into the {@link StockLedger}, which may
+ * wait for a flush, run on the bounded elastic scheduler rather than on an event-loop thread.</p>
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcProductService implements ReactiveProductService {
+
+    private static final Logger log = LoggerFactory.getLogger(R2dbcProductService.class);
+
+    private static final String INSERT = "INSERT INTO product"
+            + " (id, name, description, price, category, stock_quantity, version) VALUES ($1, $2, $3, $4, $5, $6, 0)";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
+    private final StockLedger stockLedger;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param databaseClient the R2DBC client of the product database
+     * @param eventPublisher the publisher of {@link ProductChangedEvent}s
+     * @param searchIndex    the full-text index over product names and descriptions
+     * @param suggestIndex   the prefix index over product names
+     * @param stockLedger    the in-memory stock ledger, or null if stock changes go straight to the database
+     */
+    @Autowired
+    public R2dbcProductService(DatabaseClient databaseClient, ApplicationEventPublisher eventPublisher,
+                               ProductSearchIndex searchIndex, ProductSuggestIndex suggestIndex,
+                               @Nullable StockLedger stockLedger) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(
+                new R2dbcTransactionManager(databaseClient.getConnectionFactory()));
+        this.eventPublisher = eventPublisher;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
+        this.stockLedger = stockLedger;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Assigns a random UUID if the product has no ID, as the JPA entity does on persist.
+     */
+    @Override
+    public Mono<Product> createProduct(Product product) {
+        return databaseClient.inConnection(connection ->
+                        Mono.from(insert(connection.createStatement(INSERT), List.of(product)).execute())
+                                .flatMap(result -> Mono.from(result.getRowsUpdated())))
+                .flatMap(rows -> afterWrite(() -> {
+                    product.setVersion(0L);
+                    eventPublisher.publishEvent(ProductChangedEvent.created(product));
+                    return product;
+                }));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Each chunk of {@value ProductServiceImpl#BATCH_CHUNK_SIZE} products is sent as one batched statement
+     * in its own transaction. Chunks are inserted one after another; a failed chunk is reported and the
+     * next one proceeds.
+     */
+    @Override
+    public Mono<List<ProductBatchResult>> createProducts(List<Product> products) {
+        List<List<Product>> chunks = new ArrayList<>();
+        for (int from = 0; from < products.size(); from += ProductServiceImpl.BATCH_CHUNK_SIZE) {
+            chunks.add(products.subList(from, Math.min(from + ProductServiceImpl.BATCH_CHUNK_SIZE, products.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(chunk -> databaseClient.inConnectionMany(connection ->
+                                Flux.from(insert(connection.createStatement(INSERT), chunk).execute())
+                                        .flatMap(result -> result.getRowsUpdated()))
+                        .as(transactionalOperator::transactional)
+                        .then(afterWrite(() -> {
+                            List<ProductBatchResult> results = new ArrayList<>(chunk.size());
+                            for (Product product : chunk) {
+                                product.setVersion(0L);
+                                results.add(ProductBatchResult.created(product));
+                                eventPublisher.publishEvent(ProductChangedEvent.created(product));
+                            }
+                            return results;
+                        }))
+                        .onErrorResume(RuntimeException.class, ex -> {
+                            log.warn("Bulk insert of {} products rolled back", chunk.size(), ex);
+                            return Mono.just(chunk.stream()
+                                    .map(product -> ProductBatchResult.failed(
+                                            "Insert failed; the chunk containing this product was rolled back"))
+                                    .toList());
+                        }))
+                .collectList()
+                .map(chunkResults -> chunkResults.stream().flatMap(List::stream).toList());
+    }
+
+    /**
+     * Binds one set of insert parameters per product, assigning IDs to products without one.
+     *
+     * @param statement the prepared insert
+     * @param products  the products to insert
+     * @return the statement, batched if there is more than one product
+     */
+    private static Statement insert(Statement statement, List<Product> products) {
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            if (product.getId() == null) {
+                product.setId(UUID.randomUUID().toString());
+            }
+            if (i > 0) {
+                statement.add();
+            }
+            statement.bind(0, product.getId()).bind(1, product.getName());
+            if (product.getDescription() == null) {
+                statement.bindNull(2, String.class);
+            } else {
+                statement.bind(2, product.getDescription());
+            }
+            statement.bind(3, product.getPrice())
+                    .bind(4, product.getCategory())
+                    .bind(5, product.getStockQuantity());
+        }
+        return statement;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the criteria that are set become predicates, bound and ordered as in {@code ProductSpecifications}.
+     */
+    @Override
+    public Flux<Product> getProductsPage(ProductFilter filter, String afterId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT * FROM product WHERE 1 = 1");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        if (filter.getCategory() != null) {
+            sql.append(" AND category = :category");
+            parameters.put("category", filter.getCategory());
+        }
+        if (filter.getMinPrice() != null) {
+            sql.append(" AND price >= :minPrice");
+            parameters.put("minPrice", filter.getLowestMatchingPrice());
+        }
+        if (filter.getMaxPrice() != null) {
+            sql.append(" AND price <= :maxPrice");
+            parameters.put("maxPrice", filter.getHighestMatchingPrice());
+        }
+        if (filter.getInStock() != null) {
+            sql.append(filter.getInStock() ? " AND stock_quantity <> 0" : " AND stock_quantity = 0");
+        }
+        if (afterId != null) {
+            sql.append(" AND id > :afterId");
+            parameters.put("afterId", afterId);
+        }
+        if (filter.getCategory() != null) {
+            sql.append(" ORDER BY category, id LIMIT :limit");
+        } else if (Boolean.FALSE.equals(filter.getInStock())) {
+            sql.append(" ORDER BY stock_quantity, id LIMIT :limit");
+        } else {
+            sql.append(" ORDER BY id LIMIT :limit");
+        }
+        parameters.put("limit", limit);
+        return databaseClient.sql(sql.toString())
+                .bindValues(parameters)
+                .map(R2dbcProductService::toProduct)
+                .all();
+    }
+
+    @Override
+    public Flux<Product> exportProducts() {
+        return databaseClient.sql("SELECT * FROM product ORDER BY id")
+                .map(R2dbcProductService::toProduct)
+                .all();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Ranks products with the in-memory {@link ProductSearchIndex}, then loads the hits with a single
+     * query. Hits deleted in the meantime are left out.
+     */
+    @Override
+    public Mono<List<ProductSearchResult>> searchProducts(String query, int limit) {
+        List<ProductSearchIndex.Hit> hits = searchIndex.search(query, limit);
+        if (hits.isEmpty()) {
+            return Mono.just(List.of());
+        }
+        return findAllById(hits.stream().map(ProductSearchIndex.Hit::getProductId).toList())
+                .map(products -> {
+                    List<ProductSearchResult> results = new ArrayList<>(hits.size());
+                    for (ProductSearchIndex.Hit hit : hits) {
+                        Product product = products.get(hit.getProductId());
+                        if (product != null) {
+                            results.add(new ProductSearchResult(product, hit.getScore()));
+                        }
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * {@inheritDoc}
+     * Answered entirely from the in-memory {@link ProductSuggestIndex}, without a database query.
+     */
+    @Override
+    public Mono<List<ProductSuggestion>> suggestProducts(String prefix, int limit) {
+        return Mono.fromSupplier(() -> suggestIndex.suggest(prefix, limit));
+    }
+
+    @Override
+    public Mono<Product> getProductById(String id) {
+        return databaseClient.sql("SELECT * FROM product WHERE id = :id")
+                .bind("id", id)
+                .map(R2dbcProductService::toProduct)
+                .one();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Distinct IDs are resolved with {@code IN} queries of up to {@value ProductServiceImpl#LOOKUP_CHUNK_SIZE}
+     * IDs each, run one after another.
+     */
+    @Override
+    public Mono<Map<String, Product>> getProductsByIds(Collection<String> ids) {
+        List<String> distinct = List.copyOf(new LinkedHashSet<>(ids));
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += ProductServiceImpl.LOOKUP_CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + ProductServiceImpl.LOOKUP_CHUNK_SIZE, distinct.size())));
+        }
+        return Flux.fromIterable(chunks)
+                .concatMap(chunk -> findAllById(chunk).flatMapIterable(Map::values))
+                .collectMap(Product::getId);
+    }
+
+    private Mono<Map<String, Product>> findAllById(List<String> ids) {
+        return databaseClient.sql("SELECT * FROM product WHERE id IN (:ids)")
+                .bind("ids", ids)
+                .map(R2dbcProductService::toProduct)
+                .all()
+                .collectMap(Product::getId, product -> product, HashMap::new);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Writes all fields in one UPDATE that also returns the previous row, so no read precedes the write.
+     */
+    @Override
+    public Mono<Product> updateProduct(String id, Product productDetails) {
+        return patch(id, toPatch(productDetails), null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The UPDATE statement only matches the row while it still has the expected version.
+     */
+    @Override
+    public Mono<Product> updateProduct(String id, Product productDetails, long expectedVersion) {
+        return patch(id, toPatch(productDetails), expectedVersion);
+    }
+
+    private static ProductPatch toPatch(Product productDetails) {
+        return new ProductPatch()
+                .setName(productDetails.getName())
+                .setDescription(productDetails.getDescription())
+                .setPrice(productDetails.getPrice())
+                .setCategory(productDetails.getCategory())
+                .setStockQuantity(productDetails.getStockQuantity());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs as a single UPDATE of only the patched columns that also returns the previous row.
+     */
+    @Override
+    public Mono<Product> patchProduct(String id, ProductPatch patch) {
+        return patch(id, patch, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The UPDATE statement only matches the row while it still has the expected version; only a
+     * rejected patch reads the product, to tell a missing product from a version mismatch.
+     */
+    @Override
+    public Mono<Product> patchProduct(String id, ProductPatch patch, long expectedVersion) {
+        return patch(id, patch, expectedVersion);
+    }
+
+    private Mono<Product> patch(String id, ProductPatch patch, Long expectedVersion) {
+        if (patch.isEmpty()) {
+            return getProductById(id)
+                    .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product", "id", id)))
+                    .doOnNext(current -> ProductServiceImpl.checkVersion(current, expectedVersion));
+        }
+        // Column names come from ProductPatch.Field, never from the request, and every value is bound
+        StringBuilder sql = new StringBuilder("SELECT * FROM OLD TABLE (UPDATE product SET ");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        for (Map.Entry<ProductPatch.Field, Object> entry : patch.getValues().entrySet()) {
+            String column = entry.getKey().getColumn();
+            if (entry.getValue() == null) {
+                sql.append(column).append(" = NULL, ");
+            } else {
+                sql.append(column).append(" = :").append(column).append(", ");
+                parameters.put(column, entry.getValue());
+            }
+        }
+        sql.append("version = version + 1 WHERE id = :id");
+        parameters.put("id", id);
+        if (expectedVersion != null) {
+            sql.append(" AND version = :version");
+            parameters.put("version", expectedVersion);
+        }
+        sql.append(')');
+
+        return databaseClient.sql(sql.toString())
+                .bindValues(parameters)
+                .map(R2dbcProductService::toProduct)
+                .one()
+                .switchIfEmpty(Mono.defer(() -> rejectConditionalWrite(id, expectedVersion)
+                        .then(Mono.error(() -> new ResourceNotFoundException("Product", "id", id)))))
+                .flatMap(before -> afterWrite(() -> {
+                    Product after = ProductChangedEvent.snapshot(before);
+                    patch.applyTo(after);
+                    after.setVersion(before.getVersion() + 1);
+                    eventPublisher.publishEvent(ProductChangedEvent.updated(before, after));
+                    if (stockLedger != null) {
+                        stockLedger.forget(id);
+                    }
+                    return after;
+                }));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs as a single conditional UPDATE that also returns the updated row. When the {@link StockLedger}
+     * is enabled, the reservation is decided in memory instead, on a thread that may block on the journal.
+     */
+    @Override
+    public Mono<Product> reserveStock(String id, int quantity) {
+        if (stockLedger != null) {
+            return Mono.fromCallable(() -> stockLedger.reserve(id, quantity)).subscribeOn(Schedulers.boundedElastic());
+        }
+        return databaseClient.sql("SELECT * FROM FINAL TABLE (UPDATE product SET stock_quantity = stock_quantity - :quantity,"
+                        + " version = version + 1 WHERE id = :id AND stock_quantity >= :quantity)")
+                .bind("id", id)
+                .bind("quantity", quantity)
+                .map(R2dbcProductService::toProduct)
+                .one()
+                .switchIfEmpty(Mono.defer(() -> getProductById(id)
+                        .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product", "id", id)))
+                        .flatMap(current -> Mono.error(new InsufficientStockException(String.format(
+                                "Insufficient stock for product '%s': requested %d, available %d",
+                                id, quantity, current.getStockQuantity()))))))
+                .flatMap(product -> afterWrite(() -> publishStockChange(product, quantity)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs as a single conditional UPDATE that also returns the updated row, or in memory when the
+     * {@link StockLedger} is enabled.
+     */
+    @Override
+    public Mono<Product> releaseStock(String id, int quantity) {
+        if (stockLedger != null) {
+            return Mono.fromCallable(() -> stockLedger.release(id, quantity)).subscribeOn(Schedulers.boundedElastic());
+        }
+        return databaseClient.sql("SELECT * FROM FINAL TABLE (UPDATE product SET stock_quantity = stock_quantity + :quantity,"
+                        + " version = version + 1 WHERE id = :id AND stock_quantity <= 2147483647 - :quantity)")
+                .bind("id", id)
+                .bind("quantity", quantity)
+                .map(R2dbcProductService::toProduct)
+                .one()
+                .switchIfEmpty(Mono.defer(() -> getProductById(id)
+                        .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product", "id", id)))
+                        .flatMap(current -> Mono.error(new InsufficientStockException(String.format(
+                                "Releasing %d units would exceed the maximum stock of product '%s'", quantity, id))))))
+                .flatMap(product -> afterWrite(() -> publishStockChange(product, -quantity)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * Runs as a single DELETE that also returns the deleted row, which the change event carries.
+     */
+    @Override
+    public Mono<Boolean> deleteProduct(String id) {
+        return delete(id, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The DELETE statement only matches the row while it still has the expected version.
+     */
+    @Override
+    public Mono<Boolean> deleteProduct(String id, long expectedVersion) {
+        return delete(id, expectedVersion);
+    }
+
+    private Mono<Boolean> delete(String id, Long expectedVersion) {
+        DatabaseClient.GenericExecuteSpec statement = expectedVersion == null
+                ? databaseClient.sql("SELECT * FROM OLD TABLE (DELETE FROM product WHERE id = :id)")
+                : databaseClient.sql("SELECT * FROM OLD TABLE (DELETE FROM product WHERE id = :id AND version = :version)")
+                        .bind("version", expectedVersion);
+        return statement.bind("id", id)
+                .map(R2dbcProductService::toProduct)
+                .one()
+                .flatMap(deleted -> afterWrite(() -> {
+                    eventPublisher.publishEvent(ProductChangedEvent.deleted(deleted));
+                    if (stockLedger != null) {
+                        stockLedger.forget(id);
+                    }
+                    return true;
+                }))
+                .switchIfEmpty(Mono.defer(() -> rejectConditionalWrite(id, expectedVersion).thenReturn(false)));
+    }
+
+    /**
+     * Reads a product again after a conditional single-statement write matched no row, and rejects the
+     * write if the product still exists. Completes empty if the write was unconditional or the product
+     * does not exist.
+     *
+     * @param id              the product ID
+     * @param expectedVersion the version the write required, or null for an unconditional write
+     * @return an empty publisher, or one signalling PreconditionFailedException
+     */
+    private Mono<Void> rejectConditionalWrite(String id, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return getProductById(id)
+                .flatMap(current -> {
+                    ProductServiceImpl.checkVersion(current, expectedVersion);
+                    return Mono.<Void>error(ProductServiceImpl.modifiedConcurrently(id));
+                });
+    }
+
+    /**
+     * Publishes the change event for a stock update applied in the database.
+     *
+     * @param after    the product as updated
+     * @param quantity the number of units taken out of stock (negative if units were put back)
+     * @return the updated product
+     */
+    private Product publishStockChange(Product after, int quantity) {
+        Product before = ProductChangedEvent.snapshot(after);
+        before.setStockQuantity(after.getStockQuantity() + quantity);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(before, after));
+        return after;
+    }
+
+    /**
+     * Runs the follow-up of a committed write, such as publishing its change event or dropping the product
+     * from the stock ledger, on the bounded elastic scheduler, since both may block.
+     *
+     * @param followUp the follow-up, returning the result of the write
+     * @return a publisher of the result
+     */
+    private static <T> Mono<T> afterWrite(Callable<T> followUp) {
+        return Mono.fromCallable(followUp).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Maps a {@code product} row.
+     *
+     * @param row the row
+     * @return the product
+     */
+    private static Product toProduct(Readable row) {
+        Product product = new Product(
+                row.get("name", String.class),
+                row.get("description", String.class),
+                row.get("price", Number.class).floatValue(),
+                row.get("category", String.class),
+                row.get("stock_quantity", Integer.class));
+        product.setId(row.get("id", String.class));
+        product.setVersion(row.get("version", Long.class));
+        return product;
+    }
+}
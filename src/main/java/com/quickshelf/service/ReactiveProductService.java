@@ -0,0 +1,170 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link ProductService}, used by the reactive web stack.
+ * Every operation has the same semantics and errors as its {@link ProductService} namesake, but returns
+ * a publisher that completes when the database answers instead of blocking the calling thread; errors
+ * are signalled through the publisher rather than thrown.
+ */
+public interface ReactiveProductService {
+
+    /**
+     * Create a new product in the system.
+     *
+     * @param product The product to create
+     * @return The created product with generated ID
+     */
+    Mono<Product> createProduct(Product product);
+
+    /**
+     * Create many products at once, in chunks of one transaction each.
+     *
+     * @param products The products to create
+     * @return One result per product, in the same order as the input
+     * @see ProductService#createProducts(List)
+     */
+    Mono<List<ProductBatchResult>> createProducts(List<Product> products);
+
+    /**
+     * Get one page of products matching a filter, using keyset pagination.
+     *
+     * @param filter The criteria products must match
+     * @param afterId The last product ID of the previous page, or null for the first page
+     * @param limit The maximum number of products to return
+     * @return At most {@code limit} matching products ordered by ID
+     * @see ProductService#getProductsPage(ProductFilter, String, int)
+     */
+    Flux<Product> getProductsPage(ProductFilter filter, String afterId, int limit);
+
+    /**
+     * Stream every product in ID order. Rows are read as the subscriber requests them, so a slow
+     * client slows the read down instead of making the catalog pile up in memory.
+     *
+     * @return All products ordered by ID
+     */
+    Flux<Product> exportProducts();
+
+    /**
+     * Search products by name and description.
+     *
+     * @param query The free-text query
+     * @param limit The maximum number of results to return
+     * @return Results ordered by descending relevance
+     * @see ProductService#searchProducts(String, int)
+     */
+    Mono<List<ProductSearchResult>> searchProducts(String query, int limit);
+
+    /**
+     * Suggest products whose name, or a word of it, starts with a prefix.
+     *
+     * @param prefix The typed prefix
+     * @param limit The maximum number of suggestions to return
+     * @return Suggestions ordered by descending stock quantity
+     * @see ProductService#suggestProducts(String, int)
+     */
+    Mono<List<ProductSuggestion>> suggestProducts(String prefix, int limit);
+
+    /**
+     * Get a product by its ID.
+     *
+     * @param id The ID of the product to retrieve
+     * @return The product, or empty if not found
+     */
+    Mono<Product> getProductById(String id);
+
+    /**
+     * Get many products by ID at once.
+     *
+     * @param ids The IDs of the products to retrieve; duplicates are allowed
+     * @return The products found, keyed by ID; IDs without a product are absent
+     */
+    Mono<Map<String, Product>> getProductsByIds(Collection<String> ids);
+
+    /**
+     * Update an existing product.
+     *
+     * @param id The ID of the product to update
+     * @param productDetails The updated product details
+     * @return The updated product; signals ResourceNotFoundException if the product is not found
+     */
+    Mono<Product> updateProduct(String id, Product productDetails);
+
+    /**
+     * Update an existing product only if it still has the expected version.
+     *
+     * @param id The ID of the product to update
+     * @param productDetails The updated product details
+     * @param expectedVersion The version the product must have
+     * @return The updated product; signals ResourceNotFoundException if the product is not found, or
+     *         PreconditionFailedException if it has another version
+     */
+    Mono<Product> updateProduct(String id, Product productDetails, long expectedVersion);
+
+    /**
+     * Change only the fields set in a patch.
+     *
+     * @param id The ID of the product to change
+     * @param patch The fields to change
+     * @return The updated product; signals ResourceNotFoundException if the product is not found
+     */
+    Mono<Product> patchProduct(String id, ProductPatch patch);
+
+    /**
+     * Change only the fields set in a patch, if the product still has the expected version.
+     *
+     * @param id The ID of the product to change
+     * @param patch The fields to change
+     * @param expectedVersion The version the product must have
+     * @return The updated product; signals ResourceNotFoundException if the product is not found, or
+     *         PreconditionFailedException if it has another version
+     */
+    Mono<Product> patchProduct(String id, ProductPatch patch, long expectedVersion);
+
+    /**
+     * Atomically take units of a product out of stock.
+     *
+     * @param id The ID of the product
+     * @param quantity The number of units to reserve, positive
+     * @return The product with its updated stock; signals ResourceNotFoundException if the product is
+     *         not found, or InsufficientStockException if fewer units are in stock
+     */
+    Mono<Product> reserveStock(String id, int quantity);
+
+    /**
+     * Atomically put units of a product back into stock.
+     *
+     * @param id The ID of the product
+     * @param quantity The number of units to release, positive
+     * @return The product with its updated stock; signals ResourceNotFoundException if the product is
+     *         not found, or InsufficientStockException if the stock would exceed its maximum
+     */
+    Mono<Product> releaseStock(String id, int quantity);
+
+    /**
+     * Delete a product.
+     *
+     * @param id The ID of the product to delete
+     * @return true if the product was deleted, false if it was not found
+     */
+    Mono<Boolean> deleteProduct(String id);
+
+    /**
+     * Delete a product only if it still has the expected version.
+     *
+     * @param id The ID of the product to delete
+     * @param expectedVersion The version the product must have
+     * @return true if the product was deleted, false if it was not found; signals
+     *         PreconditionFailedException if it has another version
+     */
+    Mono<Boolean> deleteProduct(String id, long expectedVersion);
+}
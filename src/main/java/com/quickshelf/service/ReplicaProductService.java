@@ -0,0 +1,203 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Serves single-product reads, multi-gets and the filtered listing from the {@link OffHeapProductReplica}
+ * instead of the storage. Every other call, and every read until the replica has been built, goes to the
+ * product service of the active storage engine, whose writes keep the replica current.
+ *
+ * <p>Enabled with {@code quickshelf.replica.enabled=true}. The replica then takes the place of the product
+ * cache and this bean is the primary {@link ProductService}.</p>
+ *
+ * <p>Calls are timed as {@code quickshelf.service} like those of the delegate; the {@code class} tag
+ * tells replica reads apart from calls that reach the storage.</p>
+ */
+@Service
+@Primary
+@Timed(value = "quickshelf.service", histogram = true)
+@ConditionalOnProperty(name = "quickshelf.replica.enabled", havingValue = "true")
+public class ReplicaProductService implements ProductService {
+
+    private final ProductService delegate;
+    private final OffHeapProductReplica replica;
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param delegate the service that reads from and writes to the storage
+     * @param replica  the off-heap copy of the catalog
+     */
+    @Autowired
+    public ReplicaProductService(ProductService delegate, OffHeapProductReplica replica) {
+        this.delegate = delegate;
+        this.replica = replica;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage; the replica picks the product up once the write commits.
+     */
+    @Override
+    public Product createProduct(Product product) {
+        return delegate.createProduct(product);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public List<ProductBatchResult> createProducts(List<Product> products) {
+        return delegate.createProducts(products);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public List<Product> getAllProducts() {
+        return delegate.getAllProducts();
+    }
+
+    /**
+     * {@inheritDoc}
+     * Served from the replica, which tests the filter without decoding the products it skips.
+     */
+    @Override
+    public List<Product> getProductsPage(ProductFilter filter, String afterId, int limit) {
+        return replica.isReady() ? replica.page(filter, afterId, limit)
+                : delegate.getProductsPage(filter, afterId, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public void exportProducts(Consumer<Product> consumer) {
+        delegate.exportProducts(consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public List<ProductSearchResult> searchProducts(String query, int limit) {
+        return delegate.searchProducts(query, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        return delegate.suggestProducts(prefix, limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Served from the replica.
+     */
+    @Override
+    public Optional<Product> getProductById(String id) {
+        return replica.isReady() ? replica.get(id) : delegate.getProductById(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Served from the replica.
+     */
+    @Override
+    public Map<String, Product> getProductsByIds(Collection<String> ids) {
+        return replica.isReady() ? replica.getAll(ids) : delegate.getProductsByIds(ids);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public Product updateProduct(String id, Product productDetails) {
+        return delegate.updateProduct(id, productDetails);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public Product updateProduct(String id, Product productDetails, long expectedVersion) {
+        return delegate.updateProduct(id, productDetails, expectedVersion);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public Product patchProduct(String id, ProductPatch patch) {
+        return delegate.patchProduct(id, patch);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public Product patchProduct(String id, ProductPatch patch, long expectedVersion) {
+        return delegate.patchProduct(id, patch, expectedVersion);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public Product reserveStock(String id, int quantity) {
+        return delegate.reserveStock(id, quantity);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public Product releaseStock(String id, int quantity) {
+        return delegate.releaseStock(id, quantity);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public boolean deleteProduct(String id) {
+        return delegate.deleteProduct(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Delegates to the storage.
+     */
+    @Override
+    public boolean deleteProduct(String id, long expectedVersion) {
+        return delegate.deleteProduct(id, expectedVersion);
+    }
+}
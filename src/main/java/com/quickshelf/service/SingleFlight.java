@@ -0,0 +1,86 @@
+package com.quickshelf.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Deduplicates concurrent loads of the same key.
+ * The first caller for a key runs the loader; callers arriving while it is in flight wait for and
+ * share its result (or its exception) instead of running the loader themselves. Nothing is retained
+ * once the load completes, so this is not a cache: the next call after completion loads again.
+ *
+ * <p>The loaded value is not handed out to more than one caller. The caller that ran the loader gets
+ * the value itself, and every caller that joined gets its own copy, so a caller that modifies what it
+ * received (or a persistence context that still manages it) cannot affect the others.</p>
+ *
+ * <p>A flight only serves callers for as long as its result can be current. {@link #forget(Object)}
+ * detaches the in-flight load of a key once the key has been written, so callers arriving after the
+ * write start a new load rather than sharing one that may have read the value from before it.</p>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copier;
+
+    /**
+     * @param copier creates an independent copy of a loaded value for each caller that joins a flight
+     */
+    SingleFlight(UnaryOperator<V> copier) {
+        this.copier = copier;
+    }
+
+    /**
+     * Returns the value for the key, joining an in-flight load of the same key if there is one.
+     *
+     * @param key    the key to load
+     * @param loader the function loading the value, run at most once per flight
+     * @return the loaded value, or a copy of it if another caller loaded it
+     */
+    V load(K key, Function<? super K, ? extends V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return copier.apply(join(existing));
+        }
+        try {
+            V value = loader.apply(key);
+            flight.complete(copier.apply(value));
+            return value;
+        } catch (RuntimeException | Error ex) {
+            flight.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Stops callers from joining the load of the key that is currently in flight, if any. Call this
+     * after a write to the key has become visible; callers already waiting still get that load's result.
+     *
+     * @param key the key that was written
+     */
+    void forget(K key) {
+        inFlight.remove(key);
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
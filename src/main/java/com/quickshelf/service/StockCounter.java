@@ -0,0 +1,172 @@
+package com.quickshelf.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Non-negative stock count that many threads can take from without a lock.
+ *
+ * <p>The count starts in a single base cell. The first time two threads collide on it, it is
+ * striped: the units are spread over {@link #STRIPES} cells, each on its own cache line, and every
+ * thread takes from the cell its thread ID hashes to with a compare-and-set. Only when a thread's
+ * cell cannot cover its request does it fall back to a locked slow path, which drains every cell,
+ * decides against the exact total and spreads the remainder evenly again. Increases always take the
+ * slow path, so a thread on the slow path sees every unit that is left and a request is only rejected
+ * when the total stock really cannot cover it.</p>
+ *
+ * <p>Products that are never contended keep the single cell, so cold products cost one
+ * {@link AtomicInteger}.</p>
+ */
+final class StockCounter {
+
+    /**
+     * Number of cells of a striped counter, a power of two at least as large as the number of cores.
+     */
+    static final int STRIPES = Math.min(64,
+            Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+
+    /**
+     * Spacing between cells, in ints: one 64-byte cache line, so cells do not share a line.
+     */
+    private static final int PAD = 16;
+
+    private final AtomicInteger base;
+    private volatile AtomicIntegerArray cells;
+
+    /**
+     * Creates a counter.
+     *
+     * @param initial the initial stock, not negative
+     */
+    StockCounter(int initial) {
+        this.base = new AtomicInteger(initial);
+    }
+
+    /**
+     * Takes units if at least that many are left.
+     *
+     * @param quantity the number of units to take, positive
+     * @return true if the units were taken, false if fewer were left
+     */
+    boolean take(int quantity) {
+        AtomicIntegerArray striped = cells;
+        if (striped == null) {
+            int current = base.get();
+            if (current >= quantity && base.compareAndSet(current, current - quantity)) {
+                return true;
+            }
+            if (current < quantity) {
+                return takeSlow(quantity);
+            }
+            striped = stripe();
+        }
+        int cell = cellIndex();
+        for (;;) {
+            int current = striped.get(cell);
+            if (current < quantity) {
+                return takeSlow(quantity);
+            }
+            if (striped.compareAndSet(cell, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Puts units back unless the total would exceed {@link Integer#MAX_VALUE}.
+     *
+     * @param quantity the number of units to add, positive
+     * @return true if the units were added, false if the total would overflow
+     */
+    synchronized boolean put(int quantity) {
+        long total = drain();
+        if (total + quantity > Integer.MAX_VALUE) {
+            spread(total);
+            return false;
+        }
+        spread(total + quantity);
+        return true;
+    }
+
+    /**
+     * Returns the stock left. Under concurrent updates this is a snapshot that may already be outdated.
+     *
+     * @return the number of units left
+     */
+    int available() {
+        long total = base.get();
+        AtomicIntegerArray striped = cells;
+        if (striped != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                total += striped.get(i * PAD);
+            }
+        }
+        return (int) total;
+    }
+
+    /**
+     * @return true once the counter has been striped after contention
+     */
+    boolean isStriped() {
+        return cells != null;
+    }
+
+    private synchronized boolean takeSlow(int quantity) {
+        long total = drain();
+        if (total < quantity) {
+            spread(total);
+            return false;
+        }
+        spread(total - quantity);
+        return true;
+    }
+
+    /**
+     * Switches to striped cells, moving the units from the base cell into them. Called on the first
+     * collision; a no-op once striped.
+     *
+     * @return the cells
+     */
+    synchronized AtomicIntegerArray stripe() {
+        if (cells == null) {
+            AtomicIntegerArray striped = new AtomicIntegerArray(STRIPES * PAD);
+            long total = base.getAndSet(0);
+            cells = striped;
+            spread(total);
+        }
+        return cells;
+    }
+
+    /**
+     * Empties every cell and returns the units they held. Cells can only decrease outside the lock,
+     * so no unit added before the drain is missed.
+     */
+    private long drain() {
+        long total = base.getAndSet(0);
+        AtomicIntegerArray striped = cells;
+        if (striped != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                total += striped.getAndSet(i * PAD, 0);
+            }
+        }
+        return total;
+    }
+
+    private void spread(long total) {
+        AtomicIntegerArray striped = cells;
+        if (striped == null) {
+            base.addAndGet((int) total);
+            return;
+        }
+        int share = (int) (total / STRIPES);
+        int remainder = (int) (total % STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            striped.addAndGet(i * PAD, share + (i < remainder ? 1 : 0));
+        }
+    }
+
+    private static int cellIndex() {
+        long hash = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return ((int) (hash >>> 32) & (STRIPES - 1)) * PAD;
+    }
+}
@@ -0,0 +1,410 @@
+package com.quickshelf.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of stock changes made by the {@link StockLedger}.
+ *
+ * <p>Each change is a record holding a sequence number, a product ID and a signed quantity, followed
+ * by a CRC32C checksum so a record torn by a crash is recognized and ignored. {@link #append} only
+ * encodes a record into a memory buffer; {@link #sync} writes the buffer to the current segment and
+ * forces it to disk. Threads that call {@code sync} while another thread is forcing wait for it and
+ * then usually find their record already durable, so a single force covers every change appended in
+ * the meantime (group commit). After a failed write the journal stops accepting syncs, since the
+ * records of the failed batch can no longer be acknowledged.</p>
+ *
+ * <p>The journal is a directory of segment files named after the sequence number of their first
+ * record. A segment is closed once it exceeds a size limit ({@link #SEGMENT_SIZE} bytes by default),
+ * and {@link #truncate} deletes closed segments whose records are all covered by a checkpoint. Every
+ * segment starts with the journal's ID, so a checkpoint can only be matched with the journal it was
+ * taken from.</p>
+ *
+ * <p>This class is thread-safe.</p>
+ */
+final class StockJournal implements Closeable {
+
+    /**
+     * Default size after which the current segment is closed and a new one started.
+     */
+    static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    private static final int MAGIC = 0x51534A31;
+    private static final int HEADER_SIZE = Integer.BYTES + 2 * Long.BYTES;
+    private static final String PREFIX = "stock-";
+    private static final String SUFFIX = ".journal";
+
+    /**
+     * A journaled stock change.
+     *
+     * @param sequence  the sequence number, increasing by one per record
+     * @param productId the ID of the product
+     * @param delta     the change in stock: negative for a reservation, positive for a release
+     */
+    record Entry(long sequence, String productId, int delta) {
+    }
+
+    private final Path directory;
+    private final boolean force;
+    private final long maxSegmentSize;
+    // A lock rather than a monitor: it is held while the segment is forced, and blocking inside a
+    // monitor would pin a virtual thread to its carrier thread
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    private UUID id;
+    private long lastSequence;
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer spare = ByteBuffer.allocate(64 * 1024);
+
+    // Guarded by syncLock
+    private FileChannel segment;
+    private long segmentSize;
+    private IOException failure;
+    private volatile long durableSequence;
+
+    /**
+     * Creates a journal over a directory. Nothing is read or written until {@link #read()} or
+     * {@link #start(UUID, long)} is called.
+     *
+     * @param directory the directory holding the segment files, created if missing
+     * @param force     whether {@link #sync} forces written records to the storage device; without it,
+     *                  records survive a crash of the process but not of the machine
+     */
+    StockJournal(Path directory, boolean force) {
+        this(directory, force, SEGMENT_SIZE);
+    }
+
+    /**
+     * Creates a journal with a custom segment size.
+     *
+     * @param directory      the directory holding the segment files, created if missing
+     * @param force          whether {@link #sync} forces written records to the storage device
+     * @param maxSegmentSize the size after which a segment is closed and a new one started
+     */
+    StockJournal(Path directory, boolean force, long maxSegmentSize) {
+        this.directory = directory;
+        this.force = force;
+        this.maxSegmentSize = maxSegmentSize;
+    }
+
+    /**
+     * Returns the ID of the journal found in the directory, without reading its records.
+     *
+     * @return the ID, or null if the directory holds no segment
+     * @throws UncheckedIOException if the first segment cannot be read
+     */
+    UUID readId() {
+        List<Path> segments = segments();
+        if (segments.isEmpty()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(segments.get(0), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is complete or the file ends
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                return null;
+            }
+            return new UUID(header.getLong(), header.getLong());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads every intact record of the journal found in the directory, in sequence order. Reading stops
+     * at the first record that is incomplete or fails its checksum, which is where a crash interrupted
+     * the last write.
+     *
+     * @return the records
+     * @throws UncheckedIOException if a segment cannot be read
+     */
+    List<Entry> read() {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            for (Path path : segments()) {
+                ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+                if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC) {
+                    break;
+                }
+                data.position(HEADER_SIZE);
+                if (!readRecords(data, entries)) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return entries;
+    }
+
+    /**
+     * Deletes every segment in the directory and starts an empty journal.
+     *
+     * @param journalId    the ID written to the segments of the new journal
+     * @param lastSequence the sequence number the new journal continues after
+     * @throws UncheckedIOException if the directory cannot be cleared or the first segment created
+     */
+    void start(UUID journalId, long lastSequence) {
+        syncLock.lock();
+        try {
+            try {
+                Files.createDirectories(directory);
+                for (Path path : segments()) {
+                    Files.delete(path);
+                }
+                synchronized (this) {
+                    this.id = journalId;
+                    this.lastSequence = lastSequence;
+                }
+                durableSequence = lastSequence;
+                openSegment(lastSequence + 1);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * @return the ID of the started journal
+     */
+    synchronized UUID getId() {
+        return id;
+    }
+
+    /**
+     * Appends a record to the memory buffer. It is not durable until {@link #sync} has been called
+     * with its sequence number.
+     *
+     * @param productId the ID of the product
+     * @param delta     the change in stock
+     * @return the sequence number of the record
+     */
+    synchronized long append(String productId, int delta) {
+        byte[] idBytes = productId.getBytes(StandardCharsets.UTF_8);
+        int bodySize = Long.BYTES + Integer.BYTES + Short.BYTES + idBytes.length;
+        int recordSize = Integer.BYTES + bodySize + Integer.BYTES;
+        if (buffer.remaining() < recordSize) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + recordSize));
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+        long sequence = ++lastSequence;
+        int start = buffer.position();
+        buffer.putInt(bodySize)
+                .putLong(sequence)
+                .putInt(delta)
+                .putShort((short) idBytes.length)
+                .put(idBytes);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), start + Integer.BYTES, bodySize);
+        buffer.putInt((int) crc.getValue());
+        return sequence;
+    }
+
+    /**
+     * @return the sequence number of the last appended record
+     */
+    synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Makes every record up to the given sequence number durable, writing and forcing the buffer unless
+     * a concurrent call already did.
+     *
+     * @param sequence the sequence number that must be durable when this method returns
+     * @throws UncheckedIOException if the records cannot be written
+     */
+    void sync(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("The stock journal failed earlier and accepts no more records", failure);
+            }
+            ByteBuffer pending;
+            long upTo;
+            synchronized (this) {
+                pending = buffer;
+                buffer = spare;
+                spare = pending;
+                upTo = lastSequence;
+            }
+            try {
+                pending.flip();
+                segmentSize += pending.remaining();
+                while (pending.hasRemaining()) {
+                    segment.write(pending);
+                }
+                if (force) {
+                    segment.force(false);
+                }
+                durableSequence = upTo;
+                if (segmentSize >= maxSegmentSize) {
+                    segment.close();
+                    openSegment(upTo + 1);
+                }
+            } catch (IOException ex) {
+                // Records of this batch may or may not have reached the disk; none may be acknowledged
+                failure = ex;
+                throw new UncheckedIOException(ex);
+            } finally {
+                pending.clear();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes the closed segments whose records all have a sequence number up to the given checkpoint.
+     *
+     * @param checkpoint the sequence number up to which records have been persisted elsewhere
+     * @throws UncheckedIOException if a segment cannot be deleted
+     */
+    void truncate(long checkpoint) {
+        syncLock.lock();
+        try {
+            List<Path> segments = segments();
+            try {
+                // A segment's records all precede the first record of the next segment
+                for (int i = 0; i + 1 < segments.size() && firstSequence(segments.get(i + 1)) <= checkpoint + 1; i++) {
+                    Files.delete(segments.get(i));
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of segment files in the directory
+     */
+    int segmentCount() {
+        return segments().size();
+    }
+
+    /**
+     * Writes any buffered records and closes the current segment.
+     *
+     * @throws IOException if the records cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        try {
+            if (segment != null) {
+                try {
+                    sync(getLastSequence());
+                } catch (UncheckedIOException ex) {
+                    throw ex.getCause();
+                } finally {
+                    segment.close();
+                    segment = null;
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        UUID journalId = getId();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putLong(journalId.getMostSignificantBits())
+                .putLong(journalId.getLeastSignificantBits())
+                .flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        if (force) {
+            segment.force(true);
+        }
+        segmentSize = HEADER_SIZE;
+    }
+
+    /**
+     * Decodes records until the end of the segment or the first damaged record.
+     *
+     * @return true if the whole segment was intact
+     */
+    private static boolean readRecords(ByteBuffer data, List<Entry> entries) {
+        CRC32C crc = new CRC32C();
+        while (data.hasRemaining()) {
+            try {
+                int bodySize = data.getInt();
+                if (bodySize < Long.BYTES + Integer.BYTES + Short.BYTES || bodySize > data.remaining() - Integer.BYTES) {
+                    return false;
+                }
+                int bodyStart = data.position();
+                crc.reset();
+                crc.update(data.array(), bodyStart, bodySize);
+                data.position(bodyStart + bodySize);
+                if (data.getInt() != (int) crc.getValue()) {
+                    return false;
+                }
+                data.position(bodyStart);
+                long sequence = data.getLong();
+                int delta = data.getInt();
+                byte[] idBytes = new byte[data.getShort()];
+                data.get(idBytes);
+                data.position(bodyStart + bodySize + Integer.BYTES);
+                entries.add(new Entry(sequence, new String(idBytes, StandardCharsets.UTF_8), delta));
+            } catch (BufferUnderflowException ex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Path> segments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,413 @@
+package com.quickshelf.service;
+
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.exception.ResourceNotFoundException;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Holds the stock of reserved products in memory and writes it back to the database in batches.
+ *
+ * <p>The first reservation or release of a product loads its stock into a {@link StockCounter}; from
+ * then on reservations are decided in memory, without touching the product's row. Every accepted change
+ * is appended to a {@link StockJournal} and made durable with a group commit before it is acknowledged,
+ * so a crash loses no acknowledged reservation. A scheduled flush adds up the changes of each product
+ * since the previous flush and applies them as one batch of relative updates, together with the
+ * journal sequence number they cover (the checkpoint), in a single transaction. On startup, journal
+ * records after the checkpoint are replayed into the database before a new journal is started.</p>
+ *
+ * <p>Because the flush applies differences rather than absolute values, writes that bypass the
+ * ledger compose with it: an update or delete of the product makes the ledger {@link #forget} it, and
+ * reservations it accepted before are still deducted from whatever stock the update set. Reads of the
+ * database lag behind the ledger by at most one flush interval.</p>
+ *
+ * <p>A change whose journal record cannot be made durable is rejected and taken back from the account and
+ * from the changes awaiting the next flush. A release only reaches the account once it is durable, so no
+ * reservation can be acknowledged on units of a release that is then rejected. The failed record may
+ * still have reached the disk; it is only ignored on recovery once a later flush has moved the checkpoint
+ * past it.</p>
+ *
+ * <p>Enabled with {@code quickshelf.stock.ledger.enabled=true}; the product service then routes
+ * reservations and releases here instead of to the database.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "quickshelf.stock.ledger.enabled", havingValue = "true")
+public class StockLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    private static final String ADJUST_STOCK_SQL = "UPDATE product "
+            + "SET stock_quantity = LEAST(GREATEST(CAST(stock_quantity AS BIGINT) + ?, 0), 2147483647), "
+            + "version = version + 1 WHERE id = ?";
+
+    /**
+     * A product whose stock is held by the ledger.
+     */
+    private static final class Account {
+
+        private final Product product;
+        private final StockCounter stock;
+        // Written under appendLock, so an append that saw it false happens before the account is dropped
+        private volatile boolean retired;
+
+        private Account(Product product, int stock) {
+            this.product = product;
+            this.stock = new StockCounter(stock);
+        }
+    }
+
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockJournal journal;
+    private final ConcurrentHashMap<String, Account> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * Serializes flushes with loading and dropping accounts, so an account is never loaded from a
+     * database row that a flush is about to change.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Makes appending a journal record and recording its change for the next flush one atomic step.
+     */
+    private final Object appendLock = new Object();
+
+    // Guarded by appendLock: the net change per product since the last flush
+    private Map<String, long[]> pending = new HashMap<>();
+
+    /**
+     * Constructor for dependency injection.
+     *
+     * @param productRepository  the repository products are loaded from
+     * @param jdbcTemplate       the template the batched stock updates and checkpoints are written with
+     * @param transactionManager the transaction manager, used to write a flush and its checkpoint atomically
+     * @param eventPublisher     the publisher of {@link ProductChangedEvent}s for flushed products
+     * @param journalDirectory   the directory of the journal
+     * @param fsync              whether journal writes are forced to the storage device before acknowledging
+     */
+    @Autowired
+    public StockLedger(ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                       @Value("${quickshelf.stock.ledger.journal-dir:data/stock-journal}") Path journalDirectory,
+                       @Value("${quickshelf.stock.ledger.fsync:true}") boolean fsync) {
+        this(productRepository, jdbcTemplate, transactionManager, eventPublisher, new StockJournal(journalDirectory, fsync));
+    }
+
+    /**
+     * Creates a ledger over a given journal.
+     *
+     * @param productRepository  the repository products are loaded from
+     * @param jdbcTemplate       the template the batched stock updates and checkpoints are written with
+     * @param transactionManager the transaction manager, used to write a flush and its checkpoint atomically
+     * @param eventPublisher     the publisher of {@link ProductChangedEvent}s for flushed products
+     * @param journal            the journal accepted changes are appended to
+     */
+    StockLedger(ProductRepository productRepository, JdbcTemplate jdbcTemplate,
+                PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                StockJournal journal) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.journal = journal;
+    }
+
+    /**
+     * Replays the journal left by the previous run into the database, then starts a new journal.
+     * Records are only replayed if the database holds a checkpoint for that journal; otherwise the
+     * journal belongs to another database (for example a previous in-memory one) and is discarded.
+     */
+    @PostConstruct
+    public void recover() {
+        UUID previous = journal.readId();
+        UUID id = UUID.randomUUID();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (previous != null) {
+                replay(previous);
+            }
+            jdbcTemplate.update("DELETE FROM stock_ledger_checkpoint");
+            jdbcTemplate.update("INSERT INTO stock_ledger_checkpoint (journal_id, sequence) VALUES (?, 0)", id.toString());
+        });
+        journal.start(id, 0);
+    }
+
+    /**
+     * Takes units out of a product's stock.
+     *
+     * @param id       the ID of the product
+     * @param quantity the number of units to reserve, positive
+     * @return a snapshot of the product with its stock after the reservation
+     * @throws ResourceNotFoundException   if the product does not exist
+     * @throws InsufficientStockException  if fewer units are in stock
+     * @throws UncheckedIOException        if the reservation could not be journaled; the units are put back
+     */
+    public Product reserve(String id, int quantity) {
+        for (;;) {
+            Account account = account(id);
+            if (!account.stock.take(quantity)) {
+                if (account.retired) {
+                    continue;
+                }
+                throw new InsufficientStockException(String.format(
+                        "Insufficient stock for product '%s': requested %d, available %d",
+                        id, quantity, account.stock.available()));
+            }
+            boolean journaled;
+            try {
+                journaled = journal(id, account, -quantity);
+            } catch (UncheckedIOException ex) {
+                account.stock.put(quantity);
+                throw ex;
+            }
+            if (journaled) {
+                return snapshot(account);
+            }
+        }
+    }
+
+    /**
+     * Puts units back into a product's stock. The units become available once the release is durable.
+     *
+     * @param id       the ID of the product
+     * @param quantity the number of units to release, positive
+     * @return a snapshot of the product with its stock after the release
+     * @throws ResourceNotFoundException   if the product does not exist
+     * @throws InsufficientStockException  if the stock would exceed the maximum
+     * @throws UncheckedIOException        if the release could not be journaled; the stock is left unchanged
+     */
+    public Product release(String id, int quantity) {
+        for (;;) {
+            Account account = account(id);
+            if (!journal(id, account, quantity)) {
+                continue;
+            }
+            // Journal the reversal of a rejected release, so it is neither flushed nor replayed; if the account
+            // was dropped in the meantime, the next one already counts the release and it stands
+            if (!account.stock.put(quantity) && journal(id, account, -quantity)) {
+                throw new InsufficientStockException(String.format(
+                        "Releasing %d units would exceed the maximum stock of product '%s'", quantity, id));
+            }
+            return snapshot(account);
+        }
+    }
+
+    /**
+     * Drops the product's account after a write that bypassed the ledger has been committed, so its next
+     * reservation loads the new stock. Changes accepted before are still flushed.
+     *
+     * @param id the ID of the product
+     */
+    public void forget(String id) {
+        flushLock.lock();
+        try {
+            Account account = accounts.remove(id);
+            if (account != null) {
+                synchronized (appendLock) {
+                    account.retired = true;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Writes the changes accepted since the previous flush to the database, one relative update per
+     * product, and advances the checkpoint in the same transaction. Journal segments covered by the
+     * checkpoint are deleted afterwards. If the transaction fails, the changes are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${quickshelf.stock.ledger.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<String, long[]> batch;
+            long checkpoint;
+            synchronized (appendLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+                checkpoint = journal.getLastSequence();
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    adjustStock(batch);
+                    int updated = jdbcTemplate.update("UPDATE stock_ledger_checkpoint SET sequence = ? WHERE journal_id = ?",
+                            checkpoint, journal.getId().toString());
+                    if (updated != 1) {
+                        throw new IllegalStateException("The checkpoint of stock journal " + journal.getId()
+                                + " is missing; another ledger has taken over this database");
+                    }
+                });
+            } catch (RuntimeException ex) {
+                synchronized (appendLock) {
+                    batch.forEach((id, delta) -> pending.computeIfAbsent(id, key -> new long[1])[0] += delta[0]);
+                }
+                log.warn("Stock flush up to journal sequence {} failed; retrying on the next flush", checkpoint, ex);
+                return;
+            }
+            journal.truncate(checkpoint);
+            publishChanges(batch);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Flushes the remaining changes and closes the journal.
+     *
+     * @throws IOException if the journal cannot be closed
+     */
+    @PreDestroy
+    void close() throws IOException {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * @return the number of products whose stock is held by the ledger
+     */
+    public int size() {
+        return accounts.size();
+    }
+
+    private Account account(String id) {
+        Account account = accounts.get(id);
+        if (account != null) {
+            return account;
+        }
+        flushLock.lock();
+        try {
+            account = accounts.get(id);
+            if (account == null) {
+                Product product = productRepository.findById(id)
+                        .orElseThrow(() -> new ResourceNotFoundException("Product", "id", id));
+                long stock = product.getStockQuantity();
+                synchronized (appendLock) {
+                    long[] delta = pending.get(id);
+                    if (delta != null) {
+                        stock += delta[0];
+                    }
+                }
+                account = new Account(ProductChangedEvent.snapshot(product), clamp(stock));
+                accounts.put(id, account);
+            }
+            return account;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Journals a change of the account's stock and waits until it is durable. If it cannot be made
+     * durable, the change is taken back out of the pending flush before the failure is thrown.
+     *
+     * @return false if the account was dropped concurrently and the change must be retried on a new one
+     * @throws UncheckedIOException if the journal record could not be made durable
+     */
+    private boolean journal(String id, Account account, int delta) {
+        long sequence;
+        synchronized (appendLock) {
+            if (account.retired) {
+                return false;
+            }
+            sequence = journal.append(id, delta);
+            pending.computeIfAbsent(id, key -> new long[1])[0] += delta;
+        }
+        try {
+            journal.sync(sequence);
+        } catch (UncheckedIOException ex) {
+            boolean retired;
+            synchronized (appendLock) {
+                pending.computeIfAbsent(id, key -> new long[1])[0] -= delta;
+                retired = account.retired;
+            }
+            if (retired) {
+                // An account loaded since the append counted the change; drop it so the next one loads without it
+                forget(id);
+            }
+            throw ex;
+        }
+        return true;
+    }
+
+    private void replay(UUID previous) {
+        List<Long> checkpoint = jdbcTemplate.queryForList(
+                "SELECT sequence FROM stock_ledger_checkpoint WHERE journal_id = ?", Long.class, previous.toString());
+        if (checkpoint.isEmpty()) {
+            log.warn("Discarding stock journal {}: the database holds no checkpoint for it", previous);
+            return;
+        }
+        Map<String, long[]> changes = new HashMap<>();
+        int replayed = 0;
+        for (StockJournal.Entry entry : journal.read()) {
+            if (entry.sequence() > checkpoint.get(0)) {
+                changes.computeIfAbsent(entry.productId(), key -> new long[1])[0] += entry.delta();
+                replayed++;
+            }
+        }
+        adjustStock(changes);
+        log.info("Replayed {} stock changes of {} products from journal {}", replayed, changes.size(), previous);
+    }
+
+    private void adjustStock(Map<String, long[]> changes) {
+        List<Object[]> arguments = new ArrayList<>(changes.size());
+        changes.forEach((id, delta) -> {
+            if (delta[0] != 0) {
+                arguments.add(new Object[]{delta[0], id});
+            }
+        });
+        if (!arguments.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADJUST_STOCK_SQL, arguments);
+        }
+    }
+
+    /**
+     * Publishes an update event for every flushed product, so caches and indexes that follow the
+     * database see the new stock.
+     */
+    private void publishChanges(Map<String, long[]> batch) {
+        for (Product product : productRepository.findAllById(batch.keySet())) {
+            Product before = ProductChangedEvent.snapshot(product);
+            before.setStockQuantity(clamp(product.getStockQuantity() - batch.get(product.getId())[0]));
+            eventPublisher.publishEvent(ProductChangedEvent.updated(before, product));
+        }
+    }
+
+    private static Product snapshot(Account account) {
+        Product product = ProductChangedEvent.snapshot(account.product);
+        product.setStockQuantity(account.stock.available());
+        return product;
+    }
+
+    private static int clamp(long stock) {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, stock));
+    }
+}
@@ -0,0 +1,4 @@
+-- Drops the QuickShelf tables so schema.sql recreates them empty.
+-- Only run in the in-memory mode; the persistent profile never runs it.
+DROP TABLE IF EXISTS product;
+DROP TABLE IF EXISTS stock_ledger_checkpoint;
@@ -1,14 +1,37 @@
 -- Schema definition for QuickShelf application
-
--- Drop table if exists
-DROP TABLE IF EXISTS product;
+-- Every statement is idempotent, so a file-backed database keeps its data across
+-- restarts; the in-memory default runs schema-reset.sql first to start empty.
 
 -- Create product table
-CREATE TABLE product (
+-- The primary key index is ordered and doubles as the seek index for the
+-- keyset-paginated listing (WHERE id > ? ORDER BY id LIMIT ?)
+CREATE TABLE IF NOT EXISTS product (
     id VARCHAR(255) PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     description VARCHAR(1000),
     price FLOAT NOT NULL,
     category VARCHAR(255) NOT NULL,
-    stock_quantity INT NOT NULL
-);
\ No newline at end of file
+    stock_quantity INT NOT NULL,
+    -- Optimistic locking version, incremented by every write to the row
+    version BIGINT DEFAULT 0 NOT NULL
+);
+
+-- Indexes backing the listing filters. A filter on a category or on sold-out
+-- products pins that column to one value, and the listing then sorts on it
+-- before id, so the (column, id) indexes return the matching rows already in
+-- page order and a page stops reading once it is full; a price range within a
+-- category is checked on those rows. The price index serves a price range
+-- without a category.
+DROP INDEX IF EXISTS idx_product_category_price;
+DROP INDEX IF EXISTS idx_product_stock_quantity;
+CREATE INDEX IF NOT EXISTS idx_product_category_id ON product (category, id);
+CREATE INDEX IF NOT EXISTS idx_product_price ON product (price);
+CREATE INDEX IF NOT EXISTS idx_product_stock_quantity_id ON product (stock_quantity, id);
+
+-- Last journal sequence number whose stock change the in-memory stock ledger
+-- has written to the product table. Updated in the same transaction as the
+-- stock itself, so replaying the journal after a crash applies each change once.
+CREATE TABLE IF NOT EXISTS stock_ledger_checkpoint (
+    journal_id VARCHAR(36) PRIMARY KEY,
+    sequence BIGINT NOT NULL
+);
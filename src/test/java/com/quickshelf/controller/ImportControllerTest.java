@@ -0,0 +1,103 @@
+package com.quickshelf.controller;
+
+import com.quickshelf.service.ImportFormat;
+import com.quickshelf.service.ImportJob;
+import com.quickshelf.service.ImportService;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ImportController.class)
+class ImportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ImportService importService;
+
+    @Test
+    void whenImportCsv_thenJobIsReturnedBeforeBodyIsStreamedToService() throws Exception {
+        ImportJob job = new ImportJob(ImportFormat.CSV);
+        when(importService.createJob(ImportFormat.CSV)).thenReturn(job);
+        doAnswer(invocation -> {
+            InputStream body = invocation.getArgument(1);
+            String content = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            if (!content.startsWith("name,price")) {
+                throw new AssertionError("unexpected body: " + content);
+            }
+            return null;
+        }).when(importService).readUpload(eq(job), any(InputStream.class));
+
+        MvcResult result = mockMvc.perform(post("/imports")
+                .contentType("text/csv")
+                .content("name,price,category,stockQuantity\nProduct,1.0,Category,1\n"))
+                .andExpect(request().asyncStarted())
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", Matchers.endsWith("/imports/" + job.getId())))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id", is(job.getId())))
+                .andExpect(jsonPath("$.status", is("RUNNING")));
+
+        verify(importService).readUpload(eq(job), any(InputStream.class));
+    }
+
+    @Test
+    void whenImportNdjson_thenUseNdjsonFormat() throws Exception {
+        ImportJob job = new ImportJob(ImportFormat.NDJSON);
+        when(importService.createJob(ImportFormat.NDJSON)).thenReturn(job);
+
+        MvcResult result = mockMvc.perform(post("/imports")
+                .contentType("application/x-ndjson")
+                .content("{\"name\":\"Product\"}\n"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result));
+
+        verify(importService).createJob(ImportFormat.NDJSON);
+        verify(importService).readUpload(eq(job), any(InputStream.class));
+    }
+
+    @Test
+    void whenImportUnsupportedFormat_thenReturn415() throws Exception {
+        mockMvc.perform(post("/imports")
+                .contentType("application/xml")
+                .content("<products/>"))
+                .andExpect(status().isUnsupportedMediaType());
+
+        verifyNoInteractions(importService);
+    }
+
+    @Test
+    void whenGetImport_thenReturnProgress() throws Exception {
+        ImportJob job = new ImportJob(ImportFormat.CSV);
+        when(importService.getJob(job.getId())).thenReturn(Optional.of(job));
+        when(importService.getJob("unknown")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/imports/{jobId}", job.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsRead", is(0)))
+                .andExpect(jsonPath("$.rowsImported", is(0)));
+
+        mockMvc.perform(get("/imports/unknown"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -2,9 +2,16 @@ package com.quickshelf.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.quickshelf.dto.ProductDto;
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.exception.PreconditionFailedException;
 import com.quickshelf.exception.ResourceNotFoundException;
 import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
+import com.quickshelf.service.ProductBatchResult;
+import com.quickshelf.service.ProductSearchResult;
 import com.quickshelf.service.ProductService;
+import com.quickshelf.service.ProductSuggestion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,12 +19,20 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -42,6 +57,7 @@ class ProductControllerTest {
     void setUp() {
         product = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
         product.setId("test-id");
+        product.setVersion(3L);
 
         productDto = new ProductDto("test-id", "Test Product", "Test Description", 10.0f, "Test Category", 5);
     }
@@ -60,17 +76,285 @@ class ProductControllerTest {
         verify(productService).createProduct(any(Product.class));
     }
 
+    @Test
+    void whenCreateProductsInBatch_thenReturnPerItemResults() throws Exception {
+        Product second = new Product("Second Product", "Second Description", 20.0f, "Test Category", 3);
+        second.setId("test-id-2");
+        when(productService.createProducts(anyList())).thenReturn(Arrays.asList(
+                ProductBatchResult.created(product), ProductBatchResult.created(second)));
+
+        ProductDto secondDto = new ProductDto(null, "Second Product", "Second Description", 20.0f, "Test Category", 3);
+
+        mockMvc.perform(post("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(productDto, secondDto))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.failed", is(0)))
+                .andExpect(jsonPath("$.results[0].status", is("CREATED")))
+                .andExpect(jsonPath("$.results[1].id", is("test-id-2")));
+    }
+
+    @Test
+    void whenSomeBatchItemsFail_thenReturnMultiStatus() throws Exception {
+        when(productService.createProducts(anyList())).thenReturn(Arrays.asList(
+                ProductBatchResult.created(product), ProductBatchResult.failed("Insert failed")));
+
+        mockMvc.perform(post("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(productDto, productDto))))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.failed", is(1)))
+                .andExpect(jsonPath("$.results[1].status", is("FAILED")))
+                .andExpect(jsonPath("$.results[1].error", is("Insert failed")));
+    }
+
+    @Test
+    void whenBatchContainsInvalidProduct_thenReturn400AndInsertNothing() throws Exception {
+        ProductDto invalidProduct = new ProductDto(null, "", null, -10.0f, "Test Category", 1);
+
+        mockMvc.perform(post("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(productDto, invalidProduct))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Validation error")))
+                .andExpect(jsonPath("$.errors['[1].name']", is("Product name is required")))
+                .andExpect(jsonPath("$.errors['[1].price']", is("Price must be non-negative")));
+
+        mockMvc.perform(post("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).createProducts(anyList());
+    }
+
+    @Test
+    void whenLookupProducts_thenReturnResultsInRequestOrderWithMisses() throws Exception {
+        when(productService.getProductsByIds(List.of("missing-id", "test-id", "missing-id")))
+                .thenReturn(Map.of("test-id", product));
+
+        mockMvc.perform(post("/products/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"missing-id\", \"test-id\", \"missing-id\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found", is(1)))
+                .andExpect(jsonPath("$.missing", is(2)))
+                .andExpect(jsonPath("$.results[0].id", is("missing-id")))
+                .andExpect(jsonPath("$.results[0].status", is("NOT_FOUND")))
+                .andExpect(jsonPath("$.results[0].product").doesNotExist())
+                .andExpect(jsonPath("$.results[1].status", is("FOUND")))
+                .andExpect(jsonPath("$.results[1].product.name", is("Test Product")))
+                .andExpect(jsonPath("$.results[2].status", is("NOT_FOUND")));
+    }
+
+    @Test
+    void whenLookupIsEmptyOrHasBlankId_thenReturn400() throws Exception {
+        mockMvc.perform(post("/products/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/products/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"test-id\", \" \"]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Product IDs must not be blank")));
+
+        verify(productService, never()).getProductsByIds(anyList());
+    }
+
     @Test
     void whenGetAllProducts_thenReturnProductList() throws Exception {
-        when(productService.getAllProducts()).thenReturn(Arrays.asList(product));
+        when(productService.getProductsPage(ProductFilter.none(), null, 51)).thenReturn(Arrays.asList(product));
 
         mockMvc.perform(get("/products"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].id", is("test-id")))
-                .andExpect(jsonPath("$[0].name", is("Test Product")));
+                .andExpect(jsonPath("$[0].name", is("Test Product")))
+                .andExpect(header().doesNotExist(ProductController.NEXT_CURSOR_HEADER));
+
+        verify(productService).getProductsPage(ProductFilter.none(), null, 51);
+    }
+
+    @Test
+    void whenMoreProductsFollow_thenReturnNextCursor() throws Exception {
+        Product second = new Product("Second Product", "Second Description", 20.0f, "Test Category", 3);
+        second.setId("test-id-2");
+        when(productService.getProductsPage(ProductFilter.none(), null, 2)).thenReturn(Arrays.asList(product, second));
+
+        String next = mockMvc.perform(get("/products").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is("test-id")))
+                .andExpect(header().exists(ProductController.NEXT_CURSOR_HEADER))
+                .andExpect(header().string("Link", containsString("rel=\"next\"")))
+                .andReturn().getResponse().getHeader(ProductController.NEXT_CURSOR_HEADER);
+
+        when(productService.getProductsPage(ProductFilter.none(), "test-id", 2)).thenReturn(Arrays.asList(second));
 
-        verify(productService).getAllProducts();
+        mockMvc.perform(get("/products").param("limit", "1").param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is("test-id-2")))
+                .andExpect(header().doesNotExist(ProductController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void whenGetAllProductsWithFilter_thenPassFilterToServiceAndKeepItInNextLink() throws Exception {
+        Product second = new Product("Second Product", "Second Description", 20.0f, "Test Category", 3);
+        second.setId("test-id-2");
+        ProductFilter filter = new ProductFilter("Test Category", 5.0, 25.0, true);
+        when(productService.getProductsPage(filter, null, 2)).thenReturn(Arrays.asList(product, second));
+
+        mockMvc.perform(get("/products")
+                .param("limit", "1")
+                .param("category", "Test Category")
+                .param("minPrice", "5")
+                .param("maxPrice", "25")
+                .param("inStock", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().string("Link", allOf(
+                        containsString("category=Test%20Category"),
+                        containsString("minPrice=5.0"),
+                        containsString("inStock=true"))));
+
+        verify(productService).getProductsPage(filter, null, 2);
+    }
+
+    @Test
+    void whenGetAllProductsWithInvalidFilter_thenReturn400() throws Exception {
+        mockMvc.perform(get("/products").param("minPrice", "30").param("maxPrice", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("minPrice must not be greater than maxPrice")));
+        mockMvc.perform(get("/products").param("minPrice", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products").param("category", " "))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).getProductsPage(any(), any(), anyInt());
+    }
+
+    @Test
+    void whenSearchProducts_thenReturnRankedResults() throws Exception {
+        when(productService.searchProducts("test", 20)).thenReturn(List.of(new ProductSearchResult(product, 1.5f)));
+
+        mockMvc.perform(get("/products/search").param("q", "test"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].product.id", is("test-id")))
+                .andExpect(jsonPath("$[0].score", is(1.5)));
+    }
+
+    @Test
+    void whenSearchWithBlankQueryOrInvalidLimit_thenReturn400() throws Exception {
+        mockMvc.perform(get("/products/search").param("q", " "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/search"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/search").param("q", "test").param("limit", "101"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).searchProducts(any(), anyInt());
+    }
+
+    @Test
+    void whenSuggestProducts_thenReturnSuggestions() throws Exception {
+        when(productService.suggestProducts("tes", 10))
+                .thenReturn(List.of(new ProductSuggestion("test-id", "Test Product", 5)));
+
+        mockMvc.perform(get("/products/suggest").param("prefix", "tes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id", is("test-id")))
+                .andExpect(jsonPath("$[0].name", is("Test Product")))
+                .andExpect(jsonPath("$[0].stockQuantity", is(5)));
+
+        mockMvc.perform(get("/products/suggest").param("prefix", ""))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/suggest").param("prefix", "tes").param("limit", "51"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenReserveStock_thenReturnUpdatedProduct() throws Exception {
+        product.setStockQuantity(3);
+        when(productService.reserveStock("test-id", 2)).thenReturn(product);
+
+        mockMvc.perform(post("/products/test-id/stock/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity", is(3)));
+    }
+
+    @Test
+    void whenReserveMoreThanInStock_thenReturn409() throws Exception {
+        when(productService.reserveStock("test-id", 9))
+                .thenThrow(new InsufficientStockException("Insufficient stock for product 'test-id': requested 9, available 5"));
+
+        mockMvc.perform(post("/products/test-id/stock/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 9}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status", is(409)))
+                .andExpect(jsonPath("$.message", containsString("available 5")));
+    }
+
+    @Test
+    void whenChangeStockWithInvalidQuantity_thenReturn400() throws Exception {
+        mockMvc.perform(post("/products/test-id/stock/release")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 0}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/products/test-id/stock/reserve")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).reserveStock(any(), anyInt());
+        verify(productService, never()).releaseStock(any(), anyInt());
+    }
+
+    @Test
+    void whenGetAllProductsWithInvalidLimitOrCursor_thenReturn400() throws Exception {
+        mockMvc.perform(get("/products").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", is(400)));
+
+        verify(productService, never()).getProductsPage(any(), any(), anyInt());
+    }
+
+    @Test
+    void whenExportProducts_thenStreamNdjson() throws Exception {
+        Product second = new Product("Second Product", "Second Description", 20.0f, "Test Category", 3);
+        second.setId("test-id-2");
+        doAnswer(invocation -> {
+            Consumer<Product> consumer = invocation.getArgument(0);
+            consumer.accept(product);
+            consumer.accept(second);
+            return null;
+        }).when(productService).exportProducts(any());
+
+        MvcResult result = mockMvc.perform(get("/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("test-id", objectMapper.readValue(lines[0], ProductDto.class).getId());
+        assertEquals("test-id-2", objectMapper.readValue(lines[1], ProductDto.class).getId());
+        assertTrue(body.endsWith("\n"));
     }
 
     @Test
@@ -85,6 +369,44 @@ class ProductControllerTest {
         verify(productService).getProductById("test-id");
     }
 
+    @Test
+    void whenGetProductById_thenReturnEntityTagAnd304IfUnchanged() throws Exception {
+        when(productService.getProductById("test-id")).thenReturn(Optional.of(product));
+
+        mockMvc.perform(get("/products/test-id"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+
+        mockMvc.perform(get("/products/test-id").header("If-None-Match", "\"2\", W/\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/products/test-id").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is("test-id")));
+    }
+
+    @Test
+    void whenListingPageUnchanged_thenReturn304() throws Exception {
+        when(productService.getProductsPage(ProductFilter.none(), null, 51)).thenReturn(Arrays.asList(product));
+
+        String etag = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        product.setVersion(4L);
+
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
     @Test
     void whenGetProductByInvalidId_thenReturn404() throws Exception {
         when(productService.getProductById("invalid-id")).thenReturn(Optional.empty());
@@ -127,6 +449,100 @@ class ProductControllerTest {
         verify(productService).updateProduct(eq("invalid-id"), any(Product.class));
     }
 
+    @Test
+    void whenUpdateProductWithIfMatch_thenPassExpectedVersion() throws Exception {
+        Product updatedProduct = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
+        updatedProduct.setId("test-id");
+        updatedProduct.setVersion(4L);
+        when(productService.updateProduct(eq("test-id"), any(Product.class), eq(3L))).thenReturn(updatedProduct);
+
+        mockMvc.perform(put("/products/test-id")
+                .header("If-Match", "\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(productDto)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        verify(productService).updateProduct(eq("test-id"), any(Product.class), eq(3L));
+        verify(productService, never()).updateProduct(eq("test-id"), any(Product.class));
+    }
+
+    @Test
+    void whenUpdateProductWithStaleIfMatch_thenReturn412() throws Exception {
+        when(productService.updateProduct(eq("test-id"), any(Product.class), eq(2L)))
+                .thenThrow(new PreconditionFailedException("Product 'test-id' is at version 3, not 2"));
+
+        mockMvc.perform(put("/products/test-id")
+                .header("If-Match", "\"2\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(productDto)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message", is("Product 'test-id' is at version 3, not 2")));
+
+        mockMvc.perform(put("/products/test-id")
+                .header("If-Match", "W/\"3\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(productDto)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void whenPatchProduct_thenPassOnlySuppliedFields() throws Exception {
+        Product patched = new Product("Test Product", null, 12.5f, "Test Category", 5);
+        patched.setId("test-id");
+        patched.setVersion(4L);
+        ProductPatch patch = new ProductPatch().setPrice(12.5f).setDescription(null);
+        when(productService.patchProduct("test-id", patch, 3L)).thenReturn(patched);
+
+        mockMvc.perform(patch("/products/test-id")
+                .header("If-Match", "\"3\"")
+                .contentType(ProductController.MERGE_PATCH_VALUE)
+                .content("{\"id\": \"test-id\", \"price\": 12.5, \"description\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""))
+                .andExpect(jsonPath("$.price", is(12.5)))
+                .andExpect(jsonPath("$.name", is("Test Product")));
+
+        verify(productService).patchProduct("test-id", patch, 3L);
+    }
+
+    @Test
+    void whenPatchIsInvalid_thenReturn400WithoutUpdating() throws Exception {
+        mockMvc.perform(patch("/products/test-id")
+                .contentType(ProductController.MERGE_PATCH_VALUE)
+                .content("{\"id\": \"other-id\", \"name\": \"\", \"price\": -1, \"stockQuantity\": \"many\", "
+                        + "\"category\": null, \"colour\": \"red\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.id", is("Product ID cannot be changed")))
+                .andExpect(jsonPath("$.errors.name", is("Product name is required")))
+                .andExpect(jsonPath("$.errors.price", is("Price must be non-negative")))
+                .andExpect(jsonPath("$.errors.stockQuantity", is("Invalid value")))
+                .andExpect(jsonPath("$.errors.category", is("Category is required")))
+                .andExpect(jsonPath("$.errors.colour", is("Unknown field")));
+
+        mockMvc.perform(patch("/products/test-id")
+                .contentType(ProductController.MERGE_PATCH_VALUE)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).patchProduct(any(), any());
+    }
+
+    @Test
+    void whenDeleteProductWithIfMatch_thenPassExpectedVersion() throws Exception {
+        when(productService.getProductById("test-id")).thenReturn(Optional.of(product));
+        when(productService.deleteProduct("test-id", 3L)).thenReturn(true);
+
+        mockMvc.perform(delete("/products/test-id").header("If-Match", "\"1\", \"3\""))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(delete("/products/test-id").header("If-Match", "*"))
+                .andExpect(status().isNotFound());
+
+        verify(productService).deleteProduct("test-id", 3L);
+        verify(productService).deleteProduct("test-id");
+    }
+
     @Test
     void whenDeleteProduct_thenReturn204() throws Exception {
         when(productService.deleteProduct("test-id")).thenReturn(true);
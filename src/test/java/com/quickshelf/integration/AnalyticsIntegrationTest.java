@@ -0,0 +1,65 @@
+package com.quickshelf.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.model.Product;
+import com.quickshelf.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Checks {@code GET /products/stats} against the catalog it summarizes.
+ */
+@SpringBootTest(properties = {
+        "quickshelf.analytics.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:analyticsdb"
+})
+@AutoConfigureMockMvc
+class AnalyticsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void shouldAggregateTheCatalogAndFollowWrites() throws Exception {
+        List<Product> products = productService.getAllProducts();
+        long totalStock = products.stream().mapToLong(Product::getStockQuantity).sum();
+
+        mockMvc.perform(get("/products/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(products.size())))
+                .andExpect(jsonPath("$.totalStock", is((int) totalStock)))
+                .andExpect(jsonPath("$.categories[*].category",
+                        hasSize((int) products.stream().map(Product::getCategory).distinct().count())));
+
+        mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new ProductDto(null, "Stats Drill", "Cordless drill", 80.0f, "Stats Tools", 4))))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/products/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count", is(products.size() + 1)))
+                .andExpect(jsonPath("$.totalStock", is((int) totalStock + 4)))
+                .andExpect(jsonPath("$.categories[?(@.category == 'Stats Tools')].count", contains(1)))
+                .andExpect(jsonPath("$.categories[?(@.category == 'Stats Tools')].inventoryValue", contains(320.0)))
+                .andExpect(jsonPath("$.categories[?(@.category == 'Stats Tools')].averagePrice", contains(80.0)));
+    }
+}
@@ -0,0 +1,70 @@
+package com.quickshelf.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.quickshelf.dto.ProductDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Checks that {@code GET /categories/summary} follows creates, stock changes and deletes.
+ */
+@SpringBootTest(properties = {
+        "quickshelf.category-summary.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:categorysummarydb"
+})
+@AutoConfigureMockMvc
+class CategorySummaryIntegrationTest {
+
+    private static final String SUMMARY = "$[?(@.category == 'Summary Garden')]";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldFollowWritesToTheCategory() throws Exception {
+        mockMvc.perform(get("/categories/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", not(empty())))
+                .andExpect(jsonPath(SUMMARY).isEmpty());
+
+        String id = create(new ProductDto(null, "Summary Rake", "Steel rake", 15.0f, "Summary Garden", 10));
+        create(new ProductDto(null, "Summary Hose", "20 m hose", 25.0f, "Summary Garden", 2));
+        mockMvc.perform(post("/products/{id}/stock/reserve", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 4}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/categories/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath(SUMMARY + ".productCount", contains(2)))
+                .andExpect(jsonPath(SUMMARY + ".unitsInStock", contains(8)))
+                .andExpect(jsonPath(SUMMARY + ".inventoryValue", contains(140.0)));
+
+        mockMvc.perform(delete("/products/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/categories/summary"))
+                .andExpect(jsonPath(SUMMARY + ".productCount", contains(1)))
+                .andExpect(jsonPath(SUMMARY + ".inventoryValue", contains(50.0)));
+    }
+
+    private String create(ProductDto product) throws Exception {
+        String body = mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.id");
+    }
+}
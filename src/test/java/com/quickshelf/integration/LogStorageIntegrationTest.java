@@ -0,0 +1,134 @@
+package com.quickshelf.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.repository.ProductRepository;
+import com.quickshelf.service.LogStructuredProductService;
+import com.quickshelf.service.ProductLogStore;
+import com.quickshelf.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs the product endpoints against the log-structured storage engine, behind the product cache.
+ * The database keeps its sample data, which must not show through.
+ */
+@SpringBootTest(properties = {
+        "quickshelf.storage.engine=log",
+        "quickshelf.cache.enabled=true",
+        "quickshelf.storage.log.segment-size=1MB",
+        "spring.datasource.url=jdbc:h2:mem:logstoragedb"
+})
+@AutoConfigureMockMvc
+class LogStorageIntegrationTest {
+
+    @TempDir
+    static Path logDirectory;
+
+    @DynamicPropertySource
+    static void logProperties(DynamicPropertyRegistry registry) {
+        registry.add("quickshelf.storage.log.directory", logDirectory::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductLogStore store;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private List<ProductService> productServices;
+
+    @Test
+    void shouldServeProductsFromTheLog() throws Exception {
+        assertTrue(productServices.stream().anyMatch(LogStructuredProductService.class::isInstance));
+        long rows = productRepository.count();
+        String id = create(new ProductDto(null, "Log Lantern", "Camping lantern", 30.0f, "Outdoor", 5));
+
+        mockMvc.perform(get("/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Log Lantern")));
+        assertTrue(store.get(id).isPresent());
+        assertEquals(rows, productRepository.count());
+    }
+
+    @Test
+    void shouldApplyConditionalWritesAndStockChanges() throws Exception {
+        String id = create(new ProductDto(null, "Log Kettle", "Steel kettle", 25.0f, "Kitchen", 3));
+        String etag = mockMvc.perform(get("/products/{id}", id))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(put("/products/{id}", id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new ProductDto(null, "Log Kettle", "Steel kettle", 27.0f, "Kitchen", 3))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.price", is(27.0)));
+        mockMvc.perform(delete("/products/{id}", id).header("If-Match", etag))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(post("/products/{id}/stock/reserve", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 3}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity", is(0)));
+        mockMvc.perform(post("/products/{id}/stock/reserve", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 1}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(delete("/products/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/products/{id}", id))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldListSearchAndSuggestLoggedProducts() throws Exception {
+        create(new ProductDto(null, "Quokka Plush", "Soft quokka toy", 12.0f, "Log Toys", 7));
+        create(new ProductDto(null, "Quokka Poster", "Quokka print", 8.0f, "Log Toys", 0));
+
+        mockMvc.perform(get("/products").param("category", "Log Toys").param("inStock", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Quokka Plush")));
+        mockMvc.perform(get("/products/search").param("q", "quokka"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        mockMvc.perform(get("/products/suggest").param("prefix", "quokka pl"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Quokka Plush")));
+    }
+
+    private String create(ProductDto product) throws Exception {
+        String body = mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.id");
+    }
+}
@@ -0,0 +1,60 @@
+package com.quickshelf.integration;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "quickshelf.metrics.hibernate-statistics=true")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        testProduct = productRepository.save(new Product("Metrics Test Product", "Test Description", 15.0f,
+                "Test Category", 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldExposeRequestServiceAndDatabaseMetricsInPrometheusFormat() throws Exception {
+        mockMvc.perform(get("/products/{id}", testProduct.getId()))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/products/non-existent-id"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/plain"))
+                .andExpect(content().string(allOf(
+                        matchesRegex("(?s).*http_server_requests_seconds_bucket\\{[^}]*status=\"200\"[^}]*uri=\"/products/\\{id}\".*"),
+                        matchesRegex("(?s).*http_server_requests_seconds_count\\{[^}]*status=\"404\"[^}]*uri=\"/products/\\{id}\".*"),
+                        matchesRegex("(?s).*quickshelf_service_seconds_bucket\\{[^}]*method=\"getProductById\".*"),
+                        containsString("spring_data_repository_invocations_seconds_bucket{"),
+                        containsString("hikaricp_connections_acquire_seconds_bucket{"),
+                        containsString("hibernate_statements_total{"))));
+    }
+}
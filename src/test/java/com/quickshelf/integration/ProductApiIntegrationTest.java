@@ -1,6 +1,7 @@
 package com.quickshelf.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import com.quickshelf.dto.ProductDto;
 import com.quickshelf.model.Product;
 import com.quickshelf.repository.ProductRepository;
@@ -11,13 +12,28 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+@SpringBootTest(properties = "quickshelf.cache.enabled=true")
 @AutoConfigureMockMvc
 class ProductApiIntegrationTest {
 
@@ -58,12 +74,187 @@ class ProductApiIntegrationTest {
                 .andExpect(jsonPath("$.id", notNullValue()));
     }
 
+    @Test
+    void shouldCreateProductsInBatch() throws Exception {
+        List<ProductDto> batch = List.of(
+                new ProductDto(null, "Batch Product 1", "Batch Description", 1.0f, "Batch Category", 1),
+                new ProductDto(null, "Batch Product 2", "Batch Description", 2.0f, "Batch Category", 2));
+
+        String body = mockMvc.perform(post("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created", is(2)))
+                .andReturn().getResponse().getContentAsString();
+
+        String secondId = JsonPath.read(body, "$.results[1].id");
+        mockMvc.perform(get("/products/{id}", secondId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Batch Product 2")));
+    }
+
     @Test
     void shouldGetAllProducts() throws Exception {
         mockMvc.perform(get("/products"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(greaterThanOrEqualTo(1))))
-                .andExpect(jsonPath("$[0].id", is(testProduct.getId())));
+                .andExpect(jsonPath("$[*].id", hasItem(testProduct.getId())));
+    }
+
+    @Test
+    void shouldPageThroughProductsWithCursor() throws Exception {
+        productRepository.save(new Product("Second Product", "Test Description", 5.0f, "Test Category", 1));
+        productRepository.save(new Product("Third Product", "Test Description", 5.0f, "Test Category", 1));
+        long total = productRepository.count();
+
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/products").param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MockHttpServletResponse response = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(lessThanOrEqualTo(2))))
+                    .andReturn().getResponse();
+            List<String> ids = JsonPath.read(response.getContentAsString(), "$[*].id");
+            seen.addAll(ids);
+            cursor = response.getHeader("X-Next-Cursor");
+        } while (cursor != null);
+
+        assertEquals(total, seen.size());
+    }
+
+    @Test
+    void shouldFilterProductsAcrossPages() throws Exception {
+        productRepository.save(new Product("Cheap Gadget", "Test Description", 5.0f, "Filter Category", 3));
+        productRepository.save(new Product("Mid Gadget", "Test Description", 20.0f, "Filter Category", 2));
+        productRepository.save(new Product("Sold Out Gadget", "Test Description", 25.0f, "Filter Category", 0));
+        productRepository.save(new Product("Pricey Gadget", "Test Description", 90.0f, "Filter Category", 4));
+        productRepository.save(new Product("Other Gadget", "Test Description", 20.0f, "Other Category", 4));
+
+        Set<String> names = new HashSet<>();
+        String cursor = null;
+        do {
+            MockHttpServletRequestBuilder request = get("/products")
+                    .param("limit", "1")
+                    .param("category", "Filter Category")
+                    .param("minPrice", "5")
+                    .param("maxPrice", "50")
+                    .param("inStock", "true");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MockHttpServletResponse response = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            List<String> pageNames = JsonPath.read(response.getContentAsString(), "$[*].name");
+            names.addAll(pageNames);
+            cursor = response.getHeader("X-Next-Cursor");
+        } while (cursor != null);
+
+        assertEquals(Set.of("Cheap Gadget", "Mid Gadget"), names);
+    }
+
+    @Test
+    void shouldFindCreatedProductBySearch() throws Exception {
+        ProductDto newProduct = new ProductDto(null, "Espresso Grinder", "Burr grinder for espresso", 120.0f, "Kitchen", 4);
+        mockMvc.perform(post("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newProduct)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/products/search").param("q", "espresso"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].product.name", is("Espresso Grinder")));
+    }
+
+    @Test
+    void shouldSuggestProductsByNamePrefix() throws Exception {
+        productRepository.save(new Product("Zebra Print Mug", "Test Description", 9.0f, "Kitchen", 2));
+        ProductDto newProduct = new ProductDto(null, "Zebra Plush", "Test Description", 15.0f, "Toys", 30);
+        mockMvc.perform(post("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(newProduct)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/products/suggest").param("prefix", "zebra p"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Zebra Plush")));
+    }
+
+    @Test
+    void shouldNeverOversellUnderConcurrentReservations() throws Exception {
+        Product hot = productRepository.save(new Product("Hot Item", "Test Description", 5.0f, "Test Category", 100));
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int i = 0; i < 160; i++) {
+                attempts.add(pool.submit(() -> {
+                    int status = mockMvc.perform(post("/products/" + hot.getId() + "/stock/reserve")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 1}"))
+                            .andReturn().getResponse().getStatus();
+                    (status == 200 ? reserved : rejected).incrementAndGet();
+                    return null;
+                }));
+            }
+            for (Future<?> attempt : attempts) {
+                attempt.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(100, reserved.get());
+        assertEquals(60, rejected.get());
+        mockMvc.perform(get("/products/{id}", hot.getId()))
+                .andExpect(jsonPath("$.stockQuantity", is(0)));
+
+        mockMvc.perform(post("/products/{id}/stock/release", hot.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 7}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stockQuantity", is(7)));
+    }
+
+    @Test
+    void shouldExportProductsAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(productRepository.count(), lines.length);
+        assertTrue(body.contains("\"id\":\"" + testProduct.getId() + "\""));
+    }
+
+    @Test
+    void shouldLookUpManyProductsInRequestOrder() throws Exception {
+        Product second = productRepository.save(new Product("Second Product", "Test Description", 5.0f,
+                "Test Category", 1));
+        // Cache one of them, so the lookup mixes cached and uncached products
+        mockMvc.perform(get("/products/{id}", second.getId())).andExpect(status().isOk());
+
+        mockMvc.perform(post("/products/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(second.getId(), "non-existent-id",
+                                testProduct.getId()))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.found", is(2)))
+                .andExpect(jsonPath("$.missing", is(1)))
+                .andExpect(jsonPath("$.results[0].product.name", is("Second Product")))
+                .andExpect(jsonPath("$.results[1].status", is("NOT_FOUND")))
+                .andExpect(jsonPath("$.results[2].product.name", is("Integration Test Product")));
     }
 
     @Test
@@ -93,6 +284,88 @@ class ProductApiIntegrationTest {
                 .andExpect(jsonPath("$.price", is(30.0)));
     }
 
+    @Test
+    void shouldServeConditionalRequestsWithEntityTags() throws Exception {
+        String etag = mockMvc.perform(get("/products/{id}", testProduct.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertEquals("\"" + testProduct.getVersion() + "\"", etag);
+
+        mockMvc.perform(get("/products/{id}", testProduct.getId()).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        ProductDto updatedProduct = new ProductDto(testProduct.getId(), "Updated Product", "Updated Description",
+                30.0f, "Updated Category", 25);
+        String newEtag = mockMvc.perform(put("/products/{id}", testProduct.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedProduct)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andReturn().getResponse().getHeader("ETag");
+
+        // The client that still holds the old tag can neither overwrite nor delete the new version
+        mockMvc.perform(put("/products/{id}", testProduct.getId())
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(updatedProduct)))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete("/products/{id}", testProduct.getId()).header("If-Match", etag))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(get("/products/{id}", testProduct.getId()).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Updated Product")));
+
+        mockMvc.perform(delete("/products/{id}", testProduct.getId()).header("If-Match", newEtag))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void shouldChangeListingEntityTagWhenAProductOnThePageChanges() throws Exception {
+        String etag = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/products/{id}/stock/reserve", testProduct.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 1}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)));
+    }
+
+    @Test
+    void shouldPatchOnlySuppliedFields() throws Exception {
+        mockMvc.perform(patch("/products/{id}", testProduct.getId())
+                        .header("If-Match", "\"" + testProduct.getVersion() + "\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"price\": 19.5, \"description\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + (testProduct.getVersion() + 1) + "\""))
+                .andExpect(jsonPath("$.price", is(19.5)))
+                .andExpect(jsonPath("$.description", nullValue()))
+                .andExpect(jsonPath("$.name", is("Integration Test Product")));
+
+        mockMvc.perform(get("/products/{id}", testProduct.getId()))
+                .andExpect(jsonPath("$.price", is(19.5)))
+                .andExpect(jsonPath("$.description", nullValue()))
+                .andExpect(jsonPath("$.stockQuantity", is(10)));
+        mockMvc.perform(patch("/products/{id}", testProduct.getId())
+                        .header("If-Match", "\"" + testProduct.getVersion() + "\"")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"stockQuantity\": 3}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/products/non-existent-id")
+                        .contentType("application/merge-patch+json")
+                        .content("{\"stockQuantity\": 3}"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldDeleteProduct() throws Exception {
         mockMvc.perform(delete("/products/{id}", testProduct.getId()))
@@ -0,0 +1,445 @@
+package com.quickshelf.integration;
+
+import com.jayway.jsonpath.JsonPath;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.EntityExchangeResult;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the scenarios of {@link ProductApiIntegrationTest} against the reactive stack (WebFlux on Netty
+ * with R2DBC), over real HTTP connections.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactivedb",
+        "quickshelf.r2dbc.url=r2dbc:h2:mem:///reactivedb"
+})
+class ReactiveProductApiIntegrationTest {
+
+    @Autowired
+    private ReactiveWebServerApplicationContext context;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private WebTestClient webTestClient;
+
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + context.getWebServer().getPort() + "/api")
+                .responseTimeout(Duration.ofSeconds(30))
+                .build();
+        testProduct = new Product("Integration Test Product", "Test Description", 15.0f, "Test Category", 10);
+        testProduct = productRepository.save(testProduct);
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldServeRequestsOnNetty() {
+        assertTrue(context.getWebServer().getClass().getSimpleName().startsWith("Netty"));
+    }
+
+    @Test
+    void shouldCreateProduct() {
+        ProductDto newProduct = new ProductDto(null, "New Product", "New Description", 25.0f, "New Category", 20);
+
+        webTestClient.post().uri("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newProduct)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("New Product")
+                .jsonPath("$.price").isEqualTo(25.0)
+                .jsonPath("$.id").isNotEmpty();
+    }
+
+    @Test
+    void shouldCreateProductsInBatch() {
+        List<ProductDto> batch = List.of(
+                new ProductDto(null, "Batch Product 1", "Batch Description", 1.0f, "Batch Category", 1),
+                new ProductDto(null, "Batch Product 2", "Batch Description", 2.0f, "Batch Category", 2));
+
+        String body = webTestClient.post().uri("/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(batch)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+        assertEquals(2, (int) JsonPath.read(body, "$.created"));
+
+        String secondId = JsonPath.read(body, "$.results[1].id");
+        webTestClient.get().uri("/products/{id}", secondId)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("Batch Product 2");
+    }
+
+    @Test
+    void shouldGetAllProducts() {
+        webTestClient.get().uri("/products")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$").value(hasSize(greaterThanOrEqualTo(1)))
+                .jsonPath("$[*].id").value(hasItem(testProduct.getId()));
+    }
+
+    @Test
+    void shouldPageThroughProductsWithCursor() {
+        productRepository.save(new Product("Second Product", "Test Description", 5.0f, "Test Category", 1));
+        productRepository.save(new Product("Third Product", "Test Description", 5.0f, "Test Category", 1));
+        long total = productRepository.count();
+
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        do {
+            String query = cursor == null ? "/products?limit=2" : "/products?limit=2&cursor=" + cursor;
+            EntityExchangeResult<String> response = webTestClient.get().uri(query)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class)
+                    .returnResult();
+            List<String> ids = JsonPath.read(response.getResponseBody(), "$[*].id");
+            assertTrue(ids.size() <= 2);
+            seen.addAll(ids);
+            cursor = response.getResponseHeaders().getFirst("X-Next-Cursor");
+        } while (cursor != null);
+
+        assertEquals(total, seen.size());
+    }
+
+    @Test
+    void shouldFilterProductsAcrossPages() {
+        productRepository.save(new Product("Cheap Gadget", "Test Description", 5.0f, "Filter Category", 3));
+        productRepository.save(new Product("Mid Gadget", "Test Description", 20.0f, "Filter Category", 2));
+        productRepository.save(new Product("Sold Out Gadget", "Test Description", 25.0f, "Filter Category", 0));
+        productRepository.save(new Product("Pricey Gadget", "Test Description", 90.0f, "Filter Category", 4));
+        productRepository.save(new Product("Other Gadget", "Test Description", 20.0f, "Other Category", 4));
+
+        Set<String> names = new HashSet<>();
+        String cursor = null;
+        do {
+            String next = cursor;
+            EntityExchangeResult<String> response = webTestClient.get()
+                    .uri(builder -> {
+                        builder.path("/products")
+                                .queryParam("limit", 1)
+                                .queryParam("category", "Filter Category")
+                                .queryParam("minPrice", 5)
+                                .queryParam("maxPrice", 50)
+                                .queryParam("inStock", true);
+                        if (next != null) {
+                            builder.queryParam("cursor", next);
+                        }
+                        return builder.build();
+                    })
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class)
+                    .returnResult();
+            List<String> pageNames = JsonPath.read(response.getResponseBody(), "$[*].name");
+            names.addAll(pageNames);
+            cursor = response.getResponseHeaders().getFirst("X-Next-Cursor");
+        } while (cursor != null);
+
+        assertEquals(Set.of("Cheap Gadget", "Mid Gadget"), names);
+    }
+
+    @Test
+    void shouldFindCreatedProductBySearch() {
+        ProductDto newProduct = new ProductDto(null, "Espresso Grinder", "Burr grinder for espresso", 120.0f, "Kitchen", 4);
+        webTestClient.post().uri("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newProduct)
+                .exchange()
+                .expectStatus().isCreated();
+
+        webTestClient.get().uri("/products/search?q=espresso")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$").value(hasSize(1))
+                .jsonPath("$[0].product.name").isEqualTo("Espresso Grinder");
+    }
+
+    @Test
+    void shouldSuggestProductsByNamePrefix() {
+        productRepository.save(new Product("Zebra Print Mug", "Test Description", 9.0f, "Kitchen", 2));
+        ProductDto newProduct = new ProductDto(null, "Zebra Plush", "Test Description", 15.0f, "Toys", 30);
+        webTestClient.post().uri("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(newProduct)
+                .exchange()
+                .expectStatus().isCreated();
+
+        webTestClient.get().uri(builder -> builder.path("/products/suggest").queryParam("prefix", "zebra p").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$").value(hasSize(1))
+                .jsonPath("$[0].name").isEqualTo("Zebra Plush");
+    }
+
+    @Test
+    void shouldNeverOversellUnderConcurrentReservations() throws Exception {
+        Product hot = productRepository.save(new Product("Hot Item", "Test Description", 5.0f, "Test Category", 100));
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int i = 0; i < 160; i++) {
+                attempts.add(pool.submit(() -> {
+                    HttpStatusCode status = webTestClient.post().uri("/products/{id}/stock/reserve", hot.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue("{\"quantity\": 1}")
+                            .exchange()
+                            .expectBody().returnResult().getStatus();
+                    (status.value() == 200 ? reserved : rejected).incrementAndGet();
+                }));
+            }
+            for (Future<?> attempt : attempts) {
+                attempt.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(100, reserved.get());
+        assertEquals(60, rejected.get());
+        webTestClient.get().uri("/products/{id}", hot.getId())
+                .exchange()
+                .expectBody().jsonPath("$.stockQuantity").isEqualTo(0);
+
+        webTestClient.post().uri("/products/{id}/stock/release", hot.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"quantity\": 7}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.stockQuantity").isEqualTo(7);
+    }
+
+    @Test
+    void shouldExportProductsAsNdjson() {
+        String body = webTestClient.get().uri("/products/export")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith("application/x-ndjson")
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+
+        String[] lines = body.split("\n");
+        assertEquals(productRepository.count(), lines.length);
+        assertTrue(body.contains("\"id\":\"" + testProduct.getId() + "\""));
+    }
+
+    @Test
+    void shouldLookUpManyProductsInRequestOrder() {
+        Product second = productRepository.save(new Product("Second Product", "Test Description", 5.0f,
+                "Test Category", 1));
+
+        webTestClient.post().uri("/products/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(second.getId(), "non-existent-id", testProduct.getId()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.found").isEqualTo(2)
+                .jsonPath("$.missing").isEqualTo(1)
+                .jsonPath("$.results[0].product.name").isEqualTo("Second Product")
+                .jsonPath("$.results[1].status").isEqualTo("NOT_FOUND")
+                .jsonPath("$.results[2].product.name").isEqualTo("Integration Test Product");
+    }
+
+    @Test
+    void shouldGetProductById() {
+        webTestClient.get().uri("/products/{id}", testProduct.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(testProduct.getId())
+                .jsonPath("$.name").isEqualTo("Integration Test Product");
+    }
+
+    @Test
+    void shouldUpdateProduct() {
+        ProductDto updatedProduct = new ProductDto(testProduct.getId(), "Updated Product", "Updated Description",
+                30.0f, "Updated Category", 25);
+
+        webTestClient.put().uri("/products/{id}", testProduct.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedProduct)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Updated Product")
+                .jsonPath("$.price").isEqualTo(30.0);
+    }
+
+    @Test
+    void shouldServeConditionalRequestsWithEntityTags() {
+        String etag = webTestClient.get().uri("/products/{id}", testProduct.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertEquals("\"" + testProduct.getVersion() + "\"", etag);
+
+        webTestClient.get().uri("/products/{id}", testProduct.getId()).header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        ProductDto updatedProduct = new ProductDto(testProduct.getId(), "Updated Product", "Updated Description",
+                30.0f, "Updated Category", 25);
+        String newEtag = webTestClient.put().uri("/products/{id}", testProduct.getId())
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedProduct)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("ETag", not(etag))
+                .returnResult(String.class).getResponseHeaders().getETag();
+
+        // The client that still holds the old tag can neither overwrite nor delete the new version
+        webTestClient.put().uri("/products/{id}", testProduct.getId())
+                .header("If-Match", etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(updatedProduct)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.delete().uri("/products/{id}", testProduct.getId()).header("If-Match", etag)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.get().uri("/products/{id}", testProduct.getId()).header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("Updated Product");
+
+        webTestClient.delete().uri("/products/{id}", testProduct.getId()).header("If-Match", newEtag)
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+
+    @Test
+    void shouldChangeListingEntityTagWhenAProductOnThePageChanges() {
+        String etag = webTestClient.get().uri("/products")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        webTestClient.get().uri("/products").header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.post().uri("/products/{id}/stock/reserve", testProduct.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"quantity\": 1}")
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/products").header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("ETag", not(etag));
+    }
+
+    @Test
+    void shouldPatchOnlySuppliedFields() {
+        webTestClient.patch().uri("/products/{id}", testProduct.getId())
+                .header("If-Match", "\"" + testProduct.getVersion() + "\"")
+                .contentType(MediaType.parseMediaType("application/merge-patch+json"))
+                .bodyValue("{\"price\": 19.5, \"description\": null}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"" + (testProduct.getVersion() + 1) + "\"")
+                .expectBody()
+                .jsonPath("$.price").isEqualTo(19.5)
+                .jsonPath("$.description").isEmpty()
+                .jsonPath("$.name").isEqualTo("Integration Test Product");
+
+        webTestClient.get().uri("/products/{id}", testProduct.getId())
+                .exchange()
+                .expectBody()
+                .jsonPath("$.price").isEqualTo(19.5)
+                .jsonPath("$.description").isEmpty()
+                .jsonPath("$.stockQuantity").isEqualTo(10);
+        webTestClient.patch().uri("/products/{id}", testProduct.getId())
+                .header("If-Match", "\"" + testProduct.getVersion() + "\"")
+                .contentType(MediaType.parseMediaType("application/merge-patch+json"))
+                .bodyValue("{\"stockQuantity\": 3}")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webTestClient.patch().uri("/products/non-existent-id")
+                .contentType(MediaType.parseMediaType("application/merge-patch+json"))
+                .bodyValue("{\"stockQuantity\": 3}")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldDeleteProduct() {
+        webTestClient.delete().uri("/products/{id}", testProduct.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+
+        // Verify the product is deleted
+        webTestClient.get().uri("/products/{id}", testProduct.getId())
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldReturn404WhenProductNotFound() {
+        webTestClient.get().uri("/products/non-existent-id")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldReturn400WhenInvalidProductData() {
+        ProductDto invalidProduct = new ProductDto(null, "", null, -10.0f, "", -5);
+
+        webTestClient.post().uri("/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(invalidProduct)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.message").isEqualTo("Validation error");
+    }
+}
@@ -0,0 +1,106 @@
+package com.quickshelf.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.service.CachingProductService;
+import com.quickshelf.service.OffHeapProductReplica;
+import com.quickshelf.service.ProductService;
+import com.quickshelf.service.ReplicaProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs the product endpoints with the off-heap replica serving reads, and checks that every write
+ * shows up in it.
+ */
+@SpringBootTest(properties = {
+        "quickshelf.replica.enabled=true",
+        "quickshelf.cache.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:replicadb"
+})
+@AutoConfigureMockMvc
+class ReplicaIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OffHeapProductReplica replica;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void shouldReplaceTheCacheAndHoldTheSampleData() {
+        assertInstanceOf(ReplicaProductService.class, productService);
+        assertTrue(context.getBeansOfType(CachingProductService.class).isEmpty());
+        assertTrue(replica.isReady());
+        assertTrue(replica.size() > 0);
+    }
+
+    @Test
+    void shouldServeWrittenProductsFromTheReplica() throws Exception {
+        String id = create(new ProductDto(null, "Replica Kettle", "Steel kettle", 25.0f, "Replica Kitchen", 3));
+        assertEquals("Replica Kettle", replica.get(id).orElseThrow().getName());
+
+        String etag = mockMvc.perform(get("/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Replica Kettle")))
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(put("/products/{id}", id)
+                        .header("If-Match", etag)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new ProductDto(null, "Replica Kettle XL", "Steel kettle", 27.0f, "Replica Kitchen", 3))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/products/{id}/stock/reserve", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 3}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(etag)))
+                .andExpect(jsonPath("$.name", is("Replica Kettle XL")))
+                .andExpect(jsonPath("$.stockQuantity", is(0)));
+        mockMvc.perform(get("/products").param("category", "Replica Kitchen").param("inStock", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(id)));
+
+        mockMvc.perform(delete("/products/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/products/{id}", id))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/products").param("category", "Replica Kitchen"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    private String create(ProductDto product) throws Exception {
+        String body = mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(product)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(body, "$.id");
+    }
+}
@@ -0,0 +1,133 @@
+package com.quickshelf.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickshelf.dto.ProductDto;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "quickshelf.tracing.enabled=true",
+        "quickshelf.tracing.slow-request-threshold=0ms",
+        "quickshelf.tracing.slow-request-sample-rate=1.0",
+        "quickshelf.cache.enabled=false"
+})
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class RequestTracingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private Product testProduct;
+
+    @BeforeEach
+    void setUp() {
+        testProduct = productRepository.save(new Product("Tracing Test Product", "Test Description", 15.0f,
+                "Test Category", 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void shouldReturnPhaseTimingsInServerTimingHeader() throws Exception {
+        mockMvc.perform(get("/products/{id}", testProduct.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Tracing Test Product"))
+                .andExpect(header().string("Server-Timing", allOf(
+                        containsString("controller;"),
+                        containsString("service;"),
+                        matchesRegex(".*sql;desc=\"[1-9][0-9]* statements?\";dur=[0-9.]+.*"),
+                        containsString("write;"),
+                        matchesRegex(".*total;dur=[0-9.]+$"))));
+    }
+
+    @Test
+    void shouldTimeRequestBodyParsingAndValidation() throws Exception {
+        ProductDto newProduct = new ProductDto(null, "New Product", "New Description", 25.0f, "New Category", 20);
+
+        mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(newProduct)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Server-Timing", allOf(
+                        containsString("read;"),
+                        containsString("validation;"),
+                        containsString("service;"))));
+    }
+
+    @Test
+    void shouldSendImportJobBeforeReadingUpload() throws Exception {
+        MvcResult started = mockMvc.perform(post("/imports")
+                        .contentType("text/csv")
+                        .content("name,price,category,stockQuantity\nImported Product,1.0,Test Category,1\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult accepted = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").isNotEmpty())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andReturn();
+
+        String jobId = objectMapper.readTree(accepted.getResponse().getContentAsString()).get("id").asText();
+        awaitImport(jobId);
+        assertTrue(productRepository.findAll().stream()
+                .anyMatch(product -> product.getName().equals("Imported Product")));
+    }
+
+    @Test
+    void shouldLogSlowRequestsWithTheirStatements(CapturedOutput output) throws Exception {
+        mockMvc.perform(get("/products/{id}", testProduct.getId()))
+                .andExpect(status().isOk());
+
+        assertTrue(output.getOut().contains("Slow request GET /products/" + testProduct.getId() + " -> 200"));
+        assertTrue(output.getOut().toLowerCase().contains("from product"));
+    }
+
+    /**
+     * Polls the import job until it is no longer running, so its inserts do not outlive the test.
+     */
+    private void awaitImport(String jobId) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            String body = mockMvc.perform(get("/imports/{jobId}", jobId))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            if (!"RUNNING".equals(objectMapper.readTree(body).get("status").asText())) {
+                assertEquals("COMPLETED", objectMapper.readTree(body).get("status").asText(), body);
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Import " + jobId + " did not finish");
+    }
+}
@@ -0,0 +1,170 @@
+package com.quickshelf.integration;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import com.quickshelf.service.StockLedger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs the stock endpoints against the in-memory {@link StockLedger}. Flushes are triggered by the
+ * tests rather than the scheduler, so the database state between flushes is predictable.
+ */
+@SpringBootTest(properties = {
+        "quickshelf.stock.ledger.enabled=true",
+        "quickshelf.stock.ledger.flush-interval-ms=3600000",
+        "quickshelf.stock.ledger.fsync=false",
+        "spring.datasource.url=jdbc:h2:mem:stockledgerdb"
+})
+@AutoConfigureMockMvc
+class StockLedgerIntegrationTest {
+
+    @TempDir
+    static Path journalDirectory;
+
+    @DynamicPropertySource
+    static void journalProperties(DynamicPropertyRegistry registry) {
+        registry.add("quickshelf.stock.ledger.journal-dir", journalDirectory::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        product = productRepository.save(new Product("Flash Sale Item", "Test Description", 5.0f, "Test Category", 100));
+    }
+
+    @Test
+    void shouldNeverOversellAndPersistOnFlush() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        AtomicInteger reserved = new AtomicInteger();
+        try {
+            List<Future<?>> attempts = new ArrayList<>();
+            for (int i = 0; i < 160; i++) {
+                attempts.add(pool.submit(() -> {
+                    int status = mockMvc.perform(post("/products/{id}/stock/reserve", product.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"quantity\": 1}"))
+                            .andReturn().getResponse().getStatus();
+                    if (status == 200) {
+                        reserved.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> attempt : attempts) {
+                attempt.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(100, reserved.get());
+        assertEquals(100, stock());
+
+        stockLedger.flush();
+
+        assertEquals(0, stock());
+        mockMvc.perform(get("/products/{id}", product.getId()))
+                .andExpect(jsonPath("$.stockQuantity", is(0)));
+    }
+
+    @Test
+    void shouldDeductPendingReservationsFromAnUpdatedStock() throws Exception {
+        reserve(30).andExpect(jsonPath("$.stockQuantity", is(70)));
+
+        mockMvc.perform(put("/products/{id}", product.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Flash Sale Item\", \"description\": \"Restocked\", \"price\": 5.0, "
+                                + "\"category\": \"Test Category\", \"stockQuantity\": 500}"))
+                .andExpect(status().isOk());
+        reserve(10).andExpect(jsonPath("$.stockQuantity", is(460)))
+                .andExpect(jsonPath("$.description", is("Restocked")));
+
+        stockLedger.flush();
+
+        assertEquals(460, stock());
+    }
+
+    @Test
+    void shouldRejectUnknownProductsAndOverlargeReservations() throws Exception {
+        mockMvc.perform(post("/products/missing/stock/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\": 1}"))
+                .andExpect(status().isNotFound());
+        reserve(101).andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is(
+                        "Insufficient stock for product '" + product.getId() + "': requested 101, available 100")));
+    }
+
+    @Test
+    @DirtiesContext
+    void shouldReplayJournaledReservationsAfterACrash() throws Exception {
+        reserve(3).andExpect(status().isOk());
+        reserve(4).andExpect(status().isOk());
+        assertEquals(100, stock());
+
+        // A second ledger over the same journal and database recovers as if the first had crashed
+        StockLedger recovered = new StockLedger(productRepository, jdbcTemplate, transactionManager, eventPublisher,
+                journalDirectory, false);
+        recovered.recover();
+
+        assertEquals(93, stock());
+    }
+
+    private ResultActions reserve(int quantity) throws Exception {
+        return mockMvc.perform(post("/products/{id}/stock/reserve", product.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": " + quantity + "}"));
+    }
+
+    private int stock() {
+        return jdbcTemplate.queryForObject("SELECT stock_quantity FROM product WHERE id = ?", Integer.class,
+                product.getId());
+    }
+}
@@ -0,0 +1,88 @@
+package com.quickshelf.integration;
+
+import com.quickshelf.config.VirtualThreadPinningMonitor;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the application with virtual-thread request handling and the pinning monitor enabled.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "quickshelf.threads.pinning-monitor.enabled=true",
+        "quickshelf.threads.pinning-monitor.threshold-ms=10",
+        "spring.datasource.url=jdbc:h2:mem:virtualthreadsdb"
+})
+class VirtualThreadIntegrationTest {
+
+    private static final Object MONITOR = new Object();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private VirtualThreadPinningMonitor pinningMonitor;
+
+    @Test
+    void shouldHandleConcurrentRequestsOnVirtualThreads() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+        assertInstanceOf(VirtualThreadExecutor.class,
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/products?limit=5"))
+                .build();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Integer>> responses = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                responses.add(clients.submit(() -> client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode()));
+            }
+            for (Future<Integer> response : responses) {
+                assertEquals(200, response.get(30, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    void shouldReportVirtualThreadBlockedInsideMonitor() throws Exception {
+        long before = pinningMonitor.getPinnedEvents();
+
+        Thread.ofVirtual().start(() -> {
+            synchronized (MONITOR) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        // Recorded events are delivered to the stream about once per second
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pinningMonitor.getPinnedEvents() == before && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(pinningMonitor.getPinnedEvents() > before);
+    }
+}
@@ -1,17 +1,26 @@
 package com.quickshelf.repository;
 
 import com.quickshelf.model.Product;
+import org.hibernate.Session;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.quickshelf.repository.ProductRepositoryTest$ExecutedSql")
 class ProductRepositoryTest {
 
     @Autowired
@@ -33,6 +42,23 @@ class ProductRepositoryTest {
         assertEquals("Test Product", savedProduct.getName());
     }
 
+    @Test
+    void whenSaveProductWithAssignedId_thenProductIsPersistedWithThatId() {
+        // Given
+        Product product = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
+        product.setId("assigned-id");
+        
+        // When
+        productRepository.save(product);
+        entityManager.flush();
+        entityManager.clear();
+        
+        // Then
+        Optional<Product> found = productRepository.findById("assigned-id");
+        assertTrue(found.isPresent());
+        assertFalse(found.get().isNew());
+    }
+
     @Test
     void whenFindById_thenReturnProduct() {
         // Given
@@ -79,4 +105,293 @@ class ProductRepositoryTest {
         // Then
         assertFalse(found.isPresent());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenSeekPastId_thenReturnNextProductsInIdOrder() {
+        // Given
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Product product = new Product("Product " + i, "Description", 10.0f, "Category", 1);
+            entityManager.persist(product);
+            ids.add(product.getId());
+        }
+        entityManager.flush();
+        Collections.sort(ids);
+
+        // When
+        List<Product> page = productRepository.findByIdGreaterThanOrderByIdAsc(ids.get(0), Limit.of(100));
+        List<String> pageIds = page.stream().map(Product::getId).toList();
+
+        // Then
+        assertTrue(pageIds.stream().allMatch(id -> id.compareTo(ids.get(0)) > 0));
+        assertEquals(pageIds.stream().sorted().toList(), pageIds);
+        assertTrue(pageIds.containsAll(ids.subList(1, 3)));
+    }
+
+    @Test
+    void whenFindByFilter_thenReturnOnlyMatchingProductsInIdOrder() {
+        // Given
+        seedCategories();
+        Product cheap = new Product("Cheap", "Description", 5.0f, "Filtered", 3);
+        Product soldOut = new Product("Sold Out", "Description", 6.0f, "Filtered", 0);
+        Product pricey = new Product("Pricey", "Description", 500.0f, "Filtered", 3);
+        entityManager.persist(cheap);
+        entityManager.persist(soldOut);
+        entityManager.persist(pricey);
+        entityManager.flush();
+        ProductFilter filter = new ProductFilter("Filtered", 1.0, 100.0, true);
+
+        // When
+        List<Product> found = page(filter, null);
+
+        // Then
+        assertEquals(List.of(cheap.getId()), found.stream().map(Product::getId).toList());
+        assertTrue(page(filter, cheap.getId()).isEmpty());
+    }
+
+    @Test
+    void whenFilterByPriceBound_thenMatchPricesStoredFromFloatsAndDecimals() {
+        // Given
+        Product written = new Product("Written", "Description", 19.99f, "Priced", 1);
+        entityManager.persist(written);
+        entityManager.flush();
+        entityManager.getEntityManager().createNativeQuery("INSERT INTO product (id, name, price, category,"
+                        + " stock_quantity, version) VALUES ('loaded', 'Loaded', 19.99, 'Priced', 1, 0)")
+                .executeUpdate();
+
+        // When
+        List<Product> atMost = page(new ProductFilter("Priced", null, 19.99, null), null);
+        List<Product> atLeast = page(new ProductFilter("Priced", 19.99, null, null), null);
+        List<Product> above = page(new ProductFilter("Priced", 19.991, null, null), null);
+
+        // Then
+        assertEquals(2, atMost.size());
+        assertEquals(2, atLeast.size());
+        assertTrue(above.isEmpty());
+    }
+
+    @Test
+    void whenFilterByCategoryAndPrice_thenPlanReadsCategoryIndexInPageOrder() {
+        seedCategories();
+
+        String plan = explainExecuted(new ProductFilter("Category 3", 10.0, 50.0, null),
+                "Category 3", 10.0, 50.0, 51);
+
+        assertTrue(plan.contains("IDX_PRODUCT_CATEGORY_ID"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void whenFilterByCategoryOnly_thenPlanReadsCategoryIndexInPageOrder() {
+        seedCategories();
+
+        String plan = explainExecuted(new ProductFilter("Category 3", null, null, null), "Category 3", 51);
+
+        assertTrue(plan.contains("IDX_PRODUCT_CATEGORY_ID"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void whenFilterBySoldOut_thenPlanReadsStockIndexInPageOrder() {
+        seedCategories();
+
+        String plan = explainExecuted(new ProductFilter(null, null, null, false), 0, 51);
+
+        assertTrue(plan.contains("IDX_PRODUCT_STOCK_QUANTITY_ID"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void whenFilterByInStock_thenPlanReadsPrimaryKeyInPageOrder() {
+        seedCategories();
+
+        String plan = explainExecuted(new ProductFilter(null, null, null, true), 0, 51);
+
+        assertTrue(plan.contains("PRIMARY_KEY"), plan);
+        assertTrue(plan.contains("index sorted"), plan);
+    }
+
+    @Test
+    void whenFilterByPrice_thenPlanUsesPriceIndex() {
+        seedCategories();
+
+        String plan = explainExecuted(new ProductFilter(null, 10.0, 20.0, null), 10.0, 20.0, 51);
+
+        assertTrue(plan.contains("IDX_PRODUCT_PRICE"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void whenReserveStock_thenDecrementOnlyIfEnoughIsLeft() {
+        // Given
+        Product product = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
+        entityManager.persist(product);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        Optional<Product> reserved = productRepository.reserveStock(product.getId(), 3);
+        entityManager.clear();
+        Optional<Product> rejected = productRepository.reserveStock(product.getId(), 3);
+        entityManager.clear();
+
+        // Then
+        assertEquals(2, reserved.orElseThrow().getStockQuantity());
+        assertTrue(rejected.isEmpty());
+        assertEquals(2, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+        assertTrue(productRepository.reserveStock("missing-id", 1).isEmpty());
+    }
+
+    @Test
+    void whenReleaseStock_thenIncrementUnlessItWouldOverflow() {
+        // Given
+        Product product = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
+        entityManager.persist(product);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        Optional<Product> released = productRepository.releaseStock(product.getId(), 4);
+        entityManager.clear();
+        Optional<Product> overflow = productRepository.releaseStock(product.getId(), Integer.MAX_VALUE - 8);
+
+        // Then
+        assertEquals(9, released.orElseThrow().getStockQuantity());
+        assertTrue(overflow.isEmpty());
+    }
+
+    @Test
+    void whenPatch_thenUpdateOnlyPatchedColumnsAndReturnPreviousRow() {
+        // Given
+        Product product = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
+        entityManager.persist(product);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        Optional<Product> before = productRepository.patch(product.getId(),
+                new ProductPatch().setPrice(12.5f).setDescription(null), null);
+        entityManager.clear();
+        Optional<Product> stale = productRepository.patch(product.getId(), new ProductPatch().setName("Renamed"), 0L);
+        entityManager.clear();
+
+        // Then
+        assertEquals(10.0f, before.orElseThrow().getPrice());
+        assertEquals("Test Description", before.orElseThrow().getDescription());
+        assertTrue(stale.isEmpty());
+        Product after = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals(12.5f, after.getPrice());
+        assertNull(after.getDescription());
+        assertEquals("Test Product", after.getName());
+        assertEquals(1L, after.getVersion());
+        assertTrue(productRepository.patch("missing-id", new ProductPatch().setStockQuantity(1), null).isEmpty());
+    }
+
+    @Test
+    void whenChangingManagedProduct_thenReturnRowImagesAndReloadChangedRow() {
+        // Given
+        Product product = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
+        entityManager.persist(product);
+        entityManager.flush();
+
+        // When
+        Product before = productRepository.patch(product.getId(), new ProductPatch().setPrice(12.5f), null)
+                .orElseThrow();
+        Product reserved = productRepository.reserveStock(product.getId(), 2).orElseThrow();
+        Product reloaded = productRepository.findById(product.getId()).orElseThrow();
+        Product deleted = productRepository.deleteAndReturn(product.getId(), 2L).orElseThrow();
+
+        // Then
+        assertNotSame(product, before);
+        assertEquals(10.0f, before.getPrice());
+        assertEquals(0L, before.getVersion());
+        assertEquals(12.5f, reserved.getPrice());
+        assertEquals(3, reserved.getStockQuantity());
+        assertEquals(2L, reserved.getVersion());
+        assertEquals(12.5f, reloaded.getPrice());
+        assertEquals(3, reloaded.getStockQuantity());
+        assertEquals(2L, deleted.getVersion());
+        assertFalse(entityManager.getEntityManager().contains(deleted));
+        assertFalse(productRepository.existsById(product.getId()));
+    }
+
+    @Test
+    void whenDeleteAndReturn_thenDeleteOnlyIfVersionMatches() {
+        // Given
+        Product product = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
+        entityManager.persist(product);
+        entityManager.flush();
+        entityManager.clear();
+
+        // When
+        Optional<Product> stale = productRepository.deleteAndReturn(product.getId(), 7L);
+        Optional<Product> deleted = productRepository.deleteAndReturn(product.getId(), 0L);
+        entityManager.clear();
+
+        // Then
+        assertTrue(stale.isEmpty());
+        assertEquals("Test Product", deleted.orElseThrow().getName());
+        assertFalse(productRepository.existsById(product.getId()));
+        assertTrue(productRepository.deleteAndReturn(product.getId()).isEmpty());
+    }
+
+    /**
+     * Persists products spread over several categories, prices and stock levels so the planner
+     * has a realistic choice between the indexes and a scan.
+     */
+    private void seedCategories() {
+        for (int i = 0; i < 200; i++) {
+            entityManager.persist(new Product("Product " + i, "Description", (float) (i % 100),
+                    "Category " + (i % 10), i % 7));
+        }
+        entityManager.flush();
+    }
+
+    /**
+     * Fetches one filtered listing page the way {@code ProductServiceImpl} does.
+     */
+    private List<Product> page(ProductFilter filter, String afterId) {
+        return productRepository.findBy(ProductSpecifications.matching(filter, afterId),
+                query -> query.sortBy(ProductSpecifications.order(filter)).limit(51).all());
+    }
+
+    /**
+     * Fetches the first listing page for the filter and returns the H2 execution plan of the SQL
+     * Hibernate issued for it, with the parameters bound in the order they appear in that SQL.
+     */
+    private String explainExecuted(ProductFilter filter, Object... parameters) {
+        ExecutedSql.STATEMENTS.clear();
+        page(filter, null);
+        String sql = ExecutedSql.STATEMENTS.stream()
+                .filter(statement -> statement.startsWith("select"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        return entityManager.getEntityManager().unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                assertEquals(parameters.length, explain.getParameterMetaData().getParameterCount(), sql);
+                for (int i = 0; i < parameters.length; i++) {
+                    explain.setObject(i + 1, parameters[i]);
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    assertTrue(plan.next(), sql);
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+
+    /**
+     * Records the SQL Hibernate sends to the database, so plans are checked on the statements that
+     * actually run rather than on hand-written copies of them.
+     */
+    public static final class ExecutedSql implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
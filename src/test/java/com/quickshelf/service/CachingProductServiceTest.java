@@ -0,0 +1,157 @@
+package com.quickshelf.service;
+
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductPatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingProductServiceTest {
+
+    @Mock
+    private ProductServiceImpl delegate;
+
+    private CachingProductService productService;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        productService = new CachingProductService(delegate, 100, Duration.ofMinutes(5));
+        product = new Product("Test Product", "Test Description", 10.0f, "Test Category", 5);
+        product.setId("test-id");
+    }
+
+    @Test
+    void whenGetProductByIdTwice_thenDatabaseIsHitOnce() {
+        when(delegate.getProductById("test-id")).thenReturn(Optional.of(product));
+
+        assertEquals(product, productService.getProductById("test-id").orElseThrow());
+        assertEquals(product, productService.getProductById("test-id").orElseThrow());
+
+        verify(delegate, times(1)).getProductById("test-id");
+        assertEquals(1, productService.getCacheStats().hitCount());
+        assertEquals(1, productService.getCacheStats().missCount());
+    }
+
+    @Test
+    void whenProductIsMissing_thenMissIsNotCached() {
+        when(delegate.getProductById("missing")).thenReturn(Optional.empty());
+
+        assertTrue(productService.getProductById("missing").isEmpty());
+        assertTrue(productService.getProductById("missing").isEmpty());
+
+        verify(delegate, times(2)).getProductById("missing");
+    }
+
+    @Test
+    void whenUpdateProduct_thenEntryIsInvalidated() {
+        Product updated = new Product("Updated Product", "Updated Description", 20.0f, "Test Category", 5);
+        updated.setId("test-id");
+        when(delegate.getProductById("test-id")).thenReturn(Optional.of(product), Optional.of(updated));
+        when(delegate.updateProduct(eq("test-id"), any(Product.class))).thenReturn(updated);
+
+        productService.getProductById("test-id");
+        productService.updateProduct("test-id", updated);
+
+        assertEquals("Updated Product", productService.getProductById("test-id").orElseThrow().getName());
+        verify(delegate, times(2)).getProductById("test-id");
+    }
+
+    @Test
+    void whenGetProductsByIds_thenOnlyMissesAreLoaded() {
+        Product other = new Product("Other Product", "Other Description", 3.0f, "Test Category", 1);
+        other.setId("other-id");
+        when(delegate.getProductById("test-id")).thenReturn(Optional.of(product));
+        when(delegate.getProductsByIds(List.of("other-id", "missing-id"))).thenReturn(Map.of("other-id", other));
+
+        productService.getProductById("test-id");
+        Map<String, Product> products = productService.getProductsByIds(
+                List.of("test-id", "other-id", "missing-id", "other-id"));
+
+        assertEquals(Map.of("test-id", product, "other-id", other), products);
+        verify(delegate).getProductsByIds(List.of("other-id", "missing-id"));
+    }
+
+    @Test
+    void whenPatchProduct_thenEntryIsInvalidated() {
+        Product patched = new Product("Test Product", "Test Description", 12.5f, "Test Category", 5);
+        patched.setId("test-id");
+        ProductPatch patch = new ProductPatch().setPrice(12.5f);
+        when(delegate.getProductById("test-id")).thenReturn(Optional.of(product), Optional.of(patched));
+        when(delegate.patchProduct("test-id", patch)).thenReturn(patched);
+
+        productService.getProductById("test-id");
+        productService.patchProduct("test-id", patch);
+
+        assertEquals(12.5f, productService.getProductById("test-id").orElseThrow().getPrice());
+        verify(delegate, times(2)).getProductById("test-id");
+    }
+
+    @Test
+    void whenReserveStock_thenEntryIsInvalidatedEvenOnConflict() {
+        when(delegate.getProductById("test-id")).thenReturn(Optional.of(product));
+        when(delegate.reserveStock("test-id", 9)).thenThrow(new InsufficientStockException("Insufficient stock"));
+
+        productService.getProductById("test-id");
+        assertThrows(InsufficientStockException.class, () -> productService.reserveStock("test-id", 9));
+        productService.getProductById("test-id");
+
+        verify(delegate, times(2)).getProductById("test-id");
+    }
+
+    @Test
+    void whenDeleteProduct_thenEntryIsInvalidated() {
+        when(delegate.getProductById("test-id")).thenReturn(Optional.of(product), Optional.empty());
+        when(delegate.deleteProduct("test-id")).thenReturn(true);
+
+        productService.getProductById("test-id");
+        assertTrue(productService.deleteProduct("test-id"));
+
+        assertTrue(productService.getProductById("test-id").isEmpty());
+    }
+
+    @Test
+    void whenCreateProducts_thenCreatedEntriesAreInvalidated() {
+        when(delegate.getProductById("test-id")).thenReturn(Optional.of(product));
+        when(delegate.createProducts(any())).thenReturn(List.of(ProductBatchResult.created(product)));
+
+        productService.getProductById("test-id");
+        productService.createProducts(List.of(product));
+        productService.getProductById("test-id");
+
+        verify(delegate, times(2)).getProductById("test-id");
+    }
+
+    @Test
+    void whenCacheIsFull_thenEntriesAreEvicted() {
+        CachingProductService smallCache = new CachingProductService(delegate, 10, Duration.ofMinutes(5));
+        when(delegate.getProductById(any())).thenAnswer(invocation -> {
+            Product loaded = new Product("Product", "Description", 1.0f, "Category", 1);
+            loaded.setId(invocation.getArgument(0));
+            return Optional.of(loaded);
+        });
+
+        for (int i = 0; i < 100; i++) {
+            smallCache.getProductById("id-" + i);
+        }
+        smallCache.cleanUp();
+
+        assertTrue(smallCache.getCacheSize() <= 10);
+        assertTrue(smallCache.getCacheStats().evictionCount() > 0);
+    }
+}
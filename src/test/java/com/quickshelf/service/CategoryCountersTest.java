@@ -0,0 +1,125 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryCountersTest {
+
+    private final List<Product> catalog = new ArrayList<>();
+    private final CategoryCounters counters = new CategoryCounters(consumer -> catalog.forEach(consumer));
+
+    @Test
+    void whenProductsChange_thenCountersFollow() {
+        catalog.add(product("1", 10f, "Tools", 2));
+        counters.reconcile();
+
+        counters.onProductChanged(ProductChangedEvent.created(product("2", 5f, "Tools", 4)));
+        counters.onProductChanged(ProductChangedEvent.updated(catalog.get(0), product("1", 10f, "Garden", 3)));
+
+        assertTotals(1, 4, 20.0, counters.get("Tools"));
+        assertTotals(1, 3, 30.0, counters.get("Garden"));
+
+        counters.onProductChanged(ProductChangedEvent.deleted(product("1", 10f, "Garden", 3)));
+        assertTotals(0, 0, 0.0, counters.get("Garden"));
+        assertEquals(List.of("Tools"), counters.getAll().stream().map(CategoryTotals::getCategory).toList());
+    }
+
+    @Test
+    void whenCountersDrift_thenReconciliationCorrectsThem() {
+        catalog.add(product("1", 10f, "Tools", 2));
+        catalog.add(product("2", 1f, "Garden", 1));
+        counters.reconcile();
+        // An event whose before-image was stale, and a product that reached the catalog without one
+        counters.onProductChanged(ProductChangedEvent.updated(product("1", 10f, "Tools", 5),
+                product("1", 10f, "Tools", 1)));
+        catalog.add(product("3", 2f, "Toys", 6));
+
+        counters.reconcile();
+
+        assertTotals(1, 2, 20.0, counters.get("Tools"));
+        assertTotals(1, 1, 1.0, counters.get("Garden"));
+        assertTotals(1, 6, 12.0, counters.get("Toys"));
+    }
+
+    @Test
+    void whenProductsChangeDuringReconciliation_thenEachChangeIsCountedOnce() {
+        List<Product> rows = new ArrayList<>(List.of(product("1", 10f, "Tools", 2), product("2", 10f, "Tools", 3),
+                product("3", 10f, "Tools", 4)));
+        Runnable[] afterFirstRow = {() -> { }};
+        CategoryCounters scanned = new CategoryCounters(consumer -> {
+            for (int i = 0; i < rows.size(); i++) {
+                consumer.accept(rows.get(i));
+                if (i == 0) {
+                    afterFirstRow[0].run();
+                }
+            }
+        });
+        scanned.reconcile();
+        // Once the scan has read product 1: product 1 is updated behind it, product 3 ahead of it,
+        // and product 4 is created ahead of it
+        afterFirstRow[0] = () -> {
+            update(scanned, rows, 0, product("1", 10f, "Tools", 5));
+            update(scanned, rows, 2, product("3", 10f, "Tools", 7));
+            Product created = product("4", 1f, "Garden", 1);
+            rows.add(created);
+            scanned.onProductChanged(ProductChangedEvent.created(created));
+        };
+
+        scanned.reconcile();
+
+        assertTotals(3, 15, 150.0, scanned.get("Tools"));
+        assertTotals(1, 1, 1.0, scanned.get("Garden"));
+    }
+
+    @Test
+    void whenManyThreadsReserve_thenNoChangeIsLost() throws Exception {
+        counters.onProductChanged(ProductChangedEvent.created(product("1", 2f, "Sale", 8000)));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        counters.onProductChanged(ProductChangedEvent.updated(product("1", 2f, "Sale", 1),
+                                product("1", 2f, "Sale", 0)));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertTotals(1, 0, 0.0, counters.get("Sale"));
+    }
+
+    private static void assertTotals(long productCount, long unitsInStock, double inventoryValue,
+                                     CategoryTotals totals) {
+        assertEquals(productCount, totals.getProductCount());
+        assertEquals(unitsInStock, totals.getUnitsInStock());
+        assertEquals(inventoryValue, totals.getInventoryValue(), 1e-6);
+    }
+
+    private static void update(CategoryCounters counters, List<Product> rows, int index, Product after) {
+        Product before = rows.set(index, after);
+        counters.onProductChanged(ProductChangedEvent.updated(before, after));
+    }
+
+    private static Product product(String id, float price, String category, int stock) {
+        Product product = new Product("Product " + id, null, price, category, stock);
+        product.setId(id);
+        return product;
+    }
+}
@@ -0,0 +1,209 @@
+package com.quickshelf.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickshelf.model.Product;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ImportServiceTest {
+
+    @Mock
+    private ProductService productService;
+
+    private ImportServiceImpl importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new ImportServiceImpl(productService, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), 2, 2, 2, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.shutdown();
+    }
+
+    @Test
+    void whenImportCsv_thenValidRowsAreCommittedInChunks() throws Exception {
+        when(productService.createProducts(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        String csv = """
+                name,description,price,category,stockQuantity
+                Product 1,First,1.5,Category,1
+                Product 2,"Second, with comma",2.5,Category,2
+                Product 3,Third,3.5,Category,3
+                """;
+
+        ImportJob job = awaitDone(importProducts(stream(csv), ImportFormat.CSV));
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getRowsRead());
+        assertEquals(3, job.getRowsImported());
+        assertEquals(0, job.getRowsFailed());
+        verify(productService, times(2)).createProducts(anyList());
+    }
+
+    @Test
+    void whenImportNdjsonWithInvalidRows_thenReportErrorsPerRow() throws Exception {
+        when(productService.createProducts(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        String ndjson = """
+                {"name":"Product 1","price":1.0,"category":"Category","stockQuantity":1}
+                {"name":"","price":-1.0,"category":"Category","stockQuantity":1}
+
+                {not json}
+                {"name":"Product 4","price":4.0,"category":"Category","stockQuantity":4}
+                """;
+
+        ImportJob job = awaitDone(importProducts(stream(ndjson), ImportFormat.NDJSON));
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(4, job.getRowsRead());
+        assertEquals(2, job.getRowsImported());
+        assertEquals(2, job.getRowsFailed());
+        assertEquals("Product name is required", job.getErrors().get("[2].name"));
+        assertEquals("Price must be non-negative", job.getErrors().get("[2].price"));
+        assertTrue(job.getErrors().get("[3]").startsWith("Malformed JSON"));
+        assertEquals(job.getRowsRead(), job.getRowsImported() + job.getRowsFailed());
+        assertEquals(2, importService.getJob(job.getId()).orElseThrow().getRowsFailed());
+    }
+
+    @Test
+    void whenChunkInsertFails_thenRowsAreRetriedAndOnlyOffendingRowsReported() throws Exception {
+        when(productService.createProducts(anyList())).thenAnswer(invocation -> {
+            List<Product> chunk = invocation.getArgument(0);
+            List<ProductBatchResult> results = new ArrayList<>();
+            chunk.forEach(product -> results.add(ProductBatchResult.failed("Insert failed; the chunk was rolled back")));
+            return results;
+        });
+        when(productService.createProduct(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            if ("duplicate".equals(product.getId())) {
+                throw new DataIntegrityViolationException("could not execute statement",
+                        new SQLException("Unique index or primary key violation: PRODUCT(ID)\nSQL statement: INSERT"));
+            }
+            return product;
+        });
+        String csv = "id,name,price,category,stockQuantity\nfresh,Product 1,1.0,Category,1\nduplicate,Product 2,2.0,Category,2\n";
+
+        ImportJob job = awaitDone(importProducts(stream(csv), ImportFormat.CSV));
+
+        assertEquals(1, job.getRowsImported());
+        assertEquals(1, job.getRowsFailed());
+        assertEquals("Insert failed: Unique index or primary key violation: PRODUCT(ID)", job.getErrors().get("[2]"));
+        verify(productService, times(2)).createProduct(any(Product.class));
+    }
+
+    @Test
+    void whenWritersFallBehind_thenReaderIsThrottled() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(productService.createProducts(anyList())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return created(invocation.getArgument(0));
+        });
+        StringBuilder csv = new StringBuilder("name,price,category,stockQuantity\n");
+        for (int i = 0; i < 40; i++) {
+            csv.append("Product ").append(i).append(",1.0,Category,1\n");
+        }
+
+        ImportJob job = awaitDone(importProducts(stream(csv.toString()), ImportFormat.CSV));
+
+        assertEquals(40, job.getRowsImported());
+        assertTrue(maxInFlight.get() <= 2, "at most two chunks may be committing at once");
+    }
+
+    @Test
+    void whenUploadIsUnreadable_thenJobFails() {
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+
+        ImportJob job = importProducts(broken, ImportFormat.NDJSON);
+
+        assertEquals(ImportJob.Status.FAILED, job.getStatus());
+        assertNotNull(job.getFailureMessage());
+        assertTrue(job.isDone());
+    }
+
+    @Test
+    void whenUploadIsStillArriving_thenProgressIsVisible() throws Exception {
+        when(productService.createProducts(anyList())).thenAnswer(invocation -> created(invocation.getArgument(0)));
+        PipedOutputStream upload = new PipedOutputStream();
+        PipedInputStream body = new PipedInputStream(upload);
+        ImportJob job = importService.createJob(ImportFormat.CSV);
+        Thread reader = new Thread(() -> importService.readUpload(job, body));
+        reader.start();
+
+        upload.write("name,price,category,stockQuantity\nProduct 1,1.0,Category,1\nProduct 2,2.0,Category,2\n"
+                .getBytes(StandardCharsets.UTF_8));
+        upload.flush();
+        for (int i = 0; i < 500 && job.getRowsRead() < 2; i++) {
+            Thread.sleep(10);
+        }
+
+        ImportJob inProgress = importService.getJob(job.getId()).orElseThrow();
+        assertEquals(2, inProgress.getRowsRead());
+        assertEquals(ImportJob.Status.RUNNING, inProgress.getStatus());
+        assertFalse(inProgress.isDone());
+        assertTrue(reader.isAlive(), "the reader is still waiting for the rest of the upload");
+
+        upload.write("Product 3,3.0,Category,3\n".getBytes(StandardCharsets.UTF_8));
+        upload.close();
+        reader.join(5000);
+
+        awaitDone(job);
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getRowsImported());
+    }
+
+    private ImportJob importProducts(InputStream input, ImportFormat format) {
+        ImportJob job = importService.createJob(format);
+        importService.readUpload(job, input);
+        return job;
+    }
+
+    private static List<ProductBatchResult> created(List<Product> chunk) {
+        List<ProductBatchResult> results = new ArrayList<>();
+        chunk.forEach(product -> results.add(ProductBatchResult.created(product)));
+        return results;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ImportJob awaitDone(ImportJob job) throws InterruptedException {
+        for (int i = 0; i < 500 && !job.isDone(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(job.isDone(), "import did not finish in time");
+        return job;
+    }
+}
@@ -0,0 +1,173 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapProductReplicaTest {
+
+    private final List<Product> catalog = new ArrayList<>();
+    private final OffHeapProductReplica replica = new OffHeapProductReplica(consumer -> catalog.forEach(consumer));
+
+    @AfterEach
+    void tearDown() {
+        replica.close();
+    }
+
+    @Test
+    void whenRebuilt_thenProductsAreReadFromTheReplica() {
+        catalog.add(product("a", "Café Crème", null, 3.5f, "Drinks", 12, 4));
+        catalog.add(product("b", "Tea", "Green tea", 2.0f, "Drinks", 0, 0));
+        catalog.add(product("c", "Lamp", "Desk lamp", 20f, "Home", 1, 0));
+        assertFalse(replica.isReady());
+
+        replica.rebuild();
+
+        assertTrue(replica.isReady());
+        assertEquals(3, replica.size());
+        Product read = replica.get("a").orElseThrow();
+        assertEquals("Café Crème", read.getName());
+        assertNull(read.getDescription());
+        assertEquals(3.5f, read.getPrice());
+        assertEquals("Drinks", read.getCategory());
+        assertEquals(12, read.getStockQuantity());
+        assertEquals(4L, read.getVersion());
+        assertEquals(Optional.empty(), replica.get("z"));
+        assertEquals(Map.of("b", "Tea", "c", "Lamp"), names(replica.getAll(List.of("b", "z", "c", "b"))));
+    }
+
+    @Test
+    void whenProductsChange_thenTheReplicaFollows() {
+        catalog.add(product("a", "Mug", "White", 4f, "Kitchen", 2, 0));
+        replica.rebuild();
+        Product mug = replica.get("a").orElseThrow();
+
+        replica.onProductChanged(ProductChangedEvent.created(product("b", "Pen", "Blue", 1f, "Office", 10, 0)));
+        replica.onProductChanged(ProductChangedEvent.updated(mug, product("a", "Mug", "White", 4f, "Kitchen", 1, 1)));
+        replica.onProductChanged(ProductChangedEvent.updated(mug, product("a", "Big Mug", null, 6f, "Kitchen", 1, 2)));
+
+        assertEquals(2, replica.size());
+        Product updated = replica.get("a").orElseThrow();
+        assertEquals("Big Mug", updated.getName());
+        assertNull(updated.getDescription());
+        assertEquals(2L, updated.getVersion());
+        assertEquals("Pen", replica.get("b").orElseThrow().getName());
+
+        replica.onProductChanged(ProductChangedEvent.deleted(replica.get("b").orElseThrow()));
+        assertEquals(Optional.empty(), replica.get("b"));
+        assertEquals(1, replica.size());
+    }
+
+    @Test
+    void whenChangeIsOlderThanTheReplica_thenItIsIgnored() {
+        catalog.add(product("a", "Mug", "White", 4f, "Kitchen", 2, 3));
+        replica.rebuild();
+        Product stale = product("a", "Mug", "White", 4f, "Kitchen", 9, 2);
+
+        replica.onProductChanged(ProductChangedEvent.updated(stale, stale));
+        replica.onProductChanged(ProductChangedEvent.deleted(stale));
+
+        assertEquals(2, replica.get("a").orElseThrow().getStockQuantity());
+    }
+
+    @Test
+    void whenPaging_thenProductsMatchingTheFilterAreReturnedInIdOrder() {
+        for (int i = 0; i < 10; i++) {
+            catalog.add(product(String.format("p%02d", i), "Product " + i, null, i, i % 2 == 0 ? "Even" : "Odd",
+                    i % 3, 0));
+        }
+        replica.rebuild();
+
+        ProductFilter even = new ProductFilter("Even", null, null, null);
+        assertEquals(List.of("p00", "p02", "p04"), ids(replica.page(even, null, 3)));
+        assertEquals(List.of("p06", "p08"), ids(replica.page(even, "p04", 3)));
+        assertEquals(List.of("p04", "p05", "p07"),
+                ids(replica.page(new ProductFilter(null, 3.0, 7.0, true), null, 10)));
+    }
+
+    @Test
+    void whenManyRandomChangesAreApplied_thenReplicaMatchesTheCatalog() {
+        SplittableRandom random = new SplittableRandom(42);
+        TreeMap<String, Product> expected = new TreeMap<>();
+        for (int i = 0; i < 2000; i++) {
+            Product product = product("id-" + random.nextInt(1_000_000), "Name " + i, "d".repeat(random.nextInt(50)),
+                    i, "Category " + (i % 5), i % 4, 0);
+            expected.putIfAbsent(product.getId(), product);
+        }
+        catalog.addAll(expected.values());
+        replica.rebuild();
+
+        // Enough inserts to merge the tail several times, and enough text to compact it
+        for (int i = 0; i < 4 * OffHeapProductReplica.TAIL_CAPACITY; i++) {
+            int action = random.nextInt(10);
+            if (action < 4 || expected.isEmpty()) {
+                Product product = product("id-" + random.nextInt(1_000_000), "New " + i, "n".repeat(random.nextInt(80)),
+                        random.nextInt(100), "Category " + random.nextInt(5), random.nextInt(3), 0);
+                if (expected.putIfAbsent(product.getId(), product) == null) {
+                    replica.onProductChanged(ProductChangedEvent.created(product));
+                }
+            } else {
+                Map.Entry<String, Product> entry = expected.ceilingEntry("id-" + random.nextInt(1_000_000));
+                Product current = (entry != null ? entry : expected.firstEntry()).getValue();
+                if (action < 6) {
+                    expected.remove(current.getId());
+                    replica.onProductChanged(ProductChangedEvent.deleted(current));
+                } else {
+                    Product after = product(current.getId(), action < 8 ? current.getName() : "Renamed " + i,
+                            action < 8 ? current.getDescription() : "r".repeat(random.nextInt(80)),
+                            current.getPrice(), current.getCategory(), random.nextInt(3), current.getVersion() + 1);
+                    expected.put(after.getId(), after);
+                    replica.onProductChanged(ProductChangedEvent.updated(current, after));
+                }
+            }
+        }
+
+        assertEquals(expected.size(), replica.size());
+        for (Product product : expected.values()) {
+            Product read = replica.get(product.getId()).orElseThrow();
+            assertEquals(product.getName(), read.getName());
+            assertEquals(product.getDescription(), read.getDescription());
+            assertEquals(product.getStockQuantity(), read.getStockQuantity());
+            assertEquals(product.getVersion(), read.getVersion());
+        }
+        ProductFilter filter = new ProductFilter("Category 2", null, null, true);
+        List<String> paged = new ArrayList<>();
+        List<Product> page = replica.page(filter, null, 7);
+        while (!page.isEmpty()) {
+            paged.addAll(ids(page));
+            page = replica.page(filter, page.get(page.size() - 1).getId(), 7);
+        }
+        assertEquals(expected.values().stream()
+                .filter(p -> p.getCategory().equals("Category 2") && p.getStockQuantity() > 0)
+                .map(Product::getId)
+                .toList(), paged);
+    }
+
+    private static Product product(String id, String name, String description, float price, String category,
+                                   int stock, long version) {
+        Product product = new Product(name, description, price, category, stock);
+        product.setId(id);
+        product.setVersion(version);
+        return product;
+    }
+
+    private static List<String> ids(List<Product> products) {
+        return products.stream().map(Product::getId).toList();
+    }
+
+    private static Map<String, String> names(Map<String, Product> products) {
+        Map<String, String> names = new TreeMap<>();
+        products.forEach((id, product) -> names.put(id, product.getName()));
+        return names;
+    }
+}
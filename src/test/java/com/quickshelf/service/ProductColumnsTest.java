@@ -0,0 +1,91 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductColumnsTest {
+
+    private final List<Product> catalog = new ArrayList<>();
+    private final ProductColumns columns = new ProductColumns(consumer -> catalog.forEach(consumer));
+
+    @Test
+    void whenCatalogIsEmpty_thenStatsHaveNoPrices() {
+        columns.rebuild();
+
+        ProductStats stats = columns.stats();
+
+        assertEquals(0, stats.getTotal().getCount());
+        assertNull(stats.getTotal().getMinPrice());
+        assertNull(stats.getTotal().getAveragePrice());
+        assertTrue(stats.getCategories().isEmpty());
+    }
+
+    @Test
+    void whenProductsChange_thenStatsFollow() {
+        catalog.add(product("1", 10f, "Tools", 2));
+        catalog.add(product("2", 30f, "Tools", 1));
+        catalog.add(product("3", 5f, "Garden", 10));
+        columns.rebuild();
+
+        columns.onProductChanged(ProductChangedEvent.created(product("4", 7f, "Garden", 0)));
+        columns.onProductChanged(ProductChangedEvent.updated(catalog.get(1), product("2", 40f, "Garden", 3)));
+        columns.onProductChanged(ProductChangedEvent.deleted(catalog.get(0)));
+
+        ProductStats stats = columns.stats();
+        assertEquals(3, stats.getTotal().getCount());
+        assertEquals(13, stats.getTotal().getTotalStock());
+        assertEquals(5f * 10 + 40f * 3, stats.getTotal().getInventoryValue(), 1e-9);
+        assertEquals(1, stats.getCategories().size());
+        ProductStats.Group garden = stats.getCategories().get(0);
+        assertEquals("Garden", garden.getCategory());
+        assertEquals(5f, garden.getMinPrice());
+        assertEquals(40f, garden.getMaxPrice());
+        assertEquals(52.0 / 3, garden.getAveragePrice(), 1e-9);
+    }
+
+    @Test
+    void whenCatalogSpansSeveralSegments_thenStatsMatchASequentialPass() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 3 * ProductColumns.SEGMENT_SIZE + 123; i++) {
+            catalog.add(product("p" + i, random.nextInt(10_000) / 100f, "Category " + random.nextInt(12),
+                    random.nextInt(500)));
+        }
+        columns.rebuild();
+        for (int i = 0; i < 1000; i++) {
+            Product removed = catalog.remove(random.nextInt(catalog.size()));
+            columns.onProductChanged(ProductChangedEvent.deleted(removed));
+        }
+
+        ProductStats stats = columns.stats();
+
+        assertEquals(catalog.size(), stats.getTotal().getCount());
+        assertEquals(12, stats.getCategories().size());
+        for (ProductStats.Group group : stats.getCategories()) {
+            List<Product> products = catalog.stream()
+                    .filter(p -> p.getCategory().equals(group.getCategory()))
+                    .toList();
+            assertEquals(products.size(), group.getCount());
+            assertEquals(products.stream().mapToLong(Product::getStockQuantity).sum(), group.getTotalStock());
+            assertEquals(products.stream().mapToDouble(p -> (double) p.getPrice() * p.getStockQuantity()).sum(),
+                    group.getInventoryValue(), 1e-3);
+            assertEquals(products.stream().map(Product::getPrice).min(Float::compare).orElseThrow(),
+                    group.getMinPrice());
+            assertEquals(products.stream().map(Product::getPrice).max(Float::compare).orElseThrow(),
+                    group.getMaxPrice());
+            assertEquals(products.stream().mapToDouble(Product::getPrice).average().orElseThrow(),
+                    group.getAveragePrice(), 1e-6);
+        }
+    }
+
+    private static Product product(String id, float price, String category, int stock) {
+        Product product = new Product("Product " + id, null, price, category, stock);
+        product.setId(id);
+        return product;
+    }
+}
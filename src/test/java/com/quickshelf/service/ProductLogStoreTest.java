@@ -0,0 +1,204 @@
+package com.quickshelf.service;
+
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductLogStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenProductsAreWritten_thenTheyAreReadBackAfterReopening() throws IOException {
+        Product product = new Product("Café Crème", null, 3.5f, "Drinks", 12);
+        try (ProductLogStore store = open(DataSize.ofMegabytes(1))) {
+            store.insert(List.of(product, new Product("Tea", "Green tea", 2.0f, "Drinks", 4)));
+            store.update(product.getId(), p -> p.setStockQuantity(11));
+        }
+
+        try (ProductLogStore reopened = open(DataSize.ofMegabytes(1))) {
+            Product read = reopened.get(product.getId()).orElseThrow();
+            assertEquals("Café Crème", read.getName());
+            assertNull(read.getDescription());
+            assertEquals(3.5f, read.getPrice());
+            assertEquals(11, read.getStockQuantity());
+            assertEquals(1L, read.getVersion());
+            assertEquals(2, reopened.size());
+        }
+    }
+
+    @Test
+    void whenProductIsDeleted_thenItStaysDeletedAfterReopening() throws IOException {
+        Product product = new Product("Lamp", "Desk lamp", 20f, "Home", 1);
+        try (ProductLogStore store = open(DataSize.ofMegabytes(1))) {
+            store.insert(List.of(product));
+            assertTrue(store.delete(product.getId(), p -> { }).isPresent());
+            assertTrue(store.delete(product.getId(), p -> { }).isEmpty());
+        }
+
+        try (ProductLogStore reopened = open(DataSize.ofMegabytes(1))) {
+            assertEquals(Optional.empty(), reopened.get(product.getId()));
+        }
+    }
+
+    @Test
+    void whenIdExists_thenInsertWritesNothing() throws IOException {
+        try (ProductLogStore store = open(DataSize.ofMegabytes(1))) {
+            Product existing = new Product("Pen", "Blue", 1f, "Office", 10);
+            store.insert(List.of(existing));
+            Product duplicate = new Product("Other Pen", "Red", 1f, "Office", 10);
+            duplicate.setId(existing.getId());
+
+            assertThrows(DuplicateKeyException.class,
+                    () -> store.insert(List.of(new Product("Pencil", "HB", 1f, "Office", 5), duplicate)));
+            assertEquals(1, store.size());
+            assertEquals("Pen", store.get(existing.getId()).orElseThrow().getName());
+        }
+    }
+
+    @Test
+    void whenChangeIsRejected_thenProductIsUnchanged() throws IOException {
+        try (ProductLogStore store = open(DataSize.ofMegabytes(1))) {
+            Product product = new Product("Mug", "White", 4f, "Kitchen", 2);
+            store.insert(List.of(product));
+
+            assertThrows(InsufficientStockException.class, () -> store.update(product.getId(), p -> {
+                throw new InsufficientStockException("no stock");
+            }));
+
+            assertEquals(0L, store.get(product.getId()).orElseThrow().getVersion());
+        }
+    }
+
+    @Test
+    void whenLastRecordIsTorn_thenEarlierRecordsSurviveAndWritesContinue() throws IOException {
+        Product first = new Product("First", "kept", 1f, "Test", 1);
+        Product second = new Product("Second", "torn", 1f, "Test", 1);
+        try (ProductLogStore store = open(DataSize.ofMegabytes(1))) {
+            store.insert(List.of(first));
+            store.insert(List.of(second));
+        }
+        // Damage the last byte of the second record's checksum
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int end = buffer.capacity();
+            while (buffer.get(end - 1) == 0) {
+                end--;
+            }
+            buffer.put(end - 1, (byte) (buffer.get(end - 1) ^ 0x5A));
+            buffer.force();
+        }
+
+        Product third = new Product("Third", "after recovery", 1f, "Test", 1);
+        try (ProductLogStore reopened = open(DataSize.ofMegabytes(1))) {
+            assertTrue(reopened.get(first.getId()).isPresent());
+            assertTrue(reopened.get(second.getId()).isEmpty());
+            reopened.insert(List.of(third));
+        }
+        try (ProductLogStore reopened = open(DataSize.ofMegabytes(1))) {
+            assertEquals(2, reopened.size());
+            assertTrue(reopened.get(third.getId()).isPresent());
+        }
+    }
+
+    @Test
+    void whenSegmentsAreMostlyGarbage_thenCompactionDeletesThemAndKeepsLatestVersions() throws IOException {
+        List<Product> products = new ArrayList<>();
+        try (ProductLogStore store = open(DataSize.ofKilobytes(64))) {
+            for (int i = 0; i < 200; i++) {
+                products.add(new Product("Product " + i, "x".repeat(200), 1f, "Test", i));
+            }
+            store.insert(products);
+            for (int round = 1; round <= 3; round++) {
+                int stock = round;
+                for (Product product : products.subList(0, 150)) {
+                    store.update(product.getId(), p -> p.setStockQuantity(stock));
+                }
+            }
+            for (Product product : products.subList(150, 200)) {
+                store.delete(product.getId(), p -> { });
+            }
+            int before = store.segmentCount();
+
+            store.compact();
+
+            assertTrue(store.segmentCount() < before, store.segmentCount() + " segments, " + before + " before");
+            assertEquals(150, store.size());
+        }
+
+        try (ProductLogStore reopened = open(DataSize.ofKilobytes(64))) {
+            assertEquals(150, reopened.size());
+            for (Product product : products.subList(0, 150)) {
+                Product read = reopened.get(product.getId()).orElseThrow();
+                assertEquals(3, read.getStockQuantity());
+                assertEquals(3L, read.getVersion());
+            }
+            for (Product product : products.subList(150, 200)) {
+                assertTrue(reopened.get(product.getId()).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    void whenManyThreadsReserve_thenNoUpdateIsLost() throws Exception {
+        try (ProductLogStore store = open(DataSize.ofKilobytes(64))) {
+            Product product = new Product("Flash Sale Item", "Limited", 5f, "Test", 1000);
+            store.insert(List.of(product));
+            ExecutorService pool = Executors.newFixedThreadPool(8);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < 8; t++) {
+                    futures.add(pool.submit(() -> {
+                        for (int i = 0; i < 100; i++) {
+                            store.update(product.getId(), p -> p.setStockQuantity(p.getStockQuantity() - 1));
+                            store.compact();
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+
+            Product read = store.get(product.getId()).orElseThrow();
+            assertEquals(200, read.getStockQuantity());
+            assertEquals(800L, read.getVersion());
+        }
+    }
+
+    private ProductLogStore open(DataSize segmentSize) {
+        ProductLogStore store = new ProductLogStore(directory, segmentSize, false, 0.5);
+        store.open();
+        return store;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new ProductSearchIndex(new JpaProductCatalog(productRepository, entityManager, transactionManager));
+    }
+
+    @Test
+    void whenQueryMatchesNameAndDescription_thenNameMatchRanksFirst() {
+        create("1", "Wireless Mouse", "Ergonomic mouse with long battery life");
+        create("2", "Laptop Stand", "Aluminium stand, pairs well with a wireless keyboard");
+        create("3", "Desk Lamp", "LED lamp");
+
+        List<ProductSearchIndex.Hit> hits = searchIndex.search("wireless", 10);
+
+        assertEquals(List.of("1", "2"), ids(hits));
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+    }
+
+    @Test
+    void whenQueryHasRareAndCommonTerms_thenRareTermWeighsMore() {
+        create("1", "Blue Shirt", "Cotton shirt");
+        create("2", "Red Shirt", "Cotton shirt");
+        create("3", "Green Shirt", "Linen shirt");
+
+        List<ProductSearchIndex.Hit> hits = searchIndex.search("Linen COTTON", 10);
+
+        assertEquals("3", hits.get(0).getProductId());
+        assertEquals(3, hits.size());
+    }
+
+    @Test
+    void whenLimitIsSmallerThanMatches_thenReturnOnlyTheBest() {
+        create("1", "Coffee", "coffee");
+        create("2", "Coffee Coffee", "coffee coffee coffee");
+        create("3", "Tea", "coffee");
+
+        List<ProductSearchIndex.Hit> hits = searchIndex.search("coffee", 1);
+
+        assertEquals(List.of("2"), ids(hits));
+    }
+
+    @Test
+    void whenTopHitsArePruned_thenTheyMatchTheFullRanking() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int w = 0; w < 12; w++) {
+                double u = random.nextDouble();
+                text.append("t").append((int) (u * u * 300)).append(' ');
+            }
+            create("p" + i, "t" + random.nextInt(300), text.toString());
+        }
+
+        for (String query : List.of("t0 t150", "t1 t2 t299", "t5")) {
+            // A limit above the number of matches never fills the heap, so nothing is pruned
+            List<ProductSearchIndex.Hit> full = searchIndex.search(query, 10_000);
+            List<ProductSearchIndex.Hit> top = searchIndex.search(query, 10);
+
+            assertEquals(ids(full.subList(0, 10)), ids(top), query);
+        }
+    }
+
+    @Test
+    void whenProductUpdatedOrDeleted_thenIndexFollows() {
+        Product product = create("1", "Old Name", "Old description");
+        Product renamed = new Product("New Name", "New description", 1.0f, "Category", 1);
+        renamed.setId("1");
+
+        searchIndex.onProductChanged(ProductChangedEvent.updated(product, renamed));
+
+        assertTrue(searchIndex.search("old", 10).isEmpty());
+        assertEquals(List.of("1"), ids(searchIndex.search("new", 10)));
+        assertEquals(1, searchIndex.size());
+
+        searchIndex.onProductChanged(ProductChangedEvent.deleted(renamed));
+
+        assertTrue(searchIndex.search("new", 10).isEmpty());
+        assertEquals(0, searchIndex.size());
+    }
+
+    @Test
+    void whenOnlyStockChanges_thenIndexIsLeftAlone() {
+        Product product = create("1", "Desk Lamp", "LED lamp");
+        Product restocked = ProductChangedEvent.snapshot(product);
+        restocked.setStockQuantity(40);
+
+        searchIndex.onProductChanged(ProductChangedEvent.updated(product, restocked));
+
+        assertEquals(List.of("1"), ids(searchIndex.search("lamp", 10)));
+        assertEquals(1, searchIndex.size());
+    }
+
+    @Test
+    void whenManyProductsChurn_thenCompactedIndexStillAnswersCorrectly() {
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 2000; i++) {
+                create("p" + i, "Product " + i + " round" + round, "Shared text");
+            }
+        }
+
+        assertEquals(2000, searchIndex.size());
+        assertTrue(searchIndex.search("round0 round1", 10).isEmpty());
+        assertEquals(List.of("p1234"), ids(searchIndex.search("1234", 10)));
+        assertEquals(10, searchIndex.search("round2", 10).size());
+    }
+
+    @Test
+    void whenRebuilt_thenIndexHoldsTheDatabaseContents() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 25_000; i++) {
+            Product product = new Product("Product " + i, i % 2 == 0 ? "even" : "odd", 1.0f, "Category", 1);
+            product.setId("p" + i);
+            products.add(product);
+        }
+        when(productRepository.streamAllByOrderByIdAsc()).thenReturn(products.stream());
+        create("stale", "Stale", "Removed from the database");
+
+        searchIndex.rebuild();
+
+        assertEquals(25_000, searchIndex.size());
+        assertTrue(searchIndex.search("stale", 10).isEmpty());
+        assertEquals(List.of("p24999"), ids(searchIndex.search("24999", 10)));
+        assertEquals(10, searchIndex.search("odd", 10).size());
+        verify(entityManager, times(25_000)).detach(any(Product.class));
+    }
+
+    @Test
+    void whenQueryHasNoTerms_thenReturnNothing() {
+        create("1", "Product", "Description");
+
+        assertTrue(searchIndex.search("  --  ", 10).isEmpty());
+        assertTrue(searchIndex.search("unknown", 10).isEmpty());
+        when(productRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.empty());
+        searchIndex.rebuild();
+        assertTrue(searchIndex.search("product", 10).isEmpty());
+    }
+
+    private Product create(String id, String name, String description) {
+        Product product = new Product(name, description, 1.0f, "Category", 1);
+        product.setId(id);
+        searchIndex.onProductChanged(ProductChangedEvent.created(product));
+        return product;
+    }
+
+    private static List<String> ids(List<ProductSearchIndex.Hit> hits) {
+        return hits.stream().map(ProductSearchIndex.Hit::getProductId).toList();
+    }
+}
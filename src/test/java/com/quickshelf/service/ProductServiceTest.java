@@ -1,21 +1,45 @@
 package com.quickshelf.service;
 
+import com.quickshelf.exception.InsufficientStockException;
+import com.quickshelf.exception.PreconditionFailedException;
 import com.quickshelf.exception.ResourceNotFoundException;
 import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductFilter;
+import com.quickshelf.repository.ProductPatch;
 import com.quickshelf.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +48,21 @@ class ProductServiceTest {
     @Mock
     private ProductRepository productRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private ProductSuggestIndex suggestIndex;
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -44,6 +83,42 @@ class ProductServiceTest {
         assertNotNull(created);
         assertEquals("Test Product", created.getName());
         verify(productRepository).save(any(Product.class));
+        verify(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void whenCreateProducts_thenInsertInChunkedTransactions() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ProductServiceImpl.BATCH_CHUNK_SIZE + 1; i++) {
+            products.add(new Product("Product " + i, "Description", 1.0f, "Category", 1));
+        }
+
+        List<ProductBatchResult> results = productService.createProducts(products);
+
+        assertEquals(products.size(), results.size());
+        assertTrue(results.stream().allMatch(ProductBatchResult::isCreated));
+        verify(transactionManager, times(2)).getTransaction(any());
+        verify(transactionManager, times(2)).commit(any());
+        verify(productRepository, times(2)).saveAll(anyList());
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    void whenChunkFails_thenOnlyThatChunkIsReportedFailed() {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < ProductServiceImpl.BATCH_CHUNK_SIZE + 1; i++) {
+            products.add(new Product("Product " + i, "Description", 1.0f, "Category", 1));
+        }
+        when(productRepository.saveAll(anyList()))
+                .thenReturn(List.of())
+                .thenThrow(new DataIntegrityViolationException("duplicate id"));
+
+        List<ProductBatchResult> results = productService.createProducts(products);
+
+        assertTrue(results.get(0).isCreated());
+        assertFalse(results.get(products.size() - 1).isCreated());
+        assertNotNull(results.get(products.size() - 1).getError());
+        verify(transactionManager).rollback(any());
     }
 
     @Test
@@ -56,6 +131,53 @@ class ProductServiceTest {
         verify(productRepository).findAll();
     }
 
+    @Test
+    void whenGetFirstProductsPage_thenReadFromStartOfIndex() {
+        when(productRepository.findAllByOrderByIdAsc(Limit.of(10))).thenReturn(Arrays.asList(product));
+
+        List<Product> products = productService.getProductsPage(ProductFilter.none(), null, 10);
+
+        assertEquals(1, products.size());
+        verify(productRepository).findAllByOrderByIdAsc(Limit.of(10));
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void whenGetNextProductsPage_thenSeekPastCursor() {
+        when(productRepository.findByIdGreaterThanOrderByIdAsc("a-id", Limit.of(10))).thenReturn(Arrays.asList(product));
+
+        List<Product> products = productService.getProductsPage(ProductFilter.none(), "a-id", 10);
+
+        assertEquals(1, products.size());
+        verify(productRepository).findByIdGreaterThanOrderByIdAsc("a-id", Limit.of(10));
+    }
+
+    @Test
+    void whenGetFilteredProductsPage_thenQueryBySpecification() {
+        ProductFilter filter = new ProductFilter("Test Category", null, 50.0, true);
+        when(productRepository.findBy(any(Specification.class), any())).thenReturn(Arrays.asList(product));
+
+        List<Product> products = productService.getProductsPage(filter, "a-id", 10);
+
+        assertEquals(1, products.size());
+        verify(productRepository).findBy(any(Specification.class), any());
+        verify(productRepository, never()).findByIdGreaterThanOrderByIdAsc(any(), any());
+    }
+
+    @Test
+    void whenExportProducts_thenEachProductIsConsumedAndDetached() {
+        Product second = new Product("Second Product", "Second Description", 20.0f, "Test Category", 3);
+        when(productRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(product, second));
+
+        List<Product> exported = new ArrayList<>();
+        productService.exportProducts(exported::add);
+
+        assertEquals(Arrays.asList(product, second), exported);
+        verify(entityManager).detach(product);
+        verify(entityManager).detach(second);
+        verify(productRepository, never()).findAll();
+    }
+
     @Test
     void whenGetProductById_thenReturnProduct() {
         when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
@@ -67,6 +189,135 @@ class ProductServiceTest {
         verify(productRepository).findById("test-id");
     }
 
+    @Test
+    void whenConcurrentLookupsOfSameProduct_thenOnlyOneQueryRuns() throws Exception {
+        int callers = 32;
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        when(productRepository.findById("test-id")).thenAnswer(invocation -> {
+            queries.incrementAndGet();
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS);
+            return Optional.of(product);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<Optional<Product>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> productService.getProductById("test-id")));
+            assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> productService.getProductById("test-id")));
+            }
+            // Give the followers time to join the in-flight query before it completes
+            Thread.sleep(200);
+            releaseQuery.countDown();
+
+            assertSame(product, results.get(0).get(5, TimeUnit.SECONDS).orElseThrow());
+            List<Product> copies = new ArrayList<>();
+            for (Future<Optional<Product>> result : results.subList(1, callers)) {
+                Product copy = result.get(5, TimeUnit.SECONDS).orElseThrow();
+                assertNotSame(product, copy);
+                assertEquals(product.getName(), copy.getName());
+                assertEquals(product.getVersion(), copy.getVersion());
+                assertTrue(copies.stream().noneMatch(other -> other == copy));
+                copies.add(copy);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, queries.get());
+        verify(productRepository, times(1)).findById("test-id");
+    }
+
+    @Test
+    void whenProductChangesDuringLookup_thenLaterCallersQueryAgain() throws Exception {
+        Product updated = ProductChangedEvent.snapshot(product);
+        updated.setName("Updated Product");
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(productRepository.findById("test-id")).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS);
+            return Optional.of(product);
+        }).thenReturn(Optional.of(updated));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Product>> before = executor.submit(() -> productService.getProductById("test-id"));
+            assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+            productService.onProductChanged(ProductChangedEvent.updated(product, updated));
+
+            Future<Optional<Product>> after = executor.submit(() -> productService.getProductById("test-id"));
+            assertEquals("Updated Product", after.get(5, TimeUnit.SECONDS).orElseThrow().getName());
+            releaseQuery.countDown();
+            assertSame(product, before.get(5, TimeUnit.SECONDS).orElseThrow());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(productRepository, times(2)).findById("test-id");
+    }
+
+    @Test
+    void whenSharedLookupFails_thenEveryCallerSeesTheError() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(productRepository.findById("test-id")).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            releaseQuery.await(5, TimeUnit.SECONDS);
+            throw new IllegalStateException("database unavailable");
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Optional<Product>> leader = executor.submit(() -> productService.getProductById("test-id"));
+            assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+            Future<Optional<Product>> follower = executor.submit(() -> productService.getProductById("test-id"));
+            Thread.sleep(100);
+            releaseQuery.countDown();
+
+            ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+            ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+            assertInstanceOf(IllegalStateException.class, followerError.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(productRepository, times(1)).findById("test-id");
+    }
+
+    @Test
+    void whenLookupCompleted_thenNextLookupQueriesAgain() {
+        when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
+
+        productService.getProductById("test-id");
+        productService.getProductById("test-id");
+
+        verify(productRepository, times(2)).findById("test-id");
+    }
+
+    @Test
+    void whenGetProductsByIds_thenQueryDistinctIdsInChunks() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < ProductServiceImpl.LOOKUP_CHUNK_SIZE * 2 + 10; i++) {
+            ids.add("id-" + i);
+        }
+        ids.add("test-id");
+        ids.add("test-id");
+        when(productRepository.findAllById(anyList())).thenReturn(List.of());
+        when(productRepository.findAllById(argThat((List<String> chunk) -> chunk.contains("test-id"))))
+                .thenReturn(List.of(product));
+
+        Map<String, Product> products = productService.getProductsByIds(ids);
+
+        assertEquals(Map.of("test-id", product), products);
+        ArgumentCaptor<List<String>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(productRepository, times(3)).findAllById(chunks.capture());
+        assertEquals(List.of(ProductServiceImpl.LOOKUP_CHUNK_SIZE, ProductServiceImpl.LOOKUP_CHUNK_SIZE, 11),
+                chunks.getAllValues().stream().map(List::size).toList());
+    }
+
     @Test
     void whenUpdateProduct_thenReturnUpdatedProduct() {
         Product updatedProduct = new Product("Updated Product", "Updated Description", 20.0f, "Updated Category", 10);
@@ -83,6 +334,12 @@ class ProductServiceTest {
         assertEquals(10, result.getStockQuantity());
         verify(productRepository).findById("test-id");
         verify(productRepository).save(any(Product.class));
+
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(ProductChangedEvent.Type.UPDATED, event.getValue().getType());
+        assertEquals("Test Product", event.getValue().getBefore().getName());
+        assertEquals("Updated Product", event.getValue().getAfter().getName());
     }
 
     @Test
@@ -98,25 +355,205 @@ class ProductServiceTest {
     }
 
     @Test
-    void whenDeleteProduct_thenReturnTrue() {
+    void whenUpdateProductWithStaleVersion_thenThrowPreconditionFailedWithoutSaving() {
+        product.setVersion(3L);
+        when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
+
+        PreconditionFailedException ex = assertThrows(PreconditionFailedException.class,
+                () -> productService.updateProduct("test-id", product, 2L));
+
+        assertEquals("Product 'test-id' is at version 3, not 2", ex.getMessage());
+        verify(productRepository, never()).save(any(Product.class));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void whenConditionalUpdateLosesRace_thenThrowPreconditionFailed() {
+        product.setVersion(3L);
+        when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
+        when(productRepository.save(any(Product.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Product.class, "test-id"));
+
+        assertThrows(PreconditionFailedException.class, () -> productService.updateProduct("test-id", product, 3L));
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> productService.updateProduct("test-id", product));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void whenReserveStock_thenSingleUpdateAndEventWithPreviousStock() {
+        product.setStockQuantity(3);
+        when(productRepository.reserveStock("test-id", 2)).thenReturn(Optional.of(product));
+
+        Product result = productService.reserveStock("test-id", 2);
+
+        assertEquals(3, result.getStockQuantity());
+        verify(productRepository, never()).findById(any());
+        verify(productRepository, never()).save(any(Product.class));
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(5, event.getValue().getBefore().getStockQuantity());
+        assertEquals(3, event.getValue().getAfter().getStockQuantity());
+    }
+
+    @Test
+    void whenReserveMoreThanInStock_thenThrowConflictWithAvailableQuantity() {
+        when(productRepository.reserveStock("test-id", 6)).thenReturn(Optional.empty());
+        when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
+
+        InsufficientStockException ex = assertThrows(InsufficientStockException.class,
+                () -> productService.reserveStock("test-id", 6));
+
+        assertTrue(ex.getMessage().contains("available 5"));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void whenReserveOrReleaseMissingProduct_thenThrowNotFound() {
+        when(productRepository.reserveStock("invalid-id", 1)).thenReturn(Optional.empty());
+        when(productRepository.releaseStock("invalid-id", 1)).thenReturn(Optional.empty());
+        when(productRepository.findById("invalid-id")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> productService.reserveStock("invalid-id", 1));
+        assertThrows(ResourceNotFoundException.class, () -> productService.releaseStock("invalid-id", 1));
+    }
+
+    @Test
+    void whenReleaseStock_thenSingleUpdate() {
+        product.setStockQuantity(8);
+        when(productRepository.releaseStock("test-id", 3)).thenReturn(Optional.of(product));
+
+        assertEquals(8, productService.releaseStock("test-id", 3).getStockQuantity());
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void whenStockLedgerIsEnabled_thenStockChangesGoToItAndUpdatesResetIt() {
+        StockLedger stockLedger = mock(StockLedger.class);
+        ProductServiceImpl ledgerService = new ProductServiceImpl(productRepository, entityManager, transactionManager,
+                eventPublisher, searchIndex, suggestIndex, stockLedger);
+        when(stockLedger.reserve("test-id", 2)).thenReturn(product);
         when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
-        doNothing().when(productRepository).delete(any(Product.class));
+        when(productRepository.save(any(Product.class))).thenReturn(product);
+
+        assertSame(product, ledgerService.reserveStock("test-id", 2));
+        ledgerService.updateProduct("test-id", product);
+
+        verify(productRepository, never()).reserveStock(any(), anyInt());
+        verify(stockLedger).forget("test-id");
+    }
+
+    @Test
+    void whenPatchProduct_thenSingleUpdateAndEventWithPreviousState() {
+        product.setVersion(3L);
+        ProductPatch patch = new ProductPatch().setPrice(12.5f).setDescription(null);
+        when(productRepository.patch("test-id", patch, null)).thenReturn(Optional.of(product));
+
+        Product result = productService.patchProduct("test-id", patch);
+
+        assertEquals(12.5f, result.getPrice());
+        assertNull(result.getDescription());
+        assertEquals("Test Product", result.getName());
+        assertEquals(4L, result.getVersion());
+        verify(productRepository, never()).findById(any());
+        verify(productRepository, never()).save(any(Product.class));
+
+        ArgumentCaptor<ProductChangedEvent> event = ArgumentCaptor.forClass(ProductChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("Test Description", event.getValue().getBefore().getDescription());
+        assertEquals(12.5f, event.getValue().getAfter().getPrice());
+    }
+
+    @Test
+    void whenPatchIsRejected_thenReadProductToExplainWhy() {
+        product.setVersion(3L);
+        ProductPatch patch = new ProductPatch().setName("Renamed");
+        when(productRepository.patch("test-id", patch, 2L)).thenReturn(Optional.empty());
+        when(productRepository.patch("invalid-id", patch, null)).thenReturn(Optional.empty());
+        when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
+
+        assertThrows(PreconditionFailedException.class, () -> productService.patchProduct("test-id", patch, 2L));
+        assertThrows(ResourceNotFoundException.class, () -> productService.patchProduct("invalid-id", patch));
+        verify(productRepository, never()).findById("invalid-id");
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void whenPatchIsEmpty_thenReturnProductWithoutUpdating() {
+        when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
+
+        assertSame(product, productService.patchProduct("test-id", new ProductPatch()));
+        verify(productRepository, never()).patch(any(), any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void whenDeleteProduct_thenSingleDeleteAndReturnTrue() {
+        when(productRepository.deleteAndReturn("test-id")).thenReturn(Optional.of(product));
 
         boolean result = productService.deleteProduct("test-id");
 
         assertTrue(result);
-        verify(productRepository).findById("test-id");
-        verify(productRepository).delete(any(Product.class));
+        verify(productRepository, never()).findById(any());
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof ProductChangedEvent changed
+                && changed.getType() == ProductChangedEvent.Type.DELETED
+                && changed.getProductId().equals("test-id")));
+    }
+
+    @Test
+    void whenDeleteProductWithStaleVersion_thenThrowPreconditionFailed() {
+        product.setVersion(3L);
+        when(productRepository.deleteAndReturn("test-id", 1L)).thenReturn(Optional.empty());
+        when(productRepository.deleteAndReturn("test-id", 3L)).thenReturn(Optional.of(product));
+        when(productRepository.findById("test-id")).thenReturn(Optional.of(product));
+
+        assertThrows(PreconditionFailedException.class, () -> productService.deleteProduct("test-id", 1L));
+        assertTrue(productService.deleteProduct("test-id", 3L));
     }
 
     @Test
     void whenDeleteProductWithInvalidId_thenReturnFalse() {
-        when(productRepository.findById("invalid-id")).thenReturn(Optional.empty());
+        when(productRepository.deleteAndReturn("invalid-id")).thenReturn(Optional.empty());
 
         boolean result = productService.deleteProduct("invalid-id");
 
         assertFalse(result);
-        verify(productRepository).findById("invalid-id");
-        verify(productRepository, never()).delete(any(Product.class));
+        verify(productRepository, never()).findById(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void whenSearchProducts_thenLoadHitsInRankOrder() {
+        Product second = new Product("Second Product", "Second Description", 20.0f, "Test Category", 3);
+        second.setId("second-id");
+        when(searchIndex.search("product", 10)).thenReturn(List.of(
+                new ProductSearchIndex.Hit("second-id", 2.0f),
+                new ProductSearchIndex.Hit("deleted-id", 1.5f),
+                new ProductSearchIndex.Hit("test-id", 1.0f)));
+        when(productRepository.findAllById(List.of("second-id", "deleted-id", "test-id")))
+                .thenReturn(Arrays.asList(product, second));
+
+        List<ProductSearchResult> results = productService.searchProducts("product", 10);
+
+        assertEquals(List.of("second-id", "test-id"), results.stream().map(r -> r.getProduct().getId()).toList());
+        assertEquals(2.0f, results.get(0).getScore());
+    }
+
+    @Test
+    void whenSuggestProducts_thenAnswerFromIndexWithoutDatabase() {
+        when(suggestIndex.suggest("tes", 5)).thenReturn(List.of(new ProductSuggestion("test-id", "Test Product", 5)));
+
+        List<ProductSuggestion> suggestions = productService.suggestProducts("tes", 5);
+
+        assertEquals("test-id", suggestions.get(0).getId());
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void whenSearchHasNoHits_thenDatabaseIsNotQueried() {
+        when(searchIndex.search("nothing", 10)).thenReturn(List.of());
+
+        assertTrue(productService.searchProducts("nothing", 10).isEmpty());
+        verifyNoInteractions(productRepository);
     }
 }
\ No newline at end of file
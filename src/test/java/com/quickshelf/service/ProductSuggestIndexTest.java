@@ -0,0 +1,153 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSuggestIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ProductSuggestIndex suggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        suggestIndex = new ProductSuggestIndex(new JpaProductCatalog(productRepository, entityManager, transactionManager));
+    }
+
+    @Test
+    void whenPrefixMatches_thenReturnHighestStockFirst() {
+        create("1", "Wireless Mouse", 5);
+        create("2", "Wireless Keyboard", 50);
+        create("3", "Wired Headphones", 20);
+        create("4", "Desk Lamp", 100);
+
+        List<ProductSuggestion> suggestions = suggestIndex.suggest("wir", 10);
+
+        assertEquals(List.of("2", "3", "1"), ids(suggestions));
+        assertEquals("Wireless Keyboard", suggestions.get(0).getName());
+        assertEquals(50, suggestions.get(0).getStockQuantity());
+    }
+
+    @Test
+    void whenPrefixMatchesLaterWord_thenProductIsSuggestedOnce() {
+        create("1", "Wireless Mouse", 5);
+        create("2", "Mouse Mouse Pad", 8);
+
+        assertEquals(List.of("2", "1"), ids(suggestIndex.suggest("MOU", 10)));
+        assertEquals(List.of("1"), ids(suggestIndex.suggest("wireless  m", 10)));
+        assertTrue(suggestIndex.suggest("ouse", 10).isEmpty());
+    }
+
+    @Test
+    void whenLimitIsReached_thenStopAtTheBest() {
+        for (int i = 0; i < 100; i++) {
+            create("p" + i, "Item " + i, i);
+        }
+
+        assertEquals(List.of("p99", "p98", "p97"), ids(suggestIndex.suggest("item", 3)));
+        assertEquals(List.of("p19", "p18", "p17"), ids(suggestIndex.suggest("item 1", 3)));
+    }
+
+    @Test
+    void whenProductRenamedRestockedOrDeleted_thenSuggestionsFollow() {
+        Product product = create("1", "Old Name", 1);
+        create("2", "Nice Product", 10);
+        Product renamed = new Product("New Name", "Description", 1.0f, "Category", 100);
+        renamed.setId("1");
+
+        suggestIndex.onProductChanged(ProductChangedEvent.updated(product, renamed));
+
+        assertTrue(suggestIndex.suggest("old", 10).isEmpty());
+        assertEquals(List.of("1"), ids(suggestIndex.suggest("new", 10)));
+        assertEquals(List.of("1", "2"), ids(suggestIndex.suggest("n", 10)));
+
+        suggestIndex.onProductChanged(ProductChangedEvent.deleted(renamed));
+
+        assertTrue(suggestIndex.suggest("new", 10).isEmpty());
+        assertEquals(List.of("2"), ids(suggestIndex.suggest("n", 10)));
+        assertEquals(1, suggestIndex.size());
+    }
+
+    @Test
+    void whenRandomProductsAddedAndRemoved_thenSuggestionsMatchALinearScan() {
+        SplittableRandom random = new SplittableRandom(3);
+        List<Product> live = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Product product = create("p" + i, word(random) + " " + word(random), i);
+            live.add(product);
+        }
+        for (int i = 0; i < 1000; i++) {
+            Product removed = live.remove(random.nextInt(live.size()));
+            suggestIndex.onProductChanged(ProductChangedEvent.deleted(removed));
+        }
+
+        for (String prefix : List.of("a", "ab", "ba", "c", "ca b", "zz")) {
+            List<String> expected = live.stream()
+                    .filter(p -> ProductSuggestIndex.keys(p.getName()).stream().anyMatch(k -> k.startsWith(prefix)))
+                    .sorted(Comparator.comparingInt(Product::getStockQuantity).reversed())
+                    .limit(10)
+                    .map(Product::getId)
+                    .toList();
+
+            assertEquals(expected, ids(suggestIndex.suggest(prefix, 10)), prefix);
+        }
+        assertEquals(2000, suggestIndex.size());
+    }
+
+    @Test
+    void whenRebuilt_thenTrieHoldsTheDatabaseContents() {
+        Product product = new Product("Desk Lamp", "Description", 1.0f, "Category", 3);
+        product.setId("db");
+        when(productRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(product));
+        create("stale", "Desk Chair", 10);
+
+        suggestIndex.rebuild();
+
+        assertEquals(List.of("db"), ids(suggestIndex.suggest("desk", 10)));
+        verify(entityManager).detach(product);
+    }
+
+    private Product create(String id, String name, int stock) {
+        Product product = new Product(name, "Description", 1.0f, "Category", stock);
+        product.setId(id);
+        suggestIndex.onProductChanged(ProductChangedEvent.created(product));
+        return product;
+    }
+
+    private static String word(SplittableRandom random) {
+        StringBuilder word = new StringBuilder();
+        int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            word.append((char) ('a' + random.nextInt(3)));
+        }
+        return word.toString();
+    }
+
+    private static List<String> ids(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getId).toList();
+    }
+}
@@ -0,0 +1,108 @@
+package com.quickshelf.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockCounterTest {
+
+    @Test
+    void whenTakingAndPutting_thenStockStaysWithinBounds() {
+        StockCounter counter = new StockCounter(5);
+
+        assertTrue(counter.take(3));
+        assertFalse(counter.take(3));
+        assertEquals(2, counter.available());
+        assertTrue(counter.put(Integer.MAX_VALUE - 2));
+        assertFalse(counter.put(1));
+        assertEquals(Integer.MAX_VALUE, counter.available());
+    }
+
+    @Test
+    void whenManyThreadsTakeConcurrently_thenNeverMoreThanTheStockIsTaken() throws Exception {
+        StockCounter counter = new StockCounter(10_000);
+        AtomicInteger taken = new AtomicInteger();
+
+        runConcurrently(64, () -> {
+            for (int i = 0; i < 500; i++) {
+                if (counter.take(1)) {
+                    taken.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(10_000, taken.get());
+        assertEquals(0, counter.available());
+        assertFalse(counter.take(1));
+    }
+
+    @Test
+    void whenStripedCounterIsNearlyEmpty_thenAnyThreadCanTakeTheLastUnits() throws Exception {
+        StockCounter counter = new StockCounter(1_000_000);
+        counter.stripe();
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 1_000; i++) {
+                assertTrue(counter.take(1));
+            }
+        });
+        assertEquals(992_000, counter.available());
+        assertTrue(counter.take(992_000 - 3));
+
+        // Three units are left, spread over at most three cells; a request for all three must still succeed
+        assertTrue(counter.isStriped());
+        assertTrue(counter.take(3));
+        assertEquals(0, counter.available());
+    }
+
+    @Test
+    void whenTakesAndPutsInterleave_thenNoUnitIsLostOrCreated() throws Exception {
+        StockCounter counter = new StockCounter(1_000);
+        AtomicInteger net = new AtomicInteger();
+
+        runConcurrently(32, () -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 2_000; i++) {
+                int quantity = 1 + random.nextInt(5);
+                if (random.nextInt(3) == 0) {
+                    assertTrue(counter.put(quantity));
+                    net.addAndGet(quantity);
+                } else if (counter.take(quantity)) {
+                    net.addAndGet(-quantity);
+                }
+            }
+        });
+
+        assertEquals(1_000 + net.get(), counter.available());
+    }
+
+    private static void runConcurrently(int threads, Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.quickshelf.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void whenRecordsAreSynced_thenTheyAreReadBackInOrder() throws IOException {
+        UUID id = UUID.randomUUID();
+        try (StockJournal journal = new StockJournal(directory, true)) {
+            journal.start(id, 0);
+            journal.append("p1", -2);
+            long last = journal.append("pé", 5);
+            journal.sync(last);
+        }
+
+        StockJournal reopened = new StockJournal(directory, true);
+
+        assertEquals(id, reopened.readId());
+        assertEquals(List.of(new StockJournal.Entry(1, "p1", -2), new StockJournal.Entry(2, "pé", 5)),
+                reopened.read());
+    }
+
+    @Test
+    void whenLastRecordIsTorn_thenReadingStopsBeforeIt() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, true)) {
+            journal.start(UUID.randomUUID(), 0);
+            journal.sync(journal.append("p1", -1));
+            journal.sync(journal.append("p2", -1));
+        }
+        Path segment = segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 3);
+        }
+
+        assertEquals(List.of(new StockJournal.Entry(1, "p1", -1)), new StockJournal(directory, true).read());
+    }
+
+    @Test
+    void whenManyThreadsSync_thenEveryRecordIsDurableOnce() throws Exception {
+        StockJournal journal = new StockJournal(directory, false);
+        journal.start(UUID.randomUUID(), 0);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                futures.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        journal.sync(journal.append("product", -1));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+            journal.close();
+        }
+
+        List<StockJournal.Entry> entries = new StockJournal(directory, false).read();
+        assertEquals(8_000, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1, entries.get(i).sequence());
+        }
+    }
+
+    @Test
+    void whenCheckpointCoversClosedSegments_thenTheyAreDeleted() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, false, 200)) {
+            journal.start(UUID.randomUUID(), 0);
+            for (int i = 0; i < 30; i++) {
+                journal.sync(journal.append("product-" + i, -1));
+            }
+            int segments = journal.segmentCount();
+            assertTrue(segments > 2);
+
+            journal.truncate(10);
+            assertTrue(journal.segmentCount() < segments);
+            assertTrue(journal.read().get(0).sequence() <= 11);
+
+            journal.truncate(30);
+            assertEquals(1, journal.segmentCount());
+        }
+    }
+
+    @Test
+    void whenStarted_thenPreviousSegmentsAreRemoved() throws IOException {
+        try (StockJournal journal = new StockJournal(directory, false)) {
+            journal.start(UUID.randomUUID(), 0);
+            journal.sync(journal.append("old", -1));
+        }
+        UUID id = UUID.randomUUID();
+
+        try (StockJournal journal = new StockJournal(directory, false)) {
+            journal.start(id, 0);
+
+            assertEquals(id, journal.readId());
+            assertTrue(journal.read().isEmpty());
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.quickshelf.service;
+
+import com.quickshelf.model.Product;
+import com.quickshelf.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the ledger over a journal that can be made to fail, with the database mocked out.
+ */
+@ExtendWith(MockitoExtension.class)
+class StockLedgerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private StockJournal journal;
+
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        stockLedger = new StockLedger(productRepository, jdbcTemplate, transactionManager, eventPublisher, journal);
+        Product product = new Product("Flash Sale Item", "Test Description", 5.0f, "Test Category", 10);
+        product.setId("p1");
+        when(productRepository.findById("p1")).thenReturn(Optional.of(product));
+    }
+
+    @Test
+    void whenReservationCannotBeJournaled_thenStockIsPutBackAndNotFlushed() {
+        when(journal.append(eq("p1"), anyInt())).thenReturn(1L, 2L);
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(journal).sync(1L);
+
+        assertThrows(UncheckedIOException.class, () -> stockLedger.reserve("p1", 4));
+
+        assertEquals(7, stockLedger.reserve("p1", 3).getStockQuantity());
+        assertEquals(List.of(-3L), flushedChanges());
+    }
+
+    @Test
+    void whenReleaseCannotBeJournaled_thenStockIsUnchangedAndNotFlushed() {
+        when(journal.append(eq("p1"), anyInt())).thenReturn(1L, 2L, 3L);
+        doThrow(new UncheckedIOException(new IOException("disk full"))).when(journal).sync(2L);
+
+        assertEquals(6, stockLedger.reserve("p1", 4).getStockQuantity());
+        assertThrows(UncheckedIOException.class, () -> stockLedger.release("p1", 4));
+
+        assertEquals(0, stockLedger.reserve("p1", 6).getStockQuantity());
+        assertEquals(List.of(-10L), flushedChanges());
+    }
+
+    /**
+     * Flushes the ledger and returns the stock change written for the product.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Long> flushedChanges() {
+        when(journal.getId()).thenReturn(UUID.randomUUID());
+        when(jdbcTemplate.update(anyString(), any(), any())).thenReturn(1);
+        ArgumentCaptor<List<Object[]>> arguments = ArgumentCaptor.forClass(List.class);
+
+        stockLedger.flush();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), arguments.capture());
+        return arguments.getValue().stream()
+                .filter(row -> "p1".equals(row[1]))
+                .map(row -> (Long) row[0])
+                .toList();
+    }
+}